@@ -0,0 +1,45 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.network.ServerAnnouncer;
+import com.mycompany.datacomprojectTwo.server.RoomManager;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class runs an authoritative pong server without a window.
+ * It does not start the JavaFX toolkit nor the FXGL engine: every match
+ * is a slot of a MatchState block stepped by a room of the RoomManager, and
+ * the state is sent with the same binary messages as PongServer (see
+ * PongProtocol), so the regular PongApp client can join without any change.
+ * Clients are paired in the order they connect: the first of a pair gets
+ * the left bat and the second the right bat. The server announces itself
+ * on the LAN (see ServerAnnouncer) so the clients list it.
+ */
+public class HeadlessPongServer {
+
+    // Logger for the announcement errors
+    private static final Logger LOGGER = Logger.getLogger(HeadlessPongServer.class.getName());
+
+    private HeadlessPongServer() {}
+
+    /**
+     * Start a headless server.
+     * @param args optional port (default PORT) and number of room workers
+     * (default one per core)
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : PORT;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        RoomManager manager = new RoomManager(workers);
+        manager.listen(port);
+        try {
+            manager.announce(SERVER_NAME != null ? SERVER_NAME : ServerAnnouncer.defaultName());
+        } catch (IOException ex) {
+            // Still reachable by its address
+            LOGGER.log(Level.WARNING, "Cannot announce the server", ex);
+        }
+    }
+}
@@ -1,27 +1,22 @@
 package com.mycompany.datacomprojectTwo;
 
-import com.almasb.fxgl.animation.Interpolators;
 import com.almasb.fxgl.app.GameApplication;
 import static com.almasb.fxgl.app.GameApplication.launch;
 import com.almasb.fxgl.app.GameSettings;
 import com.almasb.fxgl.app.scene.FXGLMenu;
 import com.almasb.fxgl.app.scene.SceneFactory;
-import com.almasb.fxgl.core.math.FXGLMath;
 import com.almasb.fxgl.core.serialization.Bundle;
-import com.almasb.fxgl.entity.Entity;
-import com.almasb.fxgl.multiplayer.MultiplayerService;
 import static com.almasb.fxgl.dsl.FXGL.*;
 import com.almasb.fxgl.input.Input;
-import com.almasb.fxgl.physics.CollisionHandler;
-import com.almasb.fxgl.physics.HitBox;
 import com.almasb.fxgl.profile.DataFile;
 import com.almasb.fxgl.profile.SaveLoadHandler;
 import com.almasb.fxgl.ui.UI;
 import static com.mycompany.datacomprojectTwo.crypto.CryptoConfig.*;
 import com.mycompany.datacomprojectTwo.crypto.PongDigitalSignature;
+import com.mycompany.datacomprojectTwo.crypto.DigestCache;
+import com.mycompany.datacomprojectTwo.crypto.SignedFile;
 import com.mycompany.datacomprojectTwo.crypto.PongKeyStore;
 import com.mycompany.datacomprojectTwo.crypto.PongPassword;
-import com.mycompany.datacomprojectTwo.entities.EntityType;
 import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
 import com.mycompany.datacomprojectTwo.entities.PongFactory;
 import com.mycompany.datacomprojectTwo.menus.PongGameMenu;
@@ -66,6 +61,12 @@ public class PongApp extends GameApplication {
     // Needed to handle input to the client.
     private Input clientInput;
 
+    // Server code, set when hosting
+    private PongServer server;
+
+    // Client code, set when joining
+    private PongClient client;
+
     // Pong game menu
     private PongGameMenu gameMenu;
     
@@ -82,8 +83,7 @@ public class PongApp extends GameApplication {
     private int server_final_score;
    
     /**
-     * Set the game settings. Title, version, menus and add multiplayer service
-     * engine.
+     * Set the game settings. Title, version and menus.
      * @param settings of the game
      */
     @Override
@@ -91,7 +91,6 @@ public class PongApp extends GameApplication {
         settings.setTitle("Multiplayer Pong Game");
         settings.setVersion("1.0");
         settings.setFontUI("pong.ttf");
-        settings.addEngineService(MultiplayerService.class);
         settings.setMainMenuEnabled(true);
         settings.setGameMenuEnabled(true);
         
@@ -162,8 +161,13 @@ public class PongApp extends GameApplication {
                     }
                     // The keyStore exist so does the signature.
                     else {
-                        // We ask user to provide a password to virify signature . 
-                        passwordBox(1);                    }
+                        // We ask user to provide a password to verify the signature,
+                        // unless the keys are still unlocked.
+                        SignedFile.verifyOrAsk(valid -> {
+                            displayMessage(valid ? "Signature is valid" : "Signature is not valid");
+                            initializeServer();
+                        }, () -> passwordBox(1));
+                    }
 
                 } else {
                     // When user is not the host we set connection on client.
@@ -195,7 +199,7 @@ public class PongApp extends GameApplication {
         getGameScene().addUINode(clientMenu);
         
         // Create a cielnt Instance
-        PongClient client = new PongClient();
+        client = new PongClient();
 
         // Set Client Conenction .
         client.setClientConnection();
@@ -221,7 +225,7 @@ public class PongApp extends GameApplication {
         gameMenu.setServer(isServer);
  
         // Create server instance with the client Input
-        PongServer server = new PongServer(clientInput);
+        server = new PongServer(clientInput);
 
         // SetUp server connection 
         server.setUpServerConnection();
@@ -259,7 +263,7 @@ public class PongApp extends GameApplication {
             
             } else {
                 // Create a new keystore 
-                PongKeyStore pks = new PongKeyStore(hashed, KEY_TOOL_CMD);
+                PongKeyStore pks = new PongKeyStore(hashed);
                 pks.createAndStoreKeys();
                 // Inform user
                 displayMessage("Keystore was created.");
@@ -342,7 +346,7 @@ public class PongApp extends GameApplication {
         
         // Call password to generate key and exit program 
         if(isServer){
-            passwordBox(3);
+            SignedFile.signAndExit(this::exitAfterSignature, () -> passwordBox(3));
         }
         
         // Else thank client for playing
@@ -393,21 +397,16 @@ public class PongApp extends GameApplication {
             PongDigitalSignature pdigital = new PongDigitalSignature();
             
             // Invoke method to generate signature with SHA256withECDSA alg,private key, and pangApp file.
-            byte[] ditalSig = pdigital.generateSignature(ECDSA_ALGORITHM, privateK, FILE_TO_SIGN);
+            DigestCache digests = new DigestCache(DIGEST_CACHE_FILE);
+            byte[] ditalSig = digests.sign(FILE_TO_SIGN, ECDSA_ALGORITHM, privateK, pks.getPublicKey(), pks.getSecretKey());
             
             // Write signature to the file system.
             pdigital.writeSignatureToFile(DIGITAL_SIGNATURE_FILE, ditalSig);
+
+            // No more use of the keys before exiting
+            PongKeyStore.lock();
             
-            // Check if game is over and thank user before exiting
-            if (gameOver) {
-                    if (server_final_score < 11) {
-                        thankUsers("Client");
-                    }
-                    else {thankUsers("Server");} 
-                }
-            else{
-                getGameController().exit();
-            }
+            exitAfterSignature();
         
         // When password is incorrect, ask user again.
         } catch (IOException | InvalidKeyException | KeyStoreException | NoSuchAlgorithmException | NoSuchProviderException | SignatureException | UnrecoverableKeyException | CertificateException ex) {
@@ -419,6 +418,23 @@ public class PongApp extends GameApplication {
         }
     }
 
+    /**
+     * This method exits once the signature is generated. When
+     * the game is over it thanks the users first.
+     */
+    private void exitAfterSignature() {
+        // Check if game is over and thank user before exiting
+        if (gameOver) {
+                if (server_final_score < WINNING_SCORE) {
+                    thankUsers("Client");
+                }
+                else {thankUsers("Server");} 
+            }
+        else{
+            getGameController().exit();
+        }
+    }
+
     /**
      * Method verifies signature of pongApp.java 
      * and informs user wether file was altered or not.
@@ -456,8 +472,10 @@ public class PongApp extends GameApplication {
                 // Read the digital signature that was generated when program exited
                 byte[] d = pdigital.readSignatureFromFile(DIGITAL_SIGNATURE_FILE);
                 
-                // Verifies signature with original file and public key
-                boolean isSignatureValid = pdigital.verifySignature(d, publicK, ECDSA_ALGORITHM, FILE_TO_SIGN);
+                // Verifies signature with original file and public key, unless
+                // the same file and signature were already verified
+                DigestCache digests = new DigestCache(DIGEST_CACHE_FILE);
+                boolean isSignatureValid = digests.verify(FILE_TO_SIGN, d, ECDSA_ALGORITHM, publicK, pks.getSecretKey());
                 
                 // Display message about the integrity of the file
                 if (isSignatureValid) {
@@ -473,7 +491,7 @@ public class PongApp extends GameApplication {
                 message.setText("");
             }
         // Ask user again when password is incorrect    
-        } catch (IOException | InvalidKeyException | KeyStoreException | NoSuchAlgorithmException | NoSuchProviderException | SignatureException | CertificateException ex) {
+        } catch (IOException | InvalidKeyException | KeyStoreException | NoSuchAlgorithmException | NoSuchProviderException | SignatureException | UnrecoverableKeyException | CertificateException ex) {
             gameMenu.logError(Logger.getLogger(PongApp.class.getName()));
             message.setText("Your password is incorrect. Try again!");
             message.setTextFill(Color.rgb(210, 39, 30));
@@ -508,46 +526,13 @@ public class PongApp extends GameApplication {
         getGameScene().addUI(ui);
     }
 
-    /**
-     * Initialize the physics world with collision handlers that update the
-     * score and apply animation on the bats.
-     */
-    @Override
-    protected void initPhysics() {
-
-        getPhysicsWorld().setGravity(0, 0);
-        getPhysicsWorld().addCollisionHandler(new CollisionHandler(EntityType.BALL, EntityType.WALL) {
-            @Override
-            protected void onHitBoxTrigger(Entity a, Entity b, HitBox boxA, HitBox boxB) {
-                if (boxB.getName().equals("LEFT")) {
-                    inc(PLAYER2_SCORE, +1);
-                } else if (boxB.getName().equals("RIGHT")) {
-                    inc(PLAYER1_SCORE, +1);
-                }
-                getGameScene().getViewport().shakeTranslational(5);
-            }
-        });
-
-        // Initialize the colission handler
-        getPhysicsWorld().addCollisionHandler(new CollisionHandler(EntityType.PLAYER_BAT, EntityType.BALL) {
-
-            //Order of types isSignatureValid the same as passed into the constructor
-            @Override
-            protected void onCollisionBegin(Entity bat, Entity ball) {
-
-                playHitAnimation(bat);
-
-            }
-        });
-    }
-
     /**
      * Add event listener for the the end of the game.
      * tracks server final score.
      */
     private void setGameOverEvent() {
         getWorldProperties().<Integer>addListener(PLAYER1_SCORE, (old, newScore) -> {
-            if (newScore == 11) {
+            if (newScore == WINNING_SCORE) {
                 // server final score
                 server_final_score = newScore;
                 showGameOver("Server");
@@ -555,27 +540,12 @@ public class PongApp extends GameApplication {
         });
 
         getWorldProperties().<Integer>addListener(PLAYER2_SCORE, (old, newScore) -> {
-            if (newScore == 11) {
+            if (newScore == WINNING_SCORE) {
                 showGameOver("Client");
             }
         });
     }
 
-    /**
-     * Animation for the bat
-     * @param bat 
-     */
-    private void playHitAnimation(Entity bat) {
-        animationBuilder()
-                .autoReverse(true)
-                .duration(Duration.seconds(0.5))
-                .interpolator(Interpolators.BOUNCE.EASE_OUT())
-                .rotate(bat)
-                .from(FXGLMath.random(-25, 25))
-                .to(0)
-                .buildAndPlay();
-    }
-
     /**
      * This method runs every fps. It Make sure that the server is running so
      * that the state is only updated in the server and get synchronized in both
@@ -589,6 +559,16 @@ public class PongApp extends GameApplication {
         if (isServer && clientInput != null) {
             clientInput.update(tpf);
         }
+
+        // Send the state of the match to the client
+        if (server != null) {
+            server.onUpdate(tpf);
+        }
+
+        // Predict the client's bat
+        if (client != null) {
+            client.onUpdate(tpf);
+        }
     }
 
     /**
@@ -647,7 +627,7 @@ public class PongApp extends GameApplication {
             event.consume();
             
             // Ask for password to generate signature.
-            passwordBox(3);
+            SignedFile.signAndExit(this::exitAfterSignature, () -> passwordBox(3));
         
         });   
     }
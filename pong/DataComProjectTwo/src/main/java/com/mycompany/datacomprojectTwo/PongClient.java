@@ -1,39 +1,127 @@
 package com.mycompany.datacomprojectTwo;
 
-import com.almasb.fxgl.core.serialization.Bundle;
 import static com.almasb.fxgl.dsl.FXGL.getDialogService;
 import static com.almasb.fxgl.dsl.FXGL.getExecutor;
 import static com.almasb.fxgl.dsl.FXGL.getGameWorld;
 import static com.almasb.fxgl.dsl.FXGL.getInput;
 import static com.almasb.fxgl.dsl.FXGL.getNetService;
-import static com.almasb.fxgl.dsl.FXGL.getService;
-import static com.almasb.fxgl.dsl.FXGL.getWorldProperties;
-import com.almasb.fxgl.multiplayer.MultiplayerService;
-import com.almasb.fxgl.net.Connection;
+import static com.almasb.fxgl.dsl.FXGL.geti;
+import static com.almasb.fxgl.dsl.FXGL.runOnce;
+import static com.almasb.fxgl.dsl.FXGL.set;
+import com.almasb.fxgl.entity.Entity;
+import com.almasb.fxgl.entity.SpawnData;
+import com.almasb.fxgl.input.KeyTrigger;
+import com.almasb.fxgl.input.Trigger;
+import com.almasb.fxgl.input.TriggerListener;
+import com.almasb.fxgl.net.ClientConfig;
 import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import com.mycompany.datacomprojectTwo.network.ConnectionMetrics;
+import com.mycompany.datacomprojectTwo.network.MeteredTransport;
+import com.mycompany.datacomprojectTwo.network.NetworkScript;
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.network.PongTransport;
+import com.mycompany.datacomprojectTwo.network.ServerBrowser;
+import com.mycompany.datacomprojectTwo.network.ServerInfo;
+import com.mycompany.datacomprojectTwo.network.ServerProbe;
+import com.mycompany.datacomprojectTwo.network.ShapedLink;
+import com.mycompany.datacomprojectTwo.network.ShapingProxy;
+import com.mycompany.datacomprojectTwo.network.Snapshot;
+import com.mycompany.datacomprojectTwo.network.SnapshotCodec;
+import com.mycompany.datacomprojectTwo.network.SnapshotHistory;
+import com.mycompany.datacomprojectTwo.network.SnapshotInterpolator;
+import com.mycompany.datacomprojectTwo.network.TcpTransport;
+import com.mycompany.datacomprojectTwo.network.UdpTransport;
+import com.mycompany.datacomprojectTwo.simulation.Bat;
+import com.mycompany.datacomprojectTwo.simulation.BatPrediction;
+import com.mycompany.datacomprojectTwo.simulation.FixedTimestep;
+import com.mycompany.datacomprojectTwo.simulation.PongBot;
 import java.io.IOException;
-import java.net.InetAddress;
 import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.Button;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.input.KeyCode;
+import javafx.util.Duration;
 
 /**
- * This class runs the client code. It establishes connection with the server.
- * and allows communication and replication. The class ensures that the IP
- * address provided is reachable.
+ * This class runs the client code. It establishes connection with the server
+ * and allows communication and replication: it predicts its own bat at
+ * TICK_RATE, interpolates the ball and the other bat between the snapshots,
+ * and comes back into its match when the TCP connection is lost.
  *
  * @author David and Yassine
  */
 public class PongClient {
 
-    // Stores the connection handle for connection between client and server
-    private Connection<Bundle> connection;
+    // Link between client and server
+    private PongTransport transport;
+
+    // Counts the traffic of the transport
+    private MeteredTransport meter;
+
+    // Entities spawned by the server, indexed by their snapshot id
+    private final Entity[] entities = new Entity[Snapshot.ENTITY_COUNT];
+
+    // Last state received, reused for every snapshot
+    private final Snapshot snapshot = new Snapshot();
+
+    // Snapshots applied, baselines of the deltas sent by the server
+    private final SnapshotHistory history = new SnapshotHistory();
+
+    // Snapshots placed in server time, shown for the remote entities
+    private final SnapshotInterpolator interpolator = new SnapshotInterpolator(INTERPOLATION_DELAY, MAX_EXTRAPOLATION);
+
+    // Tick of the last snapshot applied
+    private int appliedTick = -1;
+
+    // Entity id of the bat of this client, -1 until spawned
+    private int localBat = -1;
+
+    // Prediction of the bat of this client
+    private BatPrediction prediction;
+
+    // Plays the local bat instead of the keys with -Dpong.bot=true, or null
+    private PongBot bot;
+
+    // Steps the prediction at TICK_RATE, like the server steps its match
+    private final FixedTimestep clock = new FixedTimestep(TICK_RATE);
+
+    // Predicted top of the bat before the last step, drawn up to the prediction
+    private double previousY;
+
+    // Keys moving the bat of this client
+    private boolean upPressed;
+    private boolean downPressed;
 
     // Ip address
     private String ipAddress;
 
+    // TCP port of the server, another one if picked in the LAN list
+    private int serverPort = PORT;
+
+    // Time between two connection attempts after the connection is lost
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    // Session token given by the server, NO_SESSION until seated
+    private volatile long session = PongProtocol.NO_SESSION;
+
+    // Address of the TCP connection, the proxy with NETWORK_SCRIPT
+    private String tcpHost;
+    private int tcpPort;
+
+    // Time the connection was lost, -1 while connected
+    private long lostAtNanos = -1;
+
+    // Set while a connection attempt is scheduled
+    private boolean reconnecting;
+
     // Logger for exceptions
     private static final Logger LOGGER = Logger.getLogger(PongClient.class.getName());
 
@@ -41,119 +129,507 @@ public class PongClient {
      * This method set up and start the client connection.
      */
     private void startClient() {
-        //if (initializeSocket()) {
-        var client = getNetService().newTCPClient(ipAddress, PORT);
+
+        if (USE_UDP) {
+            try {
+                UdpTransport udp = UdpTransport.connect(ipAddress, PORT);
+                if (NETWORK_SCRIPT != null) {
+                    udp.setLink(new ShapedLink(udp.getSocketLink(), NetworkScript.parse(NETWORK_SCRIPT), false, System.nanoTime()));
+                }
+                transport = metered(udp);
+
+                // The server starts the match when it receives this message
+                transport.sendReliable(PongProtocol.encodeJoin());
+                getExecutor().startAsyncFX(() -> onClient());
+            } catch (IOException ex) {
+                LOGGER.log(Level.SEVERE, "Cannot open a UDP socket", ex);
+            }
+            return;
+        }
+
+        String host = ipAddress;
+        int port = serverPort;
+        if (NETWORK_SCRIPT != null) {
+            // Both directions go through the bad network of the proxy
+            try {
+                ShapingProxy proxy = new ShapingProxy(0, ipAddress, serverPort, NetworkScript.parse(NETWORK_SCRIPT), System.nanoTime());
+                proxy.start();
+                host = "127.0.0.1";
+                port = proxy.getLocalPort();
+            } catch (IOException ex) {
+                LOGGER.log(Level.SEVERE, "Cannot open the network proxy", ex);
+            }
+        }
+
+        tcpHost = host;
+        tcpPort = port;
+        connect();
+    }
+
+    /**
+     * Connect to the server over TCP and say hello, with the session token
+     * when coming back into the match.
+     */
+    private void connect() {
+        TcpTransport.install();
+        var client = getNetService().newTCPClient(tcpHost, tcpPort, new ClientConfig<>(byte[].class));
         client.setOnConnected(conn -> {
-            connection = conn;
+            transport = metered(new TcpTransport(conn));
+
+            // The server seats the client, or gives its seat back, when it receives this message
+            long token = session;
+            transport.sendReliable(PongProtocol.encodeHello(false, System.nanoTime(), token));
 
             // Enable the client to receive data from the server.
-            getExecutor().startAsyncFX(() -> onClient());
+            if (token == PongProtocol.NO_SESSION) {
+                getExecutor().startAsyncFX(() -> onClient());
+            }
         });
+        client.setOnDisconnected(conn -> getExecutor().startAsyncFX(this::onConnectionLost));
 
         // Establish the connection to the server.
-        client.connectAsync();
+        getExecutor().startAsync(() -> client.connectTask().onFailure(ex -> {
+            LOGGER.log(Level.WARNING, "Cannot connect to " + tcpHost + ":" + tcpPort, ex);
+            getExecutor().startAsyncFX(this::onConnectionLost);
+        }).run());
+    }
 
+    /**
+     * Try to connect again while the grace of the session lasts, unless
+     * the match is over.
+     */
+    private void onConnectionLost() {
+        if (session == PongProtocol.NO_SESSION || reconnecting || (transport != null && transport.isConnected())
+                || geti(PLAYER1_SCORE) >= WINNING_SCORE || geti(PLAYER2_SCORE) >= WINNING_SCORE) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (lostAtNanos < 0) {
+            lostAtNanos = now;
+            LOGGER.info("Connection with the server lost, reconnecting");
+        }
+        if (now - lostAtNanos > RECONNECT_GRACE * 1_000_000L) {
+            giveUpSession("The connection with the server is lost.");
+            return;
+        }
+
+        reconnecting = true;
+        runOnce(() -> {
+            reconnecting = false;
+            connect();
+        }, Duration.millis(RECONNECT_DELAY_MILLIS));
     }
 
     /**
-     * Asks user to enter the IP address of the server. Normalize and validate
-     * the user input and start the client connection if the IP is valid. the
-     * method recursively calls its self when IP address is not valid. To determine
-     * if IP address is reachable the method invokes another that pings the IP given by user,
+     * Stop coming back into the match and tell the user.
+     * @param message message shown
      */
-    public void setClientConnection() {
+    private void giveUpSession(String message) {
+        session = PongProtocol.NO_SESSION;
+        lostAtNanos = -1;
+        getDialogService().showMessageBox(message);
+    }
 
-        // User input dialog box
-        getDialogService().showInputBox("Enter the IP address of the server", serverIP -> {
+    /**
+     * Count the traffic of a transport and receive its messages.
+     * @param link transport with the server
+     * @return the counting transport
+     */
+    private PongTransport metered(PongTransport link) {
+        if (meter != null) {
+            // Connected again after losing the connection
+            meter.stopReporting();
+        }
+        meter = new MeteredTransport(link);
+        meter.setOnMessage(this::receive);
+        meter.startReporting("Server", METRICS_INTERVAL);
+        return meter;
+    }
+
+    /**
+     * @return the traffic with the server, null until connected
+     */
+    public ConnectionMetrics getMetrics() {
+        return meter != null ? meter.getMetrics() : null;
+    }
+
+    /**
+     * Show the servers announcing themselves on the LAN, updated live, and
+     * connect to the one picked. The announcements are read by a
+     * ServerBrowser thread and the list is changed on the FX thread. The
+     * user can still enter an address, e.g. for a server outside the LAN.
+     * Over UDP the address is always entered.
+     */
+    public void setClientConnection() {
+        if (USE_UDP) {
+            askServerAddress();
+            return;
+        }
 
-            // Set ip address
-            ipAddress = serverIP;
+        ServerBrowser browser = new ServerBrowser(DISCOVERY_PORT, ANNOUNCE_INTERVAL * 3L);
+        ObservableList<ServerInfo> servers = FXCollections.observableArrayList();
+        browser.setOnChange(list -> getExecutor().startAsyncFX(() -> servers.setAll(list)));
+        try {
+            browser.start();
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Cannot listen to the LAN servers", ex);
+            askServerAddress();
+            return;
+        }
 
-            // Normalize
-            ipAddress = Normalizer.normalize(serverIP, Normalizer.Form.NFKC);
+        ListView<ServerInfo> serverList = new ListView<>(servers);
+        serverList.setPrefSize(420, 200);
+        serverList.setCellFactory(view -> new ListCell<ServerInfo>() {
+            @Override
+            protected void updateItem(ServerInfo server, boolean empty) {
+                super.updateItem(server, empty);
+                setText(empty || server == null ? null : String.format("%s  %s:%d  %s  load %d%%",
+                        server.getName(), server.getHost(), server.getPort(),
+                        server.isAccepting() ? server.getFreeRooms() + " free" : "full", server.getLoad()));
+            }
+        });
 
-            // This is for the string localhost
-            ipAddress = ipAddress.toLowerCase();
-            
-            if(ipAddress.equals("localhost")){
-                ipAddress = "127.0.0.1";
+        Button join = new Button("Join");
+        join.setOnAction(event -> {
+            browser.close();
+            ServerInfo server = serverList.getSelectionModel().getSelectedItem();
+            if (server == null) {
+                setClientConnection();
+                return;
             }
-            
+            // The announcement may be old, ask the server itself
+            ServerProbe.probe(server.getHost(), server.getPort(), HANDSHAKE_TIMEOUT).whenComplete((info, ex) ->
+                    getExecutor().startAsyncFX(() -> onProbed(info)));
+        });
+
+        Button enterAddress = new Button("Enter IP");
+        enterAddress.setOnAction(event -> {
+            browser.close();
+            askServerAddress();
+        });
+
+        getDialogService().showBox("Pong servers on the LAN", serverList, join, enterAddress);
+    }
+
+    /**
+     * Asks user to enter the IP address of the server, or several
+     * addresses separated by commas (e.g. its LAN and public addresses).
+     * Normalize and validate the user input, then probe the addresses at
+     * once with a handshake and start the client connection with the first
+     * server that seats players. The method recursively calls its self when
+     * no address is valid or no server answers. Over UDP there is nothing
+     * to probe and the first address is used.
+     */
+    private void askServerAddress() {
+
+        // User input dialog box
+        getDialogService().showInputBox("Enter the IP address of the server", serverIP -> {
+
             // IPv4 address format: num_1.num_2.num_3.num_4, where num_n is at most 3 digits long 
             Pattern validServerIP = Pattern.compile("^[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}$");
-            Matcher matcher = validServerIP.matcher(ipAddress);
-                
-            // not a valid IP (contain letters or does not conform to official format)
-            if (!matcher.find()) {
-                // Provide a message and ask for ip again to set connection.
-                getDialogService().showErrorBox("The ip address is not valid! Try again.", () -> {
-                    // Ask for ip again
-                    setClientConnection();
-                });
-
-            } 
-            // Check connection with the ip and port using socket
-            else if (!pingIpAddress(ipAddress)) {
-                // Provide a message and ask for ip again to set connection.
-                getDialogService().showErrorBox("The ip address is not valid! Try again.", () -> {
-                    // Ask for ip again
-                    setClientConnection();
-                });
-
-            } else {
-                // Start connection whe socket method returns true.
-                this.startClient();
 
+            List<String> candidates = new ArrayList<>();
+            for (String address : serverIP.split(",")) {
+                // Normalize, this is also for the string localhost
+                String candidate = Normalizer.normalize(address, Normalizer.Form.NFKC).trim().toLowerCase();
+                if (candidate.equals("localhost")) {
+                    candidate = "127.0.0.1";
+                }
+
+                // not a valid IP (contain letters or does not conform to official format)
+                if (!validServerIP.matcher(candidate).find()) {
+                    retryAddress("The ip address " + candidate + " is not valid! Try again.");
+                    return;
                 }
+                candidates.add(candidate);
+            }
 
+            if (USE_UDP) {
+                ipAddress = candidates.get(0);
+                startClient();
+                return;
+            }
+
+            // The probes run off the FX thread, the answer is handled on it
+            ServerProbe.probeFirst(candidates, PORT, HANDSHAKE_TIMEOUT).whenComplete((server, ex) ->
+                    getExecutor().startAsyncFX(() -> onProbed(server)));
         });
 
     }
 
+    /**
+     * Connect to the server that answered the probe, or ask again.
+     * @param server answer of the server, null if none answered
+     */
+    private void onProbed(ServerInfo server) {
+        if (server == null) {
+            retryConnection("No pong server answered! Try again.");
+        } else if (server.getStatus() == PongProtocol.STATUS_VERSION_MISMATCH) {
+            retryConnection("The server runs another version of the game (version "
+                    + server.getVersion() + ", this is " + PongProtocol.PROTOCOL_VERSION + ").");
+        } else if (server.getStatus() == PongProtocol.STATUS_TICK_RATE_MISMATCH) {
+            retryConnection("The server steps the game at another tick rate than " + TICK_RATE + ".");
+        } else if (!server.isAccepting()) {
+            retryConnection("The server is full! Try again later.");
+        } else {
+            LOGGER.log(Level.INFO, "Connecting to {0}", server);
+            ipAddress = server.getHost();
+            serverPort = server.getPort();
+            startClient();
+        }
+    }
+
+    /**
+     * Provide a message and show the servers again to set connection.
+     * @param error message shown
+     */
+    private void retryConnection(String error) {
+        getDialogService().showErrorBox(error, this::setClientConnection);
+    }
+
+    /**
+     * Provide a message and ask for ip again to set connection.
+     * @param error message shown
+     */
+    private void retryAddress(String error) {
+        getDialogService().showErrorBox(error, this::askServerAddress);
+    }
+
     /**
      * This method allow the client to receive and send data to the server.
      */
     private void onClient() {
 
-        // Allow replication receiver for game world
-        getService(MultiplayerService.class).addEntityReplicationReceiver(connection, getGameWorld());
+        // Send the keys of the client
+        getInput().addTriggerListener(new TriggerListener() {
+            @Override
+            protected void onActionBegin(Trigger trigger) {
+                sendKey(trigger, true);
+            }
 
-        // Allow replication receiver for game properties
-        getService(MultiplayerService.class).addPropertyReplicationReceiver(connection, getWorldProperties());
+            @Override
+            protected void onActionEnd(Trigger trigger) {
+                sendKey(trigger, false);
+            }
+        });
+    }
 
-        // Allow replication sender for client input
-        getService(MultiplayerService.class).addInputReplicationSender(connection, getInput());
+    /**
+     * Handle a message of the server on the FX thread.
+     * @param message message from the server
+     */
+    private void receive(byte[] message) {
+        getExecutor().startAsyncFX(() -> onServerMessage(message));
     }
 
+    /**
+     * Spawn the entities, set the scores or apply the snapshot sent by
+     * the server.
+     * @param message message from the server
+     */
+    private void onServerMessage(byte[] message) {
+        byte type = PongProtocol.typeOf(message);
+
+        // The latest snapshot wins
+        if ((type == PongProtocol.SNAPSHOT || type == PongProtocol.DELTA) && SnapshotCodec.tickOf(message) <= appliedTick) {
+            return;
+        }
+
+        switch (type) {
+            case PongProtocol.SPAWN:
+                spawnEntities(message);
+                break;
+            case PongProtocol.SCORE:
+                setScores(PongProtocol.score(message, 1), PongProtocol.score(message, 2));
+                break;
+            case PongProtocol.SNAPSHOT:
+                SnapshotCodec.decode(message, snapshot);
+                applySnapshot();
+                break;
+            case PongProtocol.DELTA:
+                Snapshot baseline = history.get(SnapshotCodec.baselineTickOf(message));
+                if (baseline == null) {
+                    LOGGER.log(Level.WARNING, "Delta without baseline at tick {0}", SnapshotCodec.tickOf(message));
+                    return;
+                }
+                SnapshotCodec.decodeDelta(message, baseline, snapshot);
+                applySnapshot();
+                break;
+            case PongProtocol.RESYNC:
+                resync(message);
+                break;
+            case PongProtocol.WELCOME:
+                onWelcome(message);
+                break;
+            default:
+                LOGGER.log(Level.WARNING, "Unknown message type {0}", PongProtocol.typeOf(message));
+        }
+    }
 
     /**
-     * This method pings the IP address to check if it can 
-     * be reachable.
-     * @param host
-     * @return 
+     * Keep the session token of the welcome, or stop coming back when the
+     * server ended the session.
+     * @param message welcome message
      */
-    private boolean pingIpAddress(String host) {
+    private void onWelcome(byte[] message) {
+        LOGGER.log(Level.FINE, "Welcome, round trip {0} ms",
+                (System.nanoTime() - PongProtocol.welcomeTime(message)) / 1_000_000);
+        if (message.length < PongProtocol.WELCOME_SIZE) {
+            return;
+        }
+        byte status = PongProtocol.welcomeStatus(message);
+        if (status == PongProtocol.STATUS_OK) {
+            session = PongProtocol.welcomeSession(message);
+            lostAtNanos = -1;
+        } else if (status == PongProtocol.STATUS_SESSION_EXPIRED) {
+            giveUpSession("The match ended while the connection was lost.");
+        }
+    }
 
-        boolean isIpValid = false;
+    /**
+     * Apply the state of the match after coming back into it. The
+     * entities are already spawned; the snapshots from before the
+     * connection was lost are forgotten, so the remote entities jump to
+     * the new state instead of sliding from the old one.
+     * @param message resync message
+     */
+    private void resync(byte[] message) {
+        if (localBat != PongProtocol.resyncLocalBat(message)) {
+            LOGGER.log(Level.WARNING, "Resync of bat {0}, not spawned", PongProtocol.resyncLocalBat(message));
+            return;
+        }
+        PongProtocol.decodeResync(message, snapshot);
+        history.clear();
+        interpolator.clear();
+        applySnapshot();
+        LOGGER.log(Level.INFO, "Back in the match at tick {0}", appliedTick);
+    }
 
-        try {
-            
-            // Init Address to ping
-            InetAddress ping = InetAddress.getByName(host);
-
-            // Timeout required - it's in milliseconds
-            int timeout = 2000;
-            // check if ip is reachable
-            if (ping.isReachable(timeout)) {
-                
-                System.out.println("Pinging");
-                isIpValid = true;
+    /**
+     * Move the remote entities to their interpolated position, predict
+     * the bat of this client for the steps of the frame and send them to
+     * the server. Called every frame.
+     * @param tpf time per frame
+     */
+    public void onUpdate(double tpf) {
+        if (prediction == null || !transport.isConnected()) {
+            return;
+        }
+
+        // Messages held back while the server was behind
+        transport.flush();
+
+        if (interpolator.hasSnapshot()) {
+            interpolator.update(tpf);
+            for (int id = 0; id < Snapshot.ENTITY_COUNT; id++) {
+                if (id != localBat) {
+                    entities[id].setPosition(interpolator.getX(id), interpolator.getY(id));
+                }
+            }
+        }
+
+        int direction = upPressed ? Bat.UP : downPressed ? Bat.DOWN : Bat.STOP;
+        int steps = clock.advance(tpf);
+        for (int i = 0; i < steps; i++) {
+            previousY = prediction.getY();
+            if (bot != null) {
+                direction = bot.decide(snapshot.getX(Snapshot.BALL), snapshot.getY(Snapshot.BALL),
+                        snapshot.getVelocityX(Snapshot.BALL), snapshot.getVelocityY(Snapshot.BALL),
+                        prediction.getY(), clock.getStep());
+            }
+            if (direction != Bat.STOP) {
+                // The server replays the command with the same duration
+                float dt = (float) clock.getStep();
+                int sequence = prediction.predict(direction, dt);
+                transport.sendReliable(PongProtocol.encodeCommand(sequence, direction, dt));
+            }
+        }
+
+        // Drawn between the last two steps
+        Entity bat = entities[localBat];
+        bat.setPosition(bat.getX(), previousY + (prediction.getY() - previousY) * clock.getAlpha());
+    }
+
+    /**
+     * Spawn the ball and the bats without physics.
+     * @param message spawn message
+     */
+    private void spawnEntities(byte[] message) {
+        byte[] kinds = PongProtocol.decodeSpawn(message, snapshot);
+        for (int id = 0; id < Snapshot.ENTITY_COUNT; id++) {
+            String name = kinds[id] == PongProtocol.KIND_BALL ? "ball" : "bat";
+            entities[id] = getGameWorld().spawn(name, new SpawnData(snapshot.getX(id), snapshot.getY(id)));
+        }
+
+        localBat = PongProtocol.spawnLocalBat(message);
+        prediction = new BatPrediction(snapshot.getX(localBat), snapshot.getY(localBat));
+        previousY = prediction.getY();
+
+        if (BOT) {
+            int player = localBat == Snapshot.BAT_ONE ? 1 : 2;
+            bot = new PongBot(player, BOT_REACTION_DELAY, BOT_AIM_ERROR, System.nanoTime());
+        }
+    }
+
+    /**
+     * Buffer the last snapshot for the remote entities, reconcile the
+     * local bat and update the scores, then acknowledge the snapshot so
+     * the server sends the next deltas against it.
+     */
+    private void applySnapshot() {
+        appliedTick = snapshot.getTick();
+        history.store(snapshot);
+        transport.sendUnreliable(PongProtocol.encodeAck(appliedTick));
+
+        interpolator.add(snapshot, appliedTick / (double) TICK_RATE);
+
+        // The predicted bat replays what the server did not apply yet
+        if (prediction != null) {
+            int player = localBat == Snapshot.BAT_ONE ? 1 : 2;
+            long corrections = prediction.getCorrections();
+            prediction.reconcile(snapshot.getInputSequence(player), snapshot.getY(localBat));
+            if (prediction.getCorrections() != corrections) {
+                previousY = prediction.getY();
             }
+        }
+
+        setScores(snapshot.getPlayerOneScore(), snapshot.getPlayerTwoScore());
+    }
 
-        } catch (IOException e) {
-             LOGGER.log(Level.SEVERE, "Invalid IP!!");
+    /**
+     * Update the score properties. Only changes are set, the game over
+     * event listens to them.
+     * @param playerOneScore score of player one
+     * @param playerTwoScore score of player two
+     */
+    private void setScores(int playerOneScore, int playerTwoScore) {
+        if (geti(PLAYER1_SCORE) != playerOneScore) {
+            set(PLAYER1_SCORE, playerOneScore);
+        }
+        if (geti(PLAYER2_SCORE) != playerTwoScore) {
+            set(PLAYER2_SCORE, playerTwoScore);
         }
+    }
 
-        return isIpValid;
+    /**
+     * Send a key event to the server. UP and DOWN are kept for the
+     * prediction instead, they are sent as commands every frame.
+     * @param trigger key or mouse trigger
+     * @param pressed true when the key goes down
+     */
+    private void sendKey(Trigger trigger, boolean pressed) {
+        if (!(trigger instanceof KeyTrigger)) {
+            return;
+        }
+
+        KeyCode key = ((KeyTrigger) trigger).getKey();
+        if (key == KeyCode.UP) {
+            upPressed = pressed;
+        } else if (key == KeyCode.DOWN) {
+            downPressed = pressed;
+        } else if (transport.isConnected()) {
+            transport.sendReliable(PongProtocol.encodeInput(key.getCode(), pressed));
+        }
     }
 }
@@ -1,49 +1,130 @@
 package com.mycompany.datacomprojectTwo;
 
-
-import com.mycompany.datacomprojectTwo.entities.BatComponent;
-import com.almasb.fxgl.core.serialization.Bundle;
-
-import static com.almasb.fxgl.dsl.FXGL.getAppHeight;
-import static com.almasb.fxgl.dsl.FXGL.getAppWidth;
+import com.almasb.fxgl.animation.Interpolators;
+import com.almasb.fxgl.core.math.FXGLMath;
+import com.mycompany.datacomprojectTwo.network.ConnectionMetrics;
+import com.mycompany.datacomprojectTwo.network.MeteredTransport;
+import com.mycompany.datacomprojectTwo.network.NetworkScript;
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.network.PongTransport;
+import com.mycompany.datacomprojectTwo.network.ServerAnnouncer;
+import com.mycompany.datacomprojectTwo.network.ShapedLink;
+import com.mycompany.datacomprojectTwo.network.Snapshot;
+import com.mycompany.datacomprojectTwo.network.SnapshotCodec;
+import com.mycompany.datacomprojectTwo.network.SnapshotHistory;
+import com.mycompany.datacomprojectTwo.network.TcpTransport;
+import com.mycompany.datacomprojectTwo.network.UdpTransport;
+import com.mycompany.datacomprojectTwo.replay.ReplayFormat;
+import com.mycompany.datacomprojectTwo.replay.ReplayWriter;
+import com.mycompany.datacomprojectTwo.server.CommandQueue;
+import com.mycompany.datacomprojectTwo.simulation.Bat;
+import com.mycompany.datacomprojectTwo.simulation.FixedTimestep;
+import com.mycompany.datacomprojectTwo.simulation.MatchListener;
+import com.mycompany.datacomprojectTwo.simulation.MatchSimulation;
+
+import static com.almasb.fxgl.dsl.FXGL.animationBuilder;
 import static com.almasb.fxgl.dsl.FXGL.getExecutor;
+import static com.almasb.fxgl.dsl.FXGL.getGameScene;
 import static com.almasb.fxgl.dsl.FXGL.getInput;
 import static com.almasb.fxgl.dsl.FXGL.getNetService;
-import static com.almasb.fxgl.dsl.FXGL.getService;
-import static com.almasb.fxgl.dsl.FXGL.getWorldProperties;
+import static com.almasb.fxgl.dsl.FXGL.geti;
+import static com.almasb.fxgl.dsl.FXGL.set;
 import static com.almasb.fxgl.dsl.FXGL.spawn;
 import com.almasb.fxgl.entity.Entity;
 import com.almasb.fxgl.entity.SpawnData;
 import com.almasb.fxgl.input.Input;
 import com.almasb.fxgl.input.UserAction;
-import com.almasb.fxgl.multiplayer.MultiplayerService;
 import com.almasb.fxgl.net.Connection;
+import com.almasb.fxgl.net.ServerConfig;
 
 import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javafx.scene.input.KeyCode;
+import javafx.util.Duration;
 
 /**
  * This class executes server code only.
- * It contains methods that spawn entities, set input events,
- * and allow replication on the server.
+ * It hosts the match of the local player against one client: it steps a
+ * MatchSimulation at TICK_RATE, applies the client's commands and sends
+ * it the snapshots of the match over TCP or UDP (see PongProtocol).
  * @author Yassine Ibhir and David Pizzolongo
  */
-public class PongServer {
+public class PongServer implements MatchListener {
 
     // Needed to handle input to the client.
     private Input clientInput;
 
-    // Stores the connection handle for connection between client and server
-    private Connection<Bundle> connection;
+    // Key codes received from the client
+    private static final Map<Integer, KeyCode> KEY_CODES = new HashMap<>();
+
+    static {
+        for (KeyCode key : KeyCode.values()) {
+            KEY_CODES.put(key.getCode(), key);
+        }
+    }
+
+    // Logger for the connection errors
+    private static final Logger LOGGER = Logger.getLogger(PongServer.class.getName());
+
+    // Link between client and server
+    private volatile PongTransport transport;
+
+    // Connection and session token of the TCP client, guarded by this
+    private Connection<byte[]> clientConnection;
+    private long session = PongProtocol.NO_SESSION;
+
+    // Time the TCP client was lost, -1 while it is connected
+    private long awaySinceNanos = -1;
+
+    // Counts the traffic of the transport
+    private MeteredTransport meter;
+
+    // The match, the client's bat is moved by the commands of the client
+    private MatchSimulation match;
+
+    // Steps the match at TICK_RATE
+    private final FixedTimestep clock = new FixedTimestep(TICK_RATE);
+
+    // State of the match before the last step, drawn up to the snapshot
+    private final Snapshot previous = new Snapshot();
+
+    // Sequence of the last command of the client
+    private int lastCommand = PongProtocol.NO_INPUT;
+
+    // Commands of the client waiting for the next steps
+    private final CommandQueue commands = new CommandQueue();
 
-    // Player One Bat (Server)
-    private BatComponent playerOneBat;
+    // Set when a command moved the client's bat since the last step
+    private boolean clientBatMoved;
 
-    // Player Two Bat (Client)
-    private BatComponent playerTwoBat;
+    // Records the match with -Dpong.replayDir, or null
+    private ReplayWriter replay;
 
-    // Pong Ball
-    private Entity ball;
+    // Replicated entities, indexed by their snapshot id
+    private final Entity[] entities = new Entity[Snapshot.ENTITY_COUNT];
+
+    // State after the last step, sent to the client
+    private final Snapshot snapshot = new Snapshot();
+
+    // Snapshots sent, baselines of the deltas
+    private final SnapshotHistory history = new SnapshotHistory();
+
+    // Last tick acknowledged by the client
+    private int ackedTick = PongProtocol.NO_ACK;
+
+    // Tick of the last snapshot sent
+    private long sentTick;
+
+    // Scores last sent to the client
+    private int sentPlayerOneScore;
+    private int sentPlayerTwoScore;
 
     /**
      *
@@ -55,23 +136,181 @@ public class PongServer {
 
     public void setUpServerConnection() {
 
-        // Setup the TCP port that the server will listen at.
-        var server = getNetService().newTCPServer(PORT);
-        server.setOnConnected(conn -> {
-            connection = conn;
+        if (USE_UDP) {
+            // The client joins with its first message
+            try {
+                UdpTransport udp = UdpTransport.listen(PORT);
+                if (NETWORK_SCRIPT != null) {
+                    udp.setLink(new ShapedLink(udp.getSocketLink(), NetworkScript.parse(NETWORK_SCRIPT), false, System.nanoTime()));
+                }
+                transport = metered(udp);
+            } catch (IOException ex) {
+                LOGGER.log(Level.SEVERE, "Cannot listen on UDP port " + PORT, ex);
+            }
+            return;
+        }
 
-            // Setup the entities and other necessary items on the server.
-            getExecutor().startAsyncFX(() -> onServer());
-        });
+        // Setup the TCP port that the server will listen at.
+        TcpTransport.install();
+        var server = getNetService().newTCPServer(PORT, new ServerConfig<>(byte[].class));
+        server.setOnConnected(conn -> conn.addMessageHandler((c, message) -> {
+            if (PongProtocol.typeOf(message) == PongProtocol.HELLO && PongProtocol.isWellFormed(message)) {
+                onHello(conn, message);
+            }
+        }));
+        server.setOnDisconnected(conn -> getExecutor().startAsyncFX(() -> onDisconnected(conn)));
 
         // Start listening on the specified TCP port.
         server.startAsync();
+
+        // Let the clients on the LAN list this host
+        ServerAnnouncer announcer = new ServerAnnouncer(SERVER_NAME != null ? SERVER_NAME : ServerAnnouncer.defaultName(),
+                PORT, this::getFreeRooms, () -> 0);
+        try {
+            announcer.start(DISCOVERY_PORT, ANNOUNCE_INTERVAL);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Cannot announce the server", ex);
+        }
+    }
+
+    /**
+     * Count the traffic of a transport and receive its messages.
+     * @param link transport with the client
+     * @return the counting transport
+     */
+    private PongTransport metered(PongTransport link) {
+        if (meter != null) {
+            // The client came back on a new connection
+            meter.stopReporting();
+        }
+        meter = new MeteredTransport(link);
+        meter.setOnMessage(this::receive);
+        meter.startReporting("Client", METRICS_INTERVAL);
+        return meter;
+    }
+
+    /**
+     * @return the traffic with the client, null until it connects
+     */
+    public ConnectionMetrics getMetrics() {
+        return meter != null ? meter.getMetrics() : null;
+    }
+
+    /**
+     * @return 1 until a client joins, then 0
+     */
+    private synchronized int getFreeRooms() {
+        return transport == null ? 1 : 0;
+    }
+
+    /**
+     * Answer the hello of a TCP connection and play it if it is the first
+     * client to join. Called by the connection thread.
+     * @param conn connection saying hello
+     * @param hello received hello
+     */
+    private synchronized void onHello(Connection<byte[]> conn, byte[] hello) {
+        if (PongProtocol.helloMatches(hello) && !PongProtocol.helloProbe(hello)
+                && PongProtocol.helloSession(hello) != PongProtocol.NO_SESSION) {
+            onComeback(conn, hello);
+            return;
+        }
+
+        byte[] welcome = PongProtocol.encodeWelcome(hello, getFreeRooms());
+        if (PongProtocol.welcomeStatus(welcome) != PongProtocol.STATUS_OK || PongProtocol.helloProbe(hello)) {
+            conn.send(welcome);
+            return;
+        }
+
+        session = PongProtocol.newSessionToken();
+        clientConnection = conn;
+        conn.send(PongProtocol.encodeWelcome(hello, PongProtocol.STATUS_OK, 0, session));
+        transport = metered(new TcpTransport(conn));
+
+        // Setup the entities and other necessary items on the server.
+        getExecutor().startAsyncFX(() -> onServer());
+    }
+
+    /**
+     * Play the connection of the client coming back with its session
+     * token instead of the old one, and resync it. Called by onHello.
+     * @param conn connection saying hello
+     * @param hello received hello
+     */
+    private void onComeback(Connection<byte[]> conn, byte[] hello) {
+        if (session == PongProtocol.NO_SESSION || PongProtocol.helloSession(hello) != session) {
+            conn.send(PongProtocol.encodeWelcome(hello, PongProtocol.STATUS_SESSION_EXPIRED,
+                    getFreeRooms(), PongProtocol.NO_SESSION));
+            return;
+        }
+
+        conn.send(PongProtocol.encodeWelcome(hello, PongProtocol.STATUS_OK, 0, session));
+        Connection<byte[]> old = clientConnection;
+        clientConnection = conn;
+        transport = metered(new TcpTransport(conn));
+        if (old.isConnected()) {
+            old.terminate();
+        }
+        getExecutor().startAsyncFX(this::resync);
+    }
+
+    /**
+     * Start the grace of the client when its connection closes.
+     * @param conn closed connection
+     */
+    private void onDisconnected(Connection<byte[]> conn) {
+        synchronized (this) {
+            if (conn != clientConnection || session == PongProtocol.NO_SESSION) {
+                return;
+            }
+        }
+        if (awaySinceNanos < 0) {
+            awaySinceNanos = System.nanoTime();
+            LOGGER.log(Level.INFO, "Client lost, waiting {0} ms for it", RECONNECT_GRACE);
+        }
+    }
+
+    /**
+     * Send the client that came back the current state of the match: the
+     * entities it already spawned, their positions and the scores.
+     */
+    private void resync() {
+        awaySinceNanos = -1;
+        if (match == null) {
+            // Not spawned yet, onServer sends the spawn
+            return;
+        }
+        // The snapshots the client acknowledged before may be lost
+        ackedTick = PongProtocol.NO_ACK;
+        commands.clear();
+        history.store(snapshot);
+        transport.sendReliable(PongProtocol.encodeResync(snapshot, Snapshot.BAT_TWO));
+    }
+
+    /**
+     * Give the client up once its grace is over; the host plays on alone.
+     */
+    private void checkGrace() {
+        if (awaySinceNanos >= 0 && System.nanoTime() - awaySinceNanos > RECONNECT_GRACE * 1_000_000L) {
+            awaySinceNanos = -1;
+            synchronized (this) {
+                session = PongProtocol.NO_SESSION;
+            }
+            LOGGER.info("The client did not come back");
+        }
+    }
+
+    /**
+     * Handle a message of the client on the FX thread.
+     * @param message message from the client
+     */
+    private void receive(byte[] message) {
+        getExecutor().startAsyncFX(() -> onClientMessage(message));
     }
 
     /**
-     * Spawn all entities in server and use multiplayer service to allow
-     * spawning in client. Add Input, and property replication with the
-     * established connection. Invoke
+     * Spawn all entities in server and on the client. Add Input, and
+     * receive the client's keys on the established connection.
      */
     private void onServer() {
         
@@ -79,102 +318,235 @@ public class PongServer {
         initPongObjects();
         // server input events
         initServerInputs();
-        
-        // client Input events
-        initClientInputs();
-        
-        // Multiplayer service replication
-        getService(MultiplayerService.class).addInputReplicationReceiver(connection, clientInput);
-        getService(MultiplayerService.class).addPropertyReplicationSender(connection, getWorldProperties());
 
+        // Spawn the entities on the client
+        fillSnapshot(snapshot);
+        previous.copyFrom(snapshot);
+        transport.sendReliable(PongProtocol.encodeSpawn(snapshot, Snapshot.BAT_TWO));
     }
 
     /**
-     * Spawn all entities in server and use multiplayer service to allow
-     * spawning in client. Add Input, and property replication with the
-     * established connection.
+     * Create the match and spawn its entities in server. The entities
+     * have no physics, they are drawn where the match puts them.
      */
     private void initPongObjects() {
 
-        ball = spawn("ball", new SpawnData(getAppWidth() / 2 - 5, getAppHeight() / 2 - 5).put("isServer", true));
+        match = new MatchSimulation(this);
+        match.setScores(geti(PLAYER1_SCORE), geti(PLAYER2_SCORE));
+        if (REPLAY_DIR != null) {
+            startReplay();
+        }
 
-        getService(MultiplayerService.class).spawn(connection, ball, "ball");
-
-        Entity bat1 = spawn("bat", new SpawnData(getAppWidth() / 4, getAppHeight() / 2 - 30).put("isServer", true));
-        getService(MultiplayerService.class).spawn(connection, bat1, "bat");
+        entities[Snapshot.BALL] = spawn("ball", new SpawnData(match.getBallX(), match.getBallY()));
+        entities[Snapshot.BAT_ONE] = spawn("bat", new SpawnData(match.getBatX(1), match.getBatY(1)));
+        entities[Snapshot.BAT_TWO] = spawn("bat", new SpawnData(match.getBatX(2), match.getBatY(2)));
+    }
 
-        Entity bat2 = spawn("bat", new SpawnData(3 * getAppWidth() / 4 - 20, getAppHeight() / 2 - 30).put("isServer", false));
-        getService(MultiplayerService.class).spawn(connection, bat2, "bat");
+    /**
+     * Step the match for the time of the frame, draw it and send its
+     * state to the client every SNAPSHOT_INTERVAL ticks. Called every
+     * frame.
+     * @param tpf time per frame
+     */
+    public void onUpdate(double tpf) {
+        if (match == null) {
+            return;
+        }
+
+        // A loaded game sets the score properties
+        if (geti(PLAYER1_SCORE) != match.getScore(1) || geti(PLAYER2_SCORE) != match.getScore(2)) {
+            match.setScores(geti(PLAYER1_SCORE), geti(PLAYER2_SCORE));
+            if (replay != null) {
+                replay.requestKeyframe();
+            }
+        }
+
+        // The match waits for a lost client
+        checkGrace();
+        int steps = PAUSE_ON_DISCONNECT && awaySinceNanos >= 0 ? 0 : clock.advance(tpf);
+        for (int i = 0; i < steps; i++) {
+            if (i == steps - 1) {
+                fillSnapshot(previous);
+            }
+            applyCommands();
+            if (replay != null) {
+                replay.record(match.getState(), MatchSimulation.MATCH,
+                        clientBatMoved ? ReplayFormat.MOVED_BAT_TWO : 0);
+            }
+            clientBatMoved = false;
+            match.step(clock.getStep());
+        }
+        if (steps > 0) {
+            fillSnapshot(snapshot);
+        }
+
+        // Drawn between the last two steps
+        double alpha = clock.getAlpha();
+        for (int id = 0; id < Snapshot.ENTITY_COUNT; id++) {
+            entities[id].setPosition(
+                    previous.getX(id) + (snapshot.getX(id) - previous.getX(id)) * alpha,
+                    previous.getY(id) + (snapshot.getY(id) - previous.getY(id)) * alpha);
+        }
+
+        if (transport == null || !transport.isConnected()) {
+            return;
+        }
+
+        // Messages held back while the client was behind
+        transport.flush();
+
+        // Score changes must arrive, the game over depends on them
+        if (match.getScore(1) != sentPlayerOneScore || match.getScore(2) != sentPlayerTwoScore) {
+            sentPlayerOneScore = match.getScore(1);
+            sentPlayerTwoScore = match.getScore(2);
+            transport.sendReliable(PongProtocol.encodeScore(sentPlayerOneScore, sentPlayerTwoScore));
+        }
+
+        if (match.getTick() - sentTick >= SNAPSHOT_INTERVAL) {
+            sentTick = match.getTick();
+            history.store(snapshot);
+            transport.sendUnreliable(SnapshotCodec.encode(snapshot, history.get(ackedTick)));
+        }
+    }
 
-        Entity wall = spawn("walls", new SpawnData(0, 0));
-        //getService(MultiplayerService.class).spawn(connection, wall, "walls");
+    /**
+     * Copy the state of the match into a snapshot.
+     * @param target snapshot to fill
+     */
+    private void fillSnapshot(Snapshot target) {
+        target.setTick((int) match.getTick());
+        target.setScores(match.getScore(1), match.getScore(2));
+        target.setInputSequence(2, lastCommand);
+        target.setEntity(Snapshot.BALL, match.getBallX(), match.getBallY(),
+                match.getBallVelocityX(), match.getBallVelocityY());
+        target.setEntity(Snapshot.BAT_ONE, match.getBatX(1), match.getBatY(1), 0, match.getBatVelocityY(1));
+        target.setEntity(Snapshot.BAT_TWO, match.getBatX(2), match.getBatY(2), 0, 0);
+    }
 
-        playerOneBat = bat1.getComponent(BatComponent.class);
-        playerTwoBat = bat2.getComponent(BatComponent.class);
+    @Override
+    public void onBatHit(int player) {
+        Entity bat = entities[Snapshot.batOf(player)];
+        animationBuilder()
+                .autoReverse(true)
+                .duration(Duration.seconds(0.5))
+                .interpolator(Interpolators.BOUNCE.EASE_OUT())
+                .rotate(bat)
+                .from(FXGLMath.random(-25, 25))
+                .to(0)
+                .buildAndPlay();
     }
-    
+
     /**
-     * Server Input events. The events
-     * handles the bat's movements (server).
+     * Record the match into the replay folder, the game is played even
+     * if it cannot be recorded.
      */
-    private void initServerInputs() {
-        getInput().addAction(new UserAction("Up") {
-            @Override
-            protected void onAction() {
-                playerOneBat.up();
-            }
+    private void startReplay() {
+        try {
+            Path folder = Files.createDirectories(Paths.get(REPLAY_DIR));
+            replay = new ReplayWriter(folder.resolve("host-" + System.currentTimeMillis() + ".replay"),
+                    TICK_RATE, REPLAY_KEYFRAME_INTERVAL);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Cannot record the match", ex);
+        }
+    }
 
-            @Override
-            protected void onActionEnd() {
-                playerOneBat.stop();
-            }
-        }, KeyCode.UP);
+    @Override
+    public void onGameOver(int winner) {
+        if (replay != null) {
+            replay.close();
+        }
+    }
 
-        getInput().addAction(new UserAction("Down") {
-            @Override
-            protected void onAction() {
-                playerOneBat.down();
-            }
+    @Override
+    public void onScore(int player, int score) {
+        set(player == 1 ? PLAYER1_SCORE : PLAYER2_SCORE, score);
+        getGameScene().getViewport().shakeTranslational(5);
+    }
 
-            @Override
-            protected void onActionEnd() {
-                playerOneBat.stop();
+    /**
+     * Move the client's bat with its commands, replay its other keys on
+     * the client input, and keep the last tick it acknowledged. A UDP
+     * client joins with its first message.
+     * @param message message from the client
+     */
+    private void onClientMessage(byte[] message) {
+        if (!PongProtocol.isWellFormed(message)) {
+            return;
+        }
+        if (PongProtocol.typeOf(message) == PongProtocol.JOIN) {
+            if (entities[Snapshot.BALL] == null) {
+                onServer();
             }
-        }, KeyCode.DOWN);
-
+            return;
+        }
+        if (PongProtocol.typeOf(message) == PongProtocol.ACK) {
+            ackedTick = Math.max(ackedTick, PongProtocol.ackTick(message));
+            return;
+        }
+        if (PongProtocol.typeOf(message) == PongProtocol.COMMAND) {
+            if (match != null) {
+                commands.add(message);
+            }
+            return;
+        }
+        if (PongProtocol.typeOf(message) != PongProtocol.INPUT) {
+            return;
+        }
+
+        KeyCode key = KEY_CODES.get(PongProtocol.inputKeyCode(message));
+        if (key == null) {
+            return;
+        }
+
+        if (PongProtocol.inputPressed(message)) {
+            clientInput.mockKeyPress(key);
+        } else {
+            clientInput.mockKeyRelease(key);
+        }
     }
     
     /**
-     * Client input events. The input will
-     * get replicated in the server. The events
-     * handles the bat's movements (Client).
+     * Move the client's bat like the client predicted it, with the same
+     * Bat rules and duration, one tick of commands before each step. The
+     * bat stays still between commands.
      */
-    private void initClientInputs() {
-        
-        clientInput.addAction(new UserAction("Up") {
+    private void applyCommands() {
+        int sequence = commands.apply(match.getState(), MatchSimulation.MATCH, 2);
+        if (sequence != PongProtocol.NO_INPUT) {
+            lastCommand = sequence;
+            clientBatMoved = true;
+        }
+    }
+
+    /**
+     * Server Input events. The events set the direction of the
+     * server's bat, the match moves it on its next steps.
+     */
+    private void initServerInputs() {
+        getInput().addAction(new UserAction("Up") {
             @Override
             protected void onAction() {
-                playerTwoBat.up();
+                match.setBatDirection(1, Bat.UP);
             }
 
             @Override
             protected void onActionEnd() {
-                playerTwoBat.stop();
+                match.setBatDirection(1, Bat.STOP);
             }
         }, KeyCode.UP);
 
-        clientInput.addAction(new UserAction("Down") {
+        getInput().addAction(new UserAction("Down") {
             @Override
             protected void onAction() {
-                playerTwoBat.down();
+                match.setBatDirection(1, Bat.DOWN);
             }
 
             @Override
             protected void onActionEnd() {
-                playerTwoBat.stop();
+                match.setBatDirection(1, Bat.STOP);
             }
         }, KeyCode.DOWN);
-        
+
     }
 
 }
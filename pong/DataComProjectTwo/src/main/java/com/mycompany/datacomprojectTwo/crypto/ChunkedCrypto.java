@@ -0,0 +1,410 @@
+package com.mycompany.datacomprojectTwo.crypto;
+
+import static com.mycompany.datacomprojectTwo.crypto.CryptoConfig.ALGORITHM;
+import static com.mycompany.datacomprojectTwo.crypto.CryptoConfig.CHUNK_SIZE;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Encrypts files into a container of independently sealed AES/GCM chunks,
+ * for large files such as replays and match archives. Unlike the single
+ * GCM stream of SymmetricCrypto, the chunks are encrypted and decrypted in
+ * parallel on all the cores, and a reader can decrypt only the chunks
+ * holding the bytes it needs (see decryptRange), e.g. to seek in a replay.
+ * <pre>
+ * header   magic "PGCK", version (1 byte), chunk size (4 bytes),
+ *          plaintext length (8 bytes), random nonce prefix (8 bytes)
+ * chunk i  ciphertext (chunk size bytes, the last one shorter), tag (16 bytes)
+ * </pre>
+ * The nonce of chunk i is the nonce prefix followed by i, so no two chunks
+ * of any file share a nonce. Every chunk authenticates the header, its
+ * index and whether it is the last one, so chunks cannot be reordered,
+ * swapped between files or cut off, and the header cannot be changed. A
+ * file always has at least one chunk, an empty one for an empty file.
+ */
+public class ChunkedCrypto {
+
+    // First bytes of a container
+    private static final byte[] MAGIC = {'P', 'G', 'C', 'K'};
+
+    // Version of the format
+    public static final byte VERSION = 1;
+
+    // Size of the header
+    public static final int HEADER_SIZE = 25;
+
+    // Largest chunk size, so a crafted header cannot make the readers allocate gigabytes
+    public static final int MAX_CHUNK_SIZE = 64 << 20;
+
+    // Random part of the nonces, the chunk index is the rest
+    private static final int NONCE_PREFIX_LENGTH = SymmetricCrypto.GCM_IV_LENGTH - Integer.BYTES;
+
+    // Draws the nonce prefixes
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Workers sealing and opening the chunks
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final ExecutorService WORKERS;
+
+    static {
+        AtomicInteger workerNumber = new AtomicInteger();
+        WORKERS = Executors.newFixedThreadPool(THREADS, task -> {
+            Thread thread = new Thread(task, "pong-crypto-" + workerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Same key used for encryption and decryption
+    private final SecretKey key;
+
+    // Plaintext bytes per chunk of the files written
+    private final int chunkSize;
+
+    /**
+     * Create a container writer and reader with chunks of CHUNK_SIZE.
+     * @param key AES key
+     */
+    public ChunkedCrypto(SecretKey key) {
+        this(key, CHUNK_SIZE);
+    }
+
+    /**
+     * Create a container writer and reader.
+     * @param key AES key
+     * @param chunkSize plaintext bytes per chunk of the files written, at
+     * most MAX_CHUNK_SIZE; the files read use their own
+     */
+    public ChunkedCrypto(SecretKey key, int chunkSize) {
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE + ": " + chunkSize);
+        }
+        this.key = key;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Encrypt a file into a container, the chunks in parallel.
+     * @param inputFile file to encrypt
+     * @param outputFile container, replaced
+     * @throws IOException if a file cannot be read or written
+     * @throws GeneralSecurityException if the cipher cannot be used
+     */
+    public void encryptFile(Path inputFile, Path outputFile) throws IOException, GeneralSecurityException {
+        try (FileChannel source = FileChannel.open(inputFile, StandardOpenOption.READ);
+                FileChannel target = FileChannel.open(outputFile, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            byte[] prefix = new byte[NONCE_PREFIX_LENGTH];
+            RANDOM.nextBytes(prefix);
+            Header header = new Header(chunkSize, source.size(), prefix);
+            writeFully(target, ByteBuffer.wrap(header.bytes), 0);
+
+            forEachChunk(0, header.chunkCount - 1, () -> {
+                Cipher cipher = Cipher.getInstance(ALGORITHM);
+                ByteBuffer plain = ByteBuffer.allocate(header.bufferSize());
+                ByteBuffer sealed = ByteBuffer.allocate(header.bufferSize() + SymmetricCrypto.GCM_TAG_LENGTH);
+                return chunk -> {
+                    plain.clear().limit(header.plainSize(chunk));
+                    readFully(source, plain, header.plainOffset(chunk));
+                    plain.flip();
+                    header.init(cipher, Cipher.ENCRYPT_MODE, key, chunk);
+                    sealed.clear();
+                    cipher.doFinal(plain, sealed);
+                    sealed.flip();
+                    writeFully(target, sealed, header.chunkOffset(chunk));
+                };
+            });
+        }
+    }
+
+    /**
+     * Decrypt a whole container, the chunks in parallel. The output is
+     * deleted if any chunk fails its tag check.
+     * @param inputFile container
+     * @param outputFile decrypted file, replaced
+     * @throws IOException if a file cannot be read or written, or the
+     * input is not a container
+     * @throws GeneralSecurityException if the cipher cannot be used, or
+     * the container was changed (AEADBadTagException)
+     */
+    public void decryptFile(Path inputFile, Path outputFile) throws IOException, GeneralSecurityException {
+        boolean done = false;
+        try (FileChannel source = FileChannel.open(inputFile, StandardOpenOption.READ);
+                FileChannel target = FileChannel.open(outputFile, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Header header = Header.read(source);
+            forEachChunk(0, header.chunkCount - 1, () -> {
+                Cipher cipher = Cipher.getInstance(ALGORITHM);
+                ByteBuffer sealed = ByteBuffer.allocate(header.bufferSize() + SymmetricCrypto.GCM_TAG_LENGTH);
+                ByteBuffer plain = ByteBuffer.allocate(header.bufferSize());
+                return chunk -> {
+                    open(header, cipher, source, chunk, sealed, plain);
+                    writeFully(target, plain, header.plainOffset(chunk));
+                };
+            });
+            done = true;
+        } finally {
+            if (!done) {
+                Files.deleteIfExists(outputFile);
+            }
+        }
+    }
+
+    /**
+     * Decrypt some bytes of a container, reading and authenticating only
+     * the chunks holding them.
+     * @param inputFile container
+     * @param offset position of the first byte in the plaintext
+     * @param length number of bytes
+     * @return the plaintext bytes
+     * @throws IOException if the file cannot be read, is not a container,
+     * or the range is outside of the plaintext
+     * @throws GeneralSecurityException if the cipher cannot be used, or a
+     * chunk read was changed (AEADBadTagException)
+     */
+    public byte[] decryptRange(Path inputFile, long offset, int length) throws IOException, GeneralSecurityException {
+        try (FileChannel source = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+            Header header = Header.read(source);
+            if (offset < 0 || length < 0 || offset + length > header.plainLength) {
+                throw new EOFException("Range " + offset + "+" + length + " outside of " + header.plainLength + " bytes");
+            }
+            byte[] range = new byte[length];
+            if (length == 0) {
+                return range;
+            }
+
+            int first = (int) (offset / header.chunkSize);
+            int last = (int) ((offset + length - 1) / header.chunkSize);
+            forEachChunk(first, last, () -> {
+                Cipher cipher = Cipher.getInstance(ALGORITHM);
+                ByteBuffer sealed = ByteBuffer.allocate(header.bufferSize() + SymmetricCrypto.GCM_TAG_LENGTH);
+                ByteBuffer plain = ByteBuffer.allocate(header.bufferSize());
+                return chunk -> {
+                    open(header, cipher, source, chunk, sealed, plain);
+                    // The part of the chunk inside the range
+                    long chunkStart = header.plainOffset(chunk);
+                    long from = Math.max(offset, chunkStart);
+                    long to = Math.min(offset + length, chunkStart + plain.remaining());
+                    System.arraycopy(plain.array(), (int) (from - chunkStart), range, (int) (from - offset), (int) (to - from));
+                };
+            });
+            return range;
+        }
+    }
+
+    /**
+     * @param inputFile container
+     * @return the length of the plaintext it holds
+     * @throws IOException if the file cannot be read or is not a container
+     */
+    public static long plainLength(Path inputFile) throws IOException {
+        try (FileChannel source = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+            return Header.read(source).plainLength;
+        }
+    }
+
+    /**
+     * Read and decrypt one chunk.
+     * @param plain receives the plaintext, flipped
+     */
+    private void open(Header header, Cipher cipher, FileChannel source, int chunk, ByteBuffer sealed, ByteBuffer plain)
+            throws IOException, GeneralSecurityException {
+        sealed.clear().limit(header.plainSize(chunk) + SymmetricCrypto.GCM_TAG_LENGTH);
+        readFully(source, sealed, header.chunkOffset(chunk));
+        sealed.flip();
+        header.init(cipher, Cipher.DECRYPT_MODE, key, chunk);
+        plain.clear();
+        cipher.doFinal(sealed, plain);
+        plain.flip();
+    }
+
+    /**
+     * Header of a container, and the layout of its chunks.
+     */
+    private static final class Header {
+
+        private final int chunkSize;
+        private final long plainLength;
+        private final byte[] noncePrefix;
+        private final int chunkCount;
+
+        // Encoded header, authenticated by every chunk
+        private final byte[] bytes;
+
+        Header(int chunkSize, long plainLength, byte[] noncePrefix) throws IOException {
+            this.chunkSize = chunkSize;
+            this.plainLength = plainLength;
+            this.noncePrefix = noncePrefix;
+            long chunks = Math.max(1, (plainLength + chunkSize - 1) / chunkSize);
+            if (chunks > Integer.MAX_VALUE) {
+                throw new IOException("Too many chunks: " + chunks);
+            }
+            this.chunkCount = (int) chunks;
+            this.bytes = ByteBuffer.allocate(HEADER_SIZE)
+                    .put(MAGIC)
+                    .put(VERSION)
+                    .putInt(chunkSize)
+                    .putLong(plainLength)
+                    .put(noncePrefix)
+                    .array();
+        }
+
+        /**
+         * Read the header of a container and check the size of the file.
+         */
+        static Header read(FileChannel source) throws IOException {
+            ByteBuffer in = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(source, in, 0);
+            in.flip();
+            byte[] magic = new byte[MAGIC.length];
+            in.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a chunked container");
+            }
+            byte version = in.get();
+            if (version != VERSION) {
+                throw new IOException("Unknown container version " + version);
+            }
+            int chunkSize = in.getInt();
+            long plainLength = in.getLong();
+            if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE || plainLength < 0) {
+                throw new IOException("Corrupt container header");
+            }
+            byte[] prefix = new byte[NONCE_PREFIX_LENGTH];
+            in.get(prefix);
+
+            Header header = new Header(chunkSize, plainLength, prefix);
+            long expected = header.chunkOffset(header.chunkCount - 1)
+                    + header.plainSize(header.chunkCount - 1) + SymmetricCrypto.GCM_TAG_LENGTH;
+            if (source.size() != expected) {
+                throw new IOException("Container is " + source.size() + " bytes, expected " + expected);
+            }
+            return header;
+        }
+
+        /**
+         * @return plaintext bytes of the largest chunk
+         */
+        int bufferSize() {
+            return (int) Math.min(chunkSize, plainLength);
+        }
+
+        long plainOffset(int chunk) {
+            return (long) chunk * chunkSize;
+        }
+
+        int plainSize(int chunk) {
+            return (int) Math.min(chunkSize, plainLength - plainOffset(chunk));
+        }
+
+        long chunkOffset(int chunk) {
+            return HEADER_SIZE + (long) chunk * (chunkSize + SymmetricCrypto.GCM_TAG_LENGTH);
+        }
+
+        /**
+         * Initialize a cipher for a chunk: its own nonce, and the header,
+         * index and last flag authenticated.
+         */
+        void init(Cipher cipher, int mode, SecretKey key, int chunk) throws GeneralSecurityException {
+            byte[] nonce = ByteBuffer.allocate(SymmetricCrypto.GCM_IV_LENGTH).put(noncePrefix).putInt(chunk).array();
+            cipher.init(mode, key, new GCMParameterSpec(SymmetricCrypto.GCM_TAG_LENGTH * 8, nonce));
+            cipher.updateAAD(bytes);
+            cipher.updateAAD(ByteBuffer.allocate(Integer.BYTES + 1)
+                    .putInt(chunk)
+                    .put((byte) (chunk == chunkCount - 1 ? 1 : 0))
+                    .array());
+        }
+    }
+
+    /**
+     * Seals or opens chunks on one worker, with its own cipher and buffers.
+     */
+    private interface ChunkWorker {
+        void process(int chunk) throws IOException, GeneralSecurityException;
+    }
+
+    /**
+     * Creates the worker of each thread.
+     */
+    private interface WorkerFactory {
+        ChunkWorker newWorker() throws GeneralSecurityException;
+    }
+
+    /**
+     * Process the chunks first to last on the workers, each worker taking
+     * every THREADS-th chunk, and wait for all of them.
+     */
+    private static void forEachChunk(int first, int last, WorkerFactory factory)
+            throws IOException, GeneralSecurityException {
+        int tasks = Math.min(THREADS, last - first + 1);
+        List<Future<?>> futures = new ArrayList<>(tasks);
+        for (int task = 0; task < tasks; task++) {
+            int start = first + task;
+            futures.add(WORKERS.submit(() -> {
+                ChunkWorker worker = factory.newWorker();
+                for (int chunk = start; chunk <= last; chunk += tasks) {
+                    worker.process(chunk);
+                }
+                return null;
+            }));
+        }
+
+        // Every task is over before the files are closed
+        Throwable failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException ex) {
+                failure = failure != null ? failure : ex.getCause();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new InterruptedIOException("Interrupted while waiting for the chunks");
+            }
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure instanceof GeneralSecurityException) {
+            throw (GeneralSecurityException) failure;
+        }
+        if (failure != null) {
+            throw new IllegalStateException(failure);
+        }
+    }
+
+    private static void readFully(FileChannel source, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = source.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Container ends at " + position);
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += target.write(buffer, position);
+        }
+    }
+}
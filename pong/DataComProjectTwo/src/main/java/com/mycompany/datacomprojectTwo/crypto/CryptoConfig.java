@@ -25,6 +25,9 @@ public final class CryptoConfig {
     // Digital signature file
     public static final String DIGITAL_SIGNATURE_FILE = "src/main/resources/PongApp.sig";
 
+    // Digests of the signed files, to skip signing and verifying them when unchanged
+    public static final String DIGEST_CACHE_FILE = "src/main/resources/PongApp.digests";
+
                                                                       
     // GCMIV for symmetric encryption
     public static final String GCMIV_FILE = "./src/main/resources/gcmiv";
@@ -44,9 +47,17 @@ public final class CryptoConfig {
     // Algorithm used for symmetric encryption
     public static final String ALGORITHM = "AES/GCM/NoPadding";
     
-    // Command to generate 256 bit key pair using keyTool with SHA256withECDSA algorithm (EC)
-    public static String [] KEY_TOOL_CMD = new String[]{"keytool","-genkeypair","-alias","pongkeyPair","-keyalg","EC","-dname","CN=Pong","-storetype","PKCS12"
-                                                        ,"-keystore",KEY_STORE_FILE,"-storepass","" };
+    // Bytes read and encrypted at a time by SymmetricCrypto (-Dpong.cryptoChunkSize=1048576)
+    public static final int CHUNK_SIZE = Integer.getInteger("pong.cryptoChunkSize", 1 << 20);
+    
+    // Curve of the 256 bit key pair used with SHA256withECDSA algorithm (EC)
+    public static final String KEY_PAIR_CURVE = "secp256r1";
+    
+    // Name of the self-signed certificate of the key pair
+    public static final String CERTIFICATE_NAME = "Pong";
+    
+    // Days the certificate is valid
+    public static final int CERTIFICATE_DAYS = 3650;
 
     // Alias for keyPair'
     public static final String ALIAS_KEY_PAIR = "pongkeyPair";
@@ -56,6 +67,9 @@ public final class CryptoConfig {
     
     // KeyStore Type
     public static final String KEY_STORE_TYPE = "PKCS12";
+
+    // Time the unlocked keys stay in memory without being used (-Dpong.keyStoreIdle=300000)
+    public static final long KEY_STORE_IDLE_TIMEOUT = Long.getLong("pong.keyStoreIdle", 300_000);
     
     // Password for testing
     public static final String TESTING_PASSWORD = "1234pp";
@@ -0,0 +1,246 @@
+package com.mycompany.datacomprojectTwo.crypto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SignatureException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Properties;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Persisted cache of the signed files, so the ECDSA verification is only
+ * done for a file that changed. Each entry is keyed by the path of the
+ * file and holds its size, modification time and SHA-256 with its last
+ * signature. verify always hashes the file, and skips the ECDSA
+ * verification when the hash, the signature and the public key are those
+ * of an entry already signed or verified. Entries are authenticated with
+ * an HMAC keyed from the secret key of the keyStore, so an edited cache
+ * file cannot pass a changed file off as verified.
+ */
+public class DigestCache {
+
+    // Label of the HMAC key derived from the secret key
+    private static final byte[] MAC_LABEL = "pong digest cache".getBytes(StandardCharsets.US_ASCII);
+
+    // Cache file
+    private final Path cacheFile;
+
+    // Entries by path: size, modification time, digest, signature, public key digest, mac
+    private final Properties entries = new Properties();
+
+    // ECDSA verifications skipped
+    private long skippedCount;
+
+    /**
+     * Create a cache, reading its file when it exists. A file that cannot
+     * be read is taken as empty.
+     * @param cacheFile cache file
+     */
+    public DigestCache(String cacheFile) {
+        this.cacheFile = Paths.get(cacheFile);
+        if (Files.exists(this.cacheFile)) {
+            try (InputStream in = Files.newInputStream(this.cacheFile)) {
+                entries.load(in);
+            } catch (IOException | IllegalArgumentException ex) {
+                entries.clear();
+            }
+        }
+    }
+
+    /**
+     * Entry of a signed file.
+     */
+    private static final class Entry {
+        long size;
+        long modified;
+        byte[] digest;
+        byte[] signature;
+        byte[] publicKey;
+        byte[] mac;
+    }
+
+    /**
+     * Sign a file and record it.
+     * @param file file to sign
+     * @param algorithm signature algorithm
+     * @param privateKey signing key
+     * @param publicKey its public key
+     * @param secretKey secret key of the keyStore, authenticating the entry
+     * @return signature
+     * @throws NoSuchAlgorithmException
+     * @throws NoSuchProviderException
+     * @throws InvalidKeyException
+     * @throws SignatureException
+     * @throws IOException
+     */
+    public byte[] sign(String file, String algorithm, PrivateKey privateKey, PublicKey publicKey, SecretKey secretKey)
+            throws NoSuchAlgorithmException, NoSuchProviderException, InvalidKeyException, SignatureException, IOException {
+        // Attributes first: a later change gives the file another time
+        BasicFileAttributes attributes = Files.readAttributes(Paths.get(file), BasicFileAttributes.class);
+        byte[] data = Files.readAllBytes(Paths.get(file));
+        byte[] signature = new PongDigitalSignature().generateSignature(algorithm, privateKey, data);
+        record(file, attributes, data, signature, publicKey, secretKey);
+        return signature;
+    }
+
+    /**
+     * Verify the signature of a file, without the ECDSA verification when
+     * it was already verified with the same contents, signature and key.
+     * @param file signed file
+     * @param signature its signature
+     * @param algorithm signature algorithm
+     * @param publicKey verifying key
+     * @param secretKey secret key of the keyStore, authenticating the entry
+     * @return true if the signature is valid
+     * @throws NoSuchAlgorithmException
+     * @throws NoSuchProviderException
+     * @throws InvalidKeyException
+     * @throws SignatureException
+     * @throws IOException
+     */
+    public boolean verify(String file, byte[] signature, String algorithm, PublicKey publicKey, SecretKey secretKey)
+            throws NoSuchAlgorithmException, NoSuchProviderException, InvalidKeyException, SignatureException, IOException {
+        BasicFileAttributes attributes = Files.readAttributes(Paths.get(file), BasicFileAttributes.class);
+        byte[] data = Files.readAllBytes(Paths.get(file));
+
+        Entry entry = entry(file);
+        if (entry != null
+                && MessageDigest.isEqual(sha256(data), entry.digest)
+                && MessageDigest.isEqual(signature, entry.signature)
+                && MessageDigest.isEqual(sha256(publicKey.getEncoded()), entry.publicKey)
+                && MessageDigest.isEqual(mac(secretKey, file, entry), entry.mac)) {
+            skippedCount++;
+            // Same contents with another time, e.g. after a checkout
+            if (attributes.size() != entry.size || attributes.lastModifiedTime().toMillis() != entry.modified) {
+                record(file, attributes, data, signature, publicKey, secretKey);
+            }
+            return true;
+        }
+
+        boolean valid = new PongDigitalSignature().verifySignature(signature, publicKey, algorithm, data);
+        if (valid) {
+            record(file, attributes, data, signature, publicKey, secretKey);
+        }
+        return valid;
+    }
+
+    /**
+     * @return ECDSA verifications skipped by this instance
+     */
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Record a signed file and write the cache file.
+     */
+    private void record(String file, BasicFileAttributes attributes, byte[] data, byte[] signature,
+            PublicKey publicKey, SecretKey secretKey) throws NoSuchAlgorithmException, InvalidKeyException, IOException {
+        Entry entry = new Entry();
+        entry.size = attributes.size();
+        entry.modified = attributes.lastModifiedTime().toMillis();
+        entry.digest = sha256(data);
+        entry.signature = signature;
+        entry.publicKey = sha256(publicKey.getEncoded());
+        entry.mac = mac(secretKey, file, entry);
+
+        Base64.Encoder base64 = Base64.getEncoder();
+        entries.setProperty(key(file), entry.size + ";" + entry.modified + ";"
+                + base64.encodeToString(entry.digest) + ";" + base64.encodeToString(entry.signature) + ";"
+                + base64.encodeToString(entry.publicKey) + ";" + base64.encodeToString(entry.mac));
+        write();
+    }
+
+    /**
+     * @return the entry of a file, or null if it has none or it is corrupt
+     */
+    private Entry entry(String file) {
+        String value = entries.getProperty(key(file));
+        if (value == null) {
+            return null;
+        }
+        String[] fields = value.split(";");
+        if (fields.length != 6) {
+            return null;
+        }
+        try {
+            Base64.Decoder base64 = Base64.getDecoder();
+            Entry entry = new Entry();
+            entry.size = Long.parseLong(fields[0]);
+            entry.modified = Long.parseLong(fields[1]);
+            entry.digest = base64.decode(fields[2]);
+            entry.signature = base64.decode(fields[3]);
+            entry.publicKey = base64.decode(fields[4]);
+            entry.mac = base64.decode(fields[5]);
+            return entry;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Write the cache to a temporary file moved over the former one.
+     */
+    private void write() throws IOException {
+        Path target = cacheFile.toAbsolutePath();
+        Path temporary = Files.createTempFile(target.getParent(), "digests", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                entries.store(out, "Pong signed files");
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static String key(String file) {
+        return Paths.get(file).toAbsolutePath().normalize().toString();
+    }
+
+    private static byte[] sha256(byte[] data) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256").digest(data);
+    }
+
+    /**
+     * @return the HMAC of an entry: its path, digest, signature and public
+     * key, each preceded by its length
+     */
+    private static byte[] mac(SecretKey secretKey, String file, Entry entry) throws NoSuchAlgorithmException, InvalidKeyException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        byte[] keyBytes = secretKey.getEncoded();
+        mac.init(new SecretKeySpec(keyBytes, "HmacSHA256"));
+        Arrays.fill(keyBytes, (byte) 0);
+        byte[] macKey = mac.doFinal(MAC_LABEL);
+        mac.init(new SecretKeySpec(macKey, "HmacSHA256"));
+        Arrays.fill(macKey, (byte) 0);
+
+        for (byte[] field : new byte[][]{key(file).getBytes(StandardCharsets.UTF_8), entry.digest, entry.signature, entry.publicKey}) {
+            mac.update(ByteBuffer.allocate(Integer.BYTES).putInt(field.length).array());
+            mac.update(field);
+        }
+        return mac.doFinal();
+    }
+}
@@ -38,14 +38,32 @@ public class PongDigitalSignature {
             throws NoSuchAlgorithmException, NoSuchProviderException, 
             InvalidKeyException, UnsupportedEncodingException, SignatureException, IOException {
         
+        // Read the file to sign
+        byte[] fileBytes = Files.readAllBytes(Paths.get(fileToBeSigned));
+        
+        return generateSignature(algorithm, privatekey, fileBytes);
+    }
+    
+    /**
+     * Method for generating the digital signature of bytes already read.
+     * @param algorithm
+     * @param privatekey
+     * @param fileBytes
+     * @return signature
+     * @throws java.security.NoSuchAlgorithmException 
+     * @throws java.security.NoSuchProviderException 
+     * @throws java.security.InvalidKeyException 
+     * @throws java.security.SignatureException 
+     */
+    public byte[] generateSignature (String algorithm, PrivateKey privatekey, byte[] fileBytes) 
+            throws NoSuchAlgorithmException, NoSuchProviderException, 
+            InvalidKeyException, SignatureException {
+        
         //Create an instance of the signature scheme for the given signature algorithm
         Signature sig = Signature.getInstance(algorithm, "SunEC");
         
         //Initialize the signature scheme
         sig.initSign(privatekey);
-
-        // Read the file to sign
-        byte[] fileBytes = Files.readAllBytes(Paths.get(fileToBeSigned));
         
         // Compute the signature
         sig.update(fileBytes);
@@ -74,13 +92,33 @@ public class PongDigitalSignature {
             throws NoSuchAlgorithmException, NoSuchProviderException, 
             InvalidKeyException, UnsupportedEncodingException, SignatureException, IOException {
         
+        byte[] fileBytes = Files.readAllBytes(Paths.get(receivedFile));
+        
+        return verifySignature(signature, publickey, algorithm, fileBytes);
+    }
+    
+    /**
+     * Method for verifying the digital signature of bytes already read.
+     * return if signature is valid or not.
+     * @param signature
+     * @param publickey
+     * @param algorithm
+     * @param fileBytes
+     * @return true or false
+     * @throws NoSuchAlgorithmException
+     * @throws NoSuchProviderException
+     * @throws InvalidKeyException
+     * @throws SignatureException
+     */
+    public boolean verifySignature(byte[] signature, PublicKey publickey, String algorithm, byte[] fileBytes) 
+            throws NoSuchAlgorithmException, NoSuchProviderException, 
+            InvalidKeyException, SignatureException {
+        
         //Create an instance of the signature scheme for the given signature algorithm
         Signature sig = Signature.getInstance(algorithm, "SunEC");
         
         //Initialize the signature verification scheme.
         sig.initVerify(publickey);
-        
-        byte[] fileBytes = Files.readAllBytes(Paths.get(receivedFile));
 
         sig.update(fileBytes);
         
@@ -7,12 +7,18 @@ import java.security.NoSuchAlgorithmException;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import static com.mycompany.datacomprojectTwo.crypto.CryptoConfig.*;
-import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
 import java.security.KeyStore.PasswordProtection;
 import java.security.KeyStore.ProtectionParameter;
 import java.security.KeyStore.SecretKeyEntry;
@@ -22,64 +28,66 @@ import java.security.UnrecoverableKeyException;
 import java.security.cert.Certificate;
 
 import java.security.cert.CertificateException;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.spec.SecretKeySpec;
+import javax.security.auth.DestroyFailedException;
+import javax.security.auth.Destroyable;
 
 /**
  * This class implements the keyStore functionalities.
- * It contains two parameterized constructors. The first constructor
- * instantiate the pongKeyStore when the program has no KeyStore file,
- * and calls the methods to generate the keys and store them. The second
- * constructor is used to access and existent keyStore. 
- * The instance of the second constructor will be used to retrieve all the keys.
+ * When the program has no KeyStore file, createAndStoreKeys generates
+ * the keys (the EC keyPair, its self-signed certificate and the AES key)
+ * in memory and writes the keyStore file once. Otherwise the instance is
+ * used to retrieve the keys of the existent keyStore.
+ * The keyStore file is loaded once and its keys kept unlocked in memory, so
+ * the following saves, loads and signatures do not pay the PKCS12 key
+ * derivation again. The keys are locked after KEY_STORE_IDLE_TIMEOUT
+ * without use, by lock(), or when new keys are created; a different
+ * password loads the file again. Locking zeroes the kept password and
+ * secret key bytes and drops the private key, which the JDK providers do
+ * not let be wiped: it stays in memory until collected, like the secret
+ * key copies already returned to the callers.
  * @author Yassine Ibhir
  */
 public class PongKeyStore {
+
+    // Keys of the keyStore file, while unlocked
+    private static Session session;
+
+    // Time the keys stay unlocked without being used
+    private static volatile long idleTimeoutMillis = KEY_STORE_IDLE_TIMEOUT;
+
+    // Locks the keys once idle
+    private static final ScheduledExecutorService LOCKER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "pong-keystore-lock");
+        t.setDaemon(true);
+        return t;
+    });
+
     // Password to use in keystore
     private char[] pswd;
     
-    //Keystore instance
-    private KeyStore ks;
-    
-    // Operating system command to generate keyPair with keyTool
-    private String [] command;
-    
-    /**
-     * This constructor  will be invoked when we first create the keyStore.
-     * The constructor takes as arguments the password to access the keyStore
-     * and the operating system command to generate a keyPair using keyTool.
-     * The command arguments are static except the password given by user.
-     * @param pswd hashed password to create and access keyStore
-     * @param command to generate the keyPair used for digital signature
-     * @throws java.security.KeyStoreException
-     */
-    public PongKeyStore(char[] pswd, String [] command) throws KeyStoreException{
-        this.pswd = pswd;
-        this.command = command;
-        // Set password to command
-        this.command[this.command.length-1] = String.valueOf(this.pswd);
-        
-        ks = KeyStore.getInstance(KEY_STORE_TYPE);
-    }
-    
      /**
-     * This constructor will be invoked when we access
-     * an existent keyStore. It LoadS keyStore,
-     * and set the password used to retrieve
-     * the keys stored in the keyStore. 
-     * @param pswd hashed password to access keyStore.
+     * This constructor sets the password used to create the keyStore,
+     * or to retrieve the keys stored in the existent keyStore. 
+     * @param pswd hashed password to create or access keyStore.
      * @throws java.security.KeyStoreException
      */
     public PongKeyStore(char[] pswd) throws KeyStoreException{
         this.pswd = pswd;
-        ks = KeyStore.getInstance(KEY_STORE_TYPE);
     }
     
     /**
      * This method generates all the cryptography keys,
      * stores them inside a keyStore instance, and writes
      * the keyStore instance to a file. The method gets invoked
-     * when the program has no stored keyStore file. It is invoked
-     * with the instance constructed by the constructor with password
-     * and command parameters.
+     * when the program has no stored keyStore file. The file is
+     * written once, replacing the former one atomically, and the new keys
+     * are kept unlocked.
      * @throws IOException
      * @throws NoSuchAlgorithmException
      * @throws CertificateException
@@ -87,93 +95,73 @@ public class PongKeyStore {
      */
     public void createAndStoreKeys() throws IOException, NoSuchAlgorithmException, CertificateException, KeyStoreException{
         
-        // Gnerate keyPair and store it in keyStore
-        generateKeyPairProcess();
+        // The unlocked keys are the former ones
+        lock();
+        
+        // Empty keyStore in memory
+        KeyStore ks = KeyStore.getInstance(KEY_STORE_TYPE);
+        ks.load(null, this.pswd);
+        
+        // Generate keyPair and its certificate
+        KeyPair keyPair = generateKeyPair();
+        Certificate certificate = SelfSignedCertificate.create(keyPair, CERTIFICATE_NAME, CERTIFICATE_DAYS);
+        ks.setKeyEntry(ALIAS_KEY_PAIR, keyPair.getPrivate(), this.pswd, new Certificate[]{certificate});
         
         // Generate SecretKey and store it in keyStore
-        generateSecretKeyProcess();
+        SecretKey secretKey = generateSecretKey();
+        ks.setEntry(ALIAS_SECRET_KEY, new SecretKeyEntry(secretKey), new PasswordProtection(this.pswd));
         
         // Store keystore in a file
-        writeKeyStoreToFile();
-
-    }
-    
-    /**
-     * This method loads the file containing the keyStore instance,
-     * generate a secret key and store it in the keyStore.
-     * @throws NoSuchAlgorithmException
-     * @throws KeyStoreException
-     * @throws FileNotFoundException
-     * @throws IOException
-     * @throws CertificateException 
-     */
-    private void generateSecretKeyProcess() throws NoSuchAlgorithmException, KeyStoreException, FileNotFoundException, IOException, CertificateException{
+        writeKeyStoreToFile(ks);
         
-        // Load the keystore created by keyTool proces
-        FileInputStream fis = null;
-        try {
-            fis = new java.io.FileInputStream(KEY_STORE_FILE);
-            ks.load(fis, this.pswd);
-            } finally {
-            if (fis != null) {
-                fis.close();
-            }
+        // The new keys are unlocked, without loading the file again
+        synchronized (PongKeyStore.class) {
+            session = new Session(this.pswd, keyPair.getPrivate(), secretKey, certificate);
+            lockWhenIdle(session, idleTimeoutMillis);
         }
-       
-        // SetUp protection password
-        ProtectionParameter protParam = new PasswordProtection(this.pswd);
-        
-        // Generate secret key
-        SecretKey secretkey = generateSecretKey();
-        
-        // Set up SecretKey entry
-        SecretKeyEntry skEntry = new KeyStore.SecretKeyEntry(secretkey);
-        
-        // Set the entry
-        ks.setEntry(ALIAS_SECRET_KEY, skEntry, protParam);
-        
     }
     
     /**
-     * Method stores the KeyStore into a file
-     * @throws FileNotFoundException
+     * Method stores the KeyStore into a file. It is written to a
+     * temporary file next to it, then moved over it, so a crash never
+     * leaves a partial keyStore.
      * @throws KeyStoreException
      * @throws IOException
      * @throws NoSuchAlgorithmException
      * @throws CertificateException 
      */
-    private void writeKeyStoreToFile() throws FileNotFoundException, KeyStoreException, IOException, NoSuchAlgorithmException, CertificateException{
-    
-        // store away the keystore
-        FileOutputStream fos = null;
+    private void writeKeyStoreToFile(KeyStore ks) throws KeyStoreException, IOException, NoSuchAlgorithmException, CertificateException{
+        Path target = Paths.get(KEY_STORE_FILE).toAbsolutePath();
+        Path temporary = Files.createTempFile(target.getParent(), "Keystore", ".tmp");
         try {
-            fos = new FileOutputStream(KEY_STORE_FILE);
-            ks.store(fos, this.pswd);
-        } finally {
-            if (fos != null) {
-                fos.close();
+            // store away the keystore
+            try (OutputStream fos = Files.newOutputStream(temporary)) {
+                ks.store(fos, this.pswd);
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
             }
+        } finally {
+            Files.deleteIfExists(temporary);
         }
     }
     
     /**
-     * Method uses process builder to run the command that
-     * generates 256-bit asymmetric key.
-     * @throws IOException 
-    */
-    private void generateKeyPairProcess() throws IOException{
-        ProcessBuilder builder = new ProcessBuilder(
-            this.command);
-        builder.redirectErrorStream(true);
-        Process p = builder.start();
-        BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream()));
-        String line;
-        while (true) {
-            line = r.readLine();
-            if (line == null) { break; }
-            System.out.println(line);
-        }
-        r.close();
+     * Method generates the 256-bit EC keyPair used for the digital
+     * signature.
+     * @return KeyPair
+     * @throws NoSuchAlgorithmException 
+     */
+    private KeyPair generateKeyPair() throws NoSuchAlgorithmException{
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        try {
+            generator.initialize(new ECGenParameterSpec(KEY_PAIR_CURVE));
+        } catch (InvalidAlgorithmParameterException ex) {
+            throw new NoSuchAlgorithmException("Unknown curve " + KEY_PAIR_CURVE, ex);
+        }
+        return generator.generateKeyPair();
     }
     
     /**
@@ -188,11 +176,9 @@ public class PongKeyStore {
     * @throws UnrecoverableKeyException 
     */    
     public PrivateKey getPrivateKey() throws FileNotFoundException, KeyStoreException, IOException, NoSuchAlgorithmException, CertificateException, UnrecoverableKeyException{
-       
-        this.ks.load(new FileInputStream(KEY_STORE_FILE), this.pswd);
-        PrivateKey privateKey = 
-        (PrivateKey) this.ks.getKey(ALIAS_KEY_PAIR, this.pswd);
-        return privateKey;
+        synchronized (PongKeyStore.class) {
+            return unlock().privateKey();
+        }
     }
     
     /**
@@ -206,11 +192,13 @@ public class PongKeyStore {
      * @throws CertificateException 
      */
     public PublicKey getPublicKey() throws KeyStoreException, FileNotFoundException, IOException, NoSuchAlgorithmException, CertificateException{
-        this.ks.load(new FileInputStream(KEY_STORE_FILE), this.pswd);
-        Certificate certificate = this.ks.getCertificate(ALIAS_KEY_PAIR);
-        PublicKey publicKey = certificate.getPublicKey();
-        
-        return publicKey;
+        synchronized (PongKeyStore.class) {
+            try {
+                return unlock().publicKey;
+            } catch (UnrecoverableKeyException ex) {
+                throw new KeyStoreException(ex);
+            }
+        }
     }
     
     /**
@@ -238,11 +226,175 @@ public class PongKeyStore {
      * @throws UnrecoverableKeyException 
      */
     public SecretKey getSecretKey() throws FileNotFoundException, IOException, NoSuchAlgorithmException, CertificateException, KeyStoreException, UnrecoverableKeyException{
-        this.ks.load(new FileInputStream(KEY_STORE_FILE), this.pswd);
-        SecretKey secretKey = (SecretKey) this.ks.getKey(ALIAS_SECRET_KEY, this.pswd);
-       
-        return secretKey;
-      
+        synchronized (PongKeyStore.class) {
+            return unlock().secretKey();
+        }
+    }
+    
+    /**
+     * Returns the unlocked keys, loading the keyStore file when they are
+     * locked or were unlocked with another password. Called holding the
+     * class lock.
+     * @return unlocked keys
+     */
+    private Session unlock() throws IOException, NoSuchAlgorithmException, CertificateException, KeyStoreException, UnrecoverableKeyException {
+        if (session != null && session.matches(this.pswd)) {
+            session.lastUseNanos = System.nanoTime();
+            return session;
+        }
+        
+        // Load the file once, and close it; the loaded keyStore is not kept
+        KeyStore ks = KeyStore.getInstance(KEY_STORE_TYPE);
+        try (FileInputStream fis = new FileInputStream(KEY_STORE_FILE)) {
+            ks.load(fis, this.pswd);
+        }
+        PrivateKey privateKey = (PrivateKey) ks.getKey(ALIAS_KEY_PAIR, this.pswd);
+        SecretKey secretKey = (SecretKey) ks.getKey(ALIAS_SECRET_KEY, this.pswd);
+        Certificate certificate = ks.getCertificate(ALIAS_KEY_PAIR);
+        if (privateKey == null || secretKey == null || certificate == null) {
+            throw new KeyStoreException("The keyStore is missing a key");
+        }
+        Session loaded = new Session(this.pswd, privateKey, secretKey, certificate);
+        lock();
+        session = loaded;
+        lockWhenIdle(loaded, idleTimeoutMillis);
+        return loaded;
+    }
+    
+    /**
+     * Lock the keys once they were not used for the idle timeout.
+     * @param unlocked keys to lock
+     * @param delayMillis time until the next check
+     */
+    private static void lockWhenIdle(Session unlocked, long delayMillis) {
+        LOCKER.schedule(() -> {
+            synchronized (PongKeyStore.class) {
+                if (session != unlocked) {
+                    return;
+                }
+                long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - unlocked.lastUseNanos);
+                if (idleMillis >= idleTimeoutMillis) {
+                    lock();
+                } else {
+                    lockWhenIdle(unlocked, idleTimeoutMillis - idleMillis);
+                }
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Lock the keys: zero their copies in memory, so the next use loads
+     * the keyStore file with the password again.
+     */
+    public static synchronized void lock() {
+        if (session != null) {
+            session.close();
+            session = null;
+        }
+    }
+    
+    /**
+     * @return a keyStore using the keys unlocked in memory, so the password
+     * is not asked again, or null while they are locked
+     * @throws KeyStoreException
+     */
+    public static synchronized PongKeyStore unlocked() throws KeyStoreException {
+        return session == null ? null : new PongKeyStore(session.password.clone());
+    }
+    
+    /**
+     * @return true while the keys are unlocked in memory
+     */
+    public static synchronized boolean isUnlocked() {
+        return session != null;
+    }
+    
+    /**
+     * Set the time the keys stay unlocked without being used, from the
+     * next unlock.
+     * @param millis idle timeout in milliseconds
+     */
+    public static void setIdleTimeout(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Idle timeout must be positive: " + millis);
+        }
+        idleTimeoutMillis = millis;
+    }
+    
+    /**
+     * Keys of an unlocked keyStore. The secret key is kept as encoded
+     * bytes, which close() zeroes, and a new key object is built on each
+     * use. The private key is kept decoded, so signing does not decode it
+     * again; close() destroys it where its provider supports it (SunEC
+     * does not) and drops it.
+     */
+    private static final class Session {
+        
+        // Copy of the password that unlocked the keys
+        private final char[] password;
+        
+        private PrivateKey privateKey;
+        private final byte[] secretKey;
+        private final String secretKeyAlgorithm;
+        private final PublicKey publicKey;
+        
+        // Last time the keys were used
+        private volatile long lastUseNanos = System.nanoTime();
+        
+        Session(char[] password, PrivateKey privateKey, SecretKey secretKey, Certificate certificate) {
+            this.password = password.clone();
+            this.privateKey = privateKey;
+            this.secretKey = secretKey.getEncoded();
+            this.secretKeyAlgorithm = secretKey.getAlgorithm();
+            this.publicKey = certificate.getPublicKey();
+            
+            // The loaded secret key object is not kept
+            destroy(secretKey);
+        }
+        
+        /**
+         * Compare a password in a time independent of where it differs.
+         */
+        boolean matches(char[] other) {
+            if (other == null || other.length != password.length) {
+                return false;
+            }
+            int difference = 0;
+            for (int i = 0; i < password.length; i++) {
+                difference |= password[i] ^ other[i];
+            }
+            return difference == 0;
+        }
+        
+        PrivateKey privateKey() {
+            return privateKey;
+        }
+        
+        SecretKey secretKey() {
+            return new SecretKeySpec(secretKey, secretKeyAlgorithm);
+        }
+        
+        /**
+         * Zero the password and the secret key, and drop the private key.
+         */
+        void close() {
+            Arrays.fill(password, '\0');
+            Arrays.fill(secretKey, (byte) 0);
+            destroy(privateKey);
+            privateKey = null;
+        }
+        
+        /**
+         * Destroy a key where its provider supports it; most keep their
+         * material until collected.
+         */
+        private static void destroy(Destroyable key) {
+            try {
+                key.destroy();
+            } catch (DestroyFailedException ex) {
+                // Not supported by the provider
+            }
+        }
     }
     
 }
@@ -0,0 +1,142 @@
+package com.mycompany.datacomprojectTwo.crypto;
+
+import static com.mycompany.datacomprojectTwo.crypto.CryptoConfig.ECDSA_ALGORITHM;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Creates the self-signed X.509 certificate holding the public key of the
+ * keyStore, as keytool did. The JDK has no public API to build one, so the
+ * certificate is encoded here in DER: a version 3 certificate without
+ * extensions, whose issuer and subject are the same common name, signed
+ * with SHA256withECDSA by its own EC key.
+ */
+final class SelfSignedCertificate {
+
+    private SelfSignedCertificate() {}
+
+    // Object identifier of ecdsa-with-SHA256 (1.2.840.10045.4.3.2)
+    private static final byte[] ECDSA_WITH_SHA256 = {0x06, 0x08, 0x2A, (byte) 0x86, 0x48, (byte) 0xCE, 0x3D, 0x04, 0x03, 0x02};
+
+    // Object identifier of the common name attribute (2.5.4.3)
+    private static final byte[] COMMON_NAME = {0x06, 0x03, 0x55, 0x04, 0x03};
+
+    // DER tags
+    private static final int INTEGER = 0x02;
+    private static final int BIT_STRING = 0x03;
+    private static final int UTF8_STRING = 0x0C;
+    private static final int UTC_TIME = 0x17;
+    private static final int GENERALIZED_TIME = 0x18;
+    private static final int SEQUENCE = 0x30;
+    private static final int SET = 0x31;
+    private static final int VERSION = 0xA0;
+
+    private static final DateTimeFormatter UTC_TIME_FORMAT = DateTimeFormatter.ofPattern("yyMMddHHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter GENERALIZED_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    // Draws the serial numbers
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Create and sign a certificate.
+     * @param keyPair EC key pair, the public key certified and the private
+     * key signing
+     * @param commonName issuer and subject name
+     * @param days days the certificate is valid from now
+     * @return the certificate
+     * @throws NoSuchAlgorithmException if ECDSA or X.509 is not available
+     * @throws CertificateException if it cannot be signed or parsed
+     */
+    static X509Certificate create(KeyPair keyPair, String commonName, int days)
+            throws NoSuchAlgorithmException, CertificateException {
+        byte[] algorithm = der(SEQUENCE, ECDSA_WITH_SHA256);
+        byte[] name = der(SEQUENCE, der(SET, der(SEQUENCE, COMMON_NAME,
+                der(UTF8_STRING, commonName.getBytes(StandardCharsets.UTF_8)))));
+
+        // Positive and 8 bytes long
+        byte[] serial = new byte[8];
+        RANDOM.nextBytes(serial);
+        serial[0] = (byte) ((serial[0] & 0x3F) | 0x40);
+
+        Instant notBefore = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        byte[] tbsCertificate = der(SEQUENCE,
+                der(VERSION, der(INTEGER, new byte[]{2})),
+                der(INTEGER, serial),
+                algorithm,
+                name,
+                der(SEQUENCE, time(notBefore), time(notBefore.plus(days, ChronoUnit.DAYS))),
+                name,
+                keyPair.getPublic().getEncoded());
+
+        byte[] signature;
+        try {
+            Signature signer = Signature.getInstance(ECDSA_ALGORITHM);
+            signer.initSign(keyPair.getPrivate());
+            signer.update(tbsCertificate);
+            signature = signer.sign();
+        } catch (InvalidKeyException | SignatureException ex) {
+            throw new CertificateException("Cannot sign the certificate", ex);
+        }
+
+        // The first byte of a bit string is its number of unused bits
+        byte[] signatureBits = new byte[signature.length + 1];
+        System.arraycopy(signature, 0, signatureBits, 1, signature.length);
+
+        byte[] certificate = der(SEQUENCE, tbsCertificate, algorithm, der(BIT_STRING, signatureBits));
+        return (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(certificate));
+    }
+
+    /**
+     * @return an X.509 time: UTC time until 2049, generalized time after
+     */
+    private static byte[] time(Instant instant) {
+        if (instant.atZone(ZoneOffset.UTC).getYear() < 2050) {
+            return der(UTC_TIME, UTC_TIME_FORMAT.format(instant).getBytes(StandardCharsets.US_ASCII));
+        }
+        return der(GENERALIZED_TIME, GENERALIZED_TIME_FORMAT.format(instant).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Encode a DER value: its tag, its length and its contents.
+     * @param tag DER tag
+     * @param contents encoded contents, concatenated
+     * @return the encoded value
+     */
+    private static byte[] der(int tag, byte[]... contents) {
+        int length = 0;
+        for (byte[] content : contents) {
+            length += content.length;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length + 6);
+        out.write(tag);
+        if (length < 0x80) {
+            out.write(length);
+        } else {
+            int lengthBytes = (Integer.SIZE - Integer.numberOfLeadingZeros(length) + 7) / 8;
+            out.write(0x80 | lengthBytes);
+            for (int i = lengthBytes - 1; i >= 0; i--) {
+                out.write(length >>> (8 * i));
+            }
+        }
+        for (byte[] content : contents) {
+            out.write(content, 0, content.length);
+        }
+        return out.toByteArray();
+    }
+}
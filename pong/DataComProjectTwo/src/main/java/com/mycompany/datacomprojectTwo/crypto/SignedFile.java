@@ -0,0 +1,87 @@
+package com.mycompany.datacomprojectTwo.crypto;
+
+import static com.mycompany.datacomprojectTwo.crypto.CryptoConfig.*;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The checks of the signed pongApp.java done by the host when it starts
+ * and exits. The signature is always made or verified with the keys,
+ * through the DigestCache; only the password is not asked again while the
+ * keys are unlocked in memory (see PongKeyStore).
+ */
+public final class SignedFile {
+
+    private static final Logger LOGGER = Logger.getLogger(SignedFile.class.getName());
+
+    private SignedFile() {
+    }
+
+    /**
+     * Sign pongApp.java and write its signature file.
+     * @param pks keyStore holding the keys
+     * @throws GeneralSecurityException if the keys cannot be used
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void sign(PongKeyStore pks) throws GeneralSecurityException, IOException {
+        byte[] signature = new DigestCache(DIGEST_CACHE_FILE).sign(FILE_TO_SIGN, ECDSA_ALGORITHM,
+                pks.getPrivateKey(), pks.getPublicKey(), pks.getSecretKey());
+        new PongDigitalSignature().writeSignatureToFile(DIGITAL_SIGNATURE_FILE, signature);
+    }
+
+    /**
+     * Verify the signature of pongApp.java.
+     * @param pks keyStore holding the keys
+     * @return true if the signature is valid
+     * @throws GeneralSecurityException if the keys cannot be used
+     * @throws IOException if a file cannot be read
+     */
+    public static boolean verify(PongKeyStore pks) throws GeneralSecurityException, IOException {
+        byte[] signature = new PongDigitalSignature().readSignatureFromFile(DIGITAL_SIGNATURE_FILE);
+        return new DigestCache(DIGEST_CACHE_FILE).verify(FILE_TO_SIGN, signature, ECDSA_ALGORITHM,
+                pks.getPublicKey(), pks.getSecretKey());
+    }
+
+    /**
+     * Sign pongApp.java with the unlocked keys and exit, or ask the
+     * password to sign and exit when the keys are locked.
+     * @param exit exits the game
+     * @param askPassword asks the password to sign and exit
+     */
+    public static void signAndExit(Runnable exit, Runnable askPassword) {
+        try {
+            PongKeyStore pks = PongKeyStore.unlocked();
+            if (pks != null) {
+                sign(pks);
+                PongKeyStore.lock();
+                exit.run();
+                return;
+            }
+        } catch (GeneralSecurityException | IOException ex) {
+            LOGGER.log(Level.WARNING, "Cannot sign with the unlocked keys", ex);
+        }
+        askPassword.run();
+    }
+
+    /**
+     * Verify the signature of pongApp.java with the unlocked keys, or ask
+     * the password to verify it when the keys are locked.
+     * @param verified receives whether the signature is valid
+     * @param askPassword asks the password to verify the signature
+     */
+    public static void verifyOrAsk(Consumer<Boolean> verified, Runnable askPassword) {
+        try {
+            PongKeyStore pks = PongKeyStore.unlocked();
+            if (pks != null) {
+                verified.accept(verify(pks));
+                return;
+            }
+        } catch (GeneralSecurityException | IOException ex) {
+            LOGGER.log(Level.WARNING, "Cannot verify with the unlocked keys", ex);
+        }
+        askPassword.run();
+    }
+}
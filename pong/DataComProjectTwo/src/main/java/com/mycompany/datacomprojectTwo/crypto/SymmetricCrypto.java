@@ -1,6 +1,7 @@
 package com.mycompany.datacomprojectTwo.crypto;
 
 import static com.mycompany.datacomprojectTwo.crypto.CryptoConfig.ALGORITHM;
+import static com.mycompany.datacomprojectTwo.crypto.CryptoConfig.CHUNK_SIZE;
 import static com.mycompany.datacomprojectTwo.crypto.CryptoConfig.GCMIV_FILE;
 import java.io.File;
 import java.io.FileInputStream;
@@ -9,14 +10,26 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.GCMParameterSpec;
 
 /**
  * The SymmetricCrypto class contains methods to generate an initialization vector,
  * and encrypt and decrypt a file using AES/GCM encryption.
+ * The files are streamed through FileChannels in chunks of CHUNK_SIZE
+ * bytes (or a given size), one Cipher call and one read or write per
+ * chunk, into buffers allocated once per file; the output is the same as
+ * when the file was encrypted at once. GCM only gives the plaintext once
+ * the tag is checked, so the provider keeps the ciphertext of the whole
+ * file in memory while decrypting it.
  * @author David Pizzolongo
  */
 public class SymmetricCrypto {
@@ -107,72 +120,128 @@ public class SymmetricCrypto {
     public void encryptFile(File inputFile, File outputFile)
             throws Exception {
 
-        // create an instance of the Cipher class, passing the algorithm from CryptoConfig
-        Cipher cipher = Cipher.getInstance(ALGORITHM);
-
-        // Create GCMParameterSpec with 128-bit tag
-        GCMParameterSpec gcmParameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, GCMIV);
-
-        cipher.init(Cipher.ENCRYPT_MODE, key, gcmParameterSpec);
-
-        FileOutputStream outputStream;
-        //Create output stream
-        try ( FileInputStream inputStream = new FileInputStream(inputFile)) {
-            //Create output stream
-            outputStream = new FileOutputStream(outputFile);
-            byte[] buffer = new byte[64];
-            int bytesRead;
-            //Read up to 64 bytes of data at a time
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                //Cipher.update method takes byte array, input offset and input lentth
-                byte[] output = cipher.update(buffer, 0, bytesRead);
-                if (output != null) {
-                    //Write the ciphertext for the buffer to the output file
-                    outputStream.write(output);
-                }
-            }   //Encrypt the last buffer of plaintext 
-            byte[] output = cipher.doFinal();
-            if (output != null) {
-                outputStream.write(output);
-            }
-            //Close the input and output streams
+        // The input is opened first, a missing file throws FileNotFoundException
+        try ( FileChannel source = new FileInputStream(inputFile).getChannel();
+              FileChannel target = new FileOutputStream(outputFile).getChannel()) {
+            transform(newCipher(Cipher.ENCRYPT_MODE), source, target, CHUNK_SIZE);
         }
-        outputStream.close();
     }
 
     // Method to decrypt a file (parameters are inversed from encryptFile())
     public void decryptFile(File inputFile, File outputFile) throws Exception {
 
-        //Create an instance of the Cipher class
+        try ( FileChannel source = new FileInputStream(inputFile).getChannel();
+              FileChannel target = new FileOutputStream(outputFile).getChannel()) {
+            transform(newCipher(Cipher.DECRYPT_MODE), source, target, CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * Encrypt a file chunk by chunk, e.g. a replay of hundreds of MB.
+     * @param inputFile file to encrypt
+     * @param outputFile encrypted file, replaced
+     * @param chunkSize bytes encrypted at a time
+     * @throws IOException if a file cannot be read or written
+     * @throws GeneralSecurityException if the cipher cannot be used
+     */
+    public void encryptFile(Path inputFile, Path outputFile, int chunkSize)
+            throws IOException, GeneralSecurityException {
+        try ( FileChannel source = FileChannel.open(inputFile, StandardOpenOption.READ);
+              FileChannel target = FileChannel.open(outputFile, StandardOpenOption.WRITE,
+                      StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            transform(newCipher(Cipher.ENCRYPT_MODE), source, target, chunkSize);
+        }
+    }
+
+    /**
+     * Decrypt a file chunk by chunk.
+     * @param inputFile file to decrypt
+     * @param outputFile decrypted file, replaced
+     * @param chunkSize bytes read at a time
+     * @throws IOException if a file cannot be read or written
+     * @throws GeneralSecurityException if the cipher cannot be used, or
+     * the file was changed (AEADBadTagException)
+     */
+    public void decryptFile(Path inputFile, Path outputFile, int chunkSize)
+            throws IOException, GeneralSecurityException {
+        try ( FileChannel source = FileChannel.open(inputFile, StandardOpenOption.READ);
+              FileChannel target = FileChannel.open(outputFile, StandardOpenOption.WRITE,
+                      StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            transform(newCipher(Cipher.DECRYPT_MODE), source, target, chunkSize);
+        }
+    }
+
+    /**
+     * @param mode Cipher.ENCRYPT_MODE or Cipher.DECRYPT_MODE
+     * @return a cipher using the key and the GCMIV, with a 128-bit tag
+     */
+    private Cipher newCipher(int mode) throws GeneralSecurityException {
+        // create an instance of the Cipher class, passing the algorithm from CryptoConfig
         Cipher cipher = Cipher.getInstance(ALGORITHM);
+        cipher.init(mode, key, new GCMParameterSpec(GCM_TAG_LENGTH * 8, GCMIV));
+        return cipher;
+    }
 
-        // Create GCMParameterSpec
-        GCMParameterSpec gcmParameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, GCMIV);
-
-        cipher.init(Cipher.DECRYPT_MODE, key, gcmParameterSpec);
-
-        FileOutputStream outputStream;
-        //Create output stream
-        try ( FileInputStream inputStream = new FileInputStream(inputFile)) {
-            //Create output stream
-            outputStream = new FileOutputStream(outputFile);
-            byte[] buffer = new byte[64];
-            int bytesRead;
-            //Read up to 64 bytes of data at a time
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                byte[] output = cipher.update(buffer, 0, bytesRead);
-                if (output != null) {
-                    //Write the Plaintext to the output file
-                    outputStream.write(output);
-                }
-            }   //Decrypt the last buffer of ciphertext
-            byte[] output = cipher.doFinal();
-            if (output != null) {
-                outputStream.write(output);
-            }
-            //Close the input and output streams.
+    /**
+     * Pass a file through a cipher, reading chunkSize bytes at a time.
+     * @param cipher initialized cipher
+     * @param source file read
+     * @param target file written
+     * @param chunkSize size of the input buffer
+     */
+    private static void transform(Cipher cipher, FileChannel source, FileChannel target, int chunkSize)
+            throws IOException, GeneralSecurityException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        ByteBuffer input = ByteBuffer.allocate(chunkSize);
+        // Holds a chunk and the bytes the cipher kept from the one before
+        ByteBuffer output = ByteBuffer.allocate(chunkSize + GCM_TAG_LENGTH);
+
+        while (source.read(input) != -1) {
+            input.flip();
+            output = update(cipher, input, output);
+            write(target, output);
+            input.clear();
+        }
+
+        // The tag, and when decrypting the whole plaintext
+        input.flip();
+        if (output.capacity() < cipher.getOutputSize(0)) {
+            output = ByteBuffer.allocate(cipher.getOutputSize(0));
+        }
+        output.clear();
+        cipher.doFinal(input, output);
+        write(target, output);
+    }
+
+    /**
+     * Pass a chunk through a cipher into the output buffer, made larger if
+     * the cipher gives more than it holds.
+     * @return the output buffer, filled up to its position
+     */
+    private static ByteBuffer update(Cipher cipher, ByteBuffer input, ByteBuffer output)
+            throws ShortBufferException {
+        output.clear();
+        try {
+            cipher.update(input, output);
+        } catch (ShortBufferException ex) {
+            output = ByteBuffer.allocate(cipher.getOutputSize(input.remaining()));
+            cipher.update(input, output);
+        }
+        return output;
+    }
+
+    /**
+     * Write the output of the cipher.
+     * @param target file written
+     * @param output bytes to write, from position 0
+     */
+    private static void write(FileChannel target, ByteBuffer output) throws IOException {
+        output.flip();
+        while (output.hasRemaining()) {
+            target.write(output);
         }
-        outputStream.close();
     }
 
 }
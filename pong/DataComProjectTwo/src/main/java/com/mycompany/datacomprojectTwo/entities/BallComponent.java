@@ -1,11 +1,10 @@
 package com.mycompany.datacomprojectTwo.entities;
 import com.almasb.fxgl.entity.component.Component;
 import com.almasb.fxgl.physics.PhysicsComponent;
+import com.mycompany.datacomprojectTwo.simulation.PongRules;
 import javafx.geometry.Point2D;
 
 import static com.almasb.fxgl.dsl.FXGL.*;
-import static java.lang.Math.*;
-import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
 
 /**
  * This class deals with the ball movements.
@@ -42,14 +41,10 @@ public class BallComponent extends Component {
     private void limitVelocity() {
         
         // we don't want the ball to move too slow in X direction
-        if (abs(physics.getVelocityX()) < LINEAR_VELOCITY) {
-            physics.setVelocityX(signum(physics.getVelocityX()) * LINEAR_VELOCITY);
-        }
+        physics.setVelocityX(PongRules.limitVelocityX(physics.getVelocityX()));
 
         // we don't want the ball to move too fast in Y direction
-        if (abs(physics.getVelocityY()) > LINEAR_VELOCITY * 2) {
-            physics.setVelocityY(signum(physics.getVelocityY()) * LINEAR_VELOCITY);
-        }
+        physics.setVelocityY(PongRules.limitVelocityY(physics.getVelocityY()));
     }
     
     /**
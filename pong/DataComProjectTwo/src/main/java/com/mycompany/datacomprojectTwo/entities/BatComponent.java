@@ -3,7 +3,8 @@ package com.mycompany.datacomprojectTwo.entities;
 import com.almasb.fxgl.dsl.FXGL;
 import com.almasb.fxgl.entity.component.Component;
 import com.almasb.fxgl.physics.PhysicsComponent;
-import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import com.mycompany.datacomprojectTwo.simulation.PongRules;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.TICK_RATE;
 
 /**
  * This class tracks the bat's movement. 
@@ -18,8 +19,9 @@ public class BatComponent extends Component {
      * Bat moving up or stopping.
      */
     public void up() {
-        if (entity.getY() >= PADDLE_SPEED / 60)
-            physics.setVelocityY(-PADDLE_SPEED);
+        double velocityY = PongRules.batUpVelocity(entity.getY(), 1.0 / TICK_RATE);
+        if (velocityY != 0)
+            physics.setVelocityY(velocityY);
         else
             stop();
     }
@@ -28,8 +30,9 @@ public class BatComponent extends Component {
      * Bat Moving down or stopping
      */
     public void down() {
-        if (entity.getBottomY() <= FXGL.getAppHeight() - (PADDLE_SPEED / 60))
-            physics.setVelocityY(PADDLE_SPEED);
+        double velocityY = PongRules.batDownVelocity(entity.getBottomY(), FXGL.getAppHeight(), 1.0 / TICK_RATE);
+        if (velocityY != 0)
+            physics.setVelocityY(velocityY);
         else
             stop();
     }
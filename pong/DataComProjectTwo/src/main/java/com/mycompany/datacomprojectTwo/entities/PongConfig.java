@@ -18,6 +18,84 @@ public final class PongConfig {
     // Local Host default
     public static final String LOCAL_IP_ADDRESS = "localhost";
     
+    // Transport of PongServer and PongClient, UDP when run with -Dpong.udp=true
+    public static final boolean USE_UDP = Boolean.getBoolean("pong.udp");
+    
+    // Simulation rate of the host and the headless server (ticks per second),
+    // e.g. -Dpong.tickRate=120; the host and the client must use the same rate
+    public static final int TICK_RATE = Integer.getInteger("pong.tickRate", 60);
+    
+    // Snapshots sent per second, a divisor of TICK_RATE (-Dpong.snapshotRate=20)
+    public static final int SNAPSHOT_RATE = Integer.getInteger("pong.snapshotRate", 30);
+    
+    // Ticks between two snapshots
+    public static final int SNAPSHOT_INTERVAL = Math.max(1, TICK_RATE / SNAPSHOT_RATE);
+    
+    // Seconds the client shows the remote entities behind the newest snapshot (-Dpong.interpolationDelay=100 in ms)
+    public static final double INTERPOLATION_DELAY = Integer.getInteger("pong.interpolationDelay", 100) / 1000.0;
+    
+    // Longest time (seconds) the client extrapolates the remote entities when snapshots are late
+    public static final double MAX_EXTRAPOLATION = 0.1;
+    
+    // Folder where the host and the headless server record the matches (-Dpong.replayDir=replays), none if unset
+    public static final String REPLAY_DIR = System.getProperty("pong.replayDir");
+    
+    // Ticks between two keyframes of a replay
+    public static final int REPLAY_KEYFRAME_INTERVAL = TICK_RATE * 5;
+    
+    // The client's bat is played by a PongBot when run with -Dpong.bot=true
+    public static final boolean BOT = Boolean.getBoolean("pong.bot");
+    
+    // Difficulty of the bot: reaction delay (-Dpong.botReaction=150 in ms) and aim error (-Dpong.botAimError=20 in pixels)
+    public static final double BOT_REACTION_DELAY = Integer.getInteger("pong.botReaction", 150) / 1000.0;
+    public static final double BOT_AIM_ERROR = Integer.getInteger("pong.botAimError", 20);
+    
+    // Simulated network conditions (see NetworkScript), e.g. -Dpong.network=wifi or
+    // -Dpong.network="0:wifi;10:bad"; none if unset. Over TCP the client goes through a
+    // ShapingProxy shaping both directions, over UDP each side shapes the packets it sends
+    public static final String NETWORK_SCRIPT = System.getProperty("pong.network");
+    
+    // Longest wait (ms) for a server to accept the connection, then to answer the hello (-Dpong.handshakeTimeout=1000)
+    public static final int HANDSHAKE_TIMEOUT = Integer.getInteger("pong.handshakeTimeout", 1000);
+    
+    // Rooms a headless server plays at most before answering full (-Dpong.maxRooms=1024)
+    public static final int MAX_ROOMS = Integer.getInteger("pong.maxRooms", 1024);
+    
+    // UDP port where the servers announce themselves on the LAN (-Dpong.discoveryPort=7778)
+    public static final int DISCOVERY_PORT = Integer.getInteger("pong.discoveryPort", 7778);
+    
+    // Time (ms) between two announcements of a server (-Dpong.announceInterval=1000)
+    public static final int ANNOUNCE_INTERVAL = Integer.getInteger("pong.announceInterval", 1000);
+    
+    // Name announced by the server (-Dpong.serverName=...), the name of the machine if unset
+    public static final String SERVER_NAME = System.getProperty("pong.serverName");
+    
+    // Seconds between two log lines of the connection metrics (-Dpong.metricsInterval=10), 0 for none
+    public static final int METRICS_INTERVAL = Integer.getInteger("pong.metricsInterval", 10);
+    
+    // Longest time (ms) a TCP peer may stay behind before it is disconnected (-Dpong.slowPeerTimeout=5000)
+    public static final int SLOW_PEER_TIMEOUT = Integer.getInteger("pong.slowPeerTimeout", 5000);
+    
+    // Longest time (ms) the last messages of a match may take to be written before closing (-Dpong.closeFlushTimeout=500)
+    public static final int CLOSE_FLUSH_TIMEOUT = Integer.getInteger("pong.closeFlushTimeout", 500);
+    
+    // Time (ms) a disconnected TCP player has to come back into its match (-Dpong.reconnectGrace=15000)
+    public static final int RECONNECT_GRACE = Integer.getInteger("pong.reconnectGrace", 15000);
+    
+    // Whether a match waits for a disconnected player (-Dpong.reconnectPolicy=pause) or goes on without it (continue)
+    public static final boolean PAUSE_ON_DISCONNECT = !"continue".equals(System.getProperty("pong.reconnectPolicy", "pause"));
+    
+    // World config...
+    
+    // World width (same as the FXGL default window width)
+    public static final int WORLD_WIDTH = 800;
+    
+    // World height (same as the FXGL default window height)
+    public static final int WORLD_HEIGHT = 600;
+    
+    // Score that ends the game
+    public static final int WINNING_SCORE = 11;
+    
     // Bat config...
     
     // Paddle width
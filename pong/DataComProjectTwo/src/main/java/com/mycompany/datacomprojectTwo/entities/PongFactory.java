@@ -21,7 +21,6 @@ import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
 
 import static com.almasb.fxgl.dsl.FXGL.entityBuilder;
 import static com.almasb.fxgl.dsl.FXGL.getip;
-import com.almasb.fxgl.multiplayer.NetworkComponent;
 
 /**
  * Class builds and spawns the entities. The pong game entities are the ball,
@@ -78,7 +77,6 @@ public class PongFactory implements EntityFactory {
                     .with(new CollidableComponent(true))
                     .with(new ParticleComponent(emitter))
                     .with(new BallComponent())
-                    .with(new NetworkComponent()) //Needed for network service
                     .build();
         
         // Spawns without the physics
@@ -89,7 +87,6 @@ public class PongFactory implements EntityFactory {
                     .with(new CollidableComponent(true))
                     .with(new ParticleComponent(emitter))
                     .with(new BallComponent())
-                    .with(new NetworkComponent()) //Needed for network service
                     .build();
         }
 
@@ -135,7 +132,6 @@ public class PongFactory implements EntityFactory {
                 .with(new CollidableComponent(true))
                 .with(physics)
                 .with(new BatComponent())
-                .with(new NetworkComponent()) //Needed for network service
                 .build();
     }
 
@@ -151,7 +147,6 @@ public class PongFactory implements EntityFactory {
                 .viewWithBBox(new Rectangle(PADDLE_WIDTH, PADDLE_HEIGHT, Color.LIGHTGRAY))
                 .with(new CollidableComponent(true))
                 .with(new BatComponent())
-                .with(new NetworkComponent()) //Needed for network service
                 .build();
     }
 
@@ -166,7 +161,6 @@ public class PongFactory implements EntityFactory {
         Entity walls = entityBuilder()
                 .type(EntityType.WALL)
                 .collidable()
-                .with(new NetworkComponent())
                 .buildScreenBounds(SCREEN_BOUNDS);
 
         return walls;
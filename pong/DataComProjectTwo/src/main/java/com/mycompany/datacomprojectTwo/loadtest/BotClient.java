@@ -0,0 +1,236 @@
+package com.mycompany.datacomprojectTwo.loadtest;
+
+import com.almasb.fxgl.net.Client;
+import com.almasb.fxgl.net.ClientConfig;
+import com.almasb.fxgl.net.Connection;
+import com.almasb.fxgl.net.NetService;
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.network.Snapshot;
+import com.mycompany.datacomprojectTwo.network.SnapshotCodec;
+import com.mycompany.datacomprojectTwo.network.SnapshotHistory;
+import com.mycompany.datacomprojectTwo.simulation.Bat;
+import com.mycompany.datacomprojectTwo.simulation.BatPrediction;
+import com.mycompany.datacomprojectTwo.simulation.PongBot;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A client without window that plays one bat over the TCP protocol, to
+ * load a server. It reads the server messages like PongClient (spawn,
+ * snapshots and deltas against its own history) and acknowledges every
+ * snapshot it applies, so the server sends it deltas. It says hello
+ * first, like PongClient, to be seated. Its bat is
+ * predicted like the one of PongClient and played by a PongBot: one
+ * COMMAND per tick while it moves, like a player holding a key, after a
+ * reaction delay for every new shot. It has no thread of its own: the
+ * messages arrive on the thread of the FXGL connection, and tick() is
+ * called at TICK_RATE by whoever drives the bots.
+ */
+public class BotClient {
+
+    // Bytes written by FXGL before each message (its length)
+    public static final int FRAME_HEADER_SIZE = 4;
+
+    // Opens the TCP clients, shared by all the bots
+    private static final NetService NET_SERVICE = new NetService();
+
+    // Client of the server
+    private final Client<byte[]> client;
+
+    // Connection with the server, null until connected
+    private volatile Connection<byte[]> connection;
+
+    // Set when the server closed the connection (match over or server gone)
+    private volatile boolean ended;
+
+    // Parameters of the PongBot created when the match starts
+    private final double reactionDelay;
+    private final double aimError;
+    private final long seed;
+
+    // Last state applied and its baselines, guarded by this
+    private final Snapshot snapshot = new Snapshot();
+    private final SnapshotHistory history = new SnapshotHistory();
+    private int appliedTick = -1;
+
+    // Bat of this client and its prediction, null until spawned, guarded by this
+    private int localBat = -1;
+    private BatPrediction prediction;
+    private PongBot bot;
+
+    // Traffic, frame headers included
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong snapshotsReceived = new AtomicLong();
+    private final AtomicLong commandsSent = new AtomicLong();
+
+    /**
+     * Create a bot, not connected yet.
+     * @param host address of the server
+     * @param port TCP port of the server
+     * @param reactionDelay seconds before the bot reacts to a new shot
+     * @param aimError largest distance (pixels) between the aimed point and the ball
+     * @param seed seed of the aim errors
+     */
+    public BotClient(String host, int port, double reactionDelay, double aimError, long seed) {
+        this.reactionDelay = reactionDelay;
+        this.aimError = aimError;
+        this.seed = seed;
+
+        client = NET_SERVICE.newTCPClient(host, port, new ClientConfig<>(byte[].class));
+        client.setOnConnected(conn -> {
+            conn.addMessageHandler((c, message) -> receive(message));
+            connection = conn;
+
+            // The server seats the bot when it receives this message
+            send(PongProtocol.encodeHello(false, System.nanoTime()));
+        });
+        client.setOnDisconnected(conn -> ended = true);
+    }
+
+    /**
+     * Connect to the server in the background. A bot that cannot connect
+     * ends.
+     */
+    public void connect() {
+        Thread connector = new Thread(() -> client.connectTask().onFailure(ex -> ended = true).run(),
+                "pong-bot-connect");
+        connector.setDaemon(true);
+        connector.start();
+    }
+
+    /**
+     * Close the connection.
+     */
+    public void close() {
+        ended = true;
+        client.disconnect();
+    }
+
+    /**
+     * Apply a message of the server. Runs on the connection thread.
+     * @param message message from the server
+     */
+    private void receive(byte[] message) {
+        bytesReceived.addAndGet(FRAME_HEADER_SIZE + message.length);
+        byte type = PongProtocol.typeOf(message);
+
+        synchronized (this) {
+            if (type == PongProtocol.SPAWN) {
+                PongProtocol.decodeSpawn(message, snapshot);
+                localBat = PongProtocol.spawnLocalBat(message);
+                prediction = new BatPrediction(snapshot.getX(localBat), snapshot.getY(localBat));
+                bot = new PongBot(localBat == Snapshot.BAT_ONE ? 1 : 2, reactionDelay, aimError, seed);
+                return;
+            }
+            if (type != PongProtocol.SNAPSHOT && type != PongProtocol.DELTA) {
+                return;
+            }
+
+            // The latest snapshot wins
+            if (SnapshotCodec.tickOf(message) <= appliedTick) {
+                return;
+            }
+            if (type == PongProtocol.SNAPSHOT) {
+                SnapshotCodec.decode(message, snapshot);
+            } else {
+                Snapshot baseline = history.get(SnapshotCodec.baselineTickOf(message));
+                if (baseline == null) {
+                    return;
+                }
+                SnapshotCodec.decodeDelta(message, baseline, snapshot);
+            }
+
+            appliedTick = snapshot.getTick();
+            history.store(snapshot);
+            if (prediction != null) {
+                prediction.reconcile(snapshot.getInputSequence(localBat == Snapshot.BAT_ONE ? 1 : 2),
+                        snapshot.getY(localBat));
+            }
+        }
+
+        snapshotsReceived.incrementAndGet();
+        send(PongProtocol.encodeAck(SnapshotCodec.tickOf(message)));
+    }
+
+    /**
+     * Let the bot decide and send the command of one step.
+     * @param dt duration of the step in seconds
+     */
+    public void tick(double dt) {
+        byte[] command;
+        synchronized (this) {
+            if (prediction == null || appliedTick < 0) {
+                return;
+            }
+
+            int direction = bot.decide(snapshot.getX(Snapshot.BALL), snapshot.getY(Snapshot.BALL),
+                    snapshot.getVelocityX(Snapshot.BALL), snapshot.getVelocityY(Snapshot.BALL),
+                    prediction.getY(), dt);
+            if (direction == Bat.STOP) {
+                return;
+            }
+            int sequence = prediction.predict(direction, (float) dt);
+            command = PongProtocol.encodeCommand(sequence, direction, (float) dt);
+        }
+
+        commandsSent.incrementAndGet();
+        send(command);
+    }
+
+    /**
+     * Send a message and count its bytes.
+     * @param message encoded message
+     */
+    private void send(byte[] message) {
+        Connection<byte[]> conn = connection;
+        if (conn != null && conn.isConnected()) {
+            conn.send(message);
+            bytesSent.addAndGet(FRAME_HEADER_SIZE + message.length);
+        }
+    }
+
+    /**
+     * @return true while the connection with the server is open
+     */
+    public boolean isConnected() {
+        Connection<byte[]> conn = connection;
+        return conn != null && conn.isConnected();
+    }
+
+    /**
+     * @return true once the connection was closed, by either side
+     */
+    public boolean hasEnded() {
+        return ended;
+    }
+
+    /**
+     * @return tick of the last snapshot applied, -1 before the first
+     */
+    public synchronized int getAppliedTick() {
+        return appliedTick;
+    }
+
+    /**
+     * @return predicted top of the bat, NaN before the match starts
+     */
+    public synchronized double getBatY() {
+        return prediction != null ? prediction.getY() : Double.NaN;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getSnapshotsReceived() {
+        return snapshotsReceived.get();
+    }
+
+    public long getCommandsSent() {
+        return commandsSent.get();
+    }
+}
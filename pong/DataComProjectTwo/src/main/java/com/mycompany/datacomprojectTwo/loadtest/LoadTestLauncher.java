@@ -0,0 +1,293 @@
+package com.mycompany.datacomprojectTwo.loadtest;
+
+import com.mycompany.datacomprojectTwo.network.NetworkScript;
+import com.mycompany.datacomprojectTwo.network.ShapingProxy;
+import com.mycompany.datacomprojectTwo.server.RoomManager;
+import com.mycompany.datacomprojectTwo.server.TimeHistogram;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives BotClients against a server to size hosts. The number of bots
+ * grows linearly to its target during the ramp, then holds; a bot whose
+ * match ended (or that could not connect) is replaced, so the load stays
+ * at the target. All the bots are ticked at TICK_RATE by one thread, with
+ * a reaction delay and aim error drawn per bot around BOT_REACTION_DELAY
+ * and BOT_AIM_ERROR. Every second a line gives the bots, the rooms, the
+ * snapshots received and commands sent per second, the bandwidth of one
+ * connection and, when the server runs in this process, the percentiles
+ * of the room run times; a summary of the whole run is printed at the end.
+ * With NETWORK_SCRIPT, the bots connect through a ShapingProxy.
+ */
+public class LoadTestLauncher {
+
+    private static final double DT = 1.0 / TICK_RATE;
+
+    // Server, null when the bots play against another process
+    private final RoomManager manager;
+
+    // Where the bots connect
+    private final String host;
+    private final int port;
+
+    // Bots at the end of the ramp, ticks of the ramp and of the whole run
+    private final int targetBots;
+    private final long rampTicks;
+    private final long durationTicks;
+
+    // Bots playing, used by the driving thread only
+    private final List<BotClient> bots = new ArrayList<>();
+
+    // Draws the parameters of the bots
+    private final SplittableRandom random = new SplittableRandom(1);
+
+    // Traffic of the bots replaced: bytes received and sent, snapshots, commands
+    private final long[] retired = new long[4];
+
+    // Totals at the last report
+    private final long[] reported = new long[4];
+
+    // Room run times of the whole run
+    private final TimeHistogram runTimes = new TimeHistogram();
+
+    // Bots started, replacements included
+    private long launched;
+
+    // Sum of the connected bots of every report, seconds of connection
+    private long connectionSeconds;
+
+    // Ticks driven so far
+    private long tick;
+
+    // Released when the run is over
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    /**
+     * Create a launcher.
+     * @param manager server in this process, or null
+     * @param host address of the server
+     * @param port TCP port of the server
+     * @param targetBots bots at the end of the ramp
+     * @param rampSeconds seconds to reach the target
+     * @param durationSeconds seconds of the whole run, ramp included
+     */
+    public LoadTestLauncher(RoomManager manager, String host, int port, int targetBots,
+            int rampSeconds, int durationSeconds) {
+        this.manager = manager;
+        this.host = host;
+        this.port = port;
+        this.targetBots = targetBots;
+        this.rampTicks = (long) rampSeconds * TICK_RATE;
+        this.durationTicks = (long) durationSeconds * TICK_RATE;
+    }
+
+    /**
+     * Run the load test and print the reports. Blocks until it is over.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void run() throws InterruptedException {
+        ScheduledExecutorService driver = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pong-bots");
+            t.setDaemon(true);
+            return t;
+        });
+
+        System.out.printf("%d bots against %s:%d, %d s ramp, %d s run%n",
+                targetBots, host, port, rampTicks / TICK_RATE, durationTicks / TICK_RATE);
+        System.out.printf("%5s %6s %6s %6s | %10s %10s | %10s %10s | %8s %8s %8s %8s%n",
+                "time", "bots", "online", "rooms", "snaps/s", "cmds/s", "down B/s", "up B/s",
+                "p50 us", "p99 us", "p99.9 us", "max us");
+
+        long period = TimeUnit.SECONDS.toNanos(1) / TICK_RATE;
+        driver.scheduleAtFixedRate(this::step, 0, period, TimeUnit.NANOSECONDS);
+        done.await();
+        driver.shutdownNow();
+        driver.awaitTermination(1, TimeUnit.SECONDS);
+
+        printSummary();
+        bots.forEach(BotClient::close);
+    }
+
+    /**
+     * Start or replace bots, tick them and report every second. Runs on
+     * the driving thread.
+     */
+    private void step() {
+        if (tick >= durationTicks) {
+            return;
+        }
+        tick++;
+
+        // Ended bots are replaced, up to the number of the ramp
+        bots.removeIf(bot -> {
+            if (bot.hasEnded()) {
+                retire(bot);
+                return true;
+            }
+            return false;
+        });
+        long target = tick >= rampTicks ? targetBots : targetBots * tick / Math.max(1, rampTicks);
+        while (bots.size() < target) {
+            BotClient bot = new BotClient(host, port,
+                    BOT_REACTION_DELAY * random.nextDouble(0.5, 1.5),
+                    BOT_AIM_ERROR * random.nextDouble(0.5, 1.5), random.nextLong());
+            bot.connect();
+            bots.add(bot);
+            launched++;
+        }
+
+        for (BotClient bot : bots) {
+            bot.tick(DT);
+        }
+
+        if (tick % TICK_RATE == 0) {
+            report();
+        }
+        if (tick >= durationTicks) {
+            done.countDown();
+        }
+    }
+
+    /**
+     * Keep the traffic of a bot that is removed.
+     * @param bot ended bot
+     */
+    private void retire(BotClient bot) {
+        retired[0] += bot.getBytesReceived();
+        retired[1] += bot.getBytesSent();
+        retired[2] += bot.getSnapshotsReceived();
+        retired[3] += bot.getCommandsSent();
+    }
+
+    /**
+     * @return traffic of all the bots so far, same order as retired
+     */
+    private long[] totals() {
+        long[] totals = retired.clone();
+        for (BotClient bot : bots) {
+            totals[0] += bot.getBytesReceived();
+            totals[1] += bot.getBytesSent();
+            totals[2] += bot.getSnapshotsReceived();
+            totals[3] += bot.getCommandsSent();
+        }
+        return totals;
+    }
+
+    /**
+     * Print the line of the last second.
+     */
+    private void report() {
+        int online = 0;
+        for (BotClient bot : bots) {
+            if (bot.isConnected()) {
+                online++;
+            }
+        }
+
+        connectionSeconds += online;
+
+        long[] totals = totals();
+        long[] second = new long[totals.length];
+        for (int i = 0; i < totals.length; i++) {
+            second[i] = totals[i] - reported[i];
+            reported[i] = totals[i];
+        }
+
+        // Room runs of the last second, then added to the whole run
+        TimeHistogram times = null;
+        if (manager != null) {
+            times = new TimeHistogram();
+            manager.getRoomTickTimes().drainTo(times);
+        }
+
+        int perConnection = Math.max(1, online);
+        System.out.printf("%5d %6d %6d %6s | %,10d %,10d | %,10d %,10d | %s%n",
+                tick / TICK_RATE, bots.size(), online, manager != null ? String.valueOf(manager.getRoomCount()) : "-",
+                second[2], second[3], second[0] / perConnection, second[1] / perConnection, percentiles(times));
+
+        if (times != null) {
+            times.drainTo(runTimes);
+        }
+    }
+
+    /**
+     * Print the totals of the run.
+     */
+    private void printSummary() {
+        long[] totals = totals();
+        double seconds = tick / (double) TICK_RATE;
+        long perConnection = Math.max(1, connectionSeconds);
+
+        System.out.printf("%nBots started: %d (%d replaced)%n", launched, launched - bots.size());
+        System.out.printf("Snapshots received: %,d (%,.0f/s), commands sent: %,d (%,.0f/s)%n",
+                totals[2], totals[2] / seconds, totals[3], totals[3] / seconds);
+        System.out.printf("Traffic: %,d bytes down, %,d bytes up, per connection %,d B/s down and %,d B/s up%n",
+                totals[0], totals[1], totals[0] / perConnection, totals[1] / perConnection);
+        if (manager != null) {
+            System.out.printf("Room runs: %,d, p50 %,d us, p99 %,d us, p99.9 %,d us, max %,d us%n",
+                    runTimes.getCount(), runTimes.getPercentile(0.5) / 1000, runTimes.getPercentile(0.99) / 1000,
+                    runTimes.getPercentile(0.999) / 1000, runTimes.getMax() / 1000);
+            System.out.printf("Late room ticks: %d, dropped steps: %d%n", manager.getLateRooms(), manager.getDroppedSteps());
+        }
+    }
+
+    /**
+     * @param times durations, or null when unknown
+     * @return the p50, p99, p99.9 and max columns in microseconds
+     */
+    private static String percentiles(TimeHistogram times) {
+        if (times == null) {
+            return String.format("%8s %8s %8s %8s", "-", "-", "-", "-");
+        }
+        return String.format("%,8d %,8d %,8d %,8d",
+                times.getPercentile(0.5) / 1000, times.getPercentile(0.99) / 1000,
+                times.getPercentile(0.999) / 1000, times.getMax() / 1000);
+    }
+
+    /**
+     * Ramp bots against a server. Without a host, a RoomManager is started
+     * in this process on PORT, so the room run times are reported too.
+     * @param args optional number of bots (default 100), ramp seconds
+     * (default 10), run seconds (default 60) and host of the server
+     * @throws InterruptedException if interrupted while running
+     * @throws IOException if the network proxy cannot be opened
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int bots = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int ramp = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int duration = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        String host = args.length > 3 ? args[3] : null;
+
+        RoomManager manager = null;
+        if (host == null) {
+            manager = new RoomManager();
+            manager.listen(PORT);
+            host = "127.0.0.1";
+        }
+
+        int port = PORT;
+        ShapingProxy proxy = null;
+        if (NETWORK_SCRIPT != null) {
+            proxy = new ShapingProxy(0, host, PORT, NetworkScript.parse(NETWORK_SCRIPT), 1);
+            proxy.start();
+            host = "127.0.0.1";
+            port = proxy.getLocalPort();
+        }
+
+        new LoadTestLauncher(manager, host, port, bots, ramp, duration).run();
+
+        if (proxy != null) {
+            proxy.close();
+        }
+        if (manager != null) {
+            manager.stop();
+        }
+    }
+}
@@ -12,20 +12,13 @@ import com.almasb.fxgl.input.UserAction;
 import javafx.scene.Node;
 
 import static com.mycompany.datacomprojectTwo.crypto.CryptoConfig.*;
-import com.mycompany.datacomprojectTwo.crypto.PongDigitalSignature;
+import com.mycompany.datacomprojectTwo.crypto.SignedFile;
 import com.mycompany.datacomprojectTwo.crypto.PongKeyStore;
 import com.mycompany.datacomprojectTwo.crypto.PongPassword;
 import com.mycompany.datacomprojectTwo.crypto.SymmetricCrypto;
 import java.io.File;
 import java.io.IOException;
-import java.security.InvalidKeyException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.NoSuchProviderException;
-import java.security.PrivateKey;
-import java.security.SignatureException;
-import java.security.UnrecoverableKeyException;
-import java.security.cert.CertificateException;
+import java.security.GeneralSecurityException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -149,7 +142,7 @@ public class PongGameMenu extends FXGLMenu {
             @Override
             protected void onActionBegin() {
                 // Ask for password 1 fro exiting
-                 passwordBox(1);
+                 SignedFile.signAndExit(PongGameMenu.this::fireExit, () -> passwordBox(1));
             }
         }, KeyCode.X);
         
@@ -213,7 +206,7 @@ public class PongGameMenu extends FXGLMenu {
 
             if (isServer) {
 
-                passwordBox(1);
+                SignedFile.signAndExit(this::fireExit, () -> passwordBox(1));
             }
 
         });
@@ -256,15 +249,11 @@ public class PongGameMenu extends FXGLMenu {
             }
 
             PongKeyStore pks = new PongKeyStore(hashed);
-            PongDigitalSignature pdigital = new PongDigitalSignature();
-
-            PrivateKey privateK = pks.getPrivateKey();
-
-            byte[] ditalSig = pdigital.generateSignature(ECDSA_ALGORITHM, privateK, FILE_TO_SIGN);
-            pdigital.writeSignatureToFile(DIGITAL_SIGNATURE_FILE, ditalSig);
+            SignedFile.sign(pks);
+            PongKeyStore.lock();
             this.fireExit();
 
-        } catch (IOException | InvalidKeyException | KeyStoreException | NoSuchAlgorithmException | NoSuchProviderException | SignatureException | UnrecoverableKeyException | CertificateException ex) {
+        } catch (IOException | GeneralSecurityException ex) {
 
             logError(LOGGER);
             message.setText("Your password is incorrect!");
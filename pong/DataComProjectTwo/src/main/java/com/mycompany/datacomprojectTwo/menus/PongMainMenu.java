@@ -2,6 +2,8 @@ package com.mycompany.datacomprojectTwo.menus;
 
 import com.mycompany.datacomprojectTwo.crypto.SymmetricCrypto;
 import com.mycompany.datacomprojectTwo.crypto.PongKeyStore;
+import com.mycompany.datacomprojectTwo.crypto.DigestCache;
+import com.mycompany.datacomprojectTwo.crypto.SignedFile;
 import com.almasb.fxgl.app.scene.FXGLMenu;
 import com.almasb.fxgl.app.scene.MenuType;
 import static com.almasb.fxgl.dsl.FXGL.centerTextBind;
@@ -94,7 +96,7 @@ public class PongMainMenu extends FXGLMenu {
             
             // When keystore exist we can generate signature
             if (keyStoreExist) {
-                passwordBox(1);
+                SignedFile.signAndExit(this::fireExit, () -> passwordBox(1));
             
             // Dispaly message to acces user to start new game and create keystore.
             } else {
@@ -288,10 +290,14 @@ public class PongMainMenu extends FXGLMenu {
             // Digital signature class
             PongDigitalSignature pdigital = new PongDigitalSignature();
             // generate signature
-            byte[] ditalSig = pdigital.generateSignature(ECDSA_ALGORITHM, privateK, FILE_TO_SIGN);
+            DigestCache digests = new DigestCache(DIGEST_CACHE_FILE);
+            byte[] ditalSig = digests.sign(FILE_TO_SIGN, ECDSA_ALGORITHM, privateK, pks.getPublicKey(), pks.getSecretKey());
             
             // Store signature
             pdigital.writeSignatureToFile(DIGITAL_SIGNATURE_FILE, ditalSig);
+
+            // No more use of the keys before exiting
+            PongKeyStore.lock();
             
             // exit
             this.fireExit();
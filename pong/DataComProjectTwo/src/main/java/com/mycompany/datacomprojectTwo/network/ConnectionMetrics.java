@@ -0,0 +1,197 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters of one connection: messages and bytes sent and received by
+ * message type, and the round trip time sampled by pings with its
+ * smoothed value and variation (the jitter), estimated like the TCP
+ * retransmission timer (RFC 6298: gains 1/8 and 1/4). Every counter is an
+ * atomic updated without lock, so counting costs the sending and
+ * receiving threads a few atomic additions. A frozen copy taken every
+ * interval gives the rates.
+ */
+public class ConnectionMetrics {
+
+    // Messages and bytes by type, sent and received
+    private final AtomicLongArray messagesSent = new AtomicLongArray(PongProtocol.TYPE_COUNT);
+    private final AtomicLongArray bytesSent = new AtomicLongArray(PongProtocol.TYPE_COUNT);
+    private final AtomicLongArray messagesReceived = new AtomicLongArray(PongProtocol.TYPE_COUNT);
+    private final AtomicLongArray bytesReceived = new AtomicLongArray(PongProtocol.TYPE_COUNT);
+
+    // Last round trip, smoothed round trip and its mean deviation, 0 until sampled
+    private final AtomicLong rttNanos = new AtomicLong();
+    private final AtomicLong smoothedRttNanos = new AtomicLong();
+    private final AtomicLong jitterNanos = new AtomicLong();
+
+    // Round trips sampled
+    private final AtomicLong rttSamples = new AtomicLong();
+
+    // Time the counters started
+    private final long startNanos;
+
+    /**
+     * Create counters starting now.
+     */
+    public ConnectionMetrics() {
+        this(System.nanoTime());
+    }
+
+    private ConnectionMetrics(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Count a message sent.
+     * @param message encoded message
+     */
+    public void countSent(byte[] message) {
+        int type = indexOf(message);
+        messagesSent.incrementAndGet(type);
+        bytesSent.addAndGet(type, message.length);
+    }
+
+    /**
+     * Count a message received.
+     * @param message encoded message
+     */
+    public void countReceived(byte[] message) {
+        int type = indexOf(message);
+        messagesReceived.incrementAndGet(type);
+        bytesReceived.addAndGet(type, message.length);
+    }
+
+    /**
+     * @return the type of a message, 0 for the unknown ones
+     */
+    private static int indexOf(byte[] message) {
+        int type = PongProtocol.typeOf(message);
+        return type > 0 && type < PongProtocol.TYPE_COUNT ? type : 0;
+    }
+
+    /**
+     * Add a round trip sample.
+     * @param nanos time from a ping to its pong
+     */
+    public void recordRtt(long nanos) {
+        rttNanos.set(nanos);
+        if (rttSamples.getAndIncrement() == 0) {
+            smoothedRttNanos.set(nanos);
+            jitterNanos.set(nanos / 2);
+            return;
+        }
+        long smoothed = smoothedRttNanos.get();
+        jitterNanos.accumulateAndGet(Math.abs(smoothed - nanos), (jitter, deviation) -> jitter + (deviation - jitter) / 4);
+        smoothedRttNanos.accumulateAndGet(nanos, (srtt, sample) -> srtt + (sample - srtt) / 8);
+    }
+
+    /**
+     * @return a frozen copy of the counters, to compute rates against
+     */
+    public ConnectionMetrics copy() {
+        ConnectionMetrics copy = new ConnectionMetrics(System.nanoTime());
+        for (int type = 0; type < PongProtocol.TYPE_COUNT; type++) {
+            copy.messagesSent.set(type, messagesSent.get(type));
+            copy.bytesSent.set(type, bytesSent.get(type));
+            copy.messagesReceived.set(type, messagesReceived.get(type));
+            copy.bytesReceived.set(type, bytesReceived.get(type));
+        }
+        copy.rttNanos.set(rttNanos.get());
+        copy.smoothedRttNanos.set(smoothedRttNanos.get());
+        copy.jitterNanos.set(jitterNanos.get());
+        copy.rttSamples.set(rttSamples.get());
+        return copy;
+    }
+
+    /**
+     * Describe the traffic since an earlier copy, for a log line: round
+     * trip, jitter, then bytes per second and messages per second of each
+     * type seen, down (received) then up (sent).
+     * @param since earlier copy of these counters
+     * @param queueDepth messages waiting to be sent
+     * @return the description
+     */
+    public String format(ConnectionMetrics since, int queueDepth) {
+        double seconds = Math.max(1e-9, (System.nanoTime() - since.startNanos) / 1e9);
+        StringBuilder line = new StringBuilder();
+        line.append(String.format("rtt %.1f ms (avg %.1f, jitter %.1f) queue %d",
+                rttNanos.get() / 1e6, smoothedRttNanos.get() / 1e6, jitterNanos.get() / 1e6, queueDepth));
+        line.append(String.format(" | down %.0f B/s", (getBytesReceived() - since.getBytesReceived()) / seconds));
+        appendRates(line, messagesReceived, bytesReceived, since.messagesReceived, since.bytesReceived, seconds);
+        line.append(String.format(" | up %.0f B/s", (getBytesSent() - since.getBytesSent()) / seconds));
+        appendRates(line, messagesSent, bytesSent, since.messagesSent, since.bytesSent, seconds);
+        return line.toString();
+    }
+
+    private static void appendRates(StringBuilder line, AtomicLongArray messages, AtomicLongArray bytes,
+            AtomicLongArray sinceMessages, AtomicLongArray sinceBytes, double seconds) {
+        for (int type = 0; type < PongProtocol.TYPE_COUNT; type++) {
+            long count = messages.get(type) - sinceMessages.get(type);
+            if (count > 0) {
+                line.append(String.format(" %s %.1f/s %.0f B/s", PongProtocol.typeName(type),
+                        count / seconds, (bytes.get(type) - sinceBytes.get(type)) / seconds));
+            }
+        }
+    }
+
+    public long getMessagesSent(int type) {
+        return messagesSent.get(type);
+    }
+
+    public long getBytesSent(int type) {
+        return bytesSent.get(type);
+    }
+
+    public long getMessagesReceived(int type) {
+        return messagesReceived.get(type);
+    }
+
+    public long getBytesReceived(int type) {
+        return bytesReceived.get(type);
+    }
+
+    /**
+     * @return bytes sent, all types
+     */
+    public long getBytesSent() {
+        return sum(bytesSent);
+    }
+
+    /**
+     * @return bytes received, all types
+     */
+    public long getBytesReceived() {
+        return sum(bytesReceived);
+    }
+
+    private static long sum(AtomicLongArray counters) {
+        long sum = 0;
+        for (int i = 0; i < counters.length(); i++) {
+            sum += counters.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * @return the last round trip, 0 until sampled
+     */
+    public long getRttNanos() {
+        return rttNanos.get();
+    }
+
+    public long getSmoothedRttNanos() {
+        return smoothedRttNanos.get();
+    }
+
+    /**
+     * @return the mean deviation of the round trip
+     */
+    public long getJitterNanos() {
+        return jitterNanos.get();
+    }
+
+    public long getRttSamples() {
+        return rttSamples.get();
+    }
+}
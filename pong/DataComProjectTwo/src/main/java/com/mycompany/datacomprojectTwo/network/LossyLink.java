@@ -0,0 +1,68 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for a bad network in front of another link: each packet is
+ * dropped with a fixed probability, and the others are delivered after a
+ * fixed latency.
+ */
+public class LossyLink implements PacketLink {
+
+    // Link the packets are delivered to
+    private final PacketLink target;
+
+    // Probability of dropping a packet, from 0 to 1
+    private final double lossRate;
+
+    // Delay of every delivered packet
+    private final long latencyMillis;
+
+    // Decides which packets are dropped
+    private final Random random;
+
+    // Delivers the delayed packets
+    private final ScheduledExecutorService delayer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "pong-lossy-link");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * @param target link the packets are delivered to
+     * @param lossRate probability of dropping a packet, from 0 to 1
+     * @param latencyMillis delay of every delivered packet
+     * @param seed seed of the drops, to repeat a run
+     */
+    public LossyLink(PacketLink target, double lossRate, long latencyMillis, long seed) {
+        this.target = target;
+        this.lossRate = lossRate;
+        this.latencyMillis = latencyMillis;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void send(byte[] packet) {
+        synchronized (random) {
+            if (random.nextDouble() < lossRate) {
+                return;
+            }
+        }
+
+        if (latencyMillis > 0) {
+            delayer.schedule(() -> target.send(packet), latencyMillis, TimeUnit.MILLISECONDS);
+        } else {
+            target.send(packet);
+        }
+    }
+
+    /**
+     * Stop delivering the delayed packets.
+     */
+    public void close() {
+        delayer.shutdownNow();
+    }
+}
@@ -0,0 +1,147 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Transport counting the traffic of another one into ConnectionMetrics.
+ * It answers the pings of the peer and reads the pongs of its own pings
+ * itself; the other messages reach the handler unchanged, and the
+ * malformed ones are counted then dropped. Once reporting,
+ * it pings the peer every PING_INTERVAL_MILLIS on the unreliable channel
+ * and logs the metrics every interval, from one thread shared by all the
+ * transports.
+ */
+public class MeteredTransport implements PongTransport {
+
+    // Time between two pings
+    public static final long PING_INTERVAL_MILLIS = 1000;
+
+    // Logger for the metrics
+    private static final Logger LOGGER = Logger.getLogger(MeteredTransport.class.getName());
+
+    // Sends the pings and logs the metrics of every transport
+    private static final ScheduledExecutorService REPORTER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "pong-metrics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Transport counted
+    private final PongTransport transport;
+
+    // Counters of the transport
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
+
+    // Pings and log lines, null until reporting
+    private ScheduledFuture<?> pinging;
+    private ScheduledFuture<?> logging;
+
+    /**
+     * @param transport transport counted
+     */
+    public MeteredTransport(PongTransport transport) {
+        this.transport = transport;
+    }
+
+    @Override
+    public void sendReliable(byte[] message) {
+        metrics.countSent(message);
+        transport.sendReliable(message);
+    }
+
+    @Override
+    public void sendUnreliable(byte[] message) {
+        metrics.countSent(message);
+        transport.sendUnreliable(message);
+    }
+
+    @Override
+    public void setOnMessage(Consumer<byte[]> handler) {
+        transport.setOnMessage(message -> {
+            metrics.countReceived(message);
+            if (!PongProtocol.isWellFormed(message)) {
+                return;
+            }
+            byte type = PongProtocol.typeOf(message);
+            if (type == PongProtocol.PING) {
+                sendUnreliable(PongProtocol.encodePong(message));
+            } else if (type == PongProtocol.PONG) {
+                metrics.recordRtt(System.nanoTime() - PongProtocol.pingTime(message));
+            } else {
+                handler.accept(message);
+            }
+        });
+    }
+
+    /**
+     * Send a ping, answered by a pong giving a round trip sample.
+     */
+    public void ping() {
+        if (transport.isConnected()) {
+            sendUnreliable(PongProtocol.encodePing(System.nanoTime()));
+        }
+    }
+
+    /**
+     * Start pinging the peer and logging the metrics.
+     * @param name name of the connection in the log
+     * @param intervalSeconds time between two log lines, 0 to only ping
+     */
+    public synchronized void startReporting(String name, int intervalSeconds) {
+        pinging = REPORTER.scheduleAtFixedRate(this::ping, 0, PING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        if (intervalSeconds > 0) {
+            ConnectionMetrics[] last = {metrics.copy()};
+            logging = REPORTER.scheduleAtFixedRate(() -> {
+                ConnectionMetrics now = metrics.copy();
+                LOGGER.log(Level.INFO, "{0}: {1}", new Object[]{name, now.format(last[0], getQueueDepth())});
+                last[0] = now;
+            }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stop pinging and logging.
+     */
+    public synchronized void stopReporting() {
+        if (pinging != null) {
+            pinging.cancel(false);
+        }
+        if (logging != null) {
+            logging.cancel(false);
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return transport.isConnected();
+    }
+
+    @Override
+    public void flush() {
+        transport.flush();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return transport.getQueueDepth();
+    }
+
+    @Override
+    public void close() {
+        stopReporting();
+        transport.close();
+    }
+
+    /**
+     * @return the counters of the transport
+     */
+    public ConnectionMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,170 @@
+package com.mycompany.datacomprojectTwo.network;
+
+/**
+ * Conditions of a simulated network, applied by a ShapedLink: one way
+ * latency with a random jitter, loss, reordering and a bandwidth cap.
+ * Immutable; the with methods give a copy with one value changed. A
+ * profile is written as a preset name and/or key=value pairs separated
+ * by commas, e.g. "wifi" or "mobile,loss=0.1" or
+ * "latency=80,jitter=20,loss=0.02,reorder=0.01,bandwidth=16000".
+ */
+public final class NetworkProfile {
+
+    // No delay, no loss, no cap
+    public static final NetworkProfile PERFECT = new NetworkProfile(0, 0, 0, 0, 0);
+
+    // Presets, from a wired LAN to a congested mobile network
+    public static final NetworkProfile LAN = PERFECT.withLatency(1);
+    public static final NetworkProfile WIFI = new NetworkProfile(15, 10, 0.01, 0, 0);
+    public static final NetworkProfile MOBILE = new NetworkProfile(60, 30, 0.03, 0.01, 64_000);
+    public static final NetworkProfile BAD = new NetworkProfile(150, 50, 0.1, 0.05, 16_000);
+
+    // One way delay of every packet, milliseconds
+    private final long latencyMillis;
+
+    // Largest random change of the delay, plus or minus, milliseconds
+    private final long jitterMillis;
+
+    // Probability of losing a packet, from 0 to 1
+    private final double lossRate;
+
+    // Probability of holding a packet back so the next ones overtake it, from 0 to 1
+    private final double reorderRate;
+
+    // Bytes per second the link carries, 0 for no cap
+    private final long bandwidth;
+
+    /**
+     * Create a profile.
+     * @param latencyMillis one way delay of every packet
+     * @param jitterMillis largest random change of the delay
+     * @param lossRate probability of losing a packet
+     * @param reorderRate probability of reordering a packet
+     * @param bandwidth bytes per second, 0 for no cap
+     */
+    public NetworkProfile(long latencyMillis, long jitterMillis, double lossRate, double reorderRate, long bandwidth) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.lossRate = lossRate;
+        this.reorderRate = reorderRate;
+        this.bandwidth = bandwidth;
+    }
+
+    /**
+     * Read a profile.
+     * @param text preset name and/or key=value pairs (latency, jitter,
+     * loss, reorder, bandwidth) separated by commas
+     * @return the profile
+     * @throws IllegalArgumentException if the text is not a profile
+     */
+    public static NetworkProfile parse(String text) {
+        NetworkProfile profile = PERFECT;
+        for (String part : text.split(",")) {
+            String item = part.trim().toLowerCase();
+            if (item.isEmpty()) {
+                continue;
+            }
+
+            int equals = item.indexOf('=');
+            if (equals < 0) {
+                profile = named(item);
+                continue;
+            }
+
+            String key = item.substring(0, equals).trim();
+            String value = item.substring(equals + 1).trim();
+            try {
+                switch (key) {
+                    case "latency":
+                        profile = profile.withLatency(Long.parseLong(value));
+                        break;
+                    case "jitter":
+                        profile = profile.withJitter(Long.parseLong(value));
+                        break;
+                    case "loss":
+                        profile = profile.withLoss(Double.parseDouble(value));
+                        break;
+                    case "reorder":
+                        profile = profile.withReorder(Double.parseDouble(value));
+                        break;
+                    case "bandwidth":
+                        profile = profile.withBandwidth(Long.parseLong(value));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown network setting: " + key);
+                }
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Bad value for " + key + ": " + value, ex);
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * @param name perfect, lan, wifi, mobile or bad
+     * @return the preset
+     * @throws IllegalArgumentException if there is no such preset
+     */
+    public static NetworkProfile named(String name) {
+        switch (name) {
+            case "perfect":
+                return PERFECT;
+            case "lan":
+                return LAN;
+            case "wifi":
+                return WIFI;
+            case "mobile":
+                return MOBILE;
+            case "bad":
+                return BAD;
+            default:
+                throw new IllegalArgumentException("Unknown network profile: " + name);
+        }
+    }
+
+    public NetworkProfile withLatency(long value) {
+        return new NetworkProfile(value, jitterMillis, lossRate, reorderRate, bandwidth);
+    }
+
+    public NetworkProfile withJitter(long value) {
+        return new NetworkProfile(latencyMillis, value, lossRate, reorderRate, bandwidth);
+    }
+
+    public NetworkProfile withLoss(double value) {
+        return new NetworkProfile(latencyMillis, jitterMillis, value, reorderRate, bandwidth);
+    }
+
+    public NetworkProfile withReorder(double value) {
+        return new NetworkProfile(latencyMillis, jitterMillis, lossRate, value, bandwidth);
+    }
+
+    public NetworkProfile withBandwidth(long value) {
+        return new NetworkProfile(latencyMillis, jitterMillis, lossRate, reorderRate, value);
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public long getJitterMillis() {
+        return jitterMillis;
+    }
+
+    public double getLossRate() {
+        return lossRate;
+    }
+
+    public double getReorderRate() {
+        return reorderRate;
+    }
+
+    public long getBandwidth() {
+        return bandwidth;
+    }
+
+    @Override
+    public String toString() {
+        return "latency=" + latencyMillis + ",jitter=" + jitterMillis + ",loss=" + lossRate
+                + ",reorder=" + reorderRate + ",bandwidth=" + bandwidth;
+    }
+}
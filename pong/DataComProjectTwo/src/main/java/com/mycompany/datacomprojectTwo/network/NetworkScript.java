@@ -0,0 +1,95 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Network conditions changing over time: a list of NetworkProfiles, each
+ * applied from a number of seconds after the link starts until the next
+ * one. A script is written as steps "seconds:profile" separated by
+ * semicolons, e.g. "0:wifi;10:bad;20:wifi" (ten seconds of bad network
+ * in the middle); a single profile without time applies all along. The
+ * network is perfect before the first step.
+ */
+public final class NetworkScript {
+
+    // Start of each step in milliseconds, increasing, and its profile
+    private final long[] startMillis;
+    private final NetworkProfile[] profiles;
+
+    private NetworkScript(List<Long> starts, List<NetworkProfile> steps) {
+        startMillis = new long[starts.size()];
+        for (int i = 0; i < startMillis.length; i++) {
+            startMillis[i] = starts.get(i);
+        }
+        profiles = steps.toArray(new NetworkProfile[0]);
+    }
+
+    /**
+     * @param profile conditions applied all along
+     * @return a script of one step
+     */
+    public static NetworkScript constant(NetworkProfile profile) {
+        return new NetworkScript(List.of(0L), List.of(profile));
+    }
+
+    /**
+     * Read a script.
+     * @param text a profile, or steps "seconds:profile" separated by semicolons
+     * @return the script
+     * @throws IllegalArgumentException if the text is not a script or the
+     * steps are not in time order
+     */
+    public static NetworkScript parse(String text) {
+        List<Long> starts = new ArrayList<>();
+        List<NetworkProfile> steps = new ArrayList<>();
+
+        for (String step : text.split(";")) {
+            if (step.isBlank()) {
+                continue;
+            }
+
+            long start = 0;
+            String profile = step;
+            int colon = step.indexOf(':');
+            if (colon >= 0) {
+                try {
+                    start = Math.round(Double.parseDouble(step.substring(0, colon).trim()) * 1000);
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Bad step time: " + step, ex);
+                }
+                profile = step.substring(colon + 1);
+            }
+
+            if (!starts.isEmpty() && start <= starts.get(starts.size() - 1)) {
+                throw new IllegalArgumentException("Steps out of order at: " + step);
+            }
+            starts.add(start);
+            steps.add(NetworkProfile.parse(profile));
+        }
+
+        if (steps.isEmpty()) {
+            throw new IllegalArgumentException("Empty network script");
+        }
+        return new NetworkScript(starts, steps);
+    }
+
+    /**
+     * @param elapsedMillis time since the link started
+     * @return the conditions at that time
+     */
+    public NetworkProfile profileAt(long elapsedMillis) {
+        NetworkProfile profile = NetworkProfile.PERFECT;
+        for (int i = 0; i < startMillis.length && startMillis[i] <= elapsedMillis; i++) {
+            profile = profiles[i];
+        }
+        return profile;
+    }
+
+    /**
+     * @return number of steps
+     */
+    public int getStepCount() {
+        return profiles.length;
+    }
+}
@@ -0,0 +1,170 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Bounded queue in front of a connection whose own send queue has no
+ * bound (the FXGL TCP connection). At most WINDOW messages are handed to
+ * the connection at a time; the others wait here. Messages that must
+ * arrive (spawns, scores) wait in order, up to MAX_BACKLOG of them, while
+ * of the others only the newest of each type is kept: a newer snapshot
+ * (or delta) replaces the one waiting, since the clients only use the
+ * latest, and likewise for acks and pings. A peer that stays behind longer
+ * than the slow timeout, or lets MAX_BACKLOG messages pile up, is given up:
+ * the queue drops everything and calls its slow handler, which closes the
+ * connection, so one stalled client never holds memory or time of the
+ * others. Synchronized: the sends and flushes may come from any thread.
+ */
+public class OutboundQueue {
+
+    // Messages handed to the connection and not yet written, at most
+    public static final int WINDOW = 4;
+
+    // Messages that must arrive waiting here, at most
+    public static final int MAX_BACKLOG = 256;
+
+    // Writes a message to the connection
+    private final Consumer<byte[]> sink;
+
+    // Messages in the queue of the connection
+    private final IntSupplier sinkDepth;
+
+    // Called once when the peer is too slow
+    private final Runnable onSlow;
+
+    // Longest time the peer may stay behind
+    private final long slowTimeoutNanos;
+
+    // Messages that must arrive, in order
+    private final Deque<byte[]> backlog = new ArrayDeque<>();
+
+    // Newest message of each type not handed over yet, deltas with the snapshots
+    private final byte[][] latest = new byte[PongProtocol.TYPE_COUNT][];
+
+    // Messages in latest
+    private int latestCount;
+
+    // Time the peer fell behind, or -1 while it keeps up
+    private long behindSinceNanos = -1;
+
+    // Set once the peer is given up
+    private boolean slow;
+
+    // Messages replaced by a newer one before being sent
+    private long coalescedCount;
+
+    /**
+     * Create a queue.
+     * @param sink writes a message to the connection
+     * @param sinkDepth messages in the queue of the connection
+     * @param onSlow called once when the peer is too slow
+     * @param slowTimeoutMillis longest time the peer may stay behind
+     */
+    public OutboundQueue(Consumer<byte[]> sink, IntSupplier sinkDepth, Runnable onSlow, long slowTimeoutMillis) {
+        this.sink = sink;
+        this.sinkDepth = sinkDepth;
+        this.onSlow = onSlow;
+        this.slowTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(slowTimeoutMillis);
+    }
+
+    /**
+     * Send a message, or keep it until the connection has room.
+     * @param message encoded message
+     * @param latestWins true for a message replaced by a newer one of its
+     * type, e.g. a snapshot
+     */
+    public synchronized void send(byte[] message, boolean latestWins) {
+        if (slow) {
+            return;
+        }
+        if (latestWins) {
+            int slot = slotOf(message);
+            if (latest[slot] != null) {
+                coalescedCount++;
+            } else {
+                latestCount++;
+            }
+            latest[slot] = message;
+        } else {
+            backlog.addLast(message);
+        }
+        flush();
+    }
+
+    /**
+     * Hand the waiting messages to the connection while it has room, the
+     * ones that must arrive first, and give the peer up if it stays behind.
+     */
+    public synchronized void flush() {
+        if (slow) {
+            return;
+        }
+
+        int depth = sinkDepth.getAsInt();
+        while (depth < WINDOW && !backlog.isEmpty()) {
+            sink.accept(backlog.pollFirst());
+            depth++;
+        }
+        for (int slot = 0; slot < latest.length && depth < WINDOW && backlog.isEmpty() && latestCount > 0; slot++) {
+            if (latest[slot] != null) {
+                sink.accept(latest[slot]);
+                latest[slot] = null;
+                latestCount--;
+                depth++;
+            }
+        }
+
+        if (backlog.isEmpty() && latestCount == 0) {
+            behindSinceNanos = -1;
+            return;
+        }
+        long now = System.nanoTime();
+        if (behindSinceNanos < 0) {
+            behindSinceNanos = now;
+        }
+        if (backlog.size() > MAX_BACKLOG || now - behindSinceNanos > slowTimeoutNanos) {
+            slow = true;
+            backlog.clear();
+            Arrays.fill(latest, null);
+            latestCount = 0;
+            onSlow.run();
+        }
+    }
+
+    /**
+     * @return the slot of a message in latest, shared by snapshots and deltas
+     */
+    private static int slotOf(byte[] message) {
+        int type = PongProtocol.typeOf(message);
+        if (type == PongProtocol.DELTA) {
+            return PongProtocol.SNAPSHOT;
+        }
+        return type > 0 && type < PongProtocol.TYPE_COUNT ? type : 0;
+    }
+
+    /**
+     * @return messages waiting here
+     */
+    public synchronized int getBacklog() {
+        return backlog.size() + latestCount;
+    }
+
+    /**
+     * @return messages replaced by a newer one before being sent
+     */
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * @return true once the peer was given up
+     */
+    public synchronized boolean isSlow() {
+        return slow;
+    }
+}
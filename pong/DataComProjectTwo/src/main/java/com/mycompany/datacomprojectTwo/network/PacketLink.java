@@ -0,0 +1,15 @@
+package com.mycompany.datacomprojectTwo.network;
+
+/**
+ * Where a UdpTransport writes its packets. The socket is the default
+ * link; a LossyLink or a ShapedLink can be put in front of it to test the
+ * transport with loss and latency on loopback.
+ */
+public interface PacketLink {
+
+    /**
+     * Send one packet to the peer.
+     * @param packet whole packet, not modified afterwards
+     */
+    void send(byte[] packet);
+}
@@ -0,0 +1,629 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.TICK_RATE;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * This static class defines the binary messages exchanged by the pong
+ * server and client. Every message starts with a one byte type.
+ * <pre>
+ * SPAWN    type, id of the receiver's bat, count, count x (id, kind, x, y)
+ * SNAPSHOT see SnapshotCodec
+ * DELTA    see SnapshotCodec
+ * INPUT    type, key code (2 bytes), pressed (1 byte)
+ * ACK      type, tick of the last snapshot applied (4 bytes)
+ * JOIN     type
+ * SCORE    type, score 1, score 2
+ * COMMAND  type, sequence (4 bytes), direction (1 byte), dt (4 byte float)
+ * HELLO    type, protocol version (2 bytes), probe (1 byte), client time (8 bytes),
+ *          session token to resume (8 bytes, NO_SESSION for a new player),
+ *          tick rate (2 bytes)
+ * WELCOME  type, protocol version (2 bytes), status (1 byte), free rooms (4 bytes),
+ *          client time of the hello (8 bytes), session token (8 bytes)
+ * ANNOUNCE type, protocol version (2 bytes), game port (2 bytes), free rooms (4 bytes),
+ *          load percent (1 byte), name length (1 byte), UTF-8 name
+ * PING     type, sender time (8 bytes)
+ * PONG     type, sender time of the ping (8 bytes)
+ * RESYNC   type, id of the receiver's bat, full snapshot (see SnapshotCodec)
+ * </pre>
+ * Snapshots, deltas and acks go through the unreliable channel of a
+ * PongTransport and the other messages through the reliable one.
+ */
+public final class PongProtocol {
+
+    private PongProtocol() {}
+
+    // Message types
+    public static final byte SPAWN = 1;
+    public static final byte SNAPSHOT = 2;
+    public static final byte INPUT = 3;
+    public static final byte DELTA = 4;
+    public static final byte ACK = 5;
+    public static final byte JOIN = 6;
+    public static final byte SCORE = 7;
+    public static final byte COMMAND = 8;
+    public static final byte HELLO = 9;
+    public static final byte WELCOME = 10;
+    public static final byte ANNOUNCE = 11;
+    public static final byte PING = 12;
+    public static final byte PONG = 13;
+    public static final byte RESYNC = 14;
+
+    // Message types are below this bound
+    public static final int TYPE_COUNT = 15;
+
+    // Version of the messages, changed whenever they change
+    public static final short PROTOCOL_VERSION = 3;
+
+    // Status of a welcome: seated (or would be), other protocol version, no free room,
+    // session to resume unknown or over, other tick rate
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_VERSION_MISMATCH = 1;
+    public static final byte STATUS_FULL = 2;
+    public static final byte STATUS_SESSION_EXPIRED = 3;
+    public static final byte STATUS_TICK_RATE_MISMATCH = 4;
+
+    // Session token of a player not seated yet
+    public static final long NO_SESSION = 0;
+
+    // Draws the session tokens, which must not be guessed by other clients
+    private static final SecureRandom SESSION_RANDOM = new SecureRandom();
+
+    // Entity kinds, named like the PongFactory spawners
+    public static final byte KIND_BALL = 0;
+    public static final byte KIND_BAT = 1;
+
+    // Size of an input message
+    public static final int INPUT_SIZE = 4;
+
+    // Size of an ack message
+    public static final int ACK_SIZE = 5;
+
+    // Acked tick of a client that did not acknowledge any snapshot
+    public static final int NO_ACK = -1;
+
+    // Input sequence of a bat that did not get any command
+    public static final int NO_INPUT = -1;
+
+    // Size of a command message
+    public static final int COMMAND_SIZE = 10;
+
+    // Size of the hello and welcome messages
+    public static final int HELLO_SIZE = 22;
+    public static final int WELCOME_SIZE = 24;
+
+    // Size of a hello of any version, which starts with its type and version
+    public static final int HELLO_HEADER_SIZE = 3;
+
+    // Size of an announcement without its name, and longest name in bytes
+    public static final int ANNOUNCE_HEADER_SIZE = 11;
+    public static final int MAX_NAME_BYTES = 32;
+
+    // Size of the ping and pong messages
+    public static final int PING_SIZE = 9;
+
+    // Size of a resync message
+    public static final int RESYNC_SIZE = 2 + SnapshotCodec.SNAPSHOT_SIZE;
+
+    /**
+     * @param message a received message
+     * @return the type of the message, or 0 if empty
+     */
+    public static byte typeOf(byte[] message) {
+        return message.length > 0 ? message[0] : 0;
+    }
+
+    /**
+     * Check the size of the fixed size messages sent by the clients, which
+     * are read at fixed offsets.
+     * @param message a received message
+     * @return false if the message is too short for its type
+     */
+    public static boolean isWellFormed(byte[] message) {
+        switch (typeOf(message)) {
+            case INPUT:
+                return message.length >= INPUT_SIZE;
+            case ACK:
+                return message.length >= ACK_SIZE;
+            case COMMAND:
+                return message.length >= COMMAND_SIZE;
+            case PING:
+            case PONG:
+                return message.length >= PING_SIZE;
+            case HELLO:
+                return message.length >= HELLO_HEADER_SIZE;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * @param type message type
+     * @return the name of the type, for the logs
+     */
+    public static String typeName(int type) {
+        switch (type) {
+            case SPAWN: return "spawn";
+            case SNAPSHOT: return "snapshot";
+            case INPUT: return "input";
+            case DELTA: return "delta";
+            case ACK: return "ack";
+            case JOIN: return "join";
+            case SCORE: return "score";
+            case COMMAND: return "command";
+            case HELLO: return "hello";
+            case WELCOME: return "welcome";
+            case ANNOUNCE: return "announce";
+            case PING: return "ping";
+            case PONG: return "pong";
+            case RESYNC: return "resync";
+            default: return "type" + type;
+        }
+    }
+
+    /**
+     * Build the spawn message of a match: the ball then both bats, at
+     * their position in the snapshot.
+     * @param snapshot first state of the match
+     * @param localBat entity id of the bat of the receiver
+     * @return the message
+     */
+    public static byte[] encodeSpawn(Snapshot snapshot, int localBat) {
+        ByteBuffer out = ByteBuffer.allocate(3 + Snapshot.ENTITY_COUNT * 6);
+        out.put(SPAWN);
+        out.put((byte) localBat);
+        out.put((byte) Snapshot.ENTITY_COUNT);
+        for (int id = 0; id < Snapshot.ENTITY_COUNT; id++) {
+            out.put((byte) id);
+            out.put(id == Snapshot.BALL ? KIND_BALL : KIND_BAT);
+            out.putShort(SnapshotCodec.quantizePosition(snapshot.getX(id)));
+            out.putShort(SnapshotCodec.quantizePosition(snapshot.getY(id)));
+        }
+        return out.array();
+    }
+
+    /**
+     * Read a spawn message into a snapshot (positions only) and return the
+     * kind of each entity.
+     * @param message spawn message
+     * @param snapshot receives the positions
+     * @return kinds indexed by entity id
+     */
+    public static byte[] decodeSpawn(byte[] message, Snapshot snapshot) {
+        ByteBuffer in = ByteBuffer.wrap(message);
+        in.get();
+        in.get();
+        int count = in.get();
+        byte[] kinds = new byte[Snapshot.ENTITY_COUNT];
+        for (int i = 0; i < count; i++) {
+            int id = in.get();
+            kinds[id] = in.get();
+            double x = SnapshotCodec.dequantizePosition(in.getShort());
+            double y = SnapshotCodec.dequantizePosition(in.getShort());
+            snapshot.setEntity(id, x, y, 0, 0);
+        }
+        return kinds;
+    }
+
+    /**
+     * @param message spawn message
+     * @return entity id of the bat controlled by the receiver
+     */
+    public static int spawnLocalBat(byte[] message) {
+        return message[1];
+    }
+
+    /**
+     * Build an input message.
+     * @param keyCode code of the key (KeyCode.getCode())
+     * @param pressed true when the key goes down
+     * @return the message
+     */
+    public static byte[] encodeInput(int keyCode, boolean pressed) {
+        return ByteBuffer.allocate(INPUT_SIZE)
+                .put(INPUT)
+                .putShort((short) keyCode)
+                .put((byte) (pressed ? 1 : 0))
+                .array();
+    }
+
+    /**
+     * @param message input message
+     * @return the key code of the input
+     */
+    public static int inputKeyCode(byte[] message) {
+        return ByteBuffer.wrap(message, 1, 2).getShort();
+    }
+
+    /**
+     * @param message input message
+     * @return true if the key went down
+     */
+    public static boolean inputPressed(byte[] message) {
+        return message[3] != 0;
+    }
+
+    /**
+     * Build an ack message.
+     * @param tick tick of the last snapshot applied
+     * @return the message
+     */
+    public static byte[] encodeAck(int tick) {
+        return ByteBuffer.allocate(ACK_SIZE).put(ACK).putInt(tick).array();
+    }
+
+    /**
+     * @param message ack message
+     * @return the acknowledged tick
+     */
+    public static int ackTick(byte[] message) {
+        return ByteBuffer.wrap(message, 1, 4).getInt();
+    }
+
+    /**
+     * @return a join message
+     */
+    public static byte[] encodeJoin() {
+        return new byte[]{JOIN};
+    }
+
+    /**
+     * Build a score message.
+     * @param playerOneScore score of player one
+     * @param playerTwoScore score of player two
+     * @return the message
+     */
+    public static byte[] encodeScore(int playerOneScore, int playerTwoScore) {
+        return new byte[]{SCORE, (byte) playerOneScore, (byte) playerTwoScore};
+    }
+
+    /**
+     * @param message score message
+     * @param player 1 or 2
+     * @return the score of the player
+     */
+    public static int score(byte[] message, int player) {
+        return message[player] & 0xFF;
+    }
+
+    /**
+     * Build a command message.
+     * @param sequence number of the command, increasing
+     * @param direction Bat.UP, Bat.STOP or Bat.DOWN
+     * @param dt duration of the command in seconds
+     * @return the message
+     */
+    public static byte[] encodeCommand(int sequence, int direction, float dt) {
+        return ByteBuffer.allocate(COMMAND_SIZE)
+                .put(COMMAND)
+                .putInt(sequence)
+                .put((byte) direction)
+                .putFloat(dt)
+                .array();
+    }
+
+    /**
+     * @param message command message
+     * @return the sequence of the command
+     */
+    public static int commandSequence(byte[] message) {
+        return ByteBuffer.wrap(message, 1, 4).getInt();
+    }
+
+    /**
+     * @param message command message
+     * @return the direction of the command
+     */
+    public static int commandDirection(byte[] message) {
+        return message[5];
+    }
+
+    /**
+     * @param message command message
+     * @return the duration of the command in seconds
+     */
+    public static float commandDt(byte[] message) {
+        return ByteBuffer.wrap(message, 6, 4).getFloat();
+    }
+
+    /**
+     * Build a hello message of this PROTOCOL_VERSION for a new player.
+     * @param probe true to only get the welcome, without being seated
+     * @param time client time (System.nanoTime()), echoed by the welcome
+     * @return the message
+     */
+    public static byte[] encodeHello(boolean probe, long time) {
+        return encodeHello(probe, time, NO_SESSION);
+    }
+
+    /**
+     * Build a hello message of this PROTOCOL_VERSION.
+     * @param probe true to only get the welcome, without being seated
+     * @param time client time (System.nanoTime()), echoed by the welcome
+     * @param session token of the session to resume, or NO_SESSION
+     * @return the message
+     */
+    public static byte[] encodeHello(boolean probe, long time, long session) {
+        return ByteBuffer.allocate(HELLO_SIZE)
+                .put(HELLO)
+                .putShort(PROTOCOL_VERSION)
+                .put((byte) (probe ? 1 : 0))
+                .putLong(time)
+                .putLong(session)
+                .putShort((short) TICK_RATE)
+                .array();
+    }
+
+    /**
+     * @param message hello or welcome message
+     * @return the protocol version of the sender
+     */
+    public static int version(byte[] message) {
+        return ByteBuffer.wrap(message, 1, 2).getShort();
+    }
+
+    /**
+     * @param message hello message
+     * @return true if the client only probes the server, false for a
+     * hello too short to tell
+     */
+    public static boolean helloProbe(byte[] message) {
+        return message.length >= HELLO_SIZE && message[3] != 0;
+    }
+
+    /**
+     * @param message hello message
+     * @return the client time of the hello
+     */
+    public static long helloTime(byte[] message) {
+        return ByteBuffer.wrap(message, 4, 8).getLong();
+    }
+
+    /**
+     * @param message hello message
+     * @return the session token to resume, or NO_SESSION for a new player
+     */
+    public static long helloSession(byte[] message) {
+        return ByteBuffer.wrap(message, 12, 8).getLong();
+    }
+
+    /**
+     * @param message hello message
+     * @return the tick rate the client steps its prediction at
+     */
+    public static int helloTickRate(byte[] message) {
+        return ByteBuffer.wrap(message, 20, 2).getShort();
+    }
+
+    /**
+     * @param message hello message
+     * @return true if the hello is of this PROTOCOL_VERSION and the client
+     * steps at the TICK_RATE of the server, which sizes the commands
+     */
+    public static boolean helloMatches(byte[] message) {
+        return message.length >= HELLO_SIZE && version(message) == PROTOCOL_VERSION
+                && helloTickRate(message) == TICK_RATE;
+    }
+
+    /**
+     * @return a new session token, never NO_SESSION
+     */
+    public static long newSessionToken() {
+        long token;
+        do {
+            token = SESSION_RANDOM.nextLong();
+        } while (token == NO_SESSION);
+        return token;
+    }
+
+    /**
+     * Build the welcome answering the hello of a new player.
+     * @param hello received hello message
+     * @param freeRooms rooms the server can still open
+     * @return the message, STATUS_VERSION_MISMATCH if the hello is of
+     * another version, STATUS_TICK_RATE_MISMATCH if the client steps at
+     * another rate, else STATUS_FULL when there is no free room
+     */
+    public static byte[] encodeWelcome(byte[] hello, int freeRooms) {
+        byte status = STATUS_OK;
+        if (hello.length < HELLO_SIZE || version(hello) != PROTOCOL_VERSION) {
+            status = STATUS_VERSION_MISMATCH;
+        } else if (!helloMatches(hello)) {
+            status = STATUS_TICK_RATE_MISMATCH;
+        } else if (freeRooms <= 0) {
+            status = STATUS_FULL;
+        }
+        return encodeWelcome(hello, status, freeRooms, NO_SESSION);
+    }
+
+    /**
+     * Build the welcome answering a hello.
+     * @param hello received hello message
+     * @param status status of the welcome
+     * @param freeRooms rooms the server can still open
+     * @param session session token of the player, or NO_SESSION
+     * @return the message
+     */
+    public static byte[] encodeWelcome(byte[] hello, byte status, int freeRooms, long session) {
+        return ByteBuffer.allocate(WELCOME_SIZE)
+                .put(WELCOME)
+                .putShort(PROTOCOL_VERSION)
+                .put(status)
+                .putInt(Math.max(0, freeRooms))
+                .putLong(hello.length >= HELLO_SIZE ? helloTime(hello) : 0)
+                .putLong(session)
+                .array();
+    }
+
+    /**
+     * @param message welcome message
+     * @return STATUS_OK, STATUS_VERSION_MISMATCH, STATUS_FULL,
+     * STATUS_SESSION_EXPIRED or STATUS_TICK_RATE_MISMATCH
+     */
+    public static byte welcomeStatus(byte[] message) {
+        return message[3];
+    }
+
+    /**
+     * @param message welcome message
+     * @return rooms the server can still open
+     */
+    public static int welcomeFreeRooms(byte[] message) {
+        return ByteBuffer.wrap(message, 4, 4).getInt();
+    }
+
+    /**
+     * @param message welcome message
+     * @return client time of the hello it answers
+     */
+    public static long welcomeTime(byte[] message) {
+        return ByteBuffer.wrap(message, 8, 8).getLong();
+    }
+
+    /**
+     * @param message welcome message
+     * @return session token of the player, NO_SESSION unless seated
+     */
+    public static long welcomeSession(byte[] message) {
+        return ByteBuffer.wrap(message, 16, 8).getLong();
+    }
+
+    /**
+     * Build the resync of a player back in its match.
+     * @param snapshot current state of the match
+     * @param localBat entity id of the bat of the receiver
+     * @return the message
+     */
+    public static byte[] encodeResync(Snapshot snapshot, int localBat) {
+        ByteBuffer out = ByteBuffer.allocate(RESYNC_SIZE);
+        out.put(RESYNC);
+        out.put((byte) localBat);
+        SnapshotCodec.encode(snapshot, out);
+        return out.array();
+    }
+
+    /**
+     * Read the state of a resync message.
+     * @param message resync message
+     * @param snapshot receives the state of the match
+     */
+    public static void decodeResync(byte[] message, Snapshot snapshot) {
+        SnapshotCodec.decode(ByteBuffer.wrap(message, 2, message.length - 2), snapshot);
+    }
+
+    /**
+     * @param message resync message
+     * @return entity id of the bat controlled by the receiver
+     */
+    public static int resyncLocalBat(byte[] message) {
+        return message[1];
+    }
+
+    /**
+     * Build the announcement of a server.
+     * @param name name shown to the players, cut to MAX_NAME_BYTES
+     * @param port TCP port of the server
+     * @param freeRooms rooms the server can still open
+     * @param load percent of the server busy
+     * @return the message
+     */
+    public static byte[] encodeAnnounce(String name, int port, int freeRooms, int load) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int nameLength = Math.min(nameBytes.length, MAX_NAME_BYTES);
+        // Never cut a character in two
+        while (nameLength < nameBytes.length && (nameBytes[nameLength] & 0xC0) == 0x80) {
+            nameLength--;
+        }
+        byte[] message = ByteBuffer.allocate(ANNOUNCE_HEADER_SIZE + nameLength)
+                .put(ANNOUNCE)
+                .putShort(PROTOCOL_VERSION)
+                .putShort((short) port)
+                .putInt(0)
+                .put((byte) 0)
+                .put((byte) nameLength)
+                .put(nameBytes, 0, nameLength)
+                .array();
+        setAnnounceStatus(message, freeRooms, load);
+        return message;
+    }
+
+    /**
+     * Change the free rooms and load of an announcement in place, so a
+     * server announcing itself builds its message once.
+     * @param message announcement
+     * @param freeRooms rooms the server can still open
+     * @param load percent of the server busy
+     */
+    public static void setAnnounceStatus(byte[] message, int freeRooms, int load) {
+        ByteBuffer.wrap(message)
+                .putInt(5, Math.max(0, freeRooms))
+                .put(9, (byte) Math.max(0, Math.min(100, load)));
+    }
+
+    /**
+     * @param message announcement
+     * @return TCP port of the server
+     */
+    public static int announcePort(byte[] message) {
+        return ByteBuffer.wrap(message, 3, 2).getShort() & 0xFFFF;
+    }
+
+    /**
+     * @param message announcement
+     * @return rooms the server can still open
+     */
+    public static int announceFreeRooms(byte[] message) {
+        return ByteBuffer.wrap(message, 5, 4).getInt();
+    }
+
+    /**
+     * @param message announcement
+     * @return percent of the server busy
+     */
+    public static int announceLoad(byte[] message) {
+        return message[9];
+    }
+
+    /**
+     * @param message announcement
+     * @return name of the server
+     * @throws IllegalArgumentException if the name is cut
+     */
+    public static String announceName(byte[] message) {
+        int length = message[10] & 0xFF;
+        if (length > MAX_NAME_BYTES || message.length < ANNOUNCE_HEADER_SIZE + length) {
+            throw new IllegalArgumentException("Bad announcement name length " + length);
+        }
+        return new String(Arrays.copyOfRange(message, ANNOUNCE_HEADER_SIZE, ANNOUNCE_HEADER_SIZE + length),
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param time sender time (System.nanoTime())
+     * @return the ping message
+     */
+    public static byte[] encodePing(long time) {
+        return ByteBuffer.allocate(PING_SIZE).put(PING).putLong(time).array();
+    }
+
+    /**
+     * @param ping received ping
+     * @return the pong answering it
+     */
+    public static byte[] encodePong(byte[] ping) {
+        byte[] pong = Arrays.copyOf(ping, PING_SIZE);
+        pong[0] = PONG;
+        return pong;
+    }
+
+    /**
+     * @param message ping or pong message
+     * @return the sender time of the ping
+     */
+    public static long pingTime(byte[] message) {
+        return ByteBuffer.wrap(message, 1, 8).getLong();
+    }
+}
@@ -0,0 +1,56 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import java.util.function.Consumer;
+
+/**
+ * A link between the pong server and one client. Spawns, scores and
+ * inputs must arrive, in order, and go through the reliable channel.
+ * Snapshots are only useful while they are the latest and go through the
+ * unreliable channel, which may drop or reorder them.
+ */
+public interface PongTransport {
+
+    /**
+     * Send a message that must arrive, in order.
+     * @param message encoded message
+     */
+    void sendReliable(byte[] message);
+
+    /**
+     * Send a message that may be lost or arrive out of order.
+     * @param message encoded message
+     */
+    void sendUnreliable(byte[] message);
+
+    /**
+     * Set the handler of the received messages. It is called on the
+     * thread of the transport.
+     * @param handler receives the messages
+     */
+    void setOnMessage(Consumer<byte[]> handler);
+
+    /**
+     * @return true while messages can be sent to the peer
+     */
+    boolean isConnected();
+
+    /**
+     * Hand over the messages held back while the peer was behind. Called
+     * every tick by the sender.
+     */
+    default void flush() {
+    }
+
+    /**
+     * @return messages sent and still waiting in the transport, for the
+     * metrics
+     */
+    default int getQueueDepth() {
+        return 0;
+    }
+
+    /**
+     * Close the link.
+     */
+    void close();
+}
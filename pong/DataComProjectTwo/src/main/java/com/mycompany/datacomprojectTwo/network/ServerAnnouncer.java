@@ -0,0 +1,175 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Announces a server on the LAN: every interval, one ANNOUNCE datagram
+ * (about 40 bytes) is broadcast to the discovery port, where the clients
+ * listen with a ServerBrowser. The message is built once and only its
+ * free rooms and load are rewritten before each send, from suppliers that
+ * must be cheap (they are read on the announcer thread, a single daemon
+ * thread of low priority that sleeps between the sends), so announcing
+ * costs nothing a loaded server would notice.
+ */
+public class ServerAnnouncer {
+
+    // Logger for the send errors
+    private static final Logger LOGGER = Logger.getLogger(ServerAnnouncer.class.getName());
+
+    // Message sent, rewritten in place by the announcer thread
+    private final byte[] message;
+
+    // Status of the server, read before each send
+    private final IntSupplier freeRooms;
+    private final IntSupplier load;
+
+    // Announcements sent
+    private final AtomicLong announceCount = new AtomicLong();
+
+    // Socket and thread of the announcements, set by start
+    private DatagramSocket socket;
+    private ScheduledExecutorService announcer;
+
+    // Set after the first send error, to log it once
+    private boolean failed;
+
+    /**
+     * Create an announcer.
+     * @param name name shown to the players
+     * @param port TCP port of the server
+     * @param freeRooms rooms the server can still open
+     * @param load percent of the server busy
+     */
+    public ServerAnnouncer(String name, int port, IntSupplier freeRooms, IntSupplier load) {
+        this.message = PongProtocol.encodeAnnounce(name, port, 0, 0);
+        this.freeRooms = freeRooms;
+        this.load = load;
+    }
+
+    /**
+     * Start announcing to the broadcast address of every LAN interface.
+     * @param discoveryPort UDP port the clients listen at
+     * @param intervalMillis time between two announcements
+     * @throws IOException if the socket cannot be opened
+     */
+    public void start(int discoveryPort, long intervalMillis) throws IOException {
+        start(broadcastAddresses(), discoveryPort, intervalMillis);
+    }
+
+    /**
+     * Start announcing.
+     * @param targets addresses the announcements are sent to
+     * @param discoveryPort UDP port the clients listen at
+     * @param intervalMillis time between two announcements
+     * @throws IOException if the socket cannot be opened
+     */
+    public synchronized void start(List<InetAddress> targets, int discoveryPort, long intervalMillis) throws IOException {
+        socket = new DatagramSocket();
+        socket.setBroadcast(true);
+
+        List<DatagramPacket> packets = new ArrayList<>();
+        for (InetAddress target : targets) {
+            packets.add(new DatagramPacket(message, message.length, target, discoveryPort));
+        }
+
+        announcer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "pong-announcer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        announcer.scheduleAtFixedRate(() -> announce(packets), 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Send the current status to every target.
+     * @param packets one packet per target, all holding the message
+     */
+    private void announce(List<DatagramPacket> packets) {
+        PongProtocol.setAnnounceStatus(message, freeRooms.getAsInt(), load.getAsInt());
+        for (DatagramPacket packet : packets) {
+            try {
+                socket.send(packet);
+                announceCount.incrementAndGet();
+            } catch (IOException ex) {
+                // e.g. no network, the next announcements may go through
+                if (!failed) {
+                    failed = true;
+                    LOGGER.log(Level.WARNING, "Cannot announce to " + packet.getAddress(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop announcing.
+     */
+    public synchronized void close() {
+        if (announcer != null) {
+            announcer.shutdownNow();
+            socket.close();
+        }
+    }
+
+    /**
+     * @return datagrams sent
+     */
+    public long getAnnounceCount() {
+        return announceCount.get();
+    }
+
+    /**
+     * @return the broadcast address of every interface up, or the limited
+     * broadcast address when none has one
+     * @throws SocketException if the interfaces cannot be listed
+     */
+    public static List<InetAddress> broadcastAddresses() throws SocketException {
+        List<InetAddress> addresses = new ArrayList<>();
+        for (NetworkInterface networkInterface : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+            if (!networkInterface.isUp() || networkInterface.isLoopback()) {
+                continue;
+            }
+            for (InterfaceAddress address : networkInterface.getInterfaceAddresses()) {
+                if (address.getBroadcast() != null) {
+                    addresses.add(address.getBroadcast());
+                }
+            }
+        }
+        if (addresses.isEmpty()) {
+            try {
+                addresses.add(InetAddress.getByName("255.255.255.255"));
+            } catch (UnknownHostException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        return addresses;
+    }
+
+    /**
+     * @return the name of this machine, or "pong" if unknown
+     */
+    public static String defaultName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            return "pong";
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Listens to the servers announcing themselves on the LAN (see
+ * ServerAnnouncer) and keeps the list of the servers heard recently. The
+ * list is kept by a daemon thread of the browser; the listener is called
+ * on that thread whenever a server appears, changes or is not heard for
+ * the expiry time, so a window must hand the list over to its own thread.
+ * Several browsers may listen on one machine, the port is shared.
+ */
+public class ServerBrowser {
+
+    // Logger for the socket errors
+    private static final Logger LOGGER = Logger.getLogger(ServerBrowser.class.getName());
+
+    // Largest datagram read, more than any announcement
+    private static final int BUFFER_SIZE = 512;
+
+    // UDP port the servers announce to
+    private final int discoveryPort;
+
+    // Time a server stays in the list without being heard
+    private final long expiryNanos;
+
+    // Servers heard, by address and port, and when they were last heard
+    private final Map<String, ServerInfo> servers = new ConcurrentHashMap<>();
+    private final Map<String, Long> heardNanos = new ConcurrentHashMap<>();
+
+    // Called with the new list when it changes
+    private volatile Consumer<List<ServerInfo>> onChange = servers -> {};
+
+    // Socket receiving the announcements, set by start
+    private DatagramSocket socket;
+
+    // Set by close()
+    private volatile boolean closed;
+
+    /**
+     * Create a browser.
+     * @param discoveryPort UDP port the servers announce to
+     * @param expiryMillis time a server stays in the list without being heard
+     */
+    public ServerBrowser(int discoveryPort, long expiryMillis) {
+        this.discoveryPort = discoveryPort;
+        this.expiryNanos = TimeUnit.MILLISECONDS.toNanos(expiryMillis);
+    }
+
+    /**
+     * @param listener called on the browser thread with the servers, sorted
+     * by name, whenever the list changes
+     */
+    public void setOnChange(Consumer<List<ServerInfo>> listener) {
+        onChange = listener;
+    }
+
+    /**
+     * Start listening.
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized void start() throws IOException {
+        socket = new DatagramSocket(null);
+        socket.setReuseAddress(true);
+        socket.setBroadcast(true);
+        socket.bind(new InetSocketAddress(discoveryPort));
+        socket.setSoTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(expiryNanos) / 2));
+
+        Thread listener = new Thread(this::listen, "pong-discovery");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    /**
+     * Read the announcements until closed, and forget the servers not
+     * heard for the expiry time.
+     */
+    private void listen() {
+        DatagramPacket packet = new DatagramPacket(new byte[BUFFER_SIZE], BUFFER_SIZE);
+        while (!closed) {
+            boolean changed = false;
+            try {
+                packet.setLength(BUFFER_SIZE);
+                socket.receive(packet);
+                changed = onAnnounce(Arrays.copyOf(packet.getData(), packet.getLength()),
+                        packet.getAddress().getHostAddress());
+            } catch (SocketTimeoutException ex) {
+                // Nothing heard, only expire
+            } catch (IOException ex) {
+                if (!closed) {
+                    LOGGER.log(Level.WARNING, "Server discovery failed", ex);
+                }
+                return;
+            }
+
+            long now = System.nanoTime();
+            for (Map.Entry<String, Long> heard : heardNanos.entrySet()) {
+                if (now - heard.getValue() > expiryNanos) {
+                    heardNanos.remove(heard.getKey());
+                    servers.remove(heard.getKey());
+                    changed = true;
+                }
+            }
+            if (changed && !closed) {
+                onChange.accept(getServers());
+            }
+        }
+    }
+
+    /**
+     * Keep the server of an announcement.
+     * @param message received datagram
+     * @param host address it came from
+     * @return true if the server is new or changed
+     */
+    private boolean onAnnounce(byte[] message, String host) {
+        if (message.length < PongProtocol.ANNOUNCE_HEADER_SIZE || PongProtocol.typeOf(message) != PongProtocol.ANNOUNCE) {
+            return false;
+        }
+
+        String name;
+        try {
+            name = PongProtocol.announceName(message);
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+        int version = PongProtocol.version(message);
+        int freeRooms = PongProtocol.announceFreeRooms(message);
+        int status = PongProtocol.STATUS_OK;
+        if (version != PongProtocol.PROTOCOL_VERSION) {
+            status = PongProtocol.STATUS_VERSION_MISMATCH;
+        } else if (freeRooms <= 0) {
+            status = PongProtocol.STATUS_FULL;
+        }
+        ServerInfo server = new ServerInfo(name, host, PongProtocol.announcePort(message), version, status,
+                freeRooms, PongProtocol.announceLoad(message), 0);
+
+        String key = host + ":" + server.getPort();
+        heardNanos.put(key, System.nanoTime());
+        ServerInfo previous = servers.put(key, server);
+        return previous == null || !previous.getName().equals(name) || previous.getStatus() != status
+                || previous.getFreeRooms() != freeRooms || previous.getLoad() != server.getLoad();
+    }
+
+    /**
+     * @return the servers heard recently, sorted by name
+     */
+    public List<ServerInfo> getServers() {
+        List<ServerInfo> list = new ArrayList<>(servers.values());
+        list.sort(Comparator.comparing(ServerInfo::getName).thenComparing(ServerInfo::getHost));
+        return list;
+    }
+
+    /**
+     * Stop listening.
+     */
+    public synchronized void close() {
+        closed = true;
+        if (socket != null) {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.mycompany.datacomprojectTwo.network;
+
+/**
+ * What a server answered to a hello, or announced on the LAN: its name and
+ * address, protocol version, whether it would seat a player, how many
+ * rooms it can still open, how busy it is and the round trip time of the
+ * answer (0 for an announcement). Immutable.
+ */
+public final class ServerInfo {
+
+    // Name shown to the players
+    private final String name;
+
+    // Address the server answered on
+    private final String host;
+    private final int port;
+
+    // Protocol version of the server
+    private final int version;
+
+    // PongProtocol.STATUS_OK, STATUS_VERSION_MISMATCH, STATUS_FULL or
+    // STATUS_TICK_RATE_MISMATCH
+    private final int status;
+
+    // Rooms the server can still open
+    private final int freeRooms;
+
+    // Percent of the server busy
+    private final int load;
+
+    // Time from the hello to the welcome
+    private final long rttNanos;
+
+    /**
+     * Create the answer of a server, named after its address.
+     * @param host address of the server
+     * @param port TCP port of the server
+     * @param version protocol version of the server
+     * @param status status of the welcome
+     * @param freeRooms rooms the server can still open
+     * @param rttNanos time from the hello to the welcome
+     */
+    public ServerInfo(String host, int port, int version, int status, int freeRooms, long rttNanos) {
+        this(host, host, port, version, status, freeRooms, 0, rttNanos);
+    }
+
+    /**
+     * Create the description of a server.
+     * @param name name shown to the players
+     * @param host address of the server
+     * @param port TCP port of the server
+     * @param version protocol version of the server
+     * @param status status of the welcome
+     * @param freeRooms rooms the server can still open
+     * @param load percent of the server busy
+     * @param rttNanos time from the hello to the welcome, 0 if unknown
+     */
+    public ServerInfo(String name, String host, int port, int version, int status, int freeRooms, int load, long rttNanos) {
+        this.name = name;
+        this.host = host;
+        this.port = port;
+        this.version = version;
+        this.status = status;
+        this.freeRooms = freeRooms;
+        this.load = load;
+        this.rttNanos = rttNanos;
+    }
+
+    /**
+     * @return true if the server would seat a player
+     */
+    public boolean isAccepting() {
+        return status == PongProtocol.STATUS_OK;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public int getFreeRooms() {
+        return freeRooms;
+    }
+
+    public int getLoad() {
+        return load;
+    }
+
+    public long getRttNanos() {
+        return rttNanos;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + host + ":" + port + ") v" + version + " status=" + status + " free=" + freeRooms
+                + " load=" + load + "%" + String.format(" rtt=%.1fms", rttNanos / 1e6);
+    }
+}
@@ -0,0 +1,132 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Finds out whether a pong server listens at an address, without joining
+ * it: connects over TCP with a timeout, sends a probing HELLO framed like
+ * the FXGL messages (an int length then the bytes) and reads the WELCOME.
+ * Unlike an ICMP ping this works through firewalls that drop pings, tells
+ * a pong server from any other program on the port, checks the protocol
+ * version and gives the round trip time of the game port itself. Probes
+ * run on daemon threads, so the FX thread never waits on the network.
+ */
+public final class ServerProbe {
+
+    // Size of the welcome of protocol version 1, without session token
+    private static final int FIRST_WELCOME_SIZE = 16;
+
+    // Runs the probes, one blocking connection each
+    private static final ExecutorService PROBES = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "pong-probe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ServerProbe() {
+    }
+
+    /**
+     * Probe one server.
+     * @param host address of the server
+     * @param port TCP port of the server
+     * @param timeoutMillis longest wait for the connection, then for the answer
+     * @return the answer of the server, or completed with an IOException if
+     * nothing answers in time or the answer is not a welcome
+     */
+    public static CompletableFuture<ServerInfo> probe(String host, int port, int timeoutMillis) {
+        CompletableFuture<ServerInfo> result = new CompletableFuture<>();
+        PROBES.execute(() -> {
+            try {
+                result.complete(probeNow(host, port, timeoutMillis));
+            } catch (IOException | RuntimeException ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Probe several addresses of a server at once, e.g. its LAN and public
+     * addresses.
+     * @param hosts candidate addresses
+     * @param port TCP port of the server
+     * @param timeoutMillis longest wait for each connection, then each answer
+     * @return the first server seating players to answer; if none does, the
+     * first answer; if nothing answers, completed with the last error
+     */
+    public static CompletableFuture<ServerInfo> probeFirst(List<String> hosts, int port, int timeoutMillis) {
+        CompletableFuture<ServerInfo> result = new CompletableFuture<>();
+        if (hosts.isEmpty()) {
+            result.completeExceptionally(new IOException("No address to probe"));
+            return result;
+        }
+
+        AtomicInteger remaining = new AtomicInteger(hosts.size());
+        AtomicReference<ServerInfo> refused = new AtomicReference<>();
+        for (String host : hosts) {
+            probe(host, port, timeoutMillis).whenComplete((info, ex) -> {
+                if (info != null) {
+                    if (info.isAccepting()) {
+                        result.complete(info);
+                    } else {
+                        refused.compareAndSet(null, info);
+                    }
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    if (refused.get() != null) {
+                        result.complete(refused.get());
+                    } else {
+                        result.completeExceptionally(ex != null ? ex : new IOException("No server answered"));
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Probe one server on this thread.
+     */
+    private static ServerInfo probeNow(String host, int port, int timeoutMillis) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+
+            long start = System.nanoTime();
+            byte[] hello = PongProtocol.encodeHello(true, start);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(hello.length);
+            out.write(hello);
+            out.flush();
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            int length = in.readInt();
+            // An older server still tells its version
+            if (length < FIRST_WELCOME_SIZE || length > PongProtocol.WELCOME_SIZE) {
+                throw new IOException("Not a pong server: " + host + ":" + port);
+            }
+            byte[] welcome = new byte[length];
+            in.readFully(welcome);
+            long rtt = System.nanoTime() - start;
+            if (PongProtocol.typeOf(welcome) != PongProtocol.WELCOME
+                    || PongProtocol.welcomeTime(welcome) != start) {
+                throw new IOException("Not a pong server: " + host + ":" + port);
+            }
+
+            return new ServerInfo(host, port, PongProtocol.version(welcome),
+                    PongProtocol.welcomeStatus(welcome), PongProtocol.welcomeFreeRooms(welcome), rtt);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import java.util.Random;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for a bad network in front of another link, following a
+ * NetworkScript. Packets leave one after the other at the bandwidth cap,
+ * then each is delayed by the latency plus or minus a random jitter; a
+ * lost packet is dropped, and a reordered one is held back so the next
+ * packets overtake it. The other packets arrive in the order they were
+ * sent. On a stream (the bytes of a TCP connection) nothing may be lost
+ * or reordered: a lost packet is delivered RETRANSMIT_MILLIS late instead,
+ * holding back everything sent after it like a TCP retransmission.
+ * The packets are delivered by one thread of the link, in time order.
+ */
+public class ShapedLink implements PacketLink {
+
+    // Extra delay of a packet lost on a stream
+    public static final long RETRANSMIT_MILLIS = 200;
+
+    // Hold of a reordered packet, on top of twice the jitter
+    public static final long REORDER_MILLIS = 10;
+
+    // Link the packets are delivered to
+    private final PacketLink target;
+
+    // Conditions over time
+    private final NetworkScript script;
+
+    // True for the bytes of a stream, which are never lost nor reordered
+    private final boolean stream;
+
+    // Decides the losses, jitters and reorders, guarded by this
+    private final Random random;
+
+    // Start of the script
+    private final long startNanos = System.nanoTime();
+
+    // Time the bandwidth cap lets the next packet leave, guarded by this
+    private long linkFreeNanos;
+
+    // Delivery time of the last packet kept in order, guarded by this
+    private long lastDeliveryNanos;
+
+    // Order of the packets sent, breaks the ties of the delivery times
+    private long nextSequence;
+
+    // Packets waiting for their delivery time
+    private final DelayQueue<Delivery> deliveries = new DelayQueue<>();
+
+    // Delivers the packets
+    private final Thread deliverer;
+
+    // Counters
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong lostCount = new AtomicLong();
+    private final AtomicLong reorderedCount = new AtomicLong();
+    private final AtomicLong deliveredBytes = new AtomicLong();
+
+    // Set by close()
+    private volatile boolean closed;
+
+    /**
+     * Create a link and start delivering.
+     * @param target link the packets are delivered to
+     * @param script conditions over time, from now
+     * @param stream true for the bytes of a stream, never lost nor reordered
+     * @param seed seed of the losses, jitters and reorders, to repeat a run
+     */
+    public ShapedLink(PacketLink target, NetworkScript script, boolean stream, long seed) {
+        this.target = target;
+        this.script = script;
+        this.stream = stream;
+        this.random = new Random(seed);
+
+        deliverer = new Thread(this::deliver, "pong-shaped-link");
+        deliverer.setDaemon(true);
+        deliverer.start();
+    }
+
+    @Override
+    public void send(byte[] packet) {
+        if (closed) {
+            return;
+        }
+        sentCount.incrementAndGet();
+        long now = System.nanoTime();
+
+        synchronized (this) {
+            NetworkProfile profile = script.profileAt(TimeUnit.NANOSECONDS.toMillis(now - startNanos));
+
+            boolean lost = random.nextDouble() < profile.getLossRate();
+            if (lost) {
+                lostCount.incrementAndGet();
+                if (!stream) {
+                    return;
+                }
+            }
+
+            // Packets leave one after the other at the bandwidth cap
+            long departure = now;
+            if (profile.getBandwidth() > 0) {
+                departure = Math.max(now, linkFreeNanos)
+                        + packet.length * TimeUnit.SECONDS.toNanos(1) / profile.getBandwidth();
+                linkFreeNanos = departure;
+            }
+
+            long delayMillis = profile.getLatencyMillis();
+            if (profile.getJitterMillis() > 0) {
+                delayMillis += Math.round((random.nextDouble() * 2 - 1) * profile.getJitterMillis());
+            }
+            if (lost) {
+                delayMillis += RETRANSMIT_MILLIS;
+            }
+            long deliveryNanos = departure + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+
+            if (!stream && random.nextDouble() < profile.getReorderRate()) {
+                // Held back without holding back the next packets
+                reorderedCount.incrementAndGet();
+                deliveryNanos += TimeUnit.MILLISECONDS.toNanos(REORDER_MILLIS + 2 * profile.getJitterMillis());
+            } else {
+                deliveryNanos = Math.max(deliveryNanos, lastDeliveryNanos);
+                lastDeliveryNanos = deliveryNanos;
+            }
+
+            deliveries.add(new Delivery(packet, deliveryNanos, nextSequence++));
+        }
+    }
+
+    /**
+     * Deliver the packets when they are due, until closed.
+     */
+    private void deliver() {
+        while (!closed) {
+            Delivery delivery;
+            try {
+                delivery = deliveries.take();
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if (!closed) {
+                deliveredBytes.addAndGet(delivery.packet.length);
+                target.send(delivery.packet);
+            }
+        }
+    }
+
+    /**
+     * Stop delivering, the packets still delayed are dropped.
+     */
+    public void close() {
+        closed = true;
+        deliverer.interrupt();
+        deliveries.clear();
+    }
+
+    /**
+     * @return packets given to the link
+     */
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    /**
+     * @return packets lost (dropped, or retransmitted on a stream)
+     */
+    public long getLostCount() {
+        return lostCount.get();
+    }
+
+    public long getReorderedCount() {
+        return reorderedCount.get();
+    }
+
+    /**
+     * @return bytes delivered to the target
+     */
+    public long getDeliveredBytes() {
+        return deliveredBytes.get();
+    }
+
+    /**
+     * @return packets waiting for their delivery time
+     */
+    public int getPendingCount() {
+        return deliveries.size();
+    }
+
+    /**
+     * A packet waiting in the delay queue.
+     */
+    private static final class Delivery implements Delayed {
+
+        private final byte[] packet;
+        private final long deliveryNanos;
+        private final long sequence;
+
+        Delivery(byte[] packet, long deliveryNanos, long sequence) {
+            this.packet = packet;
+            this.deliveryNanos = deliveryNanos;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deliveryNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Delivery delivery = (Delivery) other;
+            int byTime = Long.compare(deliveryNanos, delivery.deliveryNanos);
+            return byTime != 0 ? byTime : Long.compare(sequence, delivery.sequence);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * TCP proxy on loopback that puts a bad network between the clients and
+ * a server: each client connecting to the proxy gets its own connection
+ * to the server, and the bytes of both directions go through a stream
+ * ShapedLink following the script (latency, jitter, bandwidth cap, and
+ * losses turned into retransmission delays). The FXGL TCP client and
+ * server need no change, the client only connects to the proxy port.
+ */
+public class ShapingProxy {
+
+    // Largest chunk read at once, about one TCP segment
+    public static final int CHUNK_SIZE = 1400;
+
+    // Logger for the connection errors
+    private static final Logger LOGGER = Logger.getLogger(ShapingProxy.class.getName());
+
+    // Socket accepting the clients
+    private final ServerSocket serverSocket;
+
+    // Server the clients are forwarded to
+    private final String host;
+    private final int port;
+
+    // Conditions of both directions
+    private final NetworkScript script;
+
+    // Seed of the next link
+    private long seed;
+
+    // Links toward the server and toward the clients
+    private final List<ShapedLink> upstreamLinks = new CopyOnWriteArrayList<>();
+    private final List<ShapedLink> downstreamLinks = new CopyOnWriteArrayList<>();
+
+    // Open sockets, closed with the proxy
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+
+    // Set by close()
+    private volatile boolean closed;
+
+    /**
+     * Open the proxy port on loopback.
+     * @param localPort port of the proxy, 0 for any free port
+     * @param host address of the server
+     * @param port TCP port of the server
+     * @param script conditions of the network, started for each connection
+     * @param seed seed of the links, to repeat a run
+     * @throws IOException if the port cannot be bound
+     */
+    public ShapingProxy(int localPort, String host, int port, NetworkScript script, long seed) throws IOException {
+        this.serverSocket = new ServerSocket(localPort, 50, InetAddress.getLoopbackAddress());
+        this.host = host;
+        this.port = port;
+        this.script = script;
+        this.seed = seed;
+    }
+
+    /**
+     * Start accepting the clients.
+     */
+    public void start() {
+        startThread(this::accept, "pong-proxy-accept");
+    }
+
+    /**
+     * Accept the clients until closed.
+     */
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket client = serverSocket.accept();
+                forward(client);
+            } catch (IOException ex) {
+                if (!closed) {
+                    LOGGER.log(Level.WARNING, "Proxy connection failed", ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Connect a client to the server through two shaped links.
+     * @param client accepted client
+     * @throws IOException if the server cannot be reached
+     */
+    private void forward(Socket client) throws IOException {
+        Socket server;
+        try {
+            server = new Socket(host, port);
+        } catch (IOException ex) {
+            client.close();
+            throw ex;
+        }
+        client.setTcpNoDelay(true);
+        server.setTcpNoDelay(true);
+        sockets.add(client);
+        sockets.add(server);
+
+        ShapedLink upstream;
+        ShapedLink downstream;
+        synchronized (this) {
+            upstream = new ShapedLink(writer(server, client), script, true, seed++);
+            downstream = new ShapedLink(writer(client, server), script, true, seed++);
+        }
+        upstreamLinks.add(upstream);
+        downstreamLinks.add(downstream);
+
+        startThread(() -> pump(client, upstream, server, downstream), "pong-proxy-up");
+        startThread(() -> pump(server, downstream, client, upstream), "pong-proxy-down");
+    }
+
+    /**
+     * @return a link writing to a socket, closing both sockets on error
+     */
+    private PacketLink writer(Socket to, Socket other) {
+        return packet -> {
+            try {
+                OutputStream out = to.getOutputStream();
+                out.write(packet);
+                out.flush();
+            } catch (IOException ex) {
+                closeQuietly(to);
+                closeQuietly(other);
+            }
+        };
+    }
+
+    /**
+     * Read a socket into a link until either side closes.
+     */
+    private void pump(Socket from, ShapedLink link, Socket to, ShapedLink otherLink) {
+        byte[] buffer = new byte[CHUNK_SIZE];
+        try {
+            InputStream in = from.getInputStream();
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                link.send(Arrays.copyOf(buffer, read));
+            }
+        } catch (IOException ex) {
+            // Closed by either side
+        }
+
+        // Let the delayed bytes arrive before closing the other side
+        while (link.getPendingCount() > 0 && !to.isClosed()) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        closeQuietly(from);
+        closeQuietly(to);
+        link.close();
+        otherLink.close();
+    }
+
+    private static void startThread(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            // Already closed
+        }
+    }
+
+    /**
+     * Close the proxy and every connection through it.
+     */
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Proxy socket close failed", ex);
+        }
+        sockets.forEach(ShapingProxy::closeQuietly);
+        upstreamLinks.forEach(ShapedLink::close);
+        downstreamLinks.forEach(ShapedLink::close);
+    }
+
+    /**
+     * @return the local port the clients connect to
+     */
+    public int getLocalPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return bytes delivered to the server, all connections
+     */
+    public long getUpstreamBytes() {
+        return upstreamLinks.stream().mapToLong(ShapedLink::getDeliveredBytes).sum();
+    }
+
+    /**
+     * @return bytes delivered to the clients, all connections
+     */
+    public long getDownstreamBytes() {
+        return downstreamLinks.stream().mapToLong(ShapedLink::getDeliveredBytes).sum();
+    }
+
+    /**
+     * @return number of client connections accepted
+     */
+    public int getConnectionCount() {
+        return upstreamLinks.size();
+    }
+}
@@ -0,0 +1,134 @@
+package com.mycompany.datacomprojectTwo.network;
+
+/**
+ * The whole state of a match at one tick: position and velocity of the
+ * ball and of both bats, the two scores and, for each player, the last
+ * input command applied to its bat. Entities are identified by
+ * their index (BALL, BAT_ONE, BAT_TWO). A snapshot is mutable so that the
+ * sender and the receiver can reuse the same instance every tick.
+ */
+public class Snapshot {
+
+    // Entity ids
+    public static final int BALL = 0;
+    public static final int BAT_ONE = 1;
+    public static final int BAT_TWO = 2;
+
+    // Number of entities in a match
+    public static final int ENTITY_COUNT = 3;
+
+    // Simulation tick of this state
+    private int tick;
+
+    // Scores
+    private int playerOneScore;
+    private int playerTwoScore;
+
+    // Sequence of the last input command applied for player one and two
+    private int playerOneInput = PongProtocol.NO_INPUT;
+    private int playerTwoInput = PongProtocol.NO_INPUT;
+
+    // Entity positions (top left corner) and velocities, indexed by id
+    private final double[] x = new double[ENTITY_COUNT];
+    private final double[] y = new double[ENTITY_COUNT];
+    private final double[] velocityX = new double[ENTITY_COUNT];
+    private final double[] velocityY = new double[ENTITY_COUNT];
+
+    /**
+     * Set the state of one entity.
+     * @param id BALL, BAT_ONE or BAT_TWO
+     * @param x left
+     * @param y top
+     * @param velocityX X velocity in pixels per second
+     * @param velocityY Y velocity in pixels per second
+     */
+    public void setEntity(int id, double x, double y, double velocityX, double velocityY) {
+        this.x[id] = x;
+        this.y[id] = y;
+        this.velocityX[id] = velocityX;
+        this.velocityY[id] = velocityY;
+    }
+
+    /**
+     * Copy every field of another snapshot.
+     * @param other snapshot to copy
+     */
+    public void copyFrom(Snapshot other) {
+        tick = other.tick;
+        playerOneScore = other.playerOneScore;
+        playerTwoScore = other.playerTwoScore;
+        playerOneInput = other.playerOneInput;
+        playerTwoInput = other.playerTwoInput;
+        System.arraycopy(other.x, 0, x, 0, ENTITY_COUNT);
+        System.arraycopy(other.y, 0, y, 0, ENTITY_COUNT);
+        System.arraycopy(other.velocityX, 0, velocityX, 0, ENTITY_COUNT);
+        System.arraycopy(other.velocityY, 0, velocityY, 0, ENTITY_COUNT);
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public void setTick(int tick) {
+        this.tick = tick;
+    }
+
+    public int getPlayerOneScore() {
+        return playerOneScore;
+    }
+
+    public int getPlayerTwoScore() {
+        return playerTwoScore;
+    }
+
+    public void setScores(int playerOneScore, int playerTwoScore) {
+        this.playerOneScore = playerOneScore;
+        this.playerTwoScore = playerTwoScore;
+    }
+
+    /**
+     * @param player 1 or 2
+     * @return sequence of the last input command applied to the player's
+     * bat, or PongProtocol.NO_INPUT
+     */
+    public int getInputSequence(int player) {
+        return player == 1 ? playerOneInput : playerTwoInput;
+    }
+
+    /**
+     * @param player 1 or 2
+     * @param sequence sequence of the last input command applied to the
+     * player's bat
+     */
+    public void setInputSequence(int player, int sequence) {
+        if (player == 1) {
+            playerOneInput = sequence;
+        } else {
+            playerTwoInput = sequence;
+        }
+    }
+
+    /**
+     * @param player 1 or 2
+     * @return entity id of the player's bat
+     */
+    public static int batOf(int player) {
+        return player == 1 ? BAT_ONE : BAT_TWO;
+    }
+
+    public double getX(int id) {
+        return x[id];
+    }
+
+    public double getY(int id) {
+        return y[id];
+    }
+
+    public double getVelocityX(int id) {
+        return velocityX[id];
+    }
+
+    public double getVelocityY(int id) {
+        return velocityY[id];
+    }
+}
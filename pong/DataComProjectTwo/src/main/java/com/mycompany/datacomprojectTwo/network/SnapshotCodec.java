@@ -0,0 +1,286 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-layout binary encoding of a Snapshot.
+ * <pre>
+ * type     1 byte  (PongProtocol.SNAPSHOT)
+ * tick     4 bytes
+ * score 1  1 byte
+ * score 2  1 byte
+ * input 1  4 bytes, last input command applied to bat one
+ * input 2  4 bytes, last input command applied to bat two
+ * then for each entity:
+ * id       1 byte
+ * x, y     2 bytes each, 1/8 pixel
+ * vx, vy   2 bytes each, 1/8 pixel per second
+ * </pre>
+ * A snapshot of the three entities is always SNAPSHOT_SIZE bytes.
+ * Encoding and decoding do not allocate when given a buffer and a
+ * snapshot to reuse.
+ * <p>
+ * A delta only holds the fields whose quantized value changed since a
+ * baseline snapshot the client acknowledged:
+ * <pre>
+ * type     1 byte  (PongProtocol.DELTA)
+ * tick     4 bytes
+ * baseline 4 bytes, tick of the baseline
+ * mask     2 bytes, bit 0 and 1 for the scores, then 4 bits per entity
+ *          (x, y, vx, vy), then 2 bits for the inputs
+ * then the changed scores (1 byte each), fields (2 bytes each) and
+ * inputs (4 bytes each)
+ * </pre>
+ */
+public final class SnapshotCodec {
+
+    private SnapshotCodec() {}
+
+    // Quantization steps per pixel (positions) and per pixel/second (velocities)
+    public static final int POSITION_SCALE = 8;
+    public static final int VELOCITY_SCALE = 8;
+
+    // Size of the header and of one entity
+    public static final int HEADER_SIZE = 15;
+    public static final int ENTITY_SIZE = 9;
+
+    // Size of an encoded snapshot
+    public static final int SNAPSHOT_SIZE = HEADER_SIZE + Snapshot.ENTITY_COUNT * ENTITY_SIZE;
+
+    // Size of a delta without any change
+    public static final int DELTA_HEADER_SIZE = 11;
+
+    // Fields of an entity in a delta, in order
+    private static final int FIELDS_PER_ENTITY = 4;
+
+    // Bits of the delta mask used by the scores
+    private static final int SCORE_BITS = 2;
+
+    // Bit of the delta mask of the first input, the second is the next one
+    private static final int INPUT_BIT = SCORE_BITS + Snapshot.ENTITY_COUNT * FIELDS_PER_ENTITY;
+
+    /**
+     * Write a snapshot at the position of the buffer.
+     * @param snapshot state to write
+     * @param out buffer with at least SNAPSHOT_SIZE bytes remaining
+     */
+    public static void encode(Snapshot snapshot, ByteBuffer out) {
+        out.put(PongProtocol.SNAPSHOT);
+        out.putInt(snapshot.getTick());
+        out.put((byte) snapshot.getPlayerOneScore());
+        out.put((byte) snapshot.getPlayerTwoScore());
+        out.putInt(snapshot.getInputSequence(1));
+        out.putInt(snapshot.getInputSequence(2));
+        for (int id = 0; id < Snapshot.ENTITY_COUNT; id++) {
+            out.put((byte) id);
+            out.putShort(quantizePosition(snapshot.getX(id)));
+            out.putShort(quantizePosition(snapshot.getY(id)));
+            out.putShort(quantizeVelocity(snapshot.getVelocityX(id)));
+            out.putShort(quantizeVelocity(snapshot.getVelocityY(id)));
+        }
+    }
+
+    /**
+     * Encode a snapshot into a new message.
+     * @param snapshot state to write
+     * @return the message
+     */
+    public static byte[] encode(Snapshot snapshot) {
+        byte[] message = new byte[SNAPSHOT_SIZE];
+        encode(snapshot, ByteBuffer.wrap(message));
+        return message;
+    }
+
+    /**
+     * Read a snapshot from the position of the buffer.
+     * @param in buffer positioned on the type byte
+     * @param snapshot receives the state
+     */
+    public static void decode(ByteBuffer in, Snapshot snapshot) {
+        in.get();
+        snapshot.setTick(in.getInt());
+        snapshot.setScores(in.get() & 0xFF, in.get() & 0xFF);
+        snapshot.setInputSequence(1, in.getInt());
+        snapshot.setInputSequence(2, in.getInt());
+        for (int i = 0; i < Snapshot.ENTITY_COUNT; i++) {
+            int id = in.get();
+            double x = dequantizePosition(in.getShort());
+            double y = dequantizePosition(in.getShort());
+            double velocityX = dequantizeVelocity(in.getShort());
+            double velocityY = dequantizeVelocity(in.getShort());
+            snapshot.setEntity(id, x, y, velocityX, velocityY);
+        }
+    }
+
+    /**
+     * Decode a snapshot message.
+     * @param message encoded snapshot
+     * @param snapshot receives the state
+     */
+    public static void decode(byte[] message, Snapshot snapshot) {
+        decode(ByteBuffer.wrap(message), snapshot);
+    }
+
+    /**
+     * Encode a snapshot for a client: a delta against the baseline if
+     * there is one, otherwise a full snapshot (keyframe).
+     * @param snapshot state to write
+     * @param baseline state acknowledged by the client, or null
+     * @return the message
+     */
+    public static byte[] encode(Snapshot snapshot, Snapshot baseline) {
+        return baseline == null ? encode(snapshot) : encodeDelta(snapshot, baseline);
+    }
+
+    /**
+     * Encode only the fields that changed since a baseline.
+     * @param snapshot state to write
+     * @param baseline state acknowledged by the client
+     * @return the message
+     */
+    public static byte[] encodeDelta(Snapshot snapshot, Snapshot baseline) {
+        int mask = 0;
+        int size = DELTA_HEADER_SIZE;
+
+        if (snapshot.getPlayerOneScore() != baseline.getPlayerOneScore()) {
+            mask |= 1;
+            size++;
+        }
+        if (snapshot.getPlayerTwoScore() != baseline.getPlayerTwoScore()) {
+            mask |= 1 << 1;
+            size++;
+        }
+        for (int id = 0; id < Snapshot.ENTITY_COUNT; id++) {
+            for (int field = 0; field < FIELDS_PER_ENTITY; field++) {
+                if (quantizedField(snapshot, id, field) != quantizedField(baseline, id, field)) {
+                    mask |= 1 << fieldBit(id, field);
+                    size += 2;
+                }
+            }
+        }
+        for (int player = 1; player <= 2; player++) {
+            if (snapshot.getInputSequence(player) != baseline.getInputSequence(player)) {
+                mask |= 1 << (INPUT_BIT + player - 1);
+                size += 4;
+            }
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.put(PongProtocol.DELTA);
+        out.putInt(snapshot.getTick());
+        out.putInt(baseline.getTick());
+        out.putShort((short) mask);
+
+        if ((mask & 1) != 0) {
+            out.put((byte) snapshot.getPlayerOneScore());
+        }
+        if ((mask & 1 << 1) != 0) {
+            out.put((byte) snapshot.getPlayerTwoScore());
+        }
+        for (int id = 0; id < Snapshot.ENTITY_COUNT; id++) {
+            for (int field = 0; field < FIELDS_PER_ENTITY; field++) {
+                if ((mask & 1 << fieldBit(id, field)) != 0) {
+                    out.putShort(quantizedField(snapshot, id, field));
+                }
+            }
+        }
+        for (int player = 1; player <= 2; player++) {
+            if ((mask & 1 << (INPUT_BIT + player - 1)) != 0) {
+                out.putInt(snapshot.getInputSequence(player));
+            }
+        }
+        return out.array();
+    }
+
+    /**
+     * Decode a delta: the fields not in the delta are taken from the
+     * baseline.
+     * @param message encoded delta
+     * @param baseline snapshot of the tick given by baselineTickOf
+     * @param snapshot receives the state, may not be the baseline
+     */
+    public static void decodeDelta(byte[] message, Snapshot baseline, Snapshot snapshot) {
+        ByteBuffer in = ByteBuffer.wrap(message);
+        in.get();
+        int tick = in.getInt();
+        in.getInt();
+        int mask = in.getShort() & 0xFFFF;
+
+        snapshot.copyFrom(baseline);
+        snapshot.setTick(tick);
+
+        int playerOneScore = (mask & 1) != 0 ? in.get() & 0xFF : baseline.getPlayerOneScore();
+        int playerTwoScore = (mask & 1 << 1) != 0 ? in.get() & 0xFF : baseline.getPlayerTwoScore();
+        snapshot.setScores(playerOneScore, playerTwoScore);
+
+        for (int id = 0; id < Snapshot.ENTITY_COUNT; id++) {
+            double x = (mask & 1 << fieldBit(id, 0)) != 0 ? dequantizePosition(in.getShort()) : baseline.getX(id);
+            double y = (mask & 1 << fieldBit(id, 1)) != 0 ? dequantizePosition(in.getShort()) : baseline.getY(id);
+            double velocityX = (mask & 1 << fieldBit(id, 2)) != 0 ? dequantizeVelocity(in.getShort()) : baseline.getVelocityX(id);
+            double velocityY = (mask & 1 << fieldBit(id, 3)) != 0 ? dequantizeVelocity(in.getShort()) : baseline.getVelocityY(id);
+            snapshot.setEntity(id, x, y, velocityX, velocityY);
+        }
+        for (int player = 1; player <= 2; player++) {
+            if ((mask & 1 << (INPUT_BIT + player - 1)) != 0) {
+                snapshot.setInputSequence(player, in.getInt());
+            }
+        }
+    }
+
+    /**
+     * @param message encoded snapshot or delta
+     * @return the tick of the state
+     */
+    public static int tickOf(byte[] message) {
+        return ByteBuffer.wrap(message, 1, 4).getInt();
+    }
+
+    /**
+     * @param message encoded delta
+     * @return the tick of the baseline of the delta
+     */
+    public static int baselineTickOf(byte[] message) {
+        return ByteBuffer.wrap(message, 5, 4).getInt();
+    }
+
+    private static int fieldBit(int id, int field) {
+        return SCORE_BITS + id * FIELDS_PER_ENTITY + field;
+    }
+
+    private static short quantizedField(Snapshot snapshot, int id, int field) {
+        switch (field) {
+            case 0:
+                return quantizePosition(snapshot.getX(id));
+            case 1:
+                return quantizePosition(snapshot.getY(id));
+            case 2:
+                return quantizeVelocity(snapshot.getVelocityX(id));
+            default:
+                return quantizeVelocity(snapshot.getVelocityY(id));
+        }
+    }
+
+    static short quantizePosition(double value) {
+        return quantize(value, POSITION_SCALE);
+    }
+
+    static double dequantizePosition(short value) {
+        return value / (double) POSITION_SCALE;
+    }
+
+    static short quantizeVelocity(double value) {
+        return quantize(value, VELOCITY_SCALE);
+    }
+
+    static double dequantizeVelocity(short value) {
+        return value / (double) VELOCITY_SCALE;
+    }
+
+    /**
+     * Round to the nearest step, clamped to the range of a short.
+     */
+    private static short quantize(double value, int scale) {
+        long q = Math.round(value * scale);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, q));
+    }
+}
@@ -0,0 +1,76 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import java.util.Arrays;
+
+/**
+ * Ring of the last snapshots, looked up by tick. The server keeps the
+ * snapshots it sent so that it can encode deltas against the tick
+ * acknowledged by a client, and the client keeps the snapshots it applied
+ * so that it can decode them. The snapshots are preallocated and copied
+ * in, so storing does not allocate.
+ */
+public class SnapshotHistory {
+
+    // Ticks kept by default, one second at TICK_RATE
+    public static final int DEFAULT_CAPACITY = 64;
+
+    // Slots, indexed by tick modulo the capacity
+    private final Snapshot[] snapshots;
+
+    // Tick stored in each slot
+    private final int[] ticks;
+
+    /**
+     * Create a history of DEFAULT_CAPACITY ticks.
+     */
+    public SnapshotHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a history.
+     * @param capacity number of ticks kept
+     */
+    public SnapshotHistory(int capacity) {
+        snapshots = new Snapshot[capacity];
+        ticks = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            snapshots[i] = new Snapshot();
+            ticks[i] = -1;
+        }
+    }
+
+    /**
+     * Keep a copy of a snapshot, replacing the one stored capacity ticks
+     * before it.
+     * @param snapshot snapshot to keep
+     */
+    public void store(Snapshot snapshot) {
+        int slot = slotOf(snapshot.getTick());
+        snapshots[slot].copyFrom(snapshot);
+        ticks[slot] = snapshot.getTick();
+    }
+
+    /**
+     * @param tick a tick
+     * @return the snapshot of the tick, or null if it is not kept anymore
+     */
+    public Snapshot get(int tick) {
+        if (tick < 0) {
+            return null;
+        }
+        int slot = slotOf(tick);
+        return ticks[slot] == tick ? snapshots[slot] : null;
+    }
+
+    /**
+     * Forget every snapshot.
+     */
+    public void clear() {
+        Arrays.fill(ticks, -1);
+    }
+
+    private int slotOf(int tick) {
+        return Math.floorMod(tick, snapshots.length);
+    }
+}
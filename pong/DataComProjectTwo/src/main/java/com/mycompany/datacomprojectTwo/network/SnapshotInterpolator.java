@@ -0,0 +1,188 @@
+package com.mycompany.datacomprojectTwo.network;
+
+/**
+ * Buffer of the last snapshots received by a client, each with the server
+ * time it was taken at. Remote entities are shown a fixed delay behind the
+ * newest snapshot, interpolated between the two snapshots around that
+ * time, so they move smoothly at any frame rate even when the snapshots
+ * are sparse or arrive unevenly. When no newer snapshot has arrived yet,
+ * the entities are extrapolated with their velocity, for at most
+ * maxExtrapolation seconds. The snapshots are copied into a preallocated
+ * ring, so the buffer does not allocate.
+ */
+public class SnapshotInterpolator {
+
+    // Snapshots kept
+    public static final int CAPACITY = 32;
+
+    // Render clock error (seconds) beyond which the clock jumps
+    private static final double MAX_CLOCK_ERROR = 0.25;
+
+    // Share of the render clock error corrected per second
+    private static final double CLOCK_GAIN = 2;
+
+    // Delay between the newest snapshot and the rendered time
+    private final double delay;
+
+    // Longest extrapolation past the newest snapshot
+    private final double maxExtrapolation;
+
+    // Received snapshots and their server time, oldest at head
+    private final Snapshot[] snapshots = new Snapshot[CAPACITY];
+    private final double[] times = new double[CAPACITY];
+    private int head;
+    private int count;
+
+    // Server time being rendered
+    private double renderTime;
+
+    // Rendered positions, indexed by entity id
+    private final double[] x = new double[Snapshot.ENTITY_COUNT];
+    private final double[] y = new double[Snapshot.ENTITY_COUNT];
+
+    /**
+     * Create an empty buffer.
+     * @param delay seconds between the newest snapshot and the rendered
+     * time, a few snapshot intervals
+     * @param maxExtrapolation longest extrapolation in seconds when the
+     * snapshots are late
+     */
+    public SnapshotInterpolator(double delay, double maxExtrapolation) {
+        this.delay = delay;
+        this.maxExtrapolation = maxExtrapolation;
+        for (int i = 0; i < CAPACITY; i++) {
+            snapshots[i] = new Snapshot();
+        }
+    }
+
+    /**
+     * Keep a snapshot. Snapshots older than the newest one are ignored.
+     * @param snapshot received snapshot
+     * @param time server time of the snapshot in seconds
+     */
+    public void add(Snapshot snapshot, double time) {
+        if (count > 0 && time <= newestTime()) {
+            return;
+        }
+
+        if (count == CAPACITY) {
+            head = (head + 1) % CAPACITY;
+            count--;
+        }
+        int index = (head + count) % CAPACITY;
+        snapshots[index].copyFrom(snapshot);
+        times[index] = time;
+        count++;
+
+        if (count == 1) {
+            renderTime = time - delay;
+            sample();
+        }
+    }
+
+    /**
+     * Advance the rendered time by one frame and compute the positions.
+     * The rendered time is slowly pulled back to the newest snapshot
+     * minus the delay, so it follows the server clock without jumps.
+     * @param dt duration of the frame in seconds
+     */
+    public void update(double dt) {
+        if (count == 0) {
+            return;
+        }
+
+        renderTime += dt;
+        double error = newestTime() - delay - renderTime;
+        if (Math.abs(error) > MAX_CLOCK_ERROR) {
+            renderTime += error;
+        } else {
+            renderTime += error * Math.min(1, dt * CLOCK_GAIN);
+        }
+
+        sample();
+    }
+
+    /**
+     * Compute the positions at the rendered time.
+     */
+    private void sample() {
+        int newest = (head + count - 1) % CAPACITY;
+
+        // Late snapshots: extrapolate the newest one, for a short time only
+        if (renderTime >= times[newest]) {
+            double ahead = Math.min(renderTime - times[newest], maxExtrapolation);
+            Snapshot last = snapshots[newest];
+            for (int id = 0; id < Snapshot.ENTITY_COUNT; id++) {
+                x[id] = last.getX(id) + last.getVelocityX(id) * ahead;
+                y[id] = last.getY(id) + last.getVelocityY(id) * ahead;
+            }
+            return;
+        }
+
+        // Find the two snapshots around the rendered time
+        for (int i = count - 2; i >= 0; i--) {
+            int from = (head + i) % CAPACITY;
+            if (times[from] <= renderTime) {
+                int to = (from + 1) % CAPACITY;
+                double alpha = (renderTime - times[from]) / (times[to] - times[from]);
+                for (int id = 0; id < Snapshot.ENTITY_COUNT; id++) {
+                    x[id] = lerp(snapshots[from].getX(id), snapshots[to].getX(id), alpha);
+                    y[id] = lerp(snapshots[from].getY(id), snapshots[to].getY(id), alpha);
+                }
+                return;
+            }
+        }
+
+        // Older than every snapshot: hold the oldest one
+        for (int id = 0; id < Snapshot.ENTITY_COUNT; id++) {
+            x[id] = snapshots[head].getX(id);
+            y[id] = snapshots[head].getY(id);
+        }
+    }
+
+    private static double lerp(double from, double to, double alpha) {
+        return from + (to - from) * alpha;
+    }
+
+    private double newestTime() {
+        return times[(head + count - 1) % CAPACITY];
+    }
+
+    /**
+     * Forget every snapshot, the next one is rendered at once.
+     */
+    public void clear() {
+        head = 0;
+        count = 0;
+    }
+
+    /**
+     * @return true once a snapshot was added
+     */
+    public boolean hasSnapshot() {
+        return count > 0;
+    }
+
+    /**
+     * @return server time being rendered
+     */
+    public double getRenderTime() {
+        return renderTime;
+    }
+
+    /**
+     * @param id entity id
+     * @return rendered left of the entity
+     */
+    public double getX(int id) {
+        return x[id];
+    }
+
+    /**
+     * @param id entity id
+     * @return rendered top of the entity
+     */
+    public double getY(int id) {
+        return y[id];
+    }
+}
@@ -0,0 +1,216 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import com.almasb.fxgl.net.ByteArrayTCPMessageWriter;
+import com.almasb.fxgl.net.Connection;
+import com.almasb.fxgl.net.TCPMessageWriter;
+import com.almasb.fxgl.net.Writers;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.SLOW_PEER_TIMEOUT;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Transport over an FXGL TCP connection. Both channels are reliable and
+ * ordered, so a lost segment delays every later snapshot. The messages
+ * sent wait in the queue of the connection until its writer thread has
+ * written them to the socket; FXGL does not expose that queue, so the
+ * transport counts the messages it handed over minus those written by the
+ * writer that install() registers for byte[] messages. That queue has no
+ * bound, so the messages first go through an OutboundQueue: when the peer
+ * stalls, only the newest snapshot waits, and a peer behind for
+ * SLOW_PEER_TIMEOUT is disconnected. closeAfterFlush() lets the last
+ * messages of a match reach the peer before the connection closes.
+ */
+public class TcpTransport implements PongTransport {
+
+    // Logger for the queue depth errors
+    private static final Logger LOGGER = Logger.getLogger(TcpTransport.class.getName());
+
+    // Time between two checks of a transport waiting to close
+    private static final long CLOSE_POLL_MILLIS = 5;
+
+    // Closes the transports once their messages are written, shared by all of them
+    private static final ScheduledExecutorService CLOSER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "pong-tcp-close");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Messages handed to a connection and not written yet, with the count of their transport
+    private static final Map<byte[], AtomicInteger> IN_FLIGHT = new IdentityHashMap<>();
+
+    // Set once the counting writer is registered
+    private static volatile boolean installed;
+
+    // Connection with the peer
+    private final Connection<byte[]> connection;
+
+    // Messages waiting for room in the queue of the connection
+    private final OutboundQueue outbound;
+
+    // Messages in the queue of the connection or being written
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * @param connection connection with the peer
+     * @throws IllegalStateException if install() was not called before the
+     * connection was opened, as its depth could not be counted
+     */
+    public TcpTransport(Connection<byte[]> connection) {
+        if (!installed) {
+            throw new IllegalStateException("TcpTransport.install() must be called before opening TCP connections");
+        }
+        this.connection = connection;
+        this.outbound = new OutboundQueue(this::sendToConnection, inFlight::get, this::onSlow, SLOW_PEER_TIMEOUT);
+        connection.connectedProperty().addListener((property, was, connected) -> {
+            if (!connected) {
+                forget();
+            }
+        });
+    }
+
+    /**
+     * Register the writer of the byte[] messages of the FXGL TCP
+     * connections that counts the messages written. Must be called before
+     * the servers and clients of the transports are created.
+     */
+    public static synchronized void install() {
+        if (installed) {
+            return;
+        }
+        Writers.INSTANCE.addTCPWriter(byte[].class, out -> {
+            TCPMessageWriter<byte[]> writer = new ByteArrayTCPMessageWriter(out);
+            return message -> {
+                try {
+                    writer.write(message);
+                } finally {
+                    AtomicInteger count;
+                    synchronized (IN_FLIGHT) {
+                        count = IN_FLIGHT.remove(message);
+                    }
+                    if (count != null) {
+                        count.decrementAndGet();
+                    }
+                }
+            };
+        });
+        installed = true;
+    }
+
+    /**
+     * Hand a message to the connection, counted until it is written.
+     */
+    private void sendToConnection(byte[] message) {
+        synchronized (IN_FLIGHT) {
+            // The same array sent to another peer must be told apart
+            if (IN_FLIGHT.containsKey(message)) {
+                message = message.clone();
+            }
+            IN_FLIGHT.put(message, inFlight);
+        }
+        inFlight.incrementAndGet();
+        connection.send(message);
+    }
+
+    /**
+     * Forget the messages a closed connection will never write.
+     */
+    private void forget() {
+        synchronized (IN_FLIGHT) {
+            Iterator<AtomicInteger> counts = IN_FLIGHT.values().iterator();
+            while (counts.hasNext()) {
+                if (counts.next() == inFlight) {
+                    counts.remove();
+                }
+            }
+        }
+        inFlight.set(0);
+    }
+
+    @Override
+    public void sendReliable(byte[] message) {
+        if (connection.isConnected()) {
+            outbound.send(message, false);
+        }
+    }
+
+    @Override
+    public void sendUnreliable(byte[] message) {
+        if (connection.isConnected()) {
+            outbound.send(message, true);
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (connection.isConnected()) {
+            outbound.flush();
+        }
+    }
+
+    /**
+     * Disconnect a peer that stays behind.
+     */
+    private void onSlow() {
+        LOGGER.log(Level.WARNING, "Disconnecting a peer behind for more than {0} ms", SLOW_PEER_TIMEOUT);
+        connection.terminate();
+    }
+
+    @Override
+    public void setOnMessage(Consumer<byte[]> handler) {
+        connection.addMessageHandler((conn, message) -> handler.accept(message));
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connection.isConnected();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return inFlight.get() + outbound.getBacklog();
+    }
+
+    /**
+     * @return the queue in front of the connection
+     */
+    public OutboundQueue getOutbound() {
+        return outbound;
+    }
+
+    @Override
+    public void close() {
+        connection.terminate();
+    }
+
+    /**
+     * Close the connection once every message sent is written, or after
+     * timeoutMillis if the peer does not read them. Only the first check
+     * runs on the calling thread, which never waits.
+     * @param timeoutMillis longest time the messages may take to be written
+     */
+    public void closeAfterFlush(long timeoutMillis) {
+        closeWhenWritten(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+    }
+
+    /**
+     * Close the connection if its messages are written or the deadline
+     * passed, else check again in CLOSE_POLL_MILLIS.
+     * @param deadlineNanos time to close at the latest
+     */
+    private void closeWhenWritten(long deadlineNanos) {
+        flush();
+        if (!connection.isConnected() || getQueueDepth() == 0 || System.nanoTime() - deadlineNanos >= 0) {
+            connection.terminate();
+        } else {
+            CLOSER.schedule(() -> closeWhenWritten(deadlineNanos), CLOSE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.mycompany.datacomprojectTwo.network;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Transport over one UDP socket with two channels. Unreliable messages
+ * are sent once in their own packet. Reliable messages are numbered, kept
+ * until the peer acknowledges them and sent again every RESEND_MILLIS; the
+ * receiver delivers them in order and holds back the ones that arrive
+ * early. Every packet starts with its channel:
+ * <pre>
+ * UNRELIABLE   channel, message
+ * RELIABLE     channel, sequence (4 bytes), message
+ * RELIABLE_ACK channel, sequence (4 bytes)
+ * </pre>
+ * The server side learns the address of its peer from the first packet
+ * it receives.
+ */
+public class UdpTransport implements PongTransport {
+
+    // Packet channels
+    private static final byte UNRELIABLE = 0;
+    private static final byte RELIABLE = 1;
+    private static final byte RELIABLE_ACK = 2;
+
+    // Largest packet received
+    public static final int MAX_PACKET_SIZE = 1500;
+
+    // Delay before an unacknowledged reliable message is sent again
+    public static final long RESEND_MILLIS = 100;
+
+    // Logger for the socket errors
+    private static final Logger LOGGER = Logger.getLogger(UdpTransport.class.getName());
+
+    // Socket of this side
+    private final DatagramSocket socket;
+
+    // Address of the peer, null until the first packet on the server side
+    private volatile SocketAddress peer;
+
+    // Where the packets are written, the socket unless a stand-in is set
+    private volatile PacketLink link;
+
+    // Receives the messages
+    private volatile Consumer<byte[]> handler = message -> {};
+
+    // Reliable messages sent and not acknowledged yet, by sequence
+    private final Map<Integer, byte[]> unacked = new LinkedHashMap<>();
+
+    // Sequence of the next reliable message sent
+    private int nextSendSequence;
+
+    // Sequence of the next reliable message to deliver (receiver thread)
+    private int nextReceiveSequence;
+
+    // Reliable messages received ahead of nextReceiveSequence (receiver thread)
+    private final Map<Integer, byte[]> early = new HashMap<>();
+
+    // Sends the unacknowledged messages again
+    private final ScheduledExecutorService resender = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "pong-udp-resend");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Set by close()
+    private volatile boolean closed;
+
+    /**
+     * Create a transport on a bound socket and start receiving.
+     * @param socket bound socket
+     * @param peer address of the peer, or null to take the first sender
+     */
+    private UdpTransport(DatagramSocket socket, SocketAddress peer) {
+        this.socket = socket;
+        this.peer = peer;
+        this.link = this::sendToSocket;
+
+        Thread receiver = new Thread(this::receive, "pong-udp-receive");
+        receiver.setDaemon(true);
+        receiver.start();
+
+        resender.scheduleWithFixedDelay(this::resend, RESEND_MILLIS, RESEND_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Wait for a client on a UDP port.
+     * @param port UDP port to listen at, 0 for any free port
+     * @return the transport, connected once the client sends its first packet
+     * @throws IOException if the port cannot be bound
+     */
+    public static UdpTransport listen(int port) throws IOException {
+        return new UdpTransport(new DatagramSocket(port), null);
+    }
+
+    /**
+     * Open a transport to a server.
+     * @param host address of the server
+     * @param port UDP port of the server
+     * @return the transport
+     * @throws IOException if no socket can be opened
+     */
+    public static UdpTransport connect(String host, int port) throws IOException {
+        return new UdpTransport(new DatagramSocket(), new InetSocketAddress(host, port));
+    }
+
+    @Override
+    public void sendReliable(byte[] message) {
+        byte[] packet;
+        synchronized (unacked) {
+            packet = ByteBuffer.allocate(5 + message.length)
+                    .put(RELIABLE)
+                    .putInt(nextSendSequence)
+                    .put(message)
+                    .array();
+            unacked.put(nextSendSequence++, packet);
+        }
+        sendPacket(packet);
+    }
+
+    @Override
+    public void sendUnreliable(byte[] message) {
+        byte[] packet = new byte[1 + message.length];
+        packet[0] = UNRELIABLE;
+        System.arraycopy(message, 0, packet, 1, message.length);
+        sendPacket(packet);
+    }
+
+    @Override
+    public void setOnMessage(Consumer<byte[]> handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return peer != null && !closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        resender.shutdownNow();
+        socket.close();
+    }
+
+    /**
+     * Route the packets through another link, e.g. a LossyLink in front
+     * of getSocketLink().
+     * @param link link the packets are written to
+     */
+    public void setLink(PacketLink link) {
+        this.link = link;
+    }
+
+    /**
+     * @return the link writing directly to the socket
+     */
+    public PacketLink getSocketLink() {
+        return this::sendToSocket;
+    }
+
+    /**
+     * @return the local UDP port
+     */
+    public int getLocalPort() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * @return reliable messages waiting for an ack
+     */
+    @Override
+    public int getQueueDepth() {
+        return getUnackedCount();
+    }
+
+    /**
+     * @return reliable messages waiting for an ack
+     */
+    public int getUnackedCount() {
+        synchronized (unacked) {
+            return unacked.size();
+        }
+    }
+
+    private void sendPacket(byte[] packet) {
+        if (peer != null && !closed) {
+            link.send(packet);
+        }
+    }
+
+    private void sendToSocket(byte[] packet) {
+        SocketAddress address = peer;
+        if (address == null || closed) {
+            return;
+        }
+        try {
+            socket.send(new DatagramPacket(packet, packet.length, address));
+        } catch (IOException ex) {
+            if (!closed) {
+                LOGGER.log(Level.WARNING, "UDP send failed", ex);
+            }
+        }
+    }
+
+    /**
+     * Send again the reliable messages that were not acknowledged.
+     */
+    private void resend() {
+        byte[][] packets;
+        synchronized (unacked) {
+            packets = unacked.values().toArray(new byte[0][]);
+        }
+        for (byte[] packet : packets) {
+            sendPacket(packet);
+        }
+    }
+
+    /**
+     * Receive the packets until the socket is closed.
+     */
+    private void receive() {
+        byte[] buffer = new byte[MAX_PACKET_SIZE];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+
+        while (!closed) {
+            try {
+                packet.setLength(buffer.length);
+                socket.receive(packet);
+            } catch (IOException ex) {
+                if (!closed) {
+                    LOGGER.log(Level.WARNING, "UDP receive failed", ex);
+                }
+                return;
+            }
+
+            if (peer == null) {
+                peer = packet.getSocketAddress();
+            } else if (!peer.equals(packet.getSocketAddress())) {
+                continue;
+            }
+
+            try {
+                onPacket(ByteBuffer.wrap(buffer, 0, packet.getLength()));
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Bad UDP packet", ex);
+            }
+        }
+    }
+
+    /**
+     * Deliver, order or acknowledge one packet.
+     * @param packet received packet
+     */
+    private void onPacket(ByteBuffer packet) {
+        byte channel = packet.get();
+
+        if (channel == UNRELIABLE) {
+            handler.accept(remaining(packet));
+        } else if (channel == RELIABLE) {
+            int sequence = packet.getInt();
+            sendPacket(ByteBuffer.allocate(5).put(RELIABLE_ACK).putInt(sequence).array());
+
+            if (sequence == nextReceiveSequence) {
+                handler.accept(remaining(packet));
+                nextReceiveSequence++;
+
+                // Deliver the messages that were waiting for this one
+                byte[] next;
+                while ((next = early.remove(nextReceiveSequence)) != null) {
+                    handler.accept(next);
+                    nextReceiveSequence++;
+                }
+            } else if (sequence > nextReceiveSequence) {
+                early.putIfAbsent(sequence, remaining(packet));
+            }
+        } else if (channel == RELIABLE_ACK) {
+            int sequence = packet.getInt();
+            synchronized (unacked) {
+                unacked.remove(sequence);
+            }
+        }
+    }
+
+    private static byte[] remaining(ByteBuffer packet) {
+        return Arrays.copyOfRange(packet.array(), packet.position(), packet.limit());
+    }
+}
@@ -0,0 +1,81 @@
+package com.mycompany.datacomprojectTwo.replay;
+
+import com.mycompany.datacomprojectTwo.simulation.MatchState;
+
+/**
+ * Layout of a replay file, big endian:
+ * <pre>
+ * header:   magic (int), version (byte), tick rate (int), keyframe interval (int)
+ * tick:     1 byte, bit 7 clear: bits 0-1 direction of bat one + 1,
+ *           bits 2-3 direction of bat two + 1, bit 4 and 5 set when bat
+ *           one/two was moved by commands, followed by its top (double)
+ * keyframe: KEYFRAME, then the match as written by MatchState.write
+ * index:    INDEX, (tick, offset) longs per keyframe, keyframe count (int),
+ *           INDEX_MAGIC (int); only written when the recording is closed
+ * </pre>
+ * A tick record holds the inputs applied before the match steps that
+ * tick, a keyframe the state at that point (inputs included). A match
+ * is replayed from any keyframe by stepping it and applying the tick
+ * records that follow.
+ */
+public final class ReplayFormat {
+
+    // Start of every replay file
+    public static final int MAGIC = 0x50524c59;
+
+    // Version of the layout
+    public static final byte VERSION = 1;
+
+    // Bytes of the header
+    public static final int HEADER_SIZE = 4 + 1 + 4 + 4;
+
+    // Flags of a tick record, bats moved by commands
+    public static final int MOVED_BAT_ONE = 0x10;
+    public static final int MOVED_BAT_TWO = 0x20;
+
+    // Type of the keyframe and index records
+    public static final byte KEYFRAME = (byte) 0x80;
+    public static final byte INDEX = (byte) 0xFF;
+
+    // End of a closed replay file
+    public static final int INDEX_MAGIC = 0x49445831;
+
+    // Bytes of a keyframe record, and of the largest tick record
+    public static final int KEYFRAME_SIZE = 1 + MatchState.BYTES_PER_MATCH;
+    public static final int MAX_TICK_SIZE = 1 + 2 * 8;
+
+    private ReplayFormat() {
+    }
+
+    /**
+     * @param keyframeCount number of keyframes
+     * @return bytes of the index record
+     */
+    public static int indexSize(int keyframeCount) {
+        return 1 + keyframeCount * 16 + 4 + 4;
+    }
+
+    /**
+     * @param header first byte of a tick record
+     * @return bytes of the tick record
+     */
+    public static int tickSize(int header) {
+        int size = 1;
+        if ((header & MOVED_BAT_ONE) != 0) {
+            size += 8;
+        }
+        if ((header & MOVED_BAT_TWO) != 0) {
+            size += 8;
+        }
+        return size;
+    }
+
+    /**
+     * @param header first byte of a tick record
+     * @param player 1 or 2
+     * @return direction of the player's bat
+     */
+    public static int direction(int header, int player) {
+        return ((header >> (2 * (player - 1))) & 3) - 1;
+    }
+}
@@ -0,0 +1,231 @@
+package com.mycompany.datacomprojectTwo.replay;
+
+import com.mycompany.datacomprojectTwo.simulation.BallPhysics;
+import com.mycompany.datacomprojectTwo.simulation.MatchListener;
+import com.mycompany.datacomprojectTwo.simulation.MatchState;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Plays a replay file (see ReplayFormat) back into a one-match
+ * MatchState. The file is memory mapped and its keyframes are indexed
+ * when it is opened, from the index of a closed recording or by scanning
+ * the records of an unfinished one, so seeking to a tick restores the
+ * closest keyframe before it and only simulates the ticks in between.
+ */
+public class ReplayReader {
+
+    // Index of the match in the state
+    public static final int MATCH = 0;
+
+    // Receives nothing, used while seeking
+    private static final MatchListener SILENT = new MatchListener() {};
+
+    // The replay file
+    private final ByteBuffer file;
+
+    // Ticks per second of the recording
+    private final int tickRate;
+
+    // Ticks and file offsets of the keyframes
+    private long[] keyframeTicks = new long[0];
+    private int[] keyframeOffsets = new int[0];
+    private int keyframeCount;
+
+    // End of the records (start of the index, or of an unfinished record)
+    private int end;
+
+    // Offset of the next record to play
+    private int position;
+
+    // The replayed match
+    private final MatchState state = new MatchState(1);
+
+    // Moves the ball
+    private final BallPhysics physics = new BallPhysics(WORLD_WIDTH, WORLD_HEIGHT);
+
+    // Receives the events of the ticks played by next()
+    private final MatchListener listener;
+
+    /**
+     * Open a replay file and restore its first keyframe.
+     * @param path replay file
+     * @param listener receives the events of the ticks played by next()
+     * @throws IOException if the file cannot be read or is not a replay
+     */
+    public ReplayReader(Path path, MatchListener listener) throws IOException {
+        this.listener = listener;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (file.limit() < ReplayFormat.HEADER_SIZE || file.getInt(0) != ReplayFormat.MAGIC) {
+            throw new IOException("Not a replay file: " + path);
+        }
+        if (file.get(4) != ReplayFormat.VERSION) {
+            throw new IOException("Unsupported replay version " + file.get(4));
+        }
+        tickRate = file.getInt(5);
+
+        if (!readIndex()) {
+            scanKeyframes();
+        }
+        if (keyframeCount == 0) {
+            throw new IOException("Replay without keyframe: " + path);
+        }
+        seek(keyframeTicks[0]);
+    }
+
+    /**
+     * Load the index written when the recording was closed.
+     * @return false if there is none
+     */
+    private boolean readIndex() {
+        int limit = file.limit();
+        if (limit < ReplayFormat.HEADER_SIZE + ReplayFormat.indexSize(0)
+                || file.getInt(limit - 4) != ReplayFormat.INDEX_MAGIC) {
+            return false;
+        }
+
+        int count = file.getInt(limit - 8);
+        int start = limit - ReplayFormat.indexSize(count);
+        if (count < 0 || start < ReplayFormat.HEADER_SIZE || file.get(start) != ReplayFormat.INDEX) {
+            return false;
+        }
+
+        keyframeTicks = new long[count];
+        keyframeOffsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            keyframeTicks[i] = file.getLong(start + 1 + i * 16);
+            keyframeOffsets[i] = (int) file.getLong(start + 1 + i * 16 + 8);
+        }
+        keyframeCount = count;
+        end = start;
+        return true;
+    }
+
+    /**
+     * Find the keyframes of a recording that was not closed, up to its
+     * last complete record.
+     */
+    private void scanKeyframes() {
+        int offset = ReplayFormat.HEADER_SIZE;
+        while (offset < file.limit()) {
+            byte type = file.get(offset);
+            int size = type == ReplayFormat.KEYFRAME ? ReplayFormat.KEYFRAME_SIZE : ReplayFormat.tickSize(type);
+            if (type == ReplayFormat.INDEX || offset + size > file.limit()) {
+                break;
+            }
+
+            if (type == ReplayFormat.KEYFRAME) {
+                state.read(MATCH, file.duplicate().position(offset + 1));
+                if (keyframeCount == keyframeTicks.length) {
+                    keyframeTicks = Arrays.copyOf(keyframeTicks, keyframeCount * 2 + 16);
+                    keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2 + 16);
+                }
+                keyframeTicks[keyframeCount] = state.getTick(MATCH);
+                keyframeOffsets[keyframeCount] = offset;
+                keyframeCount++;
+            }
+            offset += size;
+        }
+        end = offset;
+    }
+
+    /**
+     * Play the next tick of the recording.
+     * @return false at the end of the recording
+     */
+    public boolean next() {
+        return play(listener);
+    }
+
+    /**
+     * Apply the next record and step the match.
+     */
+    private boolean play(MatchListener events) {
+        if (position >= end) {
+            return false;
+        }
+
+        byte type = file.get(position);
+        if (type == ReplayFormat.KEYFRAME) {
+            if (position + ReplayFormat.KEYFRAME_SIZE > end) {
+                return false;
+            }
+            state.read(MATCH, file.duplicate().position(position + 1));
+            position += ReplayFormat.KEYFRAME_SIZE;
+        } else {
+            int size = ReplayFormat.tickSize(type);
+            if (position + size > end) {
+                return false;
+            }
+            int offset = position + 1;
+            for (int player = 1; player <= 2; player++) {
+                state.setBatDirection(MATCH, player, ReplayFormat.direction(type, player));
+                int moved = player == 1 ? ReplayFormat.MOVED_BAT_ONE : ReplayFormat.MOVED_BAT_TWO;
+                if ((type & moved) != 0) {
+                    state.setBatY(MATCH, player, file.getDouble(offset));
+                    offset += 8;
+                }
+            }
+            position += size;
+        }
+
+        state.step(MATCH, 1.0 / tickRate, physics, events);
+        return true;
+    }
+
+    /**
+     * Put the match at a tick: restore the last keyframe at or before it
+     * and play the ticks from there, without reporting their events.
+     * @param tick tick to reach, the last one of the recording if it is
+     * past its end
+     */
+    public void seek(long tick) {
+        int keyframe = Arrays.binarySearch(keyframeTicks, 0, keyframeCount, tick);
+        if (keyframe < 0) {
+            keyframe = Math.max(0, -keyframe - 2);
+        }
+
+        // The keyframe is the state before its tick is stepped
+        position = keyframeOffsets[keyframe];
+        state.read(MATCH, file.duplicate().position(position + 1));
+
+        while (state.getTick(MATCH) < tick && play(SILENT)) {
+            // Fast forward
+        }
+    }
+
+    /**
+     * @return the replayed match, at index MATCH
+     */
+    public MatchState getState() {
+        return state;
+    }
+
+    public long getTick() {
+        return state.getTick(MATCH);
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public int getKeyframeCount() {
+        return keyframeCount;
+    }
+
+    /**
+     * @param index index of a keyframe
+     * @return tick of the keyframe
+     */
+    public long getKeyframeTick(int index) {
+        return keyframeTicks[index];
+    }
+}
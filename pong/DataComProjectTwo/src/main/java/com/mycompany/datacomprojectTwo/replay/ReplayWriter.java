@@ -0,0 +1,220 @@
+package com.mycompany.datacomprojectTwo.replay;
+
+import com.mycompany.datacomprojectTwo.simulation.MatchState;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records a match into an append-only replay file (see ReplayFormat).
+ * The simulation thread only puts a few bytes per tick into a buffer;
+ * full buffers, and the buffer of each keyframe, are written by a single
+ * background thread shared by all the writers, so a tick never waits for
+ * the disk. A recording that was not closed (crash, killed process) is
+ * still readable up to its last written buffer.
+ */
+public class ReplayWriter {
+
+    // Logger for the write errors
+    private static final Logger LOGGER = Logger.getLogger(ReplayWriter.class.getName());
+
+    // Bytes of a buffer handed to the writing thread
+    private static final int BUFFER_SIZE = 4096;
+
+    // Writes the buffers of every replay, in order
+    private static final ExecutorService DISK = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pong-replay");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Written buffers, reused by every writer
+    private static final Queue<ByteBuffer> FREE_BUFFERS = new ConcurrentLinkedQueue<>();
+
+    // The replay file, only used by the writing thread
+    private final FileChannel channel;
+
+    // Buffer being filled by the simulation thread
+    private ByteBuffer buffer;
+
+    // Bytes handed to the writing thread, offset of the buffer in the file
+    private long written;
+
+    // Ticks and file offsets of the keyframes
+    private long[] keyframeTicks = new long[64];
+    private long[] keyframeOffsets = new long[64];
+    private int keyframeCount;
+
+    // Ticks between two keyframes
+    private final int keyframeInterval;
+
+    // Set to write a keyframe on the next tick whatever its number
+    private boolean keyframeRequested = true;
+
+    // Set by close()
+    private boolean closed;
+
+    /**
+     * Create a replay file.
+     * @param file file to create, replaced if it exists
+     * @param tickRate ticks per second of the match
+     * @param keyframeInterval ticks between two keyframes
+     * @throws IOException if the file cannot be created
+     */
+    public ReplayWriter(Path file, int tickRate, int keyframeInterval) throws IOException {
+        this.keyframeInterval = keyframeInterval;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        buffer = takeBuffer();
+        buffer.putInt(ReplayFormat.MAGIC).put(ReplayFormat.VERSION)
+                .putInt(tickRate).putInt(keyframeInterval);
+    }
+
+    /**
+     * Record the inputs of a tick. Call it once per tick, after the inputs
+     * are applied to the match and before it is stepped. Every
+     * keyframeInterval ticks (and on the first tick), the full state is
+     * recorded instead.
+     * @param matches state holding the match
+     * @param match index of the match
+     * @param movedBats bats moved by commands since the last tick:
+     * ReplayFormat.MOVED_BAT_ONE and/or ReplayFormat.MOVED_BAT_TWO
+     */
+    public synchronized void record(MatchState matches, int match, int movedBats) {
+        // A finished match does not step any more
+        if (closed || matches.isGameOver(match)) {
+            return;
+        }
+        long tick = matches.getTick(match);
+
+        if (keyframeRequested || tick % keyframeInterval == 0) {
+            keyframeRequested = false;
+            reserve(ReplayFormat.KEYFRAME_SIZE);
+            addKeyframe(tick, written + buffer.position());
+            buffer.put(ReplayFormat.KEYFRAME);
+            matches.write(match, buffer);
+
+            // A keyframe is a point a crashed recording can be read up to
+            flush();
+            return;
+        }
+
+        reserve(ReplayFormat.MAX_TICK_SIZE);
+        int header = (matches.getBatDirection(match, 1) + 1)
+                | (matches.getBatDirection(match, 2) + 1) << 2
+                | movedBats;
+        buffer.put((byte) header);
+        if ((movedBats & ReplayFormat.MOVED_BAT_ONE) != 0) {
+            buffer.putDouble(matches.getBatY(match, 1));
+        }
+        if ((movedBats & ReplayFormat.MOVED_BAT_TWO) != 0) {
+            buffer.putDouble(matches.getBatY(match, 2));
+        }
+    }
+
+    /**
+     * Record a keyframe on the next tick, e.g. after the state was changed
+     * outside the simulation (loaded scores).
+     */
+    public synchronized void requestKeyframe() {
+        keyframeRequested = true;
+    }
+
+    /**
+     * Write the keyframe index and close the file, in the background.
+     * Safe to call more than once.
+     * @return completes when the file is closed
+     */
+    public synchronized CompletableFuture<Void> close() {
+        if (closed) {
+            return CompletableFuture.completedFuture(null);
+        }
+        closed = true;
+
+        reserve(ReplayFormat.indexSize(keyframeCount));
+        buffer.put(ReplayFormat.INDEX);
+        for (int i = 0; i < keyframeCount; i++) {
+            buffer.putLong(keyframeTicks[i]).putLong(keyframeOffsets[i]);
+        }
+        buffer.putInt(keyframeCount).putInt(ReplayFormat.INDEX_MAGIC);
+        flush();
+
+        return CompletableFuture.runAsync(() -> {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Cannot close the replay", ex);
+            }
+        }, DISK);
+    }
+
+    /**
+     * Keep the position of a keyframe for the index.
+     */
+    private void addKeyframe(long tick, long offset) {
+        if (keyframeCount == keyframeTicks.length) {
+            keyframeTicks = Arrays.copyOf(keyframeTicks, keyframeCount * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+        }
+        keyframeTicks[keyframeCount] = tick;
+        keyframeOffsets[keyframeCount] = offset;
+        keyframeCount++;
+    }
+
+    /**
+     * Make room for a record, handing the buffer over when it is full.
+     * Records bigger than a buffer (the index) get their own buffer.
+     */
+    private void reserve(int size) {
+        if (buffer.remaining() < size) {
+            flush();
+        }
+        if (buffer.remaining() < size) {
+            buffer = ByteBuffer.allocate(size);
+        }
+    }
+
+    /**
+     * Hand the buffer to the writing thread and start a new one.
+     */
+    private void flush() {
+        if (buffer.position() == 0) {
+            return;
+        }
+        ByteBuffer full = buffer.flip();
+        written += full.remaining();
+        buffer = takeBuffer();
+
+        DISK.execute(() -> {
+            try {
+                while (full.hasRemaining()) {
+                    channel.write(full);
+                }
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Cannot write the replay", ex);
+            }
+            if (full.capacity() == BUFFER_SIZE) {
+                FREE_BUFFERS.offer(full.clear());
+            }
+        });
+    }
+
+    /**
+     * @return an empty buffer, reused when possible
+     */
+    private static ByteBuffer takeBuffer() {
+        ByteBuffer free = FREE_BUFFERS.poll();
+        return free != null ? free : ByteBuffer.allocate(BUFFER_SIZE);
+    }
+}
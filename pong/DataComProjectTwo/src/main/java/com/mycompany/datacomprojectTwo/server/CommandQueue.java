@@ -0,0 +1,102 @@
+package com.mycompany.datacomprojectTwo.server;
+
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.simulation.MatchState;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Commands of a client waiting for the next steps of its match. The client
+ * does not decide how far its bat moves: a command whose duration is not a
+ * positive number is dropped, a longer one counts as one tick, and the
+ * commands applied before a step last one tick in all, the others wait for
+ * the next steps. At most MAX_PENDING commands wait, a flood drops the
+ * oldest. Synchronized: commands are added by the connection thread and
+ * applied by the tick.
+ */
+public class CommandQueue {
+
+    // Commands waiting, at most
+    public static final int MAX_PENDING = 32;
+
+    // Longest duration of the commands applied before a step, in seconds
+    private static final double TICK = 1.0 / TICK_RATE;
+
+    // Slack for the float durations sent by the clients
+    private static final double EPSILON = 1e-6;
+
+    // Commands not applied yet, oldest first
+    private final Deque<byte[]> pending = new ArrayDeque<>();
+
+    // Commands dropped, malformed or flooded
+    private long droppedCount;
+
+    /**
+     * Keep a command for the next steps, unless it is malformed.
+     * @param command command message
+     */
+    public synchronized void add(byte[] command) {
+        if (!PongProtocol.isWellFormed(command) || PongProtocol.typeOf(command) != PongProtocol.COMMAND) {
+            droppedCount++;
+            return;
+        }
+        float dt = PongProtocol.commandDt(command);
+        if (!Float.isFinite(dt) || dt <= 0) {
+            droppedCount++;
+            return;
+        }
+        if (pending.size() == MAX_PENDING) {
+            pending.pollFirst();
+            droppedCount++;
+        }
+        pending.addLast(command);
+    }
+
+    /**
+     * Move a bat with the waiting commands, one tick of them at most.
+     * @param matches state of the match
+     * @param match index of the match
+     * @param player number of the bat
+     * @return sequence of the last command applied, or
+     * PongProtocol.NO_INPUT if there was none
+     */
+    public synchronized int apply(MatchState matches, int match, int player) {
+        int sequence = PongProtocol.NO_INPUT;
+        double remaining = TICK;
+        byte[] command;
+        while ((command = pending.peekFirst()) != null) {
+            double dt = Math.min(PongProtocol.commandDt(command), TICK);
+            if (dt > remaining + EPSILON) {
+                break;
+            }
+            pending.pollFirst();
+            dt = Math.min(dt, remaining);
+            matches.moveBat(match, player, PongProtocol.commandDirection(command), dt);
+            sequence = PongProtocol.commandSequence(command);
+            remaining -= dt;
+        }
+        return sequence;
+    }
+
+    /**
+     * Drop the waiting commands.
+     */
+    public synchronized void clear() {
+        pending.clear();
+    }
+
+    /**
+     * @return commands waiting
+     */
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * @return commands dropped, malformed or flooded
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+}
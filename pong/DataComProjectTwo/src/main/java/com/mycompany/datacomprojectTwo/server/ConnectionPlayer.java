@@ -0,0 +1,236 @@
+package com.mycompany.datacomprojectTwo.server;
+
+import com.almasb.fxgl.net.Connection;
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.network.TcpTransport;
+import com.mycompany.datacomprojectTwo.simulation.Bat;
+import com.mycompany.datacomprojectTwo.simulation.MatchState;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.CLOSE_FLUSH_TIMEOUT;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javafx.scene.input.KeyCode;
+
+/**
+ * A player connected with the FXGL TCP server. The input, command and ack
+ * messages sent by the client are read by the connection thread, which
+ * also answers its pings, and the keys, commands and acked tick are read
+ * by the room's tick. The messages go through the bounded queue of a
+ * TcpTransport: a client that falls behind only gets the newest snapshot,
+ * and is disconnected if it stays behind. A player whose connection
+ * closed is away until the RoomManager hands it the connection of the
+ * client coming back with its session token, or gives it up.
+ */
+public class ConnectionPlayer implements RoomPlayer {
+
+    // Connection with the client, replaced when the client comes back
+    private volatile Connection<byte[]> connection;
+
+    // Sends through a bounded queue, the snapshots unreliably
+    private volatile TcpTransport transport;
+
+    // Replicated keys
+    private volatile boolean upPressed;
+    private volatile boolean downPressed;
+
+    // Last tick acknowledged by the client
+    private volatile int ackedTick = PongProtocol.NO_ACK;
+
+    // Commands received and not applied yet
+    private final CommandQueue commands = new CommandQueue();
+
+    // Set once the player is seated, after its hello
+    private final AtomicBoolean joined = new AtomicBoolean();
+
+    // Session token given to the client once seated
+    private volatile long session = PongProtocol.NO_SESSION;
+
+    // Set while the connection is lost and the client may come back
+    private volatile boolean away;
+
+    // Set once the client did not come back in time
+    private boolean expired;
+
+    // Set when the client came back and needs a resync
+    private final AtomicBoolean resync = new AtomicBoolean();
+
+    // Seated player this connection came back as, which gets its messages
+    private volatile ConnectionPlayer resumed;
+
+    /**
+     * Wrap a connection and start reading its input messages.
+     * @param connection connection with the client
+     */
+    public ConnectionPlayer(Connection<byte[]> connection) {
+        this.connection = connection;
+        this.transport = new TcpTransport(connection);
+        connection.addMessageHandler(this::receive);
+    }
+
+    /**
+     * Hand a message to the player of its connection: this one, or the
+     * player it came back as. Messages of a replaced connection are
+     * dropped.
+     * @param from connection of the message
+     * @param message received message
+     */
+    private void receive(Connection<byte[]> from, byte[] message) {
+        ConnectionPlayer target = resumed;
+        if (target != null) {
+            target.receive(from, message);
+        } else if (from == connection) {
+            onMessage(message);
+        }
+    }
+
+    /**
+     * Read the input, command and ack messages sent by the client.
+     * @param message received message
+     */
+    private void onMessage(byte[] message) {
+        if (!PongProtocol.isWellFormed(message)) {
+            return;
+        }
+        if (PongProtocol.typeOf(message) == PongProtocol.ACK) {
+            ackedTick = Math.max(ackedTick, PongProtocol.ackTick(message));
+            return;
+        }
+        if (PongProtocol.typeOf(message) == PongProtocol.COMMAND) {
+            commands.add(message);
+            return;
+        }
+        if (PongProtocol.typeOf(message) == PongProtocol.PING) {
+            // The client samples its round trip
+            send(PongProtocol.encodePong(message));
+            return;
+        }
+        if (PongProtocol.typeOf(message) != PongProtocol.INPUT) {
+            return;
+        }
+
+        int key = PongProtocol.inputKeyCode(message);
+        boolean pressed = PongProtocol.inputPressed(message);
+        if (key == KeyCode.UP.getCode()) {
+            upPressed = pressed;
+        } else if (key == KeyCode.DOWN.getCode()) {
+            downPressed = pressed;
+        }
+    }
+
+    @Override
+    public int getDirection() {
+        if (upPressed) {
+            return Bat.UP;
+        }
+        return downPressed ? Bat.DOWN : Bat.STOP;
+    }
+
+    @Override
+    public int applyCommands(MatchState matches, int match, int player) {
+        return commands.apply(matches, match, player);
+    }
+
+    @Override
+    public int getAckedTick() {
+        return ackedTick;
+    }
+
+    @Override
+    public void send(byte[] message) {
+        byte type = PongProtocol.typeOf(message);
+        if (type == PongProtocol.SNAPSHOT || type == PongProtocol.DELTA || type == PongProtocol.PONG) {
+            transport.sendUnreliable(message);
+        } else {
+            transport.sendReliable(message);
+        }
+    }
+
+    @Override
+    public void flush() {
+        transport.flush();
+    }
+
+    @Override
+    public void close() {
+        transport.closeAfterFlush(CLOSE_FLUSH_TIMEOUT);
+    }
+
+    @Override
+    public boolean isAway() {
+        return away;
+    }
+
+    @Override
+    public boolean takeResync() {
+        return resync.compareAndSet(true, false);
+    }
+
+    /**
+     * Mark the player away after its connection closed: its keys are
+     * released until it comes back.
+     */
+    public void markAway() {
+        away = true;
+        upPressed = false;
+        downPressed = false;
+        commands.clear();
+    }
+
+    /**
+     * Take over the connection of the client coming back: answer it with
+     * the welcome, then send to it and read it instead of the old
+     * connection, which is closed. The next room run sends it a resync.
+     * @param comeback player of the new connection
+     * @param welcome welcome answering its hello
+     * @return false if the player was given up and cannot come back
+     */
+    public synchronized boolean resume(ConnectionPlayer comeback, byte[] welcome) {
+        if (expired) {
+            return false;
+        }
+        comeback.send(welcome);
+        Connection<byte[]> old = connection;
+        comeback.resumed = this;
+        connection = comeback.connection;
+        transport = comeback.transport;
+        // The snapshots the client acknowledged before may be lost
+        ackedTick = PongProtocol.NO_ACK;
+        commands.clear();
+        away = false;
+        resync.set(true);
+        if (old.isConnected()) {
+            old.terminate();
+        }
+        return true;
+    }
+
+    /**
+     * Give the player up if it is still away since the connection closed.
+     * @param closed connection that closed
+     * @return true if the player was given up
+     */
+    public synchronized boolean expire(Connection<byte[]> closed) {
+        if (away && connection == closed) {
+            expired = true;
+        }
+        return expired;
+    }
+
+    /**
+     * Mark the player as seated.
+     * @return true the first time, false if it was already seated
+     */
+    public boolean markJoined() {
+        return joined.compareAndSet(false, true);
+    }
+
+    public Connection<byte[]> getConnection() {
+        return connection;
+    }
+
+    public long getSession() {
+        return session;
+    }
+
+    public void setSession(long session) {
+        this.session = session;
+    }
+}
@@ -0,0 +1,295 @@
+package com.mycompany.datacomprojectTwo.server;
+
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.network.Snapshot;
+import com.mycompany.datacomprojectTwo.network.SnapshotCodec;
+import com.mycompany.datacomprojectTwo.network.SnapshotHistory;
+import com.mycompany.datacomprojectTwo.replay.ReplayFormat;
+import com.mycompany.datacomprojectTwo.replay.ReplayWriter;
+import com.mycompany.datacomprojectTwo.simulation.BallPhysics;
+import com.mycompany.datacomprojectTwo.simulation.MatchListener;
+import com.mycompany.datacomprojectTwo.simulation.MatchState;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A room is one independent match between two players, held in one slot
+ * of a MatchState block shared with other rooms. The room manager asks
+ * for a step every tick; the room runs on whichever worker is free, never
+ * on two at once, and sends the players their snapshots.
+ */
+public class Room implements MatchListener {
+
+    // Most steps a late room may run at once, the rest are dropped
+    public static final int MAX_CATCH_UP = 4;
+
+    // Logger for the room events
+    private static final Logger LOGGER = Logger.getLogger(Room.class.getName());
+
+    // Room number
+    private final int id;
+
+    // Player one (left bat) and player two (right bat)
+    private final RoomPlayer[] players;
+
+    // Block of matches holding this room's match, and its index there
+    private final MatchState matches;
+    private final int match;
+
+    // Moves the ball, used by one worker at a time like the room
+    private final BallPhysics physics = new BallPhysics(WORLD_WIDTH, WORLD_HEIGHT);
+
+    // State sent to the players, reused every run
+    private final Snapshot snapshot = new Snapshot();
+
+    // Snapshots sent, baselines of the deltas
+    private final SnapshotHistory history = new SnapshotHistory();
+
+    // Tick of the last snapshot sent
+    private long sentTick;
+
+    // Last command applied to the bat of each player
+    private final int[] inputSequences = {PongProtocol.NO_INPUT, PongProtocol.NO_INPUT};
+
+    // Set while a worker runs the room
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Steps requested by the manager and not simulated yet
+    private final AtomicInteger owedSteps = new AtomicInteger();
+
+    // Steps dropped because the room was too late
+    private volatile long droppedSteps;
+
+    // Set when the match is over or a player left
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    // Records the match, or null
+    private volatile ReplayWriter replay;
+
+    /**
+     * Create a room and spawn the entities on both players.
+     * @param id room number
+     * @param matches block holding the match
+     * @param match index of a free match in the block, reset here
+     * @param playerOne left bat
+     * @param playerTwo right bat
+     */
+    public Room(int id, MatchState matches, int match, RoomPlayer playerOne, RoomPlayer playerTwo) {
+        this.id = id;
+        this.matches = matches;
+        this.match = match;
+        matches.reset(match);
+        this.players = new RoomPlayer[]{playerOne, playerTwo};
+
+        fillSnapshot();
+        playerOne.send(PongProtocol.encodeSpawn(snapshot, Snapshot.BAT_ONE));
+        playerTwo.send(PongProtocol.encodeSpawn(snapshot, Snapshot.BAT_TWO));
+    }
+
+    /**
+     * Called by the manager every tick. Owes one more step and tells
+     * whether the room should be given to a worker.
+     * @return true when the caller must run the room
+     */
+    boolean requestStep() {
+        owedSteps.incrementAndGet();
+        return running.compareAndSet(false, true);
+    }
+
+    /**
+     * Run the owed steps and replicate the new state. Runs on a worker.
+     */
+    void run() {
+        try {
+            int steps = owedSteps.getAndSet(0);
+            for (RoomPlayer player : players) {
+                player.flush();
+            }
+            resyncPlayers();
+            if (PAUSE_ON_DISCONNECT && (players[0].isAway() || players[1].isAway())) {
+                // The steps are not owed, the match resumes where it stopped
+                steps = 0;
+            }
+            if (steps > MAX_CATCH_UP) {
+                droppedSteps += steps - MAX_CATCH_UP;
+                steps = MAX_CATCH_UP;
+            }
+
+            for (int i = 0; i < steps && !finished.get(); i++) {
+                step();
+            }
+
+            // The clients interpolate between snapshots, they need fewer than ticks
+            if (steps > 0 && (matches.getTick(match) - sentTick >= SNAPSHOT_INTERVAL || matches.isGameOver(match))) {
+                sentTick = matches.getTick(match);
+                fillSnapshot();
+                history.store(snapshot);
+                sendSnapshot();
+            }
+
+            if (matches.isGameOver(match)) {
+                finish();
+            }
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.SEVERE, "Room " + id + " failed", ex);
+            finish();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Send the current state to the players who came back. It is also a
+     * baseline for their next deltas.
+     */
+    private void resyncPlayers() {
+        for (int player = 1; player <= 2; player++) {
+            if (players[player - 1].takeResync()) {
+                fillSnapshot();
+                history.store(snapshot);
+                players[player - 1].send(PongProtocol.encodeResync(snapshot, Snapshot.batOf(player)));
+            }
+        }
+    }
+
+    /**
+     * Apply the inputs and step the simulation once.
+     */
+    private void step() {
+        int movedBats = 0;
+        for (int player = 1; player <= 2; player++) {
+            // Predicting players move their bat with commands, the others with keys
+            int sequence = players[player - 1].applyCommands(matches, match, player);
+            if (sequence != PongProtocol.NO_INPUT) {
+                inputSequences[player - 1] = sequence;
+                movedBats |= player == 1 ? ReplayFormat.MOVED_BAT_ONE : ReplayFormat.MOVED_BAT_TWO;
+            }
+            matches.setBatDirection(match, player, players[player - 1].getDirection());
+        }
+
+        ReplayWriter writer = replay;
+        if (writer != null) {
+            writer.record(matches, match, movedBats);
+        }
+
+        matches.step(match, 1.0 / TICK_RATE, physics, this);
+    }
+
+    /**
+     * Copy the state of the match into the snapshot.
+     */
+    private void fillSnapshot() {
+        snapshot.setTick((int) matches.getTick(match));
+        snapshot.setScores(matches.getScore(match, 1), matches.getScore(match, 2));
+        snapshot.setInputSequence(1, inputSequences[0]);
+        snapshot.setInputSequence(2, inputSequences[1]);
+        snapshot.setEntity(Snapshot.BALL, matches.getBallX(match), matches.getBallY(match),
+                matches.getBallVelocityX(match), matches.getBallVelocityY(match));
+        for (int player = 1; player <= 2; player++) {
+            snapshot.setEntity(Snapshot.batOf(player), MatchState.getBatX(player), matches.getBatY(match, player),
+                    0, matches.getBatVelocityY(match, player));
+        }
+    }
+
+    /**
+     * Send the snapshot to each player against its own baseline. Both
+     * players get the same message when they acknowledged the same tick.
+     */
+    private void sendSnapshot() {
+        int firstAck = players[0].getAckedTick();
+        byte[] first = SnapshotCodec.encode(snapshot, history.get(firstAck));
+        players[0].send(first);
+
+        int secondAck = players[1].getAckedTick();
+        players[1].send(secondAck == firstAck ? first : SnapshotCodec.encode(snapshot, history.get(secondAck)));
+    }
+
+    /**
+     * End the match and close both players, letting the final snapshot
+     * and score reach them first. Safe to call from any thread and more
+     * than once.
+     */
+    public void finish() {
+        if (finished.compareAndSet(false, true)) {
+            for (RoomPlayer player : players) {
+                player.close();
+            }
+        }
+    }
+
+    /**
+     * Record the match from the next tick on.
+     * @param writer replay of the match
+     */
+    public void setReplay(ReplayWriter writer) {
+        this.replay = writer;
+    }
+
+    /**
+     * Close the replay of the match, if any. Called once no worker runs
+     * the room.
+     */
+    void closeReplay() {
+        ReplayWriter writer = replay;
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Override
+    public void onGameOver(int winner) {
+        LOGGER.log(Level.INFO, "Room {0}: player {1} won", new Object[]{id, winner});
+    }
+
+    /**
+     * @param player a player
+     * @return true if the player is seated in this room
+     */
+    public boolean hasPlayer(RoomPlayer player) {
+        return players[0] == player || players[1] == player;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean isFinished() {
+        return finished.get();
+    }
+
+    /**
+     * @return true while a worker runs the room or is about to
+     */
+    boolean isRunning() {
+        return running.get();
+    }
+
+    public long getDroppedSteps() {
+        return droppedSteps;
+    }
+
+    public long getTick() {
+        return matches.getTick(match);
+    }
+
+    public int getScore(int player) {
+        return matches.getScore(match, player);
+    }
+
+    /**
+     * @return block holding the room's match
+     */
+    MatchState getMatches() {
+        return matches;
+    }
+
+    /**
+     * @return index of the room's match in its block
+     */
+    public int getMatchIndex() {
+        return match;
+    }
+}
@@ -0,0 +1,455 @@
+package com.mycompany.datacomprojectTwo.server;
+
+import com.almasb.fxgl.net.Connection;
+import com.almasb.fxgl.net.NetService;
+import com.almasb.fxgl.net.Server;
+import com.almasb.fxgl.net.ServerConfig;
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.network.ServerAnnouncer;
+import com.mycompany.datacomprojectTwo.network.TcpTransport;
+import com.mycompany.datacomprojectTwo.replay.ReplayWriter;
+import com.mycompany.datacomprojectTwo.simulation.MatchState;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class hosts many matches in one process. It seats the client
+ * connections that said hello into rooms of two players and ticks all the
+ * rooms on a shared pool of workers, skipping a room still busy from the
+ * previous tick so a slow room never holds back the others.
+ */
+public class RoomManager {
+
+    // Logger for the server events
+    private static final Logger LOGGER = Logger.getLogger(RoomManager.class.getName());
+
+    // Matches per MatchState block
+    public static final int BLOCK_SIZE = 1024;
+
+    // Rooms being played, by id
+    private final Map<Integer, Room> rooms = new ConcurrentHashMap<>();
+
+    // Blocks of matches, and the free slots in them (block * BLOCK_SIZE + match)
+    private final List<MatchState> blocks = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    // Gives the ticks at TICK_RATE (also keeps the JVM alive)
+    private final ScheduledThreadPoolExecutor ticker;
+
+    // Runs the rooms
+    private final ExecutorService workers;
+
+    // Next room number
+    private final AtomicInteger nextRoomId = new AtomicInteger(1);
+
+    // Ticks where a room was still busy from the previous tick
+    private final AtomicLong lateRooms = new AtomicLong();
+
+    // Duration of the room runs on the workers
+    private final TimeHistogram roomTickTimes = new TimeHistogram();
+
+    // Number of workers
+    private final int workerCount;
+
+    // Time the workers spent running rooms
+    private final AtomicLong busyNanos = new AtomicLong();
+
+    // Busy time and time of the last load sample, guarded by loadLock
+    private final Object loadLock = new Object();
+    private long sampledBusyNanos;
+    private long sampledAtNanos = System.nanoTime();
+
+    // Announces the server on the LAN, null until announce
+    private volatile ServerAnnouncer announcer;
+
+    // TCP port of the server, set by listen
+    private volatile int port;
+
+    // TCP server accepting the players, null until listen
+    private volatile Server<byte[]> server;
+
+    // Players connected with the TCP server
+    private final Map<Connection<byte[]>, ConnectionPlayer> connectedPlayers = new ConcurrentHashMap<>();
+
+    // Seated players, by session token
+    private final Map<Long, ConnectionPlayer> sessions = new ConcurrentHashMap<>();
+
+    // Connected player waiting for an opponent
+    private RoomPlayer waitingPlayer;
+
+    /**
+     * Create a manager with one worker per core.
+     */
+    public RoomManager() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a manager.
+     * @param workerCount number of threads running the rooms
+     */
+    public RoomManager(int workerCount) {
+        this.workerCount = workerCount;
+        ticker = new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "pong-ticker"));
+        AtomicInteger workerNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread t = new Thread(r, "pong-room-" + workerNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Start ticking the rooms.
+     */
+    public void start() {
+        long period = TimeUnit.SECONDS.toNanos(1) / TICK_RATE;
+        ticker.scheduleAtFixedRate(this::tick, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Start ticking and accept players on a TCP port.
+     * @param port TCP port to listen at
+     */
+    public void listen(int port) {
+        start();
+        this.port = port;
+
+        TcpTransport.install();
+        server = new NetService().newTCPServer(port, new ServerConfig<>(byte[].class));
+        server.setOnConnected(this::onConnected);
+        server.setOnDisconnected(this::onDisconnected);
+        server.startAsync();
+
+        LOGGER.log(Level.INFO, "Room server listening on port {0}", String.valueOf(port));
+    }
+
+    /**
+     * Announce the server on the LAN every ANNOUNCE_INTERVAL, after listen.
+     * @param name name shown to the players
+     * @throws IOException if the announcement socket cannot be opened
+     */
+    public void announce(String name) throws IOException {
+        ServerAnnouncer serverAnnouncer = new ServerAnnouncer(name, port, this::getFreeRooms, this::sampleLoad);
+        serverAnnouncer.start(DISCOVERY_PORT, ANNOUNCE_INTERVAL);
+        announcer = serverAnnouncer;
+    }
+
+    /**
+     * Stop the ticks, stop accepting players and close every room.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop();
+        }
+        if (announcer != null) {
+            announcer.close();
+        }
+        ticker.shutdownNow();
+        workers.shutdownNow();
+        rooms.values().forEach(Room::finish);
+        rooms.values().forEach(Room::closeReplay);
+        rooms.clear();
+    }
+
+    /**
+     * Request a step from every room and give the idle ones to the workers.
+     */
+    private void tick() {
+        for (Room room : rooms.values()) {
+            if (room.isFinished()) {
+                // A worker may still be running the last step
+                if (!room.isRunning() && rooms.remove(room.getId()) != null) {
+                    room.closeReplay();
+                    releaseSlot(room);
+                }
+            } else if (room.requestStep()) {
+                workers.execute(() -> {
+                    long start = System.nanoTime();
+                    room.run();
+                    long duration = System.nanoTime() - start;
+                    roomTickTimes.record(duration);
+                    busyNanos.addAndGet(duration);
+                });
+            } else {
+                lateRooms.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Wait for the hello of a new connection.
+     * @param conn new connection
+     */
+    private void onConnected(Connection<byte[]> conn) {
+        ConnectionPlayer player = new ConnectionPlayer(conn);
+        connectedPlayers.put(conn, player);
+        conn.addMessageHandler((c, message) -> {
+            if (PongProtocol.typeOf(message) == PongProtocol.HELLO && PongProtocol.isWellFormed(message)) {
+                onHello(player, message);
+            }
+        });
+    }
+
+    /**
+     * Answer a hello, then pair the player with the waiting player or
+     * make it wait, unless it only probes the server. A hello with a
+     * session token takes its seat back instead.
+     * @param player player of the connection
+     * @param hello received hello
+     */
+    private void onHello(ConnectionPlayer player, byte[] hello) {
+        boolean join = hello.length >= PongProtocol.HELLO_SIZE && !PongProtocol.helloProbe(hello);
+        if (join && PongProtocol.helloMatches(hello)
+                && PongProtocol.helloSession(hello) != PongProtocol.NO_SESSION) {
+            resume(player, hello);
+            return;
+        }
+
+        byte[] welcome = PongProtocol.encodeWelcome(hello, getFreeRooms());
+        if (PongProtocol.welcomeStatus(welcome) != PongProtocol.STATUS_OK || !join || !player.markJoined()) {
+            player.send(welcome);
+            return;
+        }
+
+        long session = PongProtocol.newSessionToken();
+        player.setSession(session);
+        sessions.put(session, player);
+        player.send(PongProtocol.encodeWelcome(hello, PongProtocol.STATUS_OK, getFreeRooms(), session));
+        addPlayer(player);
+    }
+
+    /**
+     * Give a seated player the connection of the client coming back with
+     * its session token, or tell the client the session is over.
+     * @param comeback player of the new connection
+     * @param hello received hello
+     */
+    private void resume(ConnectionPlayer comeback, byte[] hello) {
+        long session = PongProtocol.helloSession(hello);
+        ConnectionPlayer player = sessions.get(session);
+        byte[] welcome = PongProtocol.encodeWelcome(hello, PongProtocol.STATUS_OK, getFreeRooms(), session);
+        if (player == null || !player.resume(comeback, welcome)) {
+            comeback.send(PongProtocol.encodeWelcome(hello, PongProtocol.STATUS_SESSION_EXPIRED,
+                    getFreeRooms(), PongProtocol.NO_SESSION));
+            return;
+        }
+        connectedPlayers.put(comeback.getConnection(), player);
+        LOGGER.log(Level.INFO, "A player came back");
+    }
+
+    /**
+     * Keep the seat of a closed connection for RECONNECT_GRACE, then
+     * close its room. A player still waiting for an opponent is dropped
+     * at once.
+     * @param conn closed connection
+     */
+    private void onDisconnected(Connection<byte[]> conn) {
+        ConnectionPlayer player = connectedPlayers.remove(conn);
+        if (player == null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (waitingPlayer == player) {
+                waitingPlayer = null;
+                sessions.remove(player.getSession());
+                return;
+            }
+        }
+
+        Room room = findRoom(player);
+        if (room == null || room.isFinished()) {
+            sessions.remove(player.getSession());
+            return;
+        }
+        if (player.getConnection() != conn) {
+            // Replaced by the connection it came back with
+            return;
+        }
+
+        player.markAway();
+        LOGGER.log(Level.INFO, "Room {0}: a player left, keeping its seat", room.getId());
+        try {
+            ticker.schedule(() -> {
+                if (player.expire(conn)) {
+                    sessions.remove(player.getSession());
+                    room.finish();
+                }
+            }, RECONNECT_GRACE, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            // Stopping
+            room.finish();
+        }
+    }
+
+    /**
+     * @param player a player
+     * @return the room being played with the player, or null
+     */
+    private Room findRoom(RoomPlayer player) {
+        for (Room room : rooms.values()) {
+            if (room.hasPlayer(player)) {
+                return room;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Seat a player: it waits for an opponent, or joins the waiting
+     * player in a new room.
+     * @param player new player
+     * @return the new room, or null when the player waits
+     */
+    public Room addPlayer(RoomPlayer player) {
+        RoomPlayer opponent;
+        synchronized (this) {
+            if (waitingPlayer == null) {
+                waitingPlayer = player;
+                return null;
+            }
+            opponent = waitingPlayer;
+            waitingPlayer = null;
+        }
+        return openRoom(opponent, player);
+    }
+
+    /**
+     * Open a room for two players and start ticking it.
+     * @param playerOne left bat
+     * @param playerTwo right bat
+     * @return the new room
+     */
+    public Room openRoom(RoomPlayer playerOne, RoomPlayer playerTwo) {
+        int slot = takeSlot();
+        Room room = new Room(nextRoomId.getAndIncrement(), getBlock(slot), slot % BLOCK_SIZE, playerOne, playerTwo);
+        if (REPLAY_DIR != null) {
+            record(room);
+        }
+        rooms.put(room.getId(), room);
+
+        LOGGER.log(Level.FINE, "Room {0} opened ({1} rooms)", new Object[]{room.getId(), rooms.size()});
+        return room;
+    }
+
+    /**
+     * Record a room into the replay folder. A room that cannot be
+     * recorded is still played.
+     * @param room new room
+     */
+    private void record(Room room) {
+        try {
+            Path folder = Files.createDirectories(Paths.get(REPLAY_DIR));
+            room.setReplay(new ReplayWriter(folder.resolve("room-" + room.getId() + ".replay"),
+                    TICK_RATE, REPLAY_KEYFRAME_INTERVAL));
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Cannot record room " + room.getId(), ex);
+        }
+    }
+
+    /**
+     * Take a free match slot, adding a block when all are used.
+     * @return the slot, block * BLOCK_SIZE + match
+     */
+    private synchronized int takeSlot() {
+        if (freeSlots.isEmpty()) {
+            int first = blocks.size() * BLOCK_SIZE;
+            blocks.add(new MatchState(BLOCK_SIZE));
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                freeSlots.addLast(first + i);
+            }
+        }
+        return freeSlots.pollFirst();
+    }
+
+    /**
+     * @param slot a match slot
+     * @return the block holding it
+     */
+    private synchronized MatchState getBlock(int slot) {
+        return blocks.get(slot / BLOCK_SIZE);
+    }
+
+    /**
+     * Give the slot of a finished room back.
+     * @param room a finished room no worker runs
+     */
+    private synchronized void releaseSlot(Room room) {
+        int block = blocks.indexOf(room.getMatches());
+        freeSlots.addFirst(block * BLOCK_SIZE + room.getMatchIndex());
+    }
+
+    /**
+     * @return number of rooms being played
+     */
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    /**
+     * @return rooms that can still be opened before MAX_ROOMS
+     */
+    public int getFreeRooms() {
+        return Math.max(0, MAX_ROOMS - rooms.size());
+    }
+
+    /**
+     * @return percent of the worker time spent running rooms since the
+     * last sample
+     */
+    public int sampleLoad() {
+        synchronized (loadLock) {
+            long now = System.nanoTime();
+            long busy = busyNanos.get();
+            long available = (now - sampledAtNanos) * workerCount;
+            int load = available > 0 ? (int) Math.min(100, (busy - sampledBusyNanos) * 100 / available) : 0;
+            sampledAtNanos = now;
+            sampledBusyNanos = busy;
+            return load;
+        }
+    }
+
+    /**
+     * @return times a room was still busy when its next tick came
+     */
+    public long getLateRooms() {
+        return lateRooms.get();
+    }
+
+    /**
+     * @return durations of the room runs (steps and snapshots sent)
+     */
+    public TimeHistogram getRoomTickTimes() {
+        return roomTickTimes;
+    }
+
+    /**
+     * @return steps dropped by all the rooms being played
+     */
+    public long getDroppedSteps() {
+        long dropped = 0;
+        for (Room room : rooms.values()) {
+            dropped += room.getDroppedSteps();
+        }
+        return dropped;
+    }
+}
@@ -0,0 +1,70 @@
+package com.mycompany.datacomprojectTwo.server;
+
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.simulation.MatchState;
+
+/**
+ * A player seated in a room. The room reads the bat direction every tick
+ * and sends the protocol messages through the player.
+ */
+public interface RoomPlayer {
+
+    /**
+     * @return Bat.UP, Bat.STOP or Bat.DOWN
+     */
+    int getDirection();
+
+    /**
+     * Move the bat with the input commands received since the last call,
+     * one tick of them at most, for players predicting their bat.
+     * @param matches state of the room's match
+     * @param match index of the match
+     * @param player number of the player's bat
+     * @return sequence of the last command applied, or
+     * PongProtocol.NO_INPUT if there was none
+     */
+    default int applyCommands(MatchState matches, int match, int player) {
+        return PongProtocol.NO_INPUT;
+    }
+
+    /**
+     * @return last tick the player acknowledged, or PongProtocol.NO_ACK to
+     * always receive full snapshots
+     */
+    default int getAckedTick() {
+        return PongProtocol.NO_ACK;
+    }
+
+    /**
+     * Send a message to the player.
+     * @param message encoded message, may be shared by both players of a room
+     */
+    void send(byte[] message);
+
+    /**
+     * Hand over the messages held back while the player was behind.
+     * Called every room run.
+     */
+    default void flush() {
+    }
+
+    /**
+     * Close the link with the player, letting the messages already sent
+     * reach it first for a bounded time.
+     */
+    void close();
+
+    /**
+     * @return true while the player lost its link and may still come back
+     */
+    default boolean isAway() {
+        return false;
+    }
+
+    /**
+     * @return true, once, when the player came back and must be resynced
+     */
+    default boolean takeResync() {
+        return false;
+    }
+}
@@ -0,0 +1,113 @@
+package com.mycompany.datacomprojectTwo.server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in nanoseconds that any number of threads can
+ * record into without locking. Durations under 64 ns have their own
+ * bucket; above, every power of two is split into SUB_BUCKETS buckets,
+ * so a percentile is at most about 3% above the true duration whatever
+ * its size, in a fixed array of under 2000 counters.
+ */
+public class TimeHistogram {
+
+    // Buckets per power of two above 64 ns
+    public static final int SUB_BUCKETS = 32;
+
+    // Buckets: 0 to 63 ns, then SUB_BUCKETS for each power of two from 2^6 to 2^62
+    private static final int BUCKET_COUNT = 64 + (63 - 6) * SUB_BUCKETS;
+
+    // Durations recorded in each bucket
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Count a duration.
+     * @param nanos duration in nanoseconds, negative counts as 0
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(indexOf(Math.max(0, nanos)));
+    }
+
+    /**
+     * @param nanos a duration
+     * @return index of its bucket
+     */
+    private static int indexOf(long nanos) {
+        if (nanos < 64) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        return 64 + (exponent - 6) * SUB_BUCKETS + (int) ((nanos >>> (exponent - 5)) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @param index index of a bucket
+     * @return longest duration of the bucket
+     */
+    private static long highestOf(int index) {
+        if (index < 64) {
+            return index;
+        }
+        int exponent = (index - 64) / SUB_BUCKETS + 6;
+        long lowest = (long) (SUB_BUCKETS + (index - 64) % SUB_BUCKETS) << (exponent - 5);
+        return lowest + (1L << (exponent - 5)) - 1;
+    }
+
+    /**
+     * Move every count into another histogram, leaving this one empty.
+     * Durations recorded meanwhile are either moved or kept, never lost.
+     * @param target receives the counts
+     */
+    public void drainTo(TimeHistogram target) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.getAndSet(i, 0);
+            if (count > 0) {
+                target.counts.addAndGet(i, count);
+            }
+        }
+    }
+
+    /**
+     * @return number of durations recorded
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @param quantile between 0 and 1, 0.99 for the 99th percentile
+     * @return longest duration of the bucket holding the percentile, 0 if empty
+     */
+    public long getPercentile(double quantile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return highestOf(i);
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @return longest duration of the highest bucket used, 0 if empty
+     */
+    public long getMax() {
+        for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+            if (counts.get(i) > 0) {
+                return highestOf(i);
+            }
+        }
+        return 0;
+    }
+}
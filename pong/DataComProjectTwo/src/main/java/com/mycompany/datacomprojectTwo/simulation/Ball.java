@@ -0,0 +1,66 @@
+package com.mycompany.datacomprojectTwo.simulation;
+
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+
+/**
+ * Plain state of the ball used by the simulation. The position is the
+ * top left corner of the ball's bounding box, like an FXGL entity.
+ */
+public class Ball {
+
+    // Size of the ball's bounding box
+    public static final double SIZE = BALL_RADIUS * 2;
+
+    // Position
+    private double x;
+    private double y;
+
+    // Velocity in pixels per second
+    private double velocityX;
+    private double velocityY;
+
+    /**
+     * Places the ball in the middle of the world and serves it
+     * with the same velocity as the physics ball.
+     */
+    public void serve() {
+        x = WORLD_WIDTH / 2 - BALL_RADIUS;
+        y = WORLD_HEIGHT / 2 - BALL_RADIUS;
+        velocityX = LINEAR_VELOCITY;
+        velocityY = -LINEAR_VELOCITY;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getVelocityX() {
+        return velocityX;
+    }
+
+    public double getVelocityY() {
+        return velocityY;
+    }
+
+    public void setPosition(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    public void setVelocity(double velocityX, double velocityY) {
+        this.velocityX = velocityX;
+        this.velocityY = velocityY;
+    }
+
+    public double getCenterX() {
+        return x + BALL_RADIUS;
+    }
+
+    public double getCenterY() {
+        return y + BALL_RADIUS;
+    }
+}
@@ -0,0 +1,397 @@
+package com.mycompany.datacomprojectTwo.simulation;
+
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import static java.lang.Math.*;
+
+/**
+ * Continuous collision of the ball, a circle, against the walls and the
+ * bats, axis-aligned boxes. Instead of moving the ball and looking for an
+ * overlap, every step sweeps the center of the ball against the shapes
+ * grown by the radius: a line for each wall, and for each bat two boxes
+ * (grown in X and in Y) and a circle at each corner. The ball moves to the
+ * earliest hit, bounces on its normal and goes on for the rest of the
+ * step, so it cannot go through a bat or a wall whatever its speed.
+ * Everything is plain double arithmetic in a fixed order, so the same
+ * inputs give the same result on every machine, and a step does not
+ * allocate. The surfaces hit during a step are kept until the next one.
+ * An instance holds the state of the step being computed: use one per
+ * thread (or per room).
+ */
+public class BallPhysics {
+
+    // Surfaces the ball can hit
+    public static final int TOP_WALL = 0;
+    public static final int BOTTOM_WALL = 1;
+    public static final int LEFT_WALL = 2;
+    public static final int RIGHT_WALL = 3;
+    public static final int BAT_ONE = 4;
+    public static final int BAT_TWO = 5;
+
+    // No surface hit
+    private static final int NONE = -1;
+
+    // Most bounces in one step, the rest of the step is dropped past it
+    public static final int MAX_BOUNCES = 4;
+
+    // Overlap (pixels) below which a bat is not pushing the ball
+    private static final double EPSILON = 1e-6;
+
+    /**
+     * Receives the surfaces hit during a step.
+     */
+    public interface HitListener {
+
+        /**
+         * The ball bounced on a surface.
+         * @param surface one of the surface constants
+         */
+        void onHit(int surface);
+    }
+
+    // Size of the world
+    private final double width;
+    private final double height;
+
+    // Size of the bats and of the ball
+    private final double batWidth;
+    private final double batHeight;
+    private final double radius;
+
+    // Part of the normal velocity kept by a bounce
+    private final double restitution;
+
+    // Ball during the step: center and velocity
+    private double cx;
+    private double cy;
+    private double vx;
+    private double vy;
+
+    // Surfaces hit during the last step, in order
+    private final int[] hits = new int[MAX_BOUNCES + 3];
+    private int hitCount;
+
+    // Earliest hit of the current sweep
+    private double hitTime;
+    private double normalX;
+    private double normalY;
+    private int hitSurface;
+
+    /**
+     * Create the physics of a world with the bats and the ball of
+     * PongConfig.
+     * @param width width of the world
+     * @param height height of the world
+     */
+    public BallPhysics(double width, double height) {
+        this(width, height, PADDLE_WIDTH, PADDLE_HEIGHT, BALL_RADIUS, RESTITUTION);
+    }
+
+    /**
+     * Create the physics of a world with other sizes, e.g. to tune them.
+     * @param width width of the world
+     * @param height height of the world
+     * @param batWidth width of the bats
+     * @param batHeight height of the bats
+     * @param radius radius of the ball
+     * @param restitution part of the normal velocity kept by a bounce
+     */
+    public BallPhysics(double width, double height, double batWidth, double batHeight,
+            double radius, double restitution) {
+        this.width = width;
+        this.height = height;
+        this.batWidth = batWidth;
+        this.batHeight = batHeight;
+        this.radius = radius;
+        this.restitution = restitution;
+    }
+
+    /**
+     * Move the ball of a match for one step, bouncing on the walls and
+     * the bats at their current position. The surfaces hit are given by
+     * getHitCount() and getHit().
+     * @param matches match states
+     * @param match index of the match
+     * @param dt duration of the step in seconds
+     */
+    public void move(MatchState matches, int match, double dt) {
+        move(matches.getBallX(match), matches.getBallY(match),
+                matches.getBallVelocityX(match), matches.getBallVelocityY(match),
+                MatchState.getBatX(1), matches.getBatY(match, 1),
+                MatchState.getBatX(2), matches.getBatY(match, 2), dt);
+        matches.setBall(match, cx - radius, cy - radius, vx, vy);
+    }
+
+    /**
+     * Move a ball for one step, bouncing on the walls and two bats.
+     * @param ball the ball, moved and bounced
+     * @param dt duration of the step in seconds
+     * @param batOne left bat
+     * @param batTwo right bat
+     * @param listener receives the surfaces hit, in order
+     */
+    public void move(Ball ball, double dt, Bat batOne, Bat batTwo, HitListener listener) {
+        move(ball.getX(), ball.getY(), ball.getVelocityX(), ball.getVelocityY(),
+                batOne.getX(), batOne.getY(), batTwo.getX(), batTwo.getY(), dt);
+        ball.setPosition(cx - radius, cy - radius);
+        ball.setVelocity(vx, vy);
+
+        for (int i = 0; i < hitCount; i++) {
+            listener.onHit(hits[i]);
+        }
+    }
+
+    /**
+     * Move a ball for one step, bouncing on the walls and two bats. The
+     * ball is then given by getBallX(), getBallY(), getVelocityX() and
+     * getVelocityY(), the surfaces hit by getHitCount() and getHit().
+     * @param ballX left of the ball
+     * @param ballY top of the ball
+     * @param velocityX horizontal velocity of the ball
+     * @param velocityY vertical velocity of the ball
+     * @param batOneX left of the left bat
+     * @param batOneY top of the left bat
+     * @param batTwoX left of the right bat
+     * @param batTwoY top of the right bat
+     * @param dt duration of the step in seconds
+     */
+    public void move(double ballX, double ballY, double velocityX, double velocityY,
+            double batOneX, double batOneY, double batTwoX, double batTwoY, double dt) {
+        cx = ballX + radius;
+        cy = ballY + radius;
+        vx = velocityX;
+        vy = velocityY;
+        hitCount = 0;
+
+        // A bat that moved into the ball pushes it out first
+        pushOut(batOneX, batOneY, BAT_ONE);
+        pushOut(batTwoX, batTwoY, BAT_TWO);
+
+        cx = min(max(cx, radius), width - radius);
+        cy = min(max(cy, radius), height - radius);
+
+        double remaining = dt;
+        for (int bounce = 0; bounce <= MAX_BOUNCES && remaining > 0; bounce++) {
+            hitTime = remaining;
+            hitSurface = NONE;
+
+            sweepWalls();
+            sweepBat(batOneX, batOneY, BAT_ONE);
+            sweepBat(batTwoX, batTwoY, BAT_TWO);
+
+            cx += vx * hitTime;
+            cy += vy * hitTime;
+            remaining -= hitTime;
+
+            if (hitSurface == NONE) {
+                break;
+            }
+
+            // Reflect the velocity on the normal of the surface
+            double dot = vx * normalX + vy * normalY;
+            vx -= (1 + restitution) * dot * normalX;
+            vy -= (1 + restitution) * dot * normalY;
+            hits[hitCount++] = hitSurface;
+        }
+    }
+
+    /**
+     * @return left of the ball after the last step
+     */
+    public double getBallX() {
+        return cx - radius;
+    }
+
+    /**
+     * @return top of the ball after the last step
+     */
+    public double getBallY() {
+        return cy - radius;
+    }
+
+    public double getVelocityX() {
+        return vx;
+    }
+
+    public double getVelocityY() {
+        return vy;
+    }
+
+    /**
+     * @return number of surfaces hit during the last step
+     */
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @param index index of the hit, from 0 to getHitCount() - 1
+     * @return surface hit
+     */
+    public int getHit(int index) {
+        return hits[index];
+    }
+
+    /**
+     * Keep a hit if it is the earliest of the sweep.
+     */
+    private void hit(double time, double nx, double ny, int surface) {
+        time = max(0, time);
+        if (time < hitTime || (hitSurface == NONE && time == hitTime)) {
+            hitTime = time;
+            normalX = nx;
+            normalY = ny;
+            hitSurface = surface;
+        }
+    }
+
+    /**
+     * Sweep the center against the walls, moved in by the radius.
+     */
+    private void sweepWalls() {
+        if (vy < 0) {
+            hit((radius - cy) / vy, 0, 1, TOP_WALL);
+        } else if (vy > 0) {
+            hit((height - radius - cy) / vy, 0, -1, BOTTOM_WALL);
+        }
+
+        if (vx < 0) {
+            hit((radius - cx) / vx, 1, 0, LEFT_WALL);
+        } else if (vx > 0) {
+            hit((width - radius - cx) / vx, -1, 0, RIGHT_WALL);
+        }
+    }
+
+    /**
+     * Sweep the center against a bat grown by the radius: the bat box
+     * with rounded corners, made of two boxes and four circles.
+     */
+    private void sweepBat(double left, double top, int surface) {
+        double right = left + batWidth;
+        double bottom = top + batHeight;
+
+        sweepBox(left - radius, top, right + radius, bottom, surface);
+        sweepBox(left, top - radius, right, bottom + radius, surface);
+        sweepCorner(left, top, surface);
+        sweepCorner(right, top, surface);
+        sweepCorner(left, bottom, surface);
+        sweepCorner(right, bottom, surface);
+    }
+
+    /**
+     * Sweep the center against a box, entering it from outside.
+     */
+    private void sweepBox(double minX, double minY, double maxX, double maxY, int surface) {
+        double enterX;
+        double exitX;
+        if (vx == 0) {
+            if (cx <= minX || cx >= maxX) {
+                return;
+            }
+            enterX = Double.NEGATIVE_INFINITY;
+            exitX = Double.POSITIVE_INFINITY;
+        } else {
+            double t1 = (minX - cx) / vx;
+            double t2 = (maxX - cx) / vx;
+            enterX = min(t1, t2);
+            exitX = max(t1, t2);
+        }
+
+        double enterY;
+        double exitY;
+        if (vy == 0) {
+            if (cy <= minY || cy >= maxY) {
+                return;
+            }
+            enterY = Double.NEGATIVE_INFINITY;
+            exitY = Double.POSITIVE_INFINITY;
+        } else {
+            double t1 = (minY - cy) / vy;
+            double t2 = (maxY - cy) / vy;
+            enterY = min(t1, t2);
+            exitY = max(t1, t2);
+        }
+
+        double enter = max(enterX, enterY);
+        double exit = min(exitX, exitY);
+
+        // Missed, or started inside (pushed out before the sweep)
+        if (enter >= exit || enter < 0) {
+            return;
+        }
+
+        if (enterX > enterY) {
+            hit(enter, -signum(vx), 0, surface);
+        } else {
+            hit(enter, 0, -signum(vy), surface);
+        }
+    }
+
+    /**
+     * Sweep the center against a circle of the ball radius around a
+     * corner of a bat.
+     */
+    private void sweepCorner(double cornerX, double cornerY, int surface) {
+        double mx = cx - cornerX;
+        double my = cy - cornerY;
+
+        double a = vx * vx + vy * vy;
+        double b = mx * vx + my * vy;
+        double c = mx * mx + my * my - radius * radius;
+
+        // Inside already, or moving away
+        if (c < 0 || b >= 0) {
+            return;
+        }
+
+        double discriminant = b * b - a * c;
+        if (discriminant < 0) {
+            return;
+        }
+
+        double time = (-b - sqrt(discriminant)) / a;
+        hit(time, (mx + vx * time) / radius, (my + vy * time) / radius, surface);
+    }
+
+    /**
+     * Push the ball out of a bat that moved into it, on the side with the
+     * smallest overlap, and send it away from the bat.
+     */
+    private void pushOut(double batX, double batY, int surface) {
+        // Closest point of the bat to the center of the ball
+        double px = max(batX, min(cx, batX + batWidth));
+        double py = max(batY, min(cy, batY + batHeight));
+        double dx = cx - px;
+        double dy = cy - py;
+
+        double inner = radius - EPSILON;
+        if (dx * dx + dy * dy >= inner * inner) {
+            return;
+        }
+
+        // Overlap on each side of the bat
+        double left = cx + radius - batX;
+        double right = batX + batWidth - (cx - radius);
+        double top = cy + radius - batY;
+        double bottom = batY + batHeight - (cy - radius);
+
+        if (min(left, right) <= min(top, bottom)) {
+            if (left < right) {
+                cx -= left;
+                vx = -abs(vx);
+            } else {
+                cx += right;
+                vx = abs(vx);
+            }
+        } else {
+            if (top < bottom) {
+                cy -= top;
+                vy = -abs(vy);
+            } else {
+                cy += bottom;
+                vy = abs(vy);
+            }
+        }
+
+        hits[hitCount++] = surface;
+    }
+}
@@ -0,0 +1,69 @@
+package com.mycompany.datacomprojectTwo.simulation;
+
+/**
+ * Plain state of a bat used by the simulation. The bat only moves
+ * vertically, following the same rules as the BatComponent.
+ */
+public class Bat {
+
+    // Direction values for the input
+    public static final int UP = -1;
+    public static final int STOP = 0;
+    public static final int DOWN = 1;
+
+    // Position (top left corner)
+    private final double x;
+    private double y;
+
+    // Vertical velocity in pixels per second
+    private double velocityY;
+
+    // Current input direction
+    private int direction = STOP;
+
+    /**
+     * Create a bat at the given position.
+     * @param x left of the bat
+     * @param y top of the bat
+     */
+    public Bat(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Applies the current direction with the BatComponent rules
+     * and moves the bat.
+     * @param dt time step in seconds
+     */
+    public void update(double dt) {
+        velocityY = PongRules.batVelocity(direction, y, dt);
+
+        // Rounding must not push the bat out of the world
+        y = PongRules.clampBatY(y + velocityY * dt);
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public void setY(double y) {
+        this.y = y;
+    }
+
+    public double getVelocityY() {
+        return velocityY;
+    }
+
+    public int getDirection() {
+        return direction;
+    }
+
+    public void setDirection(int direction) {
+        this.direction = direction;
+    }
+}
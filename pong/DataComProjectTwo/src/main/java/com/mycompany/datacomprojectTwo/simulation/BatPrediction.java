@@ -0,0 +1,123 @@
+package com.mycompany.datacomprojectTwo.simulation;
+
+/**
+ * Client-side prediction of the local bat. Every frame the input is
+ * applied right away to a predicted Bat and kept as a numbered command
+ * until the server reports it applied. When a snapshot arrives, the bat is
+ * put back at the server position and the commands the server has not
+ * applied yet are replayed with the same Bat rules; the prediction is only
+ * corrected when the result differs by more than CORRECTION_THRESHOLD.
+ * The pending commands are kept in a ring of fixed arrays, so predicting
+ * and reconciling do not allocate.
+ */
+public class BatPrediction {
+
+    // Most pending commands kept, the oldest are forgotten past it
+    public static final int CAPACITY = 256;
+
+    // Smallest error (pixels) corrected, below it the prediction is kept
+    public static final double CORRECTION_THRESHOLD = 0.5;
+
+    // Predicted bat, shown on screen
+    private final Bat bat;
+
+    // Bat the pending commands are replayed on
+    private final Bat replay;
+
+    // Pending commands: sequence, direction and duration
+    private final int[] sequences = new int[CAPACITY];
+    private final int[] directions = new int[CAPACITY];
+    private final float[] durations = new float[CAPACITY];
+
+    // Index of the oldest pending command and number of pending commands
+    private int head;
+    private int count;
+
+    // Sequence of the next command
+    private int nextSequence;
+
+    // Times the prediction was corrected
+    private long corrections;
+
+    /**
+     * Start predicting a bat.
+     * @param x left of the bat
+     * @param y top of the bat
+     */
+    public BatPrediction(double x, double y) {
+        bat = new Bat(x, y);
+        replay = new Bat(x, y);
+    }
+
+    /**
+     * Apply the input of one frame to the predicted bat and keep it as a
+     * command.
+     * @param direction Bat.UP, Bat.STOP or Bat.DOWN
+     * @param dt duration of the frame, as sent to the server
+     * @return the sequence of the command
+     */
+    public int predict(int direction, float dt) {
+        bat.setDirection(direction);
+        bat.update(dt);
+
+        if (count == CAPACITY) {
+            head = (head + 1) % CAPACITY;
+            count--;
+        }
+        int index = (head + count) % CAPACITY;
+        sequences[index] = nextSequence;
+        directions[index] = direction;
+        durations[index] = dt;
+        count++;
+
+        return nextSequence++;
+    }
+
+    /**
+     * Correct the prediction with the authoritative state of the bat.
+     * @param lastSequence last command applied by the server, or a
+     * negative value if none was
+     * @param serverY top of the bat on the server after that command
+     */
+    public void reconcile(int lastSequence, double serverY) {
+        // Forget the commands the server applied
+        while (count > 0 && sequences[head] <= lastSequence) {
+            head = (head + 1) % CAPACITY;
+            count--;
+        }
+
+        // Replay the others from the server position
+        replay.setY(serverY);
+        for (int i = 0; i < count; i++) {
+            int index = (head + i) % CAPACITY;
+            replay.setDirection(directions[index]);
+            replay.update(durations[index]);
+        }
+
+        if (Math.abs(replay.getY() - bat.getY()) > CORRECTION_THRESHOLD) {
+            bat.setY(replay.getY());
+            corrections++;
+        }
+    }
+
+    /**
+     * @return top of the predicted bat
+     */
+    public double getY() {
+        return bat.getY();
+    }
+
+    /**
+     * @return commands not applied by the server yet
+     */
+    public int getPendingCount() {
+        return count;
+    }
+
+    /**
+     * @return times the prediction was corrected
+     */
+    public long getCorrections() {
+        return corrections;
+    }
+}
@@ -0,0 +1,74 @@
+package com.mycompany.datacomprojectTwo.simulation;
+
+/**
+ * Clock running a simulation at a fixed rate whatever the frame rate.
+ * Every frame adds its duration to an accumulator and the simulation is
+ * stepped once per whole step in it; what is left tells how far the
+ * frame is between the last two simulation states, so rendering can
+ * interpolate them. A long frame (window dragged, busy host) runs at most
+ * MAX_STEPS steps, the rest of the time is dropped instead of slowing
+ * every following frame down.
+ */
+public class FixedTimestep {
+
+    // Most steps run for one frame
+    public static final int MAX_STEPS = 8;
+
+    // Duration of a step in seconds
+    private final double step;
+
+    // Time not simulated yet, less than a step after advance()
+    private double accumulator;
+
+    // Steps dropped by long frames
+    private long droppedSteps;
+
+    /**
+     * Create a clock.
+     * @param rate steps per second
+     */
+    public FixedTimestep(int rate) {
+        this.step = 1.0 / rate;
+    }
+
+    /**
+     * Add a frame to the clock.
+     * @param frameTime duration of the frame in seconds
+     * @return the number of steps to simulate for this frame
+     */
+    public int advance(double frameTime) {
+        accumulator += frameTime;
+
+        int steps = (int) (accumulator / step);
+        if (steps > MAX_STEPS) {
+            droppedSteps += steps - MAX_STEPS;
+            steps = MAX_STEPS;
+            accumulator = step * steps;
+        }
+        accumulator -= step * steps;
+
+        return steps;
+    }
+
+    /**
+     * @return duration of a step in seconds
+     */
+    public double getStep() {
+        return step;
+    }
+
+    /**
+     * @return how far the current time is between the previous state
+     * (0) and the last state (1) of the simulation
+     */
+    public double getAlpha() {
+        return accumulator / step;
+    }
+
+    /**
+     * @return steps dropped by long frames
+     */
+    public long getDroppedSteps() {
+        return droppedSteps;
+    }
+}
@@ -0,0 +1,27 @@
+package com.mycompany.datacomprojectTwo.simulation;
+
+/**
+ * Receives the events of a simulated match. Players are numbered
+ * 1 (left bat, the host in the FXGL game) and 2 (right bat, the client).
+ */
+public interface MatchListener {
+
+    /**
+     * The ball bounced on a bat.
+     * @param player owner of the bat
+     */
+    default void onBatHit(int player) {}
+
+    /**
+     * A player scored a point.
+     * @param player player who scored
+     * @param score new score of the player
+     */
+    default void onScore(int player, int score) {}
+
+    /**
+     * A player reached the winning score.
+     * @param winner player who won
+     */
+    default void onGameOver(int winner) {}
+}
@@ -0,0 +1,130 @@
+package com.mycompany.datacomprojectTwo.simulation;
+
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+
+/**
+ * This class simulates a single pong match without FXGL: the ball bounces
+ * on the walls and on the bats (see BallPhysics), touching the left or
+ * right wall gives a point to the other player, and the
+ * BallComponent/BatComponent rules are applied every step. The state is
+ * the only match of a MatchState, stepped by the same code as the rooms
+ * of the headless server. The simulation is stepped at a fixed rate by
+ * its owner (the host's FixedTimestep clock), never per frame.
+ */
+public class MatchSimulation {
+
+    // Index of the match in its state
+    public static final int MATCH = 0;
+
+    // State of the match
+    private final MatchState state = new MatchState(1);
+
+    // Moves the ball and finds its bounces
+    private final BallPhysics physics = new BallPhysics(WORLD_WIDTH, WORLD_HEIGHT);
+
+    // Receives the match events
+    private final MatchListener listener;
+
+    /**
+     * Create a match with the entities placed like PongServer spawns them.
+     * @param listener receives the match events
+     */
+    public MatchSimulation(MatchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Advance the match by one step.
+     * @param dt time step in seconds
+     */
+    public void step(double dt) {
+        state.step(MATCH, dt, physics, listener);
+    }
+
+    /**
+     * Set the input direction of a player's bat.
+     * @param player 1 or 2
+     * @param direction Bat.UP, Bat.STOP or Bat.DOWN
+     */
+    public void setBatDirection(int player, int direction) {
+        state.setBatDirection(MATCH, player, direction);
+    }
+
+    /**
+     * Move a player's bat for an input command, without changing the
+     * direction used by step().
+     * @param player 1 or 2
+     * @param direction Bat.UP, Bat.STOP or Bat.DOWN
+     * @param dt duration of the command in seconds
+     */
+    public void moveBat(int player, int direction, double dt) {
+        state.moveBat(MATCH, player, direction, dt);
+    }
+
+    /**
+     * Set the scores, e.g. of a loaded game.
+     * @param playerOneScore score of player one
+     * @param playerTwoScore score of player two
+     */
+    public void setScores(int playerOneScore, int playerTwoScore) {
+        state.setScores(MATCH, playerOneScore, playerTwoScore);
+    }
+
+    /**
+     * Place the ball.
+     * @param x left of the ball
+     * @param y top of the ball
+     * @param velocityX horizontal velocity
+     * @param velocityY vertical velocity
+     */
+    public void setBall(double x, double y, double velocityX, double velocityY) {
+        state.setBall(MATCH, x, y, velocityX, velocityY);
+    }
+
+    /**
+     * @return state holding the match at index MATCH
+     */
+    public MatchState getState() {
+        return state;
+    }
+
+    public double getBallX() {
+        return state.getBallX(MATCH);
+    }
+
+    public double getBallY() {
+        return state.getBallY(MATCH);
+    }
+
+    public double getBallVelocityX() {
+        return state.getBallVelocityX(MATCH);
+    }
+
+    public double getBallVelocityY() {
+        return state.getBallVelocityY(MATCH);
+    }
+
+    public double getBatX(int player) {
+        return MatchState.getBatX(player);
+    }
+
+    public double getBatY(int player) {
+        return state.getBatY(MATCH, player);
+    }
+
+    public double getBatVelocityY(int player) {
+        return state.getBatVelocityY(MATCH, player);
+    }
+
+    public int getScore(int player) {
+        return state.getScore(MATCH, player);
+    }
+
+    public long getTick() {
+        return state.getTick(MATCH);
+    }
+
+    public boolean isGameOver() {
+        return state.isGameOver(MATCH);
+    }
+}
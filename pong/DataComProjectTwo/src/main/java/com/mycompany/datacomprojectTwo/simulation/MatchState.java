@@ -0,0 +1,290 @@
+package com.mycompany.datacomprojectTwo.simulation;
+
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.nio.ByteBuffer;
+
+/**
+ * State of many matches without FXGL and without an object per entity:
+ * every field is a primitive array indexed by the match (the bats by
+ * match * 2 + player - 1), so a match costs BYTES_PER_MATCH bytes and
+ * stepping a block of matches walks contiguous memory. step() applies the
+ * same rules as the FXGL components and is used by every simulation path:
+ * the host game and the headless rooms through MatchSimulation or Room.
+ * A MatchState is not thread-safe; two threads may step different matches
+ * of the same state, each with its own BallPhysics.
+ */
+public class MatchState {
+
+    // Bytes of the arrays for one match: ball (4 doubles), bats (2 x 2
+    // doubles and a byte), scores (2 ints), tick and game over; also the
+    // size of a match written by write()
+    public static final int BYTES_PER_MATCH = 4 * 8 + 2 * (2 * 8 + 1) + 2 * 4 + 8 + 1;
+
+    // Left of the bats of player one and two
+    private static final double BAT_ONE_X = WORLD_WIDTH / 4;
+    private static final double BAT_TWO_X = 3 * WORLD_WIDTH / 4 - PADDLE_WIDTH;
+
+    // Number of matches
+    private final int capacity;
+
+    // Ball position (top left corner) and velocity
+    private final double[] ballX;
+    private final double[] ballY;
+    private final double[] ballVelocityX;
+    private final double[] ballVelocityY;
+
+    // Bats: top, vertical velocity and input direction
+    private final double[] batY;
+    private final double[] batVelocityY;
+    private final byte[] batDirection;
+
+    // Scores of both players
+    private final int[] scores;
+
+    // Number of steps simulated
+    private final long[] ticks;
+
+    // Flags when a player reached the winning score
+    private final boolean[] gameOver;
+
+    /**
+     * Create matches, all reset.
+     * @param capacity number of matches
+     */
+    public MatchState(int capacity) {
+        this.capacity = capacity;
+        ballX = new double[capacity];
+        ballY = new double[capacity];
+        ballVelocityX = new double[capacity];
+        ballVelocityY = new double[capacity];
+        batY = new double[capacity * 2];
+        batVelocityY = new double[capacity * 2];
+        batDirection = new byte[capacity * 2];
+        scores = new int[capacity * 2];
+        ticks = new long[capacity];
+        gameOver = new boolean[capacity];
+
+        for (int match = 0; match < capacity; match++) {
+            reset(match);
+        }
+    }
+
+    /**
+     * Start a match over: ball served from the middle, bats centered,
+     * no points.
+     * @param match index of the match
+     */
+    public void reset(int match) {
+        ballX[match] = WORLD_WIDTH / 2 - BALL_RADIUS;
+        ballY[match] = WORLD_HEIGHT / 2 - BALL_RADIUS;
+        ballVelocityX[match] = LINEAR_VELOCITY;
+        ballVelocityY[match] = -LINEAR_VELOCITY;
+
+        for (int i = match * 2; i < match * 2 + 2; i++) {
+            batY[i] = WORLD_HEIGHT / 2 - PADDLE_HEIGHT / 2;
+            batVelocityY[i] = 0;
+            batDirection[i] = Bat.STOP;
+            scores[i] = 0;
+        }
+
+        ticks[match] = 0;
+        gameOver[match] = false;
+    }
+
+    /**
+     * Advance a match by one step.
+     * @param match index of the match
+     * @param dt time step in seconds
+     * @param physics moves the ball, owned by the calling thread
+     * @param listener receives the match events
+     */
+    public void step(int match, double dt, BallPhysics physics, MatchListener listener) {
+        if (gameOver[match]) {
+            return;
+        }
+        ticks[match]++;
+
+        for (int i = match * 2; i < match * 2 + 2; i++) {
+            batVelocityY[i] = PongRules.batVelocity(batDirection[i], batY[i], dt);
+            batY[i] = PongRules.clampBatY(batY[i] + batVelocityY[i] * dt);
+        }
+
+        physics.move(this, match, dt);
+
+        for (int i = 0; i < physics.getHitCount(); i++) {
+            onHit(match, physics.getHit(i), listener);
+        }
+
+        // BallComponent rules
+        ballVelocityX[match] = PongRules.limitVelocityX(ballVelocityX[match]);
+        ballVelocityY[match] = PongRules.limitVelocityY(ballVelocityY[match]);
+    }
+
+    /**
+     * Score the hits on the left and right walls and report the bat hits.
+     */
+    private void onHit(int match, int surface, MatchListener listener) {
+        switch (surface) {
+            case BallPhysics.LEFT_WALL:
+                score(match, 2, listener);
+                break;
+            case BallPhysics.RIGHT_WALL:
+                score(match, 1, listener);
+                break;
+            case BallPhysics.BAT_ONE:
+                listener.onBatHit(1);
+                break;
+            case BallPhysics.BAT_TWO:
+                listener.onBatHit(2);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Give a point to a player and end the match at the winning score.
+     */
+    private void score(int match, int player, MatchListener listener) {
+        int score = ++scores[match * 2 + player - 1];
+        listener.onScore(player, score);
+
+        if (score >= WINNING_SCORE && !gameOver[match]) {
+            gameOver[match] = true;
+            listener.onGameOver(player);
+        }
+    }
+
+    /**
+     * Write the full state of a match, e.g. as a replay keyframe.
+     * @param match index of the match
+     * @param buffer receives BYTES_PER_MATCH bytes
+     */
+    public void write(int match, ByteBuffer buffer) {
+        buffer.putDouble(ballX[match]).putDouble(ballY[match])
+                .putDouble(ballVelocityX[match]).putDouble(ballVelocityY[match]);
+        for (int i = match * 2; i < match * 2 + 2; i++) {
+            buffer.putDouble(batY[i]).putDouble(batVelocityY[i]).put(batDirection[i]).putInt(scores[i]);
+        }
+        buffer.putLong(ticks[match]).put((byte) (gameOver[match] ? 1 : 0));
+    }
+
+    /**
+     * Replace the state of a match by one written by write().
+     * @param match index of the match
+     * @param buffer gives BYTES_PER_MATCH bytes
+     */
+    public void read(int match, ByteBuffer buffer) {
+        ballX[match] = buffer.getDouble();
+        ballY[match] = buffer.getDouble();
+        ballVelocityX[match] = buffer.getDouble();
+        ballVelocityY[match] = buffer.getDouble();
+        for (int i = match * 2; i < match * 2 + 2; i++) {
+            batY[i] = buffer.getDouble();
+            batVelocityY[i] = buffer.getDouble();
+            batDirection[i] = buffer.get();
+            scores[i] = buffer.getInt();
+        }
+        ticks[match] = buffer.getLong();
+        gameOver[match] = buffer.get() != 0;
+    }
+
+    /**
+     * Move a bat for an input command, without changing its direction.
+     * @param match index of the match
+     * @param player 1 or 2
+     * @param direction Bat.UP, Bat.STOP or Bat.DOWN
+     * @param dt duration of the command in seconds
+     */
+    public void moveBat(int match, int player, int direction, double dt) {
+        int i = match * 2 + player - 1;
+        batVelocityY[i] = PongRules.batVelocity(direction, batY[i], dt);
+        batY[i] = PongRules.clampBatY(batY[i] + batVelocityY[i] * dt);
+    }
+
+    /**
+     * @param player 1 or 2
+     * @return left of the player's bat, the same in every match
+     */
+    public static double getBatX(int player) {
+        return player == 1 ? BAT_ONE_X : BAT_TWO_X;
+    }
+
+    public double getBallX(int match) {
+        return ballX[match];
+    }
+
+    public double getBallY(int match) {
+        return ballY[match];
+    }
+
+    public double getBallVelocityX(int match) {
+        return ballVelocityX[match];
+    }
+
+    public double getBallVelocityY(int match) {
+        return ballVelocityY[match];
+    }
+
+    /**
+     * Place the ball of a match.
+     * @param match index of the match
+     * @param x left of the ball
+     * @param y top of the ball
+     * @param velocityX horizontal velocity
+     * @param velocityY vertical velocity
+     */
+    public void setBall(int match, double x, double y, double velocityX, double velocityY) {
+        ballX[match] = x;
+        ballY[match] = y;
+        ballVelocityX[match] = velocityX;
+        ballVelocityY[match] = velocityY;
+    }
+
+    public double getBatY(int match, int player) {
+        return batY[match * 2 + player - 1];
+    }
+
+    public void setBatY(int match, int player, double y) {
+        batY[match * 2 + player - 1] = y;
+    }
+
+    public double getBatVelocityY(int match, int player) {
+        return batVelocityY[match * 2 + player - 1];
+    }
+
+    public int getBatDirection(int match, int player) {
+        return batDirection[match * 2 + player - 1];
+    }
+
+    public void setBatDirection(int match, int player, int direction) {
+        batDirection[match * 2 + player - 1] = (byte) direction;
+    }
+
+    public int getScore(int match, int player) {
+        return scores[match * 2 + player - 1];
+    }
+
+    /**
+     * Set the scores of a match, e.g. of a loaded game.
+     * @param match index of the match
+     * @param playerOneScore score of player one
+     * @param playerTwoScore score of player two
+     */
+    public void setScores(int match, int playerOneScore, int playerTwoScore) {
+        scores[match * 2] = playerOneScore;
+        scores[match * 2 + 1] = playerTwoScore;
+    }
+
+    public long getTick(int match) {
+        return ticks[match];
+    }
+
+    public boolean isGameOver(int match) {
+        return gameOver[match];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,145 @@
+package com.mycompany.datacomprojectTwo.simulation;
+
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+
+/**
+ * Computer player for one bat. Instead of stepping the physics, the bot
+ * solves where the center of the ball will cross the face of its bat:
+ * the straight line is unfolded across the top and bottom walls, so any
+ * number of wall bounces costs one division and one modulo. The bat is
+ * then moved toward that point plus an aim error drawn for every shot,
+ * after a reaction delay once the ball changed direction. Deciding does
+ * not allocate (the random numbers come from a xorshift in a long), so a
+ * core can drive thousands of bots.
+ */
+public class PongBot {
+
+    // Distance (pixels) to the target under which the bat stops, against jitter
+    private static final double DEAD_ZONE = 2;
+
+    // Bat played (1 left, 2 right) and the X the ball center has when it touches its face
+    private final int player;
+    private final double faceX;
+
+    // Seconds before reacting to a new shot
+    private final double reactionDelay;
+
+    // Largest distance (pixels) between the aimed point and the ball
+    private final double aimError;
+
+    // State of the xorshift generator, never 0
+    private long seed;
+
+    // Horizontal direction of the ball at the last decision
+    private double lastSign;
+
+    // Time since the ball changed direction
+    private double sinceShot;
+
+    // Aim error of the current shot
+    private double aim;
+
+    // Last direction decided, kept during the reaction delay
+    private int direction = Bat.STOP;
+
+    /**
+     * Create a bot.
+     * @param player 1 (left bat) or 2 (right bat)
+     * @param reactionDelay seconds before reacting to a new shot
+     * @param aimError largest distance (pixels) between the aimed point and the ball
+     * @param seed seed of the aim errors
+     */
+    public PongBot(int player, double reactionDelay, double aimError, long seed) {
+        this.player = player;
+        this.reactionDelay = reactionDelay;
+        this.aimError = aimError;
+        this.seed = seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+        faceX = player == 1
+                ? MatchState.getBatX(1) + PADDLE_WIDTH + BALL_RADIUS
+                : MatchState.getBatX(2) - BALL_RADIUS;
+    }
+
+    /**
+     * Decide the direction of the bat for the next step.
+     * @param ballX left of the ball
+     * @param ballY top of the ball
+     * @param velocityX horizontal velocity of the ball
+     * @param velocityY vertical velocity of the ball
+     * @param batY top of the bat
+     * @param dt time since the last decision in seconds
+     * @return Bat.UP, Bat.STOP or Bat.DOWN
+     */
+    public int decide(double ballX, double ballY, double velocityX, double velocityY, double batY, double dt) {
+        double sign = Math.signum(velocityX);
+        if (sign != lastSign) {
+            lastSign = sign;
+            sinceShot = 0;
+            aim = (nextDouble() * 2 - 1) * aimError;
+        } else {
+            sinceShot += dt;
+        }
+        if (sinceShot < reactionDelay) {
+            return direction;
+        }
+
+        double target = WORLD_HEIGHT / 2.0;
+        double centerX = ballX + BALL_RADIUS;
+        boolean coming = player == 1 ? velocityX < 0 && centerX >= faceX : velocityX > 0 && centerX <= faceX;
+        if (coming) {
+            target = interceptY(centerX, ballY + BALL_RADIUS, velocityX, velocityY, faceX,
+                    BALL_RADIUS, WORLD_HEIGHT - BALL_RADIUS) + aim;
+        }
+
+        double offset = target - (batY + PADDLE_HEIGHT / 2.0);
+        if (offset < -DEAD_ZONE) {
+            direction = Bat.UP;
+        } else if (offset > DEAD_ZONE) {
+            direction = Bat.DOWN;
+        } else {
+            direction = Bat.STOP;
+        }
+        return direction;
+    }
+
+    /**
+     * Y of a point moving in a straight line when it reaches an X,
+     * bouncing between two horizontal lines.
+     * @param x start X
+     * @param y start Y, between minY and maxY
+     * @param velocityX horizontal velocity, toward targetX
+     * @param velocityY vertical velocity
+     * @param targetX X to reach
+     * @param minY top line
+     * @param maxY bottom line
+     * @return the Y at targetX, or y if the point never reaches it
+     */
+    public static double interceptY(double x, double y, double velocityX, double velocityY,
+            double targetX, double minY, double maxY) {
+        double time = (targetX - x) / velocityX;
+        if (!(time >= 0) || Double.isInfinite(time)) {
+            return y;
+        }
+
+        // Unfolded, the walls repeat every two heights, mirrored every other
+        double height = maxY - minY;
+        double unfolded = (y - minY + velocityY * time) % (2 * height);
+        if (unfolded < 0) {
+            unfolded += 2 * height;
+        }
+        return minY + (unfolded <= height ? unfolded : 2 * height - unfolded);
+    }
+
+    /**
+     * @return a random number in [0, 1)
+     */
+    private double nextDouble() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (seed >>> 11) * 0x1.0p-53;
+    }
+
+    public int getPlayer() {
+        return player;
+    }
+}
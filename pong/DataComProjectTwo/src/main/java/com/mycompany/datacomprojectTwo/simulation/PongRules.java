@@ -0,0 +1,132 @@
+package com.mycompany.datacomprojectTwo.simulation;
+
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import static java.lang.Math.*;
+
+/**
+ * This static class contains the gameplay rules shared by the FXGL
+ * components (BallComponent and BatComponent) and the headless simulation.
+ * The rules only work with plain numbers so they can be used without
+ * any entity, physics world or JavaFX toolkit.
+ */
+public final class PongRules {
+
+    private PongRules() {}
+
+    /**
+     * The ball must not move too slow in X direction.
+     * @param velocityX current X velocity of the ball
+     * @return the corrected X velocity
+     */
+    public static double limitVelocityX(double velocityX) {
+        return limitVelocityX(velocityX, LINEAR_VELOCITY);
+    }
+
+    /**
+     * limitVelocityX for another ball speed.
+     * @param velocityX current X velocity of the ball
+     * @param linearVelocity speed of the ball
+     * @return the corrected X velocity
+     */
+    public static double limitVelocityX(double velocityX, double linearVelocity) {
+        if (abs(velocityX) < linearVelocity) {
+            return signum(velocityX) * linearVelocity;
+        }
+        return velocityX;
+    }
+
+    /**
+     * The ball must not move too fast in Y direction.
+     * @param velocityY current Y velocity of the ball
+     * @return the corrected Y velocity
+     */
+    public static double limitVelocityY(double velocityY) {
+        return limitVelocityY(velocityY, LINEAR_VELOCITY);
+    }
+
+    /**
+     * limitVelocityY for another ball speed.
+     * @param velocityY current Y velocity of the ball
+     * @param linearVelocity speed of the ball
+     * @return the corrected Y velocity
+     */
+    public static double limitVelocityY(double velocityY, double linearVelocity) {
+        if (abs(velocityY) > linearVelocity * 2) {
+            return signum(velocityY) * linearVelocity;
+        }
+        return velocityY;
+    }
+
+    /**
+     * Checks if a bounding box is completely outside of the visible area.
+     * @param x left of the box
+     * @param y top of the box
+     * @param width width of the box
+     * @param height height of the box
+     * @param areaWidth width of the visible area (starts at 0)
+     * @param areaHeight height of the visible area (starts at 0)
+     * @return true when no part of the box is visible
+     */
+    public static boolean isOffscreen(double x, double y, double width, double height,
+            double areaWidth, double areaHeight) {
+        return x + width < 0 || x > areaWidth || y + height < 0 || y > areaHeight;
+    }
+
+    /**
+     * Velocity of a bat that is moving up. On the last step before the
+     * top the bat is slowed down to stop right at it, so the limit does
+     * not depend on the step duration.
+     * @param batY top of the bat
+     * @param dt duration of the step in seconds
+     * @return the Y velocity of the bat
+     */
+    public static double batUpVelocity(double batY, double dt) {
+        double room = max(0, batY);
+        if (room >= PADDLE_SPEED * dt) {
+            return -PADDLE_SPEED;
+        }
+        return room > 0 ? -room / dt : 0;
+    }
+
+    /**
+     * Velocity of a bat that is moving down, slowed down on the last step
+     * before the bottom like batUpVelocity.
+     * @param batBottomY bottom of the bat
+     * @param areaHeight height of the world
+     * @param dt duration of the step in seconds
+     * @return the Y velocity of the bat
+     */
+    public static double batDownVelocity(double batBottomY, double areaHeight, double dt) {
+        double room = max(0, areaHeight - batBottomY);
+        if (room >= PADDLE_SPEED * dt) {
+            return PADDLE_SPEED;
+        }
+        return room > 0 ? room / dt : 0;
+    }
+
+    /**
+     * Velocity of a bat for an input direction.
+     * @param direction Bat.UP, Bat.STOP or Bat.DOWN
+     * @param batY top of the bat
+     * @param dt duration of the step in seconds
+     * @return the Y velocity of the bat
+     */
+    public static double batVelocity(int direction, double batY, double dt) {
+        if (direction < 0) {
+            return batUpVelocity(batY, dt);
+        }
+        if (direction > 0) {
+            return batDownVelocity(batY + PADDLE_HEIGHT, WORLD_HEIGHT, dt);
+        }
+        return 0;
+    }
+
+    /**
+     * Keeps a bat inside the world, against rounding.
+     * @param batY top of the bat
+     * @return the top of the bat inside the world
+     */
+    public static double clampBatY(double batY) {
+        return max(0, min(WORLD_HEIGHT - PADDLE_HEIGHT, batY));
+    }
+}
@@ -0,0 +1,94 @@
+package com.mycompany.datacomprojectTwo.tuning;
+
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+
+/**
+ * The gameplay constants of PongConfig tried by the rally simulator.
+ * Immutable; the with methods give a copy with one value changed.
+ */
+public final class RallyParams {
+
+    // Speed of the ball (LINEAR_VELOCITY), pixels per second
+    private final double ballSpeed;
+
+    // Speed of the bats (PADDLE_SPEED), pixels per second
+    private final double batSpeed;
+
+    // Height of the bats (PADDLE_HEIGHT)
+    private final double batHeight;
+
+    // Radius of the ball (BALL_RADIUS)
+    private final double ballRadius;
+
+    // Part of the normal velocity kept by a bounce (RESTITUTION)
+    private final double restitution;
+
+    /**
+     * Create a set of constants.
+     * @param ballSpeed speed of the ball
+     * @param batSpeed speed of the bats
+     * @param batHeight height of the bats
+     * @param ballRadius radius of the ball
+     * @param restitution part of the normal velocity kept by a bounce
+     */
+    public RallyParams(double ballSpeed, double batSpeed, double batHeight, double ballRadius, double restitution) {
+        this.ballSpeed = ballSpeed;
+        this.batSpeed = batSpeed;
+        this.batHeight = batHeight;
+        this.ballRadius = ballRadius;
+        this.restitution = restitution;
+    }
+
+    /**
+     * @return the constants of the game
+     */
+    public static RallyParams defaults() {
+        return new RallyParams(LINEAR_VELOCITY, PADDLE_SPEED, PADDLE_HEIGHT, BALL_RADIUS, RESTITUTION);
+    }
+
+    public RallyParams withBallSpeed(double value) {
+        return new RallyParams(value, batSpeed, batHeight, ballRadius, restitution);
+    }
+
+    public RallyParams withBatSpeed(double value) {
+        return new RallyParams(ballSpeed, value, batHeight, ballRadius, restitution);
+    }
+
+    public RallyParams withBatHeight(double value) {
+        return new RallyParams(ballSpeed, batSpeed, value, ballRadius, restitution);
+    }
+
+    public RallyParams withBallRadius(double value) {
+        return new RallyParams(ballSpeed, batSpeed, batHeight, value, restitution);
+    }
+
+    public RallyParams withRestitution(double value) {
+        return new RallyParams(ballSpeed, batSpeed, batHeight, ballRadius, value);
+    }
+
+    public double getBallSpeed() {
+        return ballSpeed;
+    }
+
+    public double getBatSpeed() {
+        return batSpeed;
+    }
+
+    public double getBatHeight() {
+        return batHeight;
+    }
+
+    public double getBallRadius() {
+        return ballRadius;
+    }
+
+    public double getRestitution() {
+        return restitution;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ball %.0f px/s, bat %.0f px/s, bat height %.0f, radius %.1f, restitution %.2f",
+                ballSpeed, batSpeed, batHeight, ballRadius, restitution);
+    }
+}
@@ -0,0 +1,241 @@
+package com.mycompany.datacomprojectTwo.tuning;
+
+import com.mycompany.datacomprojectTwo.simulation.BallPhysics;
+import com.mycompany.datacomprojectTwo.simulation.MatchState;
+import com.mycompany.datacomprojectTwo.simulation.PongRules;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Plays rallies without FXGL to tune the gameplay constants. Two scripted
+ * bats play each rally from a random serve until a point: a bat follows
+ * the ball once it comes into its half, aiming its center at a random
+ * point up to AIM_ERROR pixels from the ball, so both the reach of the
+ * bats and their size decide when a rally ends. The rallies run in
+ * chunks on all the cores (a parallel stream), each chunk with its own
+ * BallPhysics and random generator, so a seed always gives the same
+ * results whatever the number of cores.
+ */
+public class RallySimulator {
+
+    // Rallies played by one task of the parallel stream
+    public static final int CHUNK = 2000;
+
+    // Longest rally in steps, stopped without a point past it
+    public static final int MAX_RALLY_STEPS = TICK_RATE * 120;
+
+    // Largest distance (pixels) between the ball and the center of a scripted bat it aims at
+    public static final double AIM_ERROR = 40;
+
+    private static final double DT = 1.0 / TICK_RATE;
+
+    // Constants tried
+    private final RallyParams params;
+
+    /**
+     * Create a simulator.
+     * @param params gameplay constants of the rallies
+     */
+    public RallySimulator(RallyParams params) {
+        this.params = params;
+    }
+
+    /**
+     * Play rallies on all the cores.
+     * @param rallies number of rallies
+     * @param seed seed of the serves and the aims
+     * @return results of the rallies
+     */
+    public RallyStats run(long rallies, long seed) {
+        long start = System.nanoTime();
+        int chunks = (int) ((rallies + CHUNK - 1) / CHUNK);
+
+        RallyStats stats = IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> new Rally(params, new SplittableRandom(seed + chunk * 0x9E3779B97F4A7C15L))
+                        .play((int) Math.min(CHUNK, rallies - (long) chunk * CHUNK)))
+                .reduce(RallyStats::merge)
+                .orElseGet(RallyStats::new);
+
+        stats.setElapsedNanos(System.nanoTime() - start);
+        return stats;
+    }
+
+    /**
+     * State of the rallies of one chunk, used by one thread.
+     */
+    private static final class Rally {
+
+        private final RallyParams params;
+        private final SplittableRandom random;
+        private final BallPhysics physics;
+
+        // Bats: left, top and aim (offset of the bat center from the ball)
+        private final double[] batX = {MatchState.getBatX(1), MatchState.getBatX(2)};
+        private final double[] batY = new double[2];
+        private final double[] aim = new double[2];
+
+        // Ball: top left corner and velocity
+        private double ballX;
+        private double ballY;
+        private double velocityX;
+        private double velocityY;
+
+        Rally(RallyParams params, SplittableRandom random) {
+            this.params = params;
+            this.random = random;
+            this.physics = new BallPhysics(WORLD_WIDTH, WORLD_HEIGHT, PADDLE_WIDTH, params.getBatHeight(),
+                    params.getBallRadius(), params.getRestitution());
+        }
+
+        /**
+         * Play rallies.
+         * @param count number of rallies
+         * @return their results
+         */
+        RallyStats play(int count) {
+            RallyStats stats = new RallyStats();
+            for (int i = 0; i < count; i++) {
+                playRally(stats);
+            }
+            return stats;
+        }
+
+        /**
+         * Serve and play until a point or MAX_RALLY_STEPS.
+         */
+        private void playRally(RallyStats stats) {
+            double radius = params.getBallRadius();
+            double speed = params.getBallSpeed();
+
+            serve();
+            for (int bat = 0; bat < 2; bat++) {
+                batY[bat] = (WORLD_HEIGHT - params.getBatHeight()) / 2;
+                newAim(bat);
+            }
+
+            int hits = 0;
+            for (int step = 1; step <= MAX_RALLY_STEPS; step++) {
+                moveBat(0, velocityX < 0 && ballX + radius < WORLD_WIDTH / 2.0);
+                moveBat(1, velocityX > 0 && ballX + radius > WORLD_WIDTH / 2.0);
+
+                double previousX = ballX;
+                double previousY = ballY;
+                physics.move(ballX, ballY, velocityX, velocityY, batX[0], batY[0], batX[1], batY[1], DT);
+                ballX = physics.getBallX();
+                ballY = physics.getBallY();
+
+                // BallComponent rules
+                velocityX = PongRules.limitVelocityX(physics.getVelocityX(), speed);
+                velocityY = PongRules.limitVelocityY(physics.getVelocityY(), speed);
+
+                boolean point = false;
+                for (int i = 0; i < physics.getHitCount(); i++) {
+                    int surface = physics.getHit(i);
+                    if (surface == BallPhysics.BAT_ONE || surface == BallPhysics.BAT_TWO) {
+                        hits++;
+                        newAim(surface - BallPhysics.BAT_ONE);
+                    } else if (surface == BallPhysics.LEFT_WALL || surface == BallPhysics.RIGHT_WALL) {
+                        point = true;
+                    }
+                }
+                if (physics.getHitCount() == 0) {
+                    countTunnel(stats, previousX, previousY);
+                }
+
+                if (PongRules.isOffscreen(ballX, ballY, 2 * radius, 2 * radius, WORLD_WIDTH, WORLD_HEIGHT)) {
+                    stats.addOffscreenReset();
+                    ballX = WORLD_WIDTH / 2.0 - radius;
+                    ballY = WORLD_HEIGHT / 2.0 - radius;
+                }
+
+                if (point) {
+                    stats.addRally(hits, step, true);
+                    return;
+                }
+            }
+            stats.addRally(hits, MAX_RALLY_STEPS, false);
+        }
+
+        /**
+         * Put the ball in the middle with a random direction.
+         */
+        private void serve() {
+            double speed = params.getBallSpeed();
+            ballX = WORLD_WIDTH / 2.0 - params.getBallRadius();
+            ballY = WORLD_HEIGHT / 2.0 - params.getBallRadius();
+            velocityX = random.nextBoolean() ? speed : -speed;
+            velocityY = random.nextDouble(-speed, speed);
+        }
+
+        /**
+         * Pick where a bat will aim for the next ball.
+         */
+        private void newAim(int bat) {
+            aim[bat] = random.nextDouble(-AIM_ERROR, AIM_ERROR);
+        }
+
+        /**
+         * Move a bat toward the ball, or back to the middle.
+         */
+        private void moveBat(int bat, boolean follow) {
+            double height = params.getBatHeight();
+            double target = follow ? ballY + params.getBallRadius() + aim[bat] : WORLD_HEIGHT / 2.0;
+            double velocity = (target - (batY[bat] + height / 2)) / DT;
+            velocity = Math.max(-params.getBatSpeed(), Math.min(params.getBatSpeed(), velocity));
+            batY[bat] = Math.max(0, Math.min(WORLD_HEIGHT - height, batY[bat] + velocity * DT));
+        }
+
+        /**
+         * Count a step where the center of the ball crossed a bat, grown
+         * by the radius, without bouncing on it.
+         */
+        private void countTunnel(RallyStats stats, double previousX, double previousY) {
+            double radius = params.getBallRadius();
+            for (int bat = 0; bat < 2; bat++) {
+                double left = batX[bat] - radius;
+                double right = batX[bat] + PADDLE_WIDTH + radius;
+                double fromX = previousX + radius;
+                double toX = ballX + radius;
+                if ((fromX <= left && toX >= right) || (fromX >= right && toX <= left)) {
+                    double middle = batX[bat] + PADDLE_WIDTH / 2.0;
+                    double crossY = previousY + (ballY - previousY) * (middle - fromX) / (toX - fromX) + radius;
+                    if (crossY >= batY[bat] - radius && crossY <= batY[bat] + params.getBatHeight() + radius) {
+                        stats.addTunnel();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sweep the ball speed, the bat speed and the bat height around the
+     * game constants and print the rally lengths of each point.
+     * @param args optional rallies per point (default 100000) and seed
+     */
+    public static void main(String[] args) {
+        long rallies = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+        System.out.printf("%d rallies per point on %d cores%n", rallies, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%6s %6s %6s | %6s %4s %4s %4s %7s %7s %7s %12s%n",
+                "ball", "bat", "height", "mean", "p50", "p90", "p99", "endless", "tunnels", "resets", "rallies/s");
+
+        long start = System.nanoTime();
+        RallyParams defaults = RallyParams.defaults();
+        for (double ballSpeed : new double[]{240, 300, 360, 420}) {
+            for (double batSpeed : new double[]{300, 420, 540}) {
+                for (double batHeight : new double[]{40, 60, 80}) {
+                    RallyParams params = defaults.withBallSpeed(ballSpeed).withBatSpeed(batSpeed).withBatHeight(batHeight);
+                    RallyStats stats = new RallySimulator(params).run(rallies, seed);
+                    System.out.printf("%6.0f %6.0f %6.0f | %6.2f %4d %4d %4d %7d %7d %7d %,12.0f%n",
+                            ballSpeed, batSpeed, batHeight, stats.getMeanLength(),
+                            stats.getPercentile(0.5), stats.getPercentile(0.9), stats.getPercentile(0.99),
+                            stats.getEndless(), stats.getTunnels(), stats.getOffscreenResets(),
+                            stats.getRalliesPerSecond());
+                }
+            }
+        }
+        System.out.printf("Sweep done in %.1f s%n", (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,141 @@
+package com.mycompany.datacomprojectTwo.tuning;
+
+/**
+ * Results of a batch of rallies: the distribution of the rally lengths
+ * (bat hits before a point) and the faults of the simulation. Filled by
+ * one thread, then merged.
+ */
+public class RallyStats {
+
+    // Rally lengths counted one by one, longer rallies go in the last bin
+    public static final int MAX_LENGTH = 100;
+
+    // Rallies by length
+    private final long[] lengths = new long[MAX_LENGTH + 1];
+
+    // Rallies played, and their total bat hits and steps
+    private long rallies;
+    private long hits;
+    private long steps;
+
+    // Rallies stopped before a point after MAX_RALLY_STEPS
+    private long endless;
+
+    // Steps where the ball went through a bat without bouncing
+    private long tunnels;
+
+    // Times the ball left the screen and was put back in the middle
+    // (the BallComponent.checkOffscreen path)
+    private long offscreenResets;
+
+    // Wall clock time of the batch
+    private long elapsedNanos;
+
+    /**
+     * Count a finished rally.
+     * @param batHits bat hits of the rally
+     * @param rallySteps steps of the rally
+     * @param ended false if the rally was stopped without a point
+     */
+    void addRally(int batHits, long rallySteps, boolean ended) {
+        rallies++;
+        hits += batHits;
+        steps += rallySteps;
+        lengths[Math.min(batHits, MAX_LENGTH)]++;
+        if (!ended) {
+            endless++;
+        }
+    }
+
+    void addTunnel() {
+        tunnels++;
+    }
+
+    void addOffscreenReset() {
+        offscreenResets++;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Add the results of another batch to this one.
+     * @param other results of another batch
+     * @return this
+     */
+    RallyStats merge(RallyStats other) {
+        for (int i = 0; i <= MAX_LENGTH; i++) {
+            lengths[i] += other.lengths[i];
+        }
+        rallies += other.rallies;
+        hits += other.hits;
+        steps += other.steps;
+        endless += other.endless;
+        tunnels += other.tunnels;
+        offscreenResets += other.offscreenResets;
+        return this;
+    }
+
+    /**
+     * @param fraction between 0 and 1, e.g. 0.9 for the 90th percentile
+     * @return bat hits of the rally at that rank (MAX_LENGTH for longer)
+     */
+    public int getPercentile(double fraction) {
+        long rank = (long) Math.ceil(fraction * rallies);
+        long seen = 0;
+        for (int i = 0; i <= MAX_LENGTH; i++) {
+            seen += lengths[i];
+            if (seen >= rank && seen > 0) {
+                return i;
+            }
+        }
+        return MAX_LENGTH;
+    }
+
+    /**
+     * @param batHits a rally length
+     * @return rallies of that length
+     */
+    public long getCount(int batHits) {
+        return lengths[Math.min(batHits, MAX_LENGTH)];
+    }
+
+    public double getMeanLength() {
+        return rallies == 0 ? 0 : (double) hits / rallies;
+    }
+
+    public long getRallies() {
+        return rallies;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public long getEndless() {
+        return endless;
+    }
+
+    public long getTunnels() {
+        return tunnels;
+    }
+
+    public long getOffscreenResets() {
+        return offscreenResets;
+    }
+
+    /**
+     * @return rallies simulated per second of wall clock time
+     */
+    public double getRalliesPerSecond() {
+        return elapsedNanos == 0 ? 0 : rallies * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return steps simulated per second of wall clock time
+     */
+    public double getStepsPerSecond() {
+        return elapsedNanos == 0 ? 0 : steps * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,177 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.almasb.fxgl.entity.Entity;
+import com.almasb.fxgl.entity.GameWorld;
+import com.almasb.fxgl.physics.BoundingShape;
+import com.almasb.fxgl.physics.HitBox;
+import com.almasb.fxgl.physics.PhysicsComponent;
+import com.almasb.fxgl.physics.PhysicsWorld;
+import com.almasb.fxgl.physics.box2d.dynamics.BodyType;
+import com.almasb.fxgl.physics.box2d.dynamics.FixtureDef;
+import com.mycompany.datacomprojectTwo.simulation.Ball;
+import com.mycompany.datacomprojectTwo.simulation.BallPhysics;
+import com.mycompany.datacomprojectTwo.simulation.Bat;
+import com.mycompany.datacomprojectTwo.simulation.PongRules;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import static org.junit.jupiter.api.Assertions.*;
+import javafx.geometry.Point2D;
+
+/**
+ * Compares the steps per second of the ball moved by BallPhysics and by
+ * the FXGL Box2D physics world the game used (dynamic ball with the
+ * factory's density and restitution, kinematic bats, static screen
+ * bounds, then the BallComponent clamp and off-screen check). Both run the same rally with
+ * moving bats, at the normal speed and at 10 times the speed, and count
+ * how often the ball left the world.
+ * It is skipped by default, run it with:
+ * mvn test -Dtest=BallPhysicsBenchmark -Dpong.benchmark=true
+ */
+@EnabledIfSystemProperty(named = "pong.benchmark", matches = "true")
+public class BallPhysicsBenchmark {
+
+    // Steps measured, after as many warm up steps
+    private static final int STEPS = 1_000_000;
+
+    // Pixels per meter of the FXGL physics world
+    private static final double PPM = 50;
+
+    private static final double DT = 1.0 / TICK_RATE;
+
+    /**
+     * Direction of the bats at a step, the same for both engines.
+     */
+    private static int direction(int step) {
+        return (step / 50) % 3 - 1;
+    }
+
+    /**
+     * Run the swept engine.
+     * @return {steps per second, times the ball left the world}
+     */
+    private static double[] measureSwept(double speed) {
+        BallPhysics physics = new BallPhysics(WORLD_WIDTH, WORLD_HEIGHT);
+        Bat batOne = new Bat(WORLD_WIDTH / 4, WORLD_HEIGHT / 2 - PADDLE_HEIGHT / 2);
+        Bat batTwo = new Bat(3 * WORLD_WIDTH / 4 - PADDLE_WIDTH, WORLD_HEIGHT / 2 - PADDLE_HEIGHT / 2);
+        Ball ball = new Ball();
+        ball.serve();
+        ball.setVelocity(ball.getVelocityX() * speed, ball.getVelocityY() * speed);
+        BallPhysics.HitListener hits = surface -> {};
+
+        long escapes = 0;
+        long start = 0;
+        for (int i = 0; i < 2 * STEPS; i++) {
+            if (i == STEPS) {
+                start = System.nanoTime();
+            }
+            batOne.setDirection(direction(i));
+            batTwo.setDirection(-direction(i));
+            batOne.update(DT);
+            batTwo.update(DT);
+            physics.move(ball, DT, batOne, batTwo, hits);
+            ball.setVelocity(PongRules.limitVelocityX(ball.getVelocityX() / speed) * speed,
+                    PongRules.limitVelocityY(ball.getVelocityY() / speed) * speed);
+
+            if (PongRules.isOffscreen(ball.getX(), ball.getY(), Ball.SIZE, Ball.SIZE, WORLD_WIDTH, WORLD_HEIGHT)) {
+                escapes++;
+                ball.serve();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return new double[]{STEPS * 1e9 / elapsed, escapes};
+    }
+
+    /**
+     * Add an entity with a physics body to the world.
+     */
+    private static PhysicsComponent add(GameWorld world, BodyType type, double x, double y, HitBox... hitBoxes) {
+        Entity entity = new Entity();
+        entity.setPosition(x, y);
+        for (HitBox hitBox : hitBoxes) {
+            entity.getBoundingBoxComponent().addHitBox(hitBox);
+        }
+
+        PhysicsComponent physics = new PhysicsComponent();
+        physics.setBodyType(type);
+        entity.addComponent(physics);
+        world.addEntity(entity);
+        return physics;
+    }
+
+    /**
+     * Run the FXGL physics world.
+     * @return {steps per second, times the ball left the world}
+     */
+    private static double[] measureBox2D(double speed) {
+        GameWorld world = new GameWorld();
+        PhysicsWorld physicsWorld = new PhysicsWorld(WORLD_HEIGHT, PPM);
+        physicsWorld.setGravity(0, 0);
+        world.addWorldListener(physicsWorld);
+
+        // Screen bounds, SCREEN_BOUNDS thick like buildScreenBounds
+        add(world, BodyType.STATIC, 0, 0,
+                new HitBox("LEFT", new Point2D(-SCREEN_BOUNDS, 0), BoundingShape.box(SCREEN_BOUNDS, WORLD_HEIGHT)),
+                new HitBox("RIGHT", new Point2D(WORLD_WIDTH, 0), BoundingShape.box(SCREEN_BOUNDS, WORLD_HEIGHT)),
+                new HitBox("TOP", new Point2D(0, -SCREEN_BOUNDS), BoundingShape.box(WORLD_WIDTH, SCREEN_BOUNDS)),
+                new HitBox("BOT", new Point2D(0, WORLD_HEIGHT), BoundingShape.box(WORLD_WIDTH, SCREEN_BOUNDS)));
+
+        PhysicsComponent batOne = add(world, BodyType.KINEMATIC, WORLD_WIDTH / 4, WORLD_HEIGHT / 2 - PADDLE_HEIGHT / 2,
+                new HitBox(BoundingShape.box(PADDLE_WIDTH, PADDLE_HEIGHT)));
+        PhysicsComponent batTwo = add(world, BodyType.KINEMATIC, 3 * WORLD_WIDTH / 4 - PADDLE_WIDTH, WORLD_HEIGHT / 2 - PADDLE_HEIGHT / 2,
+                new HitBox(BoundingShape.box(PADDLE_WIDTH, PADDLE_HEIGHT)));
+
+        // Ball of PongFactory
+        Entity entity = new Entity();
+        entity.setPosition(WORLD_WIDTH / 2 - BALL_RADIUS, WORLD_HEIGHT / 2 - BALL_RADIUS);
+        entity.getBoundingBoxComponent().addHitBox(new HitBox(BoundingShape.circle(BALL_RADIUS)));
+        PhysicsComponent ball = new PhysicsComponent();
+        ball.setBodyType(BodyType.DYNAMIC);
+        ball.setFixtureDef(new FixtureDef().density(DENSITY).restitution(RESTITUTION));
+        entity.addComponent(ball);
+        world.addEntity(entity);
+        ball.setLinearVelocity(LINEAR_VELOCITY * speed, -LINEAR_VELOCITY * speed);
+
+        long escapes = 0;
+        long start = 0;
+        for (int i = 0; i < 2 * STEPS; i++) {
+            if (i == STEPS) {
+                start = System.nanoTime();
+            }
+            batOne.setVelocityY(direction(i) * PADDLE_SPEED);
+            batTwo.setVelocityY(-direction(i) * PADDLE_SPEED);
+            world.onUpdate(DT);
+            physicsWorld.onUpdate(DT);
+
+            // BallComponent.limitVelocity and checkOffscreen
+            ball.setVelocityX(PongRules.limitVelocityX(ball.getVelocityX() / speed) * speed);
+            ball.setVelocityY(PongRules.limitVelocityY(ball.getVelocityY() / speed) * speed);
+
+            if (PongRules.isOffscreen(entity.getX(), entity.getY(), Ball.SIZE, Ball.SIZE, WORLD_WIDTH, WORLD_HEIGHT)) {
+                escapes++;
+                ball.overwritePosition(new Point2D(WORLD_WIDTH / 2, WORLD_HEIGHT / 2));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return new double[]{STEPS * 1e9 / elapsed, escapes};
+    }
+
+    /**
+     * Prints the steps per second and the escapes of both engines.
+     */
+    @Test
+    public void testSweptAgainstBox2D() {
+        for (double speed : new double[]{1, 10}) {
+            double[] box2d = measureBox2D(speed);
+            double[] swept = measureSwept(speed);
+
+            System.out.printf("Speed x%.0f%n", speed);
+            System.out.printf("  Box2D: %,12.0f steps/s, %,d escapes%n", box2d[0], (long) box2d[1]);
+            System.out.printf("  Swept: %,12.0f steps/s, %,d escapes%n", swept[0], (long) swept[1]);
+
+            assertEquals(0, swept[1]);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.simulation.Ball;
+import com.mycompany.datacomprojectTwo.simulation.BallPhysics;
+import com.mycompany.datacomprojectTwo.simulation.Bat;
+import com.mycompany.datacomprojectTwo.simulation.MatchListener;
+import com.mycompany.datacomprojectTwo.simulation.MatchSimulation;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the swept collision of the ball against the walls and the bats.
+ */
+public class BallPhysicsTest {
+
+    private static final double DT = 1.0 / TICK_RATE;
+
+    private final BallPhysics physics = new BallPhysics(WORLD_WIDTH, WORLD_HEIGHT);
+
+    private final Bat batOne = new Bat(200, 270);
+    private final Bat batTwo = new Bat(580, 270);
+
+    private final List<Integer> hits = new ArrayList<>();
+
+    /**
+     * A ball moving 100 times the bat width per step still bounces on the
+     * bat instead of going through it.
+     */
+    @Test
+    public void testFastBallDoesNotTunnel() {
+        Ball ball = new Ball();
+        ball.setPosition(batTwo.getX() - 100, batTwo.getY() + PADDLE_HEIGHT / 2 - BALL_RADIUS);
+        ball.setVelocity(PADDLE_WIDTH * 100 / DT, 0);
+
+        physics.move(ball, DT, batOne, batTwo, hits::add);
+
+        assertEquals(BallPhysics.BAT_TWO, (int) hits.get(0));
+        assertTrue(ball.getVelocityX() < 0);
+        assertTrue(ball.getX() + Ball.SIZE <= batTwo.getX());
+    }
+
+    /**
+     * The bounce happens at the time of contact: the ball ends the step
+     * as far from the bat as it would have gone past it.
+     */
+    @Test
+    public void testBounceAtTimeOfContact() {
+        Ball ball = new Ball();
+        ball.setPosition(batTwo.getX() - Ball.SIZE - 2, batTwo.getY() + 10);
+        ball.setVelocity(6 / DT, 0);
+
+        physics.move(ball, DT, batOne, batTwo, hits::add);
+
+        assertEquals(batTwo.getX() - Ball.SIZE - 4, ball.getX(), 1e-9);
+        assertEquals(-6 / DT, ball.getVelocityX(), 1e-9);
+    }
+
+    /**
+     * A ball reaching a corner of a bat diagonally bounces back on the
+     * diagonal.
+     */
+    @Test
+    public void testCornerBounce() {
+        Ball ball = new Ball();
+        double d = 20;
+        double cx = batTwo.getX() - d;
+        double cy = batTwo.getY() - d;
+        ball.setPosition(cx - BALL_RADIUS, cy - BALL_RADIUS);
+        ball.setVelocity(d / DT, d / DT);
+
+        physics.move(ball, DT, batOne, batTwo, hits::add);
+
+        assertEquals(BallPhysics.BAT_TWO, (int) hits.get(0));
+        assertEquals(-d / DT, ball.getVelocityX(), 1e-6);
+        assertEquals(-d / DT, ball.getVelocityY(), 1e-6);
+    }
+
+    /**
+     * A fast ball bouncing for a while never leaves the world, and only
+     * the left and right walls give points.
+     */
+    @Test
+    public void testFastBallStaysInWorld() {
+        Ball ball = new Ball();
+        ball.serve();
+        ball.setVelocity(12345, -6789);
+
+        for (int i = 0; i < TICK_RATE * 60; i++) {
+            physics.move(ball, DT, batOne, batTwo, hits::add);
+            assertTrue(ball.getX() >= 0 && ball.getX() + Ball.SIZE <= WORLD_WIDTH);
+            assertTrue(ball.getY() >= 0 && ball.getY() + Ball.SIZE <= WORLD_HEIGHT);
+        }
+        assertTrue(hits.contains(BallPhysics.LEFT_WALL));
+        assertTrue(hits.contains(BallPhysics.TOP_WALL));
+    }
+
+    /**
+     * Two matches given the same inputs end in exactly the same state.
+     */
+    @Test
+    public void testDeterministic() {
+        MatchSimulation first = new MatchSimulation(new MatchListener() {});
+        MatchSimulation second = new MatchSimulation(new MatchListener() {});
+
+        for (int i = 0; i < TICK_RATE * 60; i++) {
+            int direction = (i / 40) % 3 - 1;
+            first.setBatDirection(1, direction);
+            second.setBatDirection(1, direction);
+            first.setBatDirection(2, -direction);
+            second.setBatDirection(2, -direction);
+            first.step(DT);
+            second.step(DT);
+        }
+
+        assertEquals(first.getBallX(), second.getBallX());
+        assertEquals(first.getBallY(), second.getBallY());
+        assertEquals(first.getScore(1), second.getScore(1));
+        assertEquals(first.getScore(2), second.getScore(2));
+    }
+}
@@ -0,0 +1,94 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.simulation.Bat;
+import com.mycompany.datacomprojectTwo.simulation.BatPrediction;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the prediction of the client's bat and its reconciliation with
+ * the server state.
+ */
+public class BatPredictionTest {
+
+    private static final float DT = 1f / TICK_RATE;
+
+    private static final double START_Y = 270;
+
+    /**
+     * The predicted bat moves on the frame of the input, before any
+     * answer of the server.
+     */
+    @Test
+    public void testBatMovesRightAway() {
+        BatPrediction prediction = new BatPrediction(580, START_Y);
+
+        prediction.predict(Bat.UP, DT);
+
+        assertEquals(START_Y - PADDLE_SPEED * (double) DT, prediction.getY(), 1e-9);
+        assertEquals(1, prediction.getPendingCount());
+    }
+
+    /**
+     * A server applying the same commands with the same rules agrees with
+     * the prediction, whatever the delay of its snapshots.
+     */
+    @Test
+    public void testNoCorrectionWhenServerAgrees() {
+        BatPrediction prediction = new BatPrediction(580, START_Y);
+        Bat server = new Bat(580, START_Y);
+
+        int[] directions = new int[40];
+        for (int i = 0; i < directions.length; i++) {
+            directions[i] = i < 25 ? Bat.DOWN : Bat.UP;
+            prediction.predict(directions[i], DT);
+        }
+
+        // The server has applied the first 10 commands
+        for (int i = 0; i < 10; i++) {
+            server.setDirection(directions[i]);
+            server.update(DT);
+        }
+        prediction.reconcile(9, server.getY());
+
+        assertEquals(30, prediction.getPendingCount());
+        assertEquals(0, prediction.getCorrections());
+    }
+
+    /**
+     * When the server disagrees, the pending commands are replayed from
+     * the server position.
+     */
+    @Test
+    public void testCorrectionReplaysPendingCommands() {
+        BatPrediction prediction = new BatPrediction(580, START_Y);
+        for (int i = 0; i < 5; i++) {
+            prediction.predict(Bat.DOWN, DT);
+        }
+
+        // The server applied two commands but from 10 pixels higher
+        double serverY = START_Y - 10 + 2 * PADDLE_SPEED * (double) DT;
+        prediction.reconcile(1, serverY);
+
+        assertEquals(1, prediction.getCorrections());
+        assertEquals(3, prediction.getPendingCount());
+        assertEquals(serverY + 3 * PADDLE_SPEED * (double) DT, prediction.getY(), 1e-6);
+    }
+
+    /**
+     * Once every command is applied, the bat sits at the server position.
+     */
+    @Test
+    public void testAllCommandsAcknowledged() {
+        BatPrediction prediction = new BatPrediction(580, START_Y);
+        for (int i = 0; i < 3; i++) {
+            prediction.predict(Bat.UP, DT);
+        }
+
+        prediction.reconcile(2, 100);
+
+        assertEquals(0, prediction.getPendingCount());
+        assertEquals(100, prediction.getY());
+    }
+}
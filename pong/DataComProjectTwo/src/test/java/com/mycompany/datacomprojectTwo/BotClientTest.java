@@ -0,0 +1,75 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.loadtest.BotClient;
+import com.mycompany.datacomprojectTwo.server.RoomManager;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.io.IOException;
+import java.net.ServerSocket;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests bot clients playing a room server over TCP.
+ */
+public class BotClientTest {
+
+    private static final double DT = 1.0 / TICK_RATE;
+
+    /**
+     * @return a TCP port nobody listens at
+     */
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Two bots are paired into a room, receive its snapshots and move
+     * their bats with commands the server applies.
+     * @throws Exception
+     */
+    @Test
+    public void testBotsPlayARoom() throws Exception {
+        int port = freePort();
+        RoomManager manager = new RoomManager(1);
+        manager.listen(port);
+
+        BotClient[] bots = {
+            new BotClient("127.0.0.1", port, 0, 0, 1),
+            new BotClient("127.0.0.1", port, 0, 0, 2)
+        };
+        try {
+            for (BotClient bot : bots) {
+                bot.connect();
+            }
+
+            // Play for up to 10 seconds, until both sent commands and got snapshots
+            for (int i = 0; i < TICK_RATE * 10; i++) {
+                if (bots[0].getCommandsSent() > 0 && bots[1].getCommandsSent() > 0
+                        && bots[0].getSnapshotsReceived() > 20 && bots[1].getSnapshotsReceived() > 20) {
+                    break;
+                }
+                for (BotClient bot : bots) {
+                    bot.tick(DT);
+                }
+                Thread.sleep(1000 / TICK_RATE);
+            }
+
+            assertEquals(1, manager.getRoomCount());
+            assertTrue(manager.getRoomTickTimes().getCount() > 0);
+            for (BotClient bot : bots) {
+                assertTrue(bot.isConnected());
+                assertTrue(bot.getSnapshotsReceived() > 20, "Snapshots " + bot.getSnapshotsReceived());
+                assertTrue(bot.getCommandsSent() > 0);
+                assertTrue(bot.getBytesReceived() > bot.getSnapshotsReceived() * BotClient.FRAME_HEADER_SIZE);
+                assertTrue(bot.getBytesSent() > 0);
+            }
+        } finally {
+            for (BotClient bot : bots) {
+                bot.close();
+            }
+            manager.stop();
+        }
+    }
+}
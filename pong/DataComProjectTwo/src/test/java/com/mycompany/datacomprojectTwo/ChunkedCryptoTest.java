@@ -0,0 +1,184 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.crypto.ChunkedCrypto;
+import com.mycompany.datacomprojectTwo.crypto.SymmetricCrypto;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import javax.crypto.AEADBadTagException;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the chunked container: round trips, decrypting a range, and the
+ * changes the chunk tags must catch.
+ */
+public class ChunkedCryptoTest {
+
+    // Small chunks, so the files have many of them
+    private static final int CHUNK = 1000;
+
+    private static SecretKey key;
+
+    @BeforeAll
+    public static void initKey() throws Exception {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        key = generator.generateKey();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * A file of many chunks, the last one partial, comes back whole, and
+     * the container has the expected size.
+     * @param folder temporary folder of the files
+     * @throws Exception
+     */
+    @Test
+    public void testRoundTrip(@TempDir Path folder) throws Exception {
+        byte[] data = randomBytes(25 * CHUNK + 123);
+        Path plain = Files.write(folder.resolve("replay"), data);
+        Path encrypted = folder.resolve("replay.enc");
+        Path decrypted = folder.resolve("replay.dec");
+
+        ChunkedCrypto crypto = new ChunkedCrypto(key, CHUNK);
+        crypto.encryptFile(plain, encrypted);
+        assertEquals(ChunkedCrypto.HEADER_SIZE + data.length + 26 * SymmetricCrypto.GCM_TAG_LENGTH, Files.size(encrypted));
+        assertEquals(data.length, ChunkedCrypto.plainLength(encrypted));
+
+        // The chunk size of the file is used, not the one of the reader
+        new ChunkedCrypto(key, 7).decryptFile(encrypted, decrypted);
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+    }
+
+    /**
+     * A range across chunk boundaries, one inside a chunk and the end of
+     * the file decrypt to the right bytes.
+     * @param folder temporary folder of the files
+     * @throws Exception
+     */
+    @Test
+    public void testDecryptRange(@TempDir Path folder) throws Exception {
+        byte[] data = randomBytes(10 * CHUNK + 17);
+        Path encrypted = folder.resolve("replay.enc");
+        ChunkedCrypto crypto = new ChunkedCrypto(key, CHUNK);
+        crypto.encryptFile(Files.write(folder.resolve("replay"), data), encrypted);
+
+        assertArrayEquals(Arrays.copyOfRange(data, 950, 3050), crypto.decryptRange(encrypted, 950, 2100));
+        assertArrayEquals(Arrays.copyOfRange(data, 4100, 4200), crypto.decryptRange(encrypted, 4100, 100));
+        assertArrayEquals(Arrays.copyOfRange(data, 9990, data.length), crypto.decryptRange(encrypted, 9990, 27));
+        assertEquals(0, crypto.decryptRange(encrypted, 5000, 0).length);
+        assertThrows(IOException.class, () -> crypto.decryptRange(encrypted, 10000, 100));
+    }
+
+    /**
+     * A flipped byte fails its chunk only, reading the other chunks still
+     * works, and decrypting the whole file leaves no output.
+     * @param folder temporary folder of the files
+     * @throws Exception
+     */
+    @Test
+    public void testTamperedChunk(@TempDir Path folder) throws Exception {
+        byte[] data = randomBytes(4 * CHUNK);
+        Path encrypted = folder.resolve("replay.enc");
+        Path decrypted = folder.resolve("replay.dec");
+        ChunkedCrypto crypto = new ChunkedCrypto(key, CHUNK);
+        crypto.encryptFile(Files.write(folder.resolve("replay"), data), encrypted);
+
+        byte[] container = Files.readAllBytes(encrypted);
+        int third = ChunkedCrypto.HEADER_SIZE + 2 * (CHUNK + SymmetricCrypto.GCM_TAG_LENGTH);
+        container[third + 10] ^= 1;
+        Files.write(encrypted, container);
+
+        assertThrows(AEADBadTagException.class, () -> crypto.decryptRange(encrypted, 2 * CHUNK, 10));
+        assertArrayEquals(Arrays.copyOfRange(data, 0, 2 * CHUNK), crypto.decryptRange(encrypted, 0, 2 * CHUNK));
+        assertThrows(AEADBadTagException.class, () -> crypto.decryptFile(encrypted, decrypted));
+        assertFalse(Files.exists(decrypted));
+    }
+
+    /**
+     * Swapped chunks, a changed header and a truncated file are refused.
+     * @param folder temporary folder of the files
+     * @throws Exception
+     */
+    @Test
+    public void testReorderedAndTruncated(@TempDir Path folder) throws Exception {
+        Path encrypted = folder.resolve("replay.enc");
+        Path decrypted = folder.resolve("replay.dec");
+        ChunkedCrypto crypto = new ChunkedCrypto(key, CHUNK);
+        crypto.encryptFile(Files.write(folder.resolve("replay"), randomBytes(3 * CHUNK)), encrypted);
+        byte[] container = Files.readAllBytes(encrypted);
+        int sealed = CHUNK + SymmetricCrypto.GCM_TAG_LENGTH;
+
+        byte[] swapped = container.clone();
+        System.arraycopy(container, ChunkedCrypto.HEADER_SIZE, swapped, ChunkedCrypto.HEADER_SIZE + sealed, sealed);
+        System.arraycopy(container, ChunkedCrypto.HEADER_SIZE + sealed, swapped, ChunkedCrypto.HEADER_SIZE, sealed);
+        Files.write(encrypted, swapped);
+        assertThrows(AEADBadTagException.class, () -> crypto.decryptFile(encrypted, decrypted));
+
+        // A shorter length in the header, with the file cut to match
+        byte[] shortened = Arrays.copyOf(container, ChunkedCrypto.HEADER_SIZE + 2 * sealed);
+        shortened[5 + 4 + 7] = (byte) (2 * CHUNK & 0xff);
+        shortened[5 + 4 + 6] = (byte) (2 * CHUNK >> 8);
+        Files.write(encrypted, shortened);
+        assertEquals(2 * CHUNK, ChunkedCrypto.plainLength(encrypted));
+        assertThrows(AEADBadTagException.class, () -> crypto.decryptFile(encrypted, decrypted));
+
+        Files.write(encrypted, Arrays.copyOf(container, container.length - 1));
+        assertThrows(IOException.class, () -> crypto.decryptFile(encrypted, decrypted));
+        Files.write(encrypted, new byte[]{'n', 'o', 'p', 'e'});
+        assertThrows(IOException.class, () -> ChunkedCrypto.plainLength(encrypted));
+    }
+
+    /**
+     * An empty file still makes an authenticated chunk.
+     * @param folder temporary folder of the files
+     * @throws Exception
+     */
+    @Test
+    public void testEmptyFile(@TempDir Path folder) throws Exception {
+        Path encrypted = folder.resolve("empty.enc");
+        Path decrypted = folder.resolve("empty.dec");
+        ChunkedCrypto crypto = new ChunkedCrypto(key);
+        crypto.encryptFile(Files.write(folder.resolve("empty"), new byte[0]), encrypted);
+        assertEquals(ChunkedCrypto.HEADER_SIZE + SymmetricCrypto.GCM_TAG_LENGTH, Files.size(encrypted));
+
+        crypto.decryptFile(encrypted, decrypted);
+        assertEquals(0, Files.size(decrypted));
+    }
+
+    /**
+     * A small file in chunks of the largest size needs no large buffers,
+     * and a header with a larger chunk size is refused before any buffer
+     * is allocated.
+     * @param folder temporary folder of the files
+     * @throws Exception
+     */
+    @Test
+    public void testChunkSizeBound(@TempDir Path folder) throws Exception {
+        byte[] data = randomBytes(100);
+        Path encrypted = folder.resolve("replay.enc");
+        ChunkedCrypto crypto = new ChunkedCrypto(key, ChunkedCrypto.MAX_CHUNK_SIZE);
+        crypto.encryptFile(Files.write(folder.resolve("replay"), data), encrypted);
+        assertArrayEquals(Arrays.copyOfRange(data, 10, 60), crypto.decryptRange(encrypted, 10, 50));
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedCrypto(key, ChunkedCrypto.MAX_CHUNK_SIZE + 1));
+
+        byte[] crafted = Files.readAllBytes(encrypted);
+        crafted[5] = 0x7f;
+        crafted[6] = crafted[7] = crafted[8] = (byte) 0xff;
+        Files.write(encrypted, crafted);
+        assertThrows(IOException.class, () -> ChunkedCrypto.plainLength(encrypted));
+        assertThrows(IOException.class, () -> crypto.decryptFile(encrypted, folder.resolve("replay.dec")));
+    }
+}
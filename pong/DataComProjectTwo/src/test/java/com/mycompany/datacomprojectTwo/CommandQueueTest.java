@@ -0,0 +1,104 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.server.CommandQueue;
+import com.mycompany.datacomprojectTwo.simulation.Bat;
+import com.mycompany.datacomprojectTwo.simulation.MatchState;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the server, not the client, decides how far a bat moves for
+ * the commands it receives.
+ */
+public class CommandQueueTest {
+
+    private static final double TICK = 1.0 / TICK_RATE;
+
+    private MatchState state;
+    private CommandQueue commands;
+
+    @BeforeEach
+    public void initMatch() {
+        state = new MatchState(1);
+        state.reset(0);
+        state.setBatY(0, 2, WORLD_HEIGHT / 2.0);
+        commands = new CommandQueue();
+    }
+
+    /**
+     * Commands without a positive finite duration are dropped and leave
+     * the bat where it is.
+     */
+    @Test
+    public void testInvalidDurations() {
+        commands.add(PongProtocol.encodeCommand(1, Bat.DOWN, Float.NaN));
+        commands.add(PongProtocol.encodeCommand(2, Bat.DOWN, Float.POSITIVE_INFINITY));
+        commands.add(PongProtocol.encodeCommand(3, Bat.DOWN, -1));
+        commands.add(PongProtocol.encodeCommand(4, Bat.DOWN, 0));
+        assertEquals(0, commands.size());
+        assertEquals(4, commands.getDroppedCount());
+
+        assertEquals(PongProtocol.NO_INPUT, commands.apply(state, 0, 2));
+        assertEquals(WORLD_HEIGHT / 2.0, state.getBatY(0, 2));
+    }
+
+    /**
+     * A long command moves the bat for one tick only, and the commands
+     * beyond one tick wait for the next step.
+     */
+    @Test
+    public void testOneTickPerStep() {
+        double start = state.getBatY(0, 2);
+        commands.add(PongProtocol.encodeCommand(1, Bat.DOWN, 10));
+        assertEquals(1, commands.apply(state, 0, 2));
+        assertEquals(start + PADDLE_SPEED * TICK, state.getBatY(0, 2), 1e-6);
+
+        for (int sequence = 2; sequence <= 5; sequence++) {
+            commands.add(PongProtocol.encodeCommand(sequence, Bat.DOWN, (float) (TICK / 2)));
+        }
+        assertEquals(3, commands.apply(state, 0, 2));
+        assertEquals(start + 2 * PADDLE_SPEED * TICK, state.getBatY(0, 2), 1e-4);
+        assertEquals(2, commands.size());
+        assertEquals(5, commands.apply(state, 0, 2));
+    }
+
+    /**
+     * A flood keeps only the newest MAX_PENDING commands.
+     */
+    @Test
+    public void testFloodBound() {
+        for (int sequence = 0; sequence < 10 * CommandQueue.MAX_PENDING; sequence++) {
+            commands.add(PongProtocol.encodeCommand(sequence, Bat.UP, (float) TICK));
+        }
+        assertEquals(CommandQueue.MAX_PENDING, commands.size());
+        assertEquals(9 * CommandQueue.MAX_PENDING, commands.getDroppedCount());
+        assertEquals(9 * CommandQueue.MAX_PENDING, commands.apply(state, 0, 2));
+    }
+
+    /**
+     * Messages too short for their type are refused before being read.
+     */
+    @Test
+    public void testShortMessages() {
+        byte[] command = PongProtocol.encodeCommand(1, Bat.UP, (float) TICK);
+        assertTrue(PongProtocol.isWellFormed(command));
+        assertFalse(PongProtocol.isWellFormed(Arrays.copyOf(command, PongProtocol.COMMAND_SIZE - 1)));
+        assertFalse(PongProtocol.isWellFormed(new byte[]{PongProtocol.ACK, 0}));
+        assertFalse(PongProtocol.isWellFormed(new byte[]{PongProtocol.INPUT}));
+        assertTrue(PongProtocol.isWellFormed(PongProtocol.encodeAck(7)));
+
+        byte[] hello = PongProtocol.encodeHello(true, 0);
+        assertFalse(PongProtocol.isWellFormed(Arrays.copyOf(hello, 2)));
+        assertTrue(PongProtocol.isWellFormed(Arrays.copyOf(hello, 3)));
+        assertFalse(PongProtocol.helloProbe(Arrays.copyOf(hello, 3)));
+        assertEquals(PongProtocol.STATUS_VERSION_MISMATCH,
+                PongProtocol.welcomeStatus(PongProtocol.encodeWelcome(Arrays.copyOf(hello, 3), 1)));
+
+        commands.add(Arrays.copyOf(command, 3));
+        assertEquals(0, commands.size());
+    }
+}
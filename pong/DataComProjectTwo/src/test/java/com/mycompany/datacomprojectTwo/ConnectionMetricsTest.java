@@ -0,0 +1,213 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.almasb.fxgl.net.Client;
+import com.almasb.fxgl.net.ClientConfig;
+import com.almasb.fxgl.net.Connection;
+import com.almasb.fxgl.net.NetService;
+import com.mycompany.datacomprojectTwo.network.ConnectionMetrics;
+import com.mycompany.datacomprojectTwo.network.MeteredTransport;
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.network.PongTransport;
+import com.mycompany.datacomprojectTwo.network.TcpTransport;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the connection metrics and the pings of the MeteredTransport.
+ */
+public class ConnectionMetricsTest {
+
+    /**
+     * Transport handing the messages to its peer at once.
+     */
+    private static class DirectTransport implements PongTransport {
+
+        private DirectTransport peer;
+        private Consumer<byte[]> handler = message -> {};
+
+        @Override
+        public void sendReliable(byte[] message) {
+            peer.handler.accept(message);
+        }
+
+        @Override
+        public void sendUnreliable(byte[] message) {
+            sendReliable(message);
+        }
+
+        @Override
+        public void setOnMessage(Consumer<byte[]> handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Messages and bytes are counted by type, and the rates come from a
+     * copy.
+     */
+    @Test
+    public void testCountsByType() {
+        ConnectionMetrics metrics = new ConnectionMetrics();
+        ConnectionMetrics start = metrics.copy();
+        for (int i = 0; i < 3; i++) {
+            metrics.countSent(PongProtocol.encodeAck(i));
+        }
+        metrics.countSent(PongProtocol.encodeScore(1, 2));
+        metrics.countReceived(PongProtocol.encodeInput(38, true));
+        metrics.countReceived(new byte[]{100, 1, 2});
+
+        assertEquals(3, metrics.getMessagesSent(PongProtocol.ACK));
+        assertEquals(3 * PongProtocol.ACK_SIZE, metrics.getBytesSent(PongProtocol.ACK));
+        assertEquals(1, metrics.getMessagesSent(PongProtocol.SCORE));
+        assertEquals(PongProtocol.INPUT_SIZE, metrics.getBytesReceived(PongProtocol.INPUT));
+        assertEquals(PongProtocol.INPUT_SIZE + 3, metrics.getBytesReceived());
+
+        String line = metrics.format(start, 2);
+        assertTrue(line.contains("queue 2"), line);
+        assertTrue(line.contains(" ack "), line);
+        assertTrue(line.contains(" input "), line);
+        assertFalse(line.contains(" snapshot "), line);
+    }
+
+    /**
+     * The smoothed round trip follows the samples and the jitter measures
+     * how much they vary.
+     */
+    @Test
+    public void testRttAndJitter() {
+        ConnectionMetrics steady = new ConnectionMetrics();
+        ConnectionMetrics shaky = new ConnectionMetrics();
+        for (int i = 0; i < 100; i++) {
+            steady.recordRtt(20_000_000);
+            shaky.recordRtt(i % 2 == 0 ? 10_000_000 : 30_000_000);
+        }
+
+        assertEquals(20_000_000, steady.getSmoothedRttNanos());
+        assertTrue(steady.getJitterNanos() < 1_000_000, "Jitter " + steady.getJitterNanos());
+        assertEquals(20_000_000, shaky.getSmoothedRttNanos(), 3_000_000);
+        assertTrue(shaky.getJitterNanos() > 5_000_000, "Jitter " + shaky.getJitterNanos());
+        assertEquals(100, shaky.getRttSamples());
+    }
+
+    /**
+     * A ping is answered by the peer's transport and gives a round trip;
+     * neither the ping nor the pong reaches the game.
+     */
+    @Test
+    public void testPingPong() {
+        DirectTransport a = new DirectTransport();
+        DirectTransport b = new DirectTransport();
+        a.peer = b;
+        b.peer = a;
+        MeteredTransport client = new MeteredTransport(a);
+        MeteredTransport server = new MeteredTransport(b);
+        List<byte[]> clientGot = new ArrayList<>();
+        List<byte[]> serverGot = new ArrayList<>();
+        client.setOnMessage(clientGot::add);
+        server.setOnMessage(serverGot::add);
+
+        client.ping();
+        server.sendReliable(PongProtocol.encodeScore(1, 0));
+
+        assertEquals(1, client.getMetrics().getRttSamples());
+        assertTrue(client.getMetrics().getRttNanos() > 0);
+        assertEquals(1, server.getMetrics().getMessagesReceived(PongProtocol.PING));
+        assertEquals(1, server.getMetrics().getMessagesSent(PongProtocol.PONG));
+        assertTrue(serverGot.isEmpty());
+        assertEquals(1, clientGot.size());
+        assertEquals(PongProtocol.SCORE, PongProtocol.typeOf(clientGot.get(0)));
+    }
+
+    /**
+     * A ping or pong too short to carry its time is counted then dropped,
+     * without an answer or a round trip.
+     */
+    @Test
+    public void testShortPingPong() {
+        DirectTransport a = new DirectTransport();
+        DirectTransport b = new DirectTransport();
+        a.peer = b;
+        b.peer = a;
+        MeteredTransport server = new MeteredTransport(b);
+        List<byte[]> serverGot = new ArrayList<>();
+        server.setOnMessage(serverGot::add);
+
+        a.sendReliable(new byte[]{PongProtocol.PING});
+        a.sendReliable(new byte[]{PongProtocol.PONG});
+
+        assertEquals(1, server.getMetrics().getMessagesReceived(PongProtocol.PING));
+        assertEquals(1, server.getMetrics().getMessagesReceived(PongProtocol.PONG));
+        assertEquals(0, server.getMetrics().getMessagesSent(PongProtocol.PONG));
+        assertEquals(0, server.getMetrics().getRttSamples());
+        assertTrue(serverGot.isEmpty());
+    }
+
+    /**
+     * Over a real TCP connection to a peer that does not read, the queue
+     * depth grows once the socket buffers are full, and falls back to 0
+     * once the peer reads everything.
+     * @throws Exception
+     */
+    @Test
+    public void testTcpQueueDepth() throws Exception {
+        final int messages = 200;
+        final int size = 64 * 1024;
+        TcpTransport.install();
+        try (ServerSocket listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            listener.setReceiveBufferSize(size);
+            CompletableFuture<Connection<byte[]>> connected = new CompletableFuture<>();
+            Client<byte[]> client = new NetService().newTCPClient("localhost", listener.getLocalPort(),
+                    new ClientConfig<>(byte[].class));
+            client.setOnConnected(connected::complete);
+            Thread connector = new Thread(() -> client.connectTask().run(), "pong-test-connect");
+            connector.setDaemon(true);
+            connector.start();
+
+            try (Socket peer = listener.accept()) {
+                MeteredTransport transport = new MeteredTransport(new TcpTransport(connected.get(10, TimeUnit.SECONDS)));
+                for (int i = 0; i < messages; i++) {
+                    byte[] message = new byte[size];
+                    message[0] = PongProtocol.SCORE;
+                    transport.sendReliable(message);
+                }
+                assertTrue(transport.getQueueDepth() > 0, "Depth " + transport.getQueueDepth());
+
+                // The peer reads the length and bytes of every message
+                long expected = (long) messages * (Integer.BYTES + size);
+                long read = 0;
+                byte[] buffer = new byte[size];
+                InputStream in = peer.getInputStream();
+                while (read < expected) {
+                    int n = in.read(buffer);
+                    assertTrue(n > 0, "Connection closed after " + read + " bytes");
+                    read += n;
+                    transport.flush();
+                }
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (transport.getQueueDepth() > 0 && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertEquals(0, transport.getQueueDepth());
+                transport.close();
+            }
+        }
+    }
+}
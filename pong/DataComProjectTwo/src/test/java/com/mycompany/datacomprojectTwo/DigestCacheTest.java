@@ -0,0 +1,155 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.crypto.DigestCache;
+import com.mycompany.datacomprojectTwo.crypto.PongKeyStore;
+import static com.mycompany.datacomprojectTwo.crypto.CryptoConfig.*;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Properties;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the cache of signed files: unchanged files skip the signature work,
+ * changed files and edited cache entries do not.
+ */
+public class DigestCacheTest {
+
+    private static PongKeyStore pks;
+
+    @TempDir
+    Path folder;
+
+    private Path signed;
+    private Path signatureFile;
+    private Path cacheFile;
+
+    @BeforeAll
+    public static void initStore() throws Exception {
+        pks = new PongKeyStore(TESTING_PASSWORD.toCharArray());
+        pks.createAndStoreKeys();
+    }
+
+    @BeforeEach
+    public void initFiles() throws Exception {
+        signed = Files.write(folder.resolve("PongApp.java"), "class PongApp {}".getBytes(StandardCharsets.UTF_8));
+        signatureFile = folder.resolve("PongApp.sig");
+        cacheFile = folder.resolve("PongApp.digests");
+    }
+
+    private byte[] sign() throws Exception {
+        byte[] signature = new DigestCache(cacheFile.toString()).sign(signed.toString(), ECDSA_ALGORITHM,
+                pks.getPrivateKey(), pks.getPublicKey(), pks.getSecretKey());
+        Files.write(signatureFile, signature);
+        return signature;
+    }
+
+    /**
+     * The verification of a file unchanged since its signature skips
+     * ECDSA, also with a new cache read from the file.
+     * @throws Exception
+     */
+    @Test
+    public void testUnchangedFile() throws Exception {
+        byte[] signature = sign();
+        DigestCache digests = new DigestCache(cacheFile.toString());
+        assertTrue(digests.verify(signed.toString(), signature, ECDSA_ALGORITHM, pks.getPublicKey(), pks.getSecretKey()));
+        assertEquals(1, digests.getSkippedCount());
+    }
+
+    /**
+     * A changed file fails its former signature.
+     * @throws Exception
+     */
+    @Test
+    public void testChangedFile() throws Exception {
+        byte[] signature = sign();
+        Files.write(signed, "class PongApp { int x; }".getBytes(StandardCharsets.UTF_8));
+        DigestCache digests = new DigestCache(cacheFile.toString());
+
+        assertFalse(digests.verify(signed.toString(), signature, ECDSA_ALGORITHM, pks.getPublicKey(), pks.getSecretKey()));
+        assertEquals(0, digests.getSkippedCount());
+    }
+
+    /**
+     * A touched file with the same contents is verified from the cache,
+     * which then takes its new time.
+     * @throws Exception
+     */
+    @Test
+    public void testTouchedFile() throws Exception {
+        byte[] signature = sign();
+        Files.setLastModifiedTime(signed, FileTime.fromMillis(Files.getLastModifiedTime(signed).toMillis() - 60_000));
+        DigestCache digests = new DigestCache(cacheFile.toString());
+        assertTrue(digests.verify(signed.toString(), signature, ECDSA_ALGORITHM, pks.getPublicKey(), pks.getSecretKey()));
+        assertEquals(1, digests.getSkippedCount());
+    }
+
+    /**
+     * A file changed to other contents, with its whole entry rewritten to
+     * the size, time and digest of the new contents, fails its
+     * verification: the entry does not pass its HMAC.
+     * @throws Exception
+     */
+    @Test
+    public void testRewrittenEntry() throws Exception {
+        byte[] signature = sign();
+        byte[] changed = "class PongApx {}".getBytes(StandardCharsets.UTF_8);
+        Files.write(signed, changed);
+
+        Properties entries = new Properties();
+        try (InputStream in = Files.newInputStream(cacheFile)) {
+            entries.load(in);
+        }
+        String key = entries.stringPropertyNames().iterator().next();
+        String[] fields = entries.getProperty(key).split(";");
+        fields[0] = String.valueOf(Files.size(signed));
+        fields[1] = String.valueOf(Files.getLastModifiedTime(signed).toMillis());
+        fields[2] = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(changed));
+        entries.setProperty(key, String.join(";", fields));
+        try (OutputStream out = Files.newOutputStream(cacheFile)) {
+            entries.store(out, null);
+        }
+
+        DigestCache digests = new DigestCache(cacheFile.toString());
+        assertFalse(digests.verify(signed.toString(), signature, ECDSA_ALGORITHM, pks.getPublicKey(), pks.getSecretKey()));
+        assertEquals(0, digests.getSkippedCount());
+    }
+
+    /**
+     * An entry edited to hold the digest of a changed file does not pass
+     * its HMAC, so the file is verified and refused.
+     * @throws Exception
+     */
+    @Test
+    public void testForgedEntry() throws Exception {
+        byte[] signature = sign();
+        byte[] changed = "class PongApp { evil(); }".getBytes(StandardCharsets.UTF_8);
+        Files.write(signed, changed);
+
+        Properties entries = new Properties();
+        try (InputStream in = Files.newInputStream(cacheFile)) {
+            entries.load(in);
+        }
+        String key = entries.stringPropertyNames().iterator().next();
+        String[] fields = entries.getProperty(key).split(";");
+        fields[2] = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(changed));
+        entries.setProperty(key, String.join(";", fields));
+        try (OutputStream out = Files.newOutputStream(cacheFile)) {
+            entries.store(out, null);
+        }
+
+        DigestCache digests = new DigestCache(cacheFile.toString());
+        assertFalse(digests.verify(signed.toString(), signature, ECDSA_ALGORITHM, pks.getPublicKey(), pks.getSecretKey()));
+        assertEquals(0, digests.getSkippedCount());
+    }
+}
@@ -0,0 +1,60 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.simulation.FixedTimestep;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the fixed timestep clock of the simulation.
+ */
+public class FixedTimestepTest {
+
+    /**
+     * At 144 frames per second a 60 Hz clock runs 60 steps per second,
+     * 0 or 1 per frame, and the rest of the time sets the alpha.
+     */
+    @Test
+    public void testStepsFollowTimeNotFrames() {
+        FixedTimestep clock = new FixedTimestep(60);
+
+        int steps = 0;
+        for (int frame = 0; frame < 144; frame++) {
+            int frameSteps = clock.advance(1.0 / 144);
+            assertTrue(frameSteps <= 1);
+            steps += frameSteps;
+
+            assertTrue(clock.getAlpha() >= 0 && clock.getAlpha() < 1);
+        }
+
+        assertEquals(60, steps, 1);
+    }
+
+    /**
+     * At 30 frames per second a 120 Hz clock sub-steps 4 times a frame.
+     */
+    @Test
+    public void testSubSteps() {
+        FixedTimestep clock = new FixedTimestep(120);
+
+        int steps = 0;
+        for (int frame = 0; frame < 30; frame++) {
+            steps += clock.advance(1.0 / 30);
+        }
+
+        assertEquals(120, steps, 1);
+    }
+
+    /**
+     * A very long frame runs MAX_STEPS steps and drops the rest.
+     */
+    @Test
+    public void testLongFrameIsBounded() {
+        FixedTimestep clock = new FixedTimestep(60);
+
+        assertEquals(FixedTimestep.MAX_STEPS, clock.advance(2));
+        assertEquals(120 - FixedTimestep.MAX_STEPS, clock.getDroppedSteps());
+
+        // The next frame is not slowed down by the dropped time
+        assertTrue(clock.advance(1.0 / 60) <= 1);
+    }
+}
@@ -0,0 +1,141 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.simulation.Ball;
+import com.mycompany.datacomprojectTwo.simulation.Bat;
+import com.mycompany.datacomprojectTwo.simulation.MatchListener;
+import com.mycompany.datacomprojectTwo.simulation.MatchSimulation;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the headless match simulation: walls, bats, scores and
+ * the rules shared with the FXGL components.
+ */
+public class MatchSimulationTest {
+
+    private static final double DT = 1.0 / TICK_RATE;
+
+    /**
+     * The ball bounces on the top wall instead of leaving the world.
+     */
+    @Test
+    public void testBallBouncesOnTopWall() {
+        MatchSimulation match = new MatchSimulation(new MatchListener() {});
+
+        // The ball is served upwards
+        assertTrue(match.getBallVelocityY() < 0);
+
+        for (int i = 0; i < TICK_RATE * 2; i++) {
+            match.step(DT);
+            assertTrue(match.getBallY() >= 0);
+        }
+        assertTrue(match.getBallVelocityY() > 0);
+    }
+
+    /**
+     * Touching the right wall gives a point to player one.
+     */
+    @Test
+    public void testRightWallScoresForPlayerOne() {
+        int[] scored = new int[3];
+        MatchSimulation match = new MatchSimulation(new MatchListener() {
+            @Override
+            public void onScore(int player, int score) {
+                scored[player] = score;
+            }
+        });
+
+        match.setBall(WORLD_WIDTH - Ball.SIZE - 1, 100, LINEAR_VELOCITY, 0);
+        match.step(DT);
+
+        assertEquals(1, scored[1]);
+        assertEquals(1, match.getScore(1));
+        assertEquals(0, match.getScore(2));
+        assertTrue(match.getBallVelocityX() < 0);
+    }
+
+    /**
+     * The ball coming from the left bounces back on player two's bat.
+     */
+    @Test
+    public void testBallBouncesOnBat() {
+        boolean[] hit = new boolean[1];
+        MatchSimulation match = new MatchSimulation(new MatchListener() {
+            @Override
+            public void onBatHit(int player) {
+                hit[0] = player == 2;
+            }
+        });
+
+        double batX = match.getBatX(2);
+        match.setBall(batX - Ball.SIZE - 2, match.getBatY(2) + PADDLE_HEIGHT / 2, LINEAR_VELOCITY, 0);
+        match.step(DT);
+
+        assertTrue(hit[0]);
+        assertTrue(match.getBallVelocityX() < 0);
+        assertTrue(match.getBallX() + Ball.SIZE <= batX);
+    }
+
+    /**
+     * A bat moving up stops at the top of the world.
+     */
+    @Test
+    public void testBatStopsAtTop() {
+        MatchSimulation match = new MatchSimulation(new MatchListener() {});
+        match.setBatDirection(1, Bat.UP);
+
+        for (int i = 0; i < TICK_RATE * 2; i++) {
+            match.step(DT);
+        }
+
+        assertTrue(match.getBatY(1) >= 0);
+        assertEquals(0, match.getBatVelocityY(1));
+    }
+
+    /**
+     * The bat limits do not depend on the step: at 60 and 240 Hz the bat
+     * ends right at the top and the bottom of the world.
+     */
+    @Test
+    public void testBatLimitsIndependentOfRate() {
+        for (int rate : new int[]{60, 240}) {
+            Bat bat = new Bat(0, 100);
+
+            bat.setDirection(Bat.UP);
+            for (int i = 0; i < rate; i++) {
+                bat.update(1.0 / rate);
+            }
+            assertEquals(0, bat.getY(), 1e-9);
+
+            bat.setDirection(Bat.DOWN);
+            for (int i = 0; i < rate * 2; i++) {
+                bat.update(1.0 / rate);
+            }
+            assertEquals(WORLD_HEIGHT - PADDLE_HEIGHT, bat.getY(), 1e-9);
+        }
+    }
+
+    /**
+     * The match ends when a player reaches the winning score.
+     */
+    @Test
+    public void testGameOver() {
+        int[] winner = new int[1];
+        MatchSimulation match = new MatchSimulation(new MatchListener() {
+            @Override
+            public void onGameOver(int player) {
+                winner[0] = player;
+            }
+        });
+
+        for (int i = 0; i < WINNING_SCORE; i++) {
+            match.setBall(1, 100, -LINEAR_VELOCITY, 0);
+            match.step(DT);
+        }
+
+        assertTrue(match.isGameOver());
+        assertEquals(2, winner[0]);
+        assertEquals(WINNING_SCORE, match.getScore(2));
+    }
+}
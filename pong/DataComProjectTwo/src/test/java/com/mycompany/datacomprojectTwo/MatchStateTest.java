@@ -0,0 +1,92 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.simulation.BallPhysics;
+import com.mycompany.datacomprojectTwo.simulation.Bat;
+import com.mycompany.datacomprojectTwo.simulation.MatchListener;
+import com.mycompany.datacomprojectTwo.simulation.MatchSimulation;
+import com.mycompany.datacomprojectTwo.simulation.MatchState;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the matches stored in a MatchState block.
+ */
+public class MatchStateTest {
+
+    private static final double DT = 1.0 / TICK_RATE;
+
+    // Matches in the block of the tests
+    private static final int MATCHES = 1000;
+
+    /**
+     * Direction of a match's bat at a step, different for every match.
+     */
+    private static int direction(int match, int player, int step) {
+        return ((step + match * 7) / (20 + player * 10)) % 3 - 1;
+    }
+
+    /**
+     * A thousand matches stepped in one block end exactly like the same
+     * matches simulated one by one.
+     */
+    @Test
+    public void testBlockMatchesSingleMatches() {
+        MatchState block = new MatchState(MATCHES);
+        BallPhysics physics = new BallPhysics(WORLD_WIDTH, WORLD_HEIGHT);
+        MatchListener listener = new MatchListener() {};
+
+        for (int step = 0; step < TICK_RATE * 20; step++) {
+            for (int match = 0; match < MATCHES; match++) {
+                block.setBatDirection(match, 1, direction(match, 1, step));
+                block.setBatDirection(match, 2, direction(match, 2, step));
+                block.step(match, DT, physics, listener);
+            }
+        }
+
+        for (int match = 0; match < MATCHES; match += 97) {
+            MatchSimulation single = new MatchSimulation(listener);
+            for (int step = 0; step < TICK_RATE * 20; step++) {
+                single.setBatDirection(1, direction(match, 1, step));
+                single.setBatDirection(2, direction(match, 2, step));
+                single.step(DT);
+            }
+
+            assertEquals(single.getBallX(), block.getBallX(match));
+            assertEquals(single.getBallY(), block.getBallY(match));
+            assertEquals(single.getBatY(1), block.getBatY(match, 1));
+            assertEquals(single.getBatY(2), block.getBatY(match, 2));
+            assertEquals(single.getScore(1), block.getScore(match, 1));
+            assertEquals(single.getScore(2), block.getScore(match, 2));
+            assertEquals(single.getTick(), block.getTick(match));
+        }
+    }
+
+    /**
+     * Stepping or scoring in one match leaves its neighbours unchanged,
+     * and a reset match starts over.
+     */
+    @Test
+    public void testMatchesAreIndependent() {
+        MatchState block = new MatchState(3);
+        BallPhysics physics = new BallPhysics(WORLD_WIDTH, WORLD_HEIGHT);
+
+        block.setBall(1, 1, 100, -LINEAR_VELOCITY, 0);
+        block.setBatDirection(1, 2, Bat.DOWN);
+        block.step(1, DT, physics, new MatchListener() {});
+
+        assertEquals(1, block.getScore(1, 2));
+        assertEquals(1, block.getTick(1));
+        for (int match : new int[]{0, 2}) {
+            assertEquals(0, block.getScore(match, 2));
+            assertEquals(0, block.getTick(match));
+            assertEquals(block.getBatY(match, 1), block.getBatY(match, 2));
+            assertEquals(WORLD_WIDTH / 2 - BALL_RADIUS, block.getBallX(match));
+        }
+
+        block.reset(1);
+        assertEquals(0, block.getScore(1, 2));
+        assertEquals(Bat.STOP, block.getBatDirection(1, 2));
+        assertEquals(block.getBallY(0), block.getBallY(1));
+    }
+}
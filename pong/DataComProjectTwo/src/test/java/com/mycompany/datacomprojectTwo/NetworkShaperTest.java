@@ -0,0 +1,254 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.loadtest.BotClient;
+import com.mycompany.datacomprojectTwo.network.NetworkProfile;
+import com.mycompany.datacomprojectTwo.network.NetworkScript;
+import com.mycompany.datacomprojectTwo.network.ShapedLink;
+import com.mycompany.datacomprojectTwo.network.ShapingProxy;
+import com.mycompany.datacomprojectTwo.server.RoomManager;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the network profiles, the ShapedLink and the ShapingProxy on
+ * loopback.
+ */
+public class NetworkShaperTest {
+
+    private static final double DT = 1.0 / TICK_RATE;
+
+    /**
+     * Packets delivered by a link with their arrival time.
+     */
+    private static class Receiver {
+
+        private final List<Integer> numbers = new CopyOnWriteArrayList<>();
+        private final List<Long> arrivals = new CopyOnWriteArrayList<>();
+
+        void send(byte[] packet) {
+            arrivals.add(System.nanoTime());
+            numbers.add(ByteBuffer.wrap(packet).getInt());
+        }
+
+        /**
+         * @return packets that arrived after a packet sent later
+         */
+        int countOutOfOrder() {
+            int count = 0;
+            for (int i = 1; i < numbers.size(); i++) {
+                if (numbers.get(i) < numbers.get(i - 1)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private static byte[] numbered(int number, int size) {
+        return ByteBuffer.allocate(size).putInt(number).array();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Profiles and scripts are read from text, presets first.
+     */
+    @Test
+    public void testParse() {
+        NetworkProfile profile = NetworkProfile.parse("mobile, loss=0.2,bandwidth=8000");
+        assertEquals(NetworkProfile.MOBILE.getLatencyMillis(), profile.getLatencyMillis());
+        assertEquals(0.2, profile.getLossRate());
+        assertEquals(8000, profile.getBandwidth());
+
+        NetworkScript script = NetworkScript.parse("0:wifi;2.5:latency=300;10:lan");
+        assertEquals(3, script.getStepCount());
+        assertEquals(NetworkProfile.WIFI.getLatencyMillis(), script.profileAt(2499).getLatencyMillis());
+        assertEquals(300, script.profileAt(2500).getLatencyMillis());
+        assertEquals(1, script.profileAt(60_000).getLatencyMillis());
+
+        // Perfect before the first step
+        assertEquals(0, NetworkScript.parse("1:bad").profileAt(500).getLatencyMillis());
+
+        assertThrows(IllegalArgumentException.class, () -> NetworkProfile.parse("latency=fast"));
+        assertThrows(IllegalArgumentException.class, () -> NetworkProfile.parse("dialup"));
+        assertThrows(IllegalArgumentException.class, () -> NetworkScript.parse("5:wifi;1:bad"));
+    }
+
+    /**
+     * Packets are lost at the loss rate and the others arrive in order,
+     * delayed by the latency give or take the jitter.
+     * @throws InterruptedException
+     */
+    @Test
+    public void testLossAndLatency() throws InterruptedException {
+        Receiver receiver = new Receiver();
+        NetworkProfile profile = new NetworkProfile(40, 10, 0.2, 0, 0);
+        ShapedLink link = new ShapedLink(receiver::send, NetworkScript.constant(profile), false, 1);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            link.send(numbered(i, 4));
+        }
+        waitFor(() -> link.getPendingCount() == 0);
+        Thread.sleep(20);
+        link.close();
+
+        int delivered = receiver.numbers.size();
+        assertEquals(1000 - link.getLostCount(), delivered);
+        assertTrue(delivered > 750 && delivered < 850, "Delivered " + delivered);
+        assertEquals(0, receiver.countOutOfOrder());
+
+        long firstDelay = (receiver.arrivals.get(0) - start) / 1_000_000;
+        assertTrue(firstDelay >= 29, "Delay " + firstDelay);
+    }
+
+    /**
+     * Reordered packets are overtaken by the next ones.
+     * @throws InterruptedException
+     */
+    @Test
+    public void testReorder() throws InterruptedException {
+        Receiver receiver = new Receiver();
+        NetworkProfile profile = new NetworkProfile(5, 0, 0, 0.2, 0);
+        ShapedLink link = new ShapedLink(receiver::send, NetworkScript.constant(profile), false, 2);
+
+        for (int i = 0; i < 200; i++) {
+            link.send(numbered(i, 4));
+        }
+        waitFor(() -> receiver.numbers.size() == 200);
+        link.close();
+
+        assertEquals(200, receiver.numbers.size());
+        assertTrue(link.getReorderedCount() > 0);
+        assertTrue(receiver.countOutOfOrder() > 0);
+    }
+
+    /**
+     * A stream loses nothing and keeps its order; its lost packets come
+     * late instead.
+     * @throws InterruptedException
+     */
+    @Test
+    public void testStreamRetransmits() throws InterruptedException {
+        Receiver receiver = new Receiver();
+        NetworkProfile profile = new NetworkProfile(5, 5, 0.3, 0.5, 0);
+        ShapedLink link = new ShapedLink(receiver::send, NetworkScript.constant(profile), true, 3);
+
+        for (int i = 0; i < 100; i++) {
+            link.send(numbered(i, 4));
+        }
+        waitFor(() -> receiver.numbers.size() == 100);
+        link.close();
+
+        assertEquals(100, receiver.numbers.size());
+        assertTrue(link.getLostCount() > 0);
+        assertEquals(0, link.getReorderedCount());
+        assertEquals(0, receiver.countOutOfOrder());
+    }
+
+    /**
+     * The bandwidth cap spreads a burst over time.
+     * @throws InterruptedException
+     */
+    @Test
+    public void testBandwidthCap() throws InterruptedException {
+        Receiver receiver = new Receiver();
+        NetworkProfile profile = NetworkProfile.PERFECT.withBandwidth(200_000);
+        ShapedLink link = new ShapedLink(receiver::send, NetworkScript.constant(profile), false, 4);
+
+        // 100 KB at 200 KB/s
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            link.send(numbered(i, 1000));
+        }
+        waitFor(() -> receiver.numbers.size() == 100);
+        link.close();
+
+        long elapsedMillis = (receiver.arrivals.get(99) - start) / 1_000_000;
+        assertTrue(elapsedMillis >= 490, "Burst took " + elapsedMillis + " ms");
+        assertEquals(100_000, link.getDeliveredBytes());
+    }
+
+    /**
+     * The script changes the conditions while the link runs.
+     * @throws InterruptedException
+     */
+    @Test
+    public void testScriptChangesProfile() throws InterruptedException {
+        Receiver receiver = new Receiver();
+        ShapedLink link = new ShapedLink(receiver::send, NetworkScript.parse("0:perfect;0.3:loss=1"), false, 5);
+
+        for (int i = 0; i < 10; i++) {
+            link.send(numbered(i, 4));
+        }
+        Thread.sleep(400);
+        for (int i = 10; i < 20; i++) {
+            link.send(numbered(i, 4));
+        }
+        Thread.sleep(50);
+        link.close();
+
+        assertEquals(10, receiver.numbers.size());
+        assertEquals(10, link.getLostCount());
+    }
+
+    /**
+     * Bots keep playing a room through a proxy with a bad network, and
+     * the proxy delivers the bytes they count.
+     * @throws Exception
+     */
+    @Test
+    public void testBotsPlayThroughProxy() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        RoomManager manager = new RoomManager(1);
+        manager.listen(port);
+        ShapingProxy proxy = new ShapingProxy(0, "127.0.0.1", port,
+                NetworkScript.parse("latency=30,jitter=10,loss=0.05,bandwidth=20000"), 6);
+        proxy.start();
+
+        BotClient[] bots = {
+            new BotClient("127.0.0.1", proxy.getLocalPort(), 0, 0, 1),
+            new BotClient("127.0.0.1", proxy.getLocalPort(), 0, 0, 2)
+        };
+        try {
+            for (BotClient bot : bots) {
+                bot.connect();
+            }
+            for (int i = 0; i < TICK_RATE * 10
+                    && (bots[0].getSnapshotsReceived() < 30 || bots[1].getSnapshotsReceived() < 30); i++) {
+                for (BotClient bot : bots) {
+                    bot.tick(DT);
+                }
+                Thread.sleep(1000 / TICK_RATE);
+            }
+
+            assertEquals(2, proxy.getConnectionCount());
+            for (BotClient bot : bots) {
+                assertTrue(bot.getSnapshotsReceived() >= 30, "Snapshots " + bot.getSnapshotsReceived());
+            }
+            long received = bots[0].getBytesReceived() + bots[1].getBytesReceived();
+            assertTrue(proxy.getDownstreamBytes() >= received, proxy.getDownstreamBytes() + " < " + received);
+        } finally {
+            for (BotClient bot : bots) {
+                bot.close();
+            }
+            proxy.close();
+            manager.stop();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.network.OutboundQueue;
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.network.Snapshot;
+import com.mycompany.datacomprojectTwo.network.SnapshotCodec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the bounded queue in front of a stalled connection.
+ */
+public class OutboundQueueTest {
+
+    // Messages written to the connection
+    private final List<byte[]> written = new ArrayList<>();
+
+    // Messages the connection did not write yet
+    private final AtomicInteger connectionDepth = new AtomicInteger();
+
+    // Times the peer was given up
+    private final AtomicInteger slowCount = new AtomicInteger();
+
+    private OutboundQueue newQueue(long slowTimeoutMillis) {
+        return new OutboundQueue(message -> {
+            written.add(message);
+            connectionDepth.incrementAndGet();
+        }, connectionDepth::get, slowCount::incrementAndGet, slowTimeoutMillis);
+    }
+
+    private static byte[] snapshotAt(int tick) {
+        Snapshot snapshot = new Snapshot();
+        snapshot.setTick(tick);
+        return SnapshotCodec.encode(snapshot);
+    }
+
+    /**
+     * While the connection is stalled the scores wait in order and only
+     * the newest snapshot is kept; once it writes again, the scores leave
+     * first.
+     */
+    @Test
+    public void testLatestSnapshotWins() {
+        OutboundQueue queue = newQueue(60_000);
+        for (int i = 0; i < OutboundQueue.WINDOW; i++) {
+            queue.send(snapshotAt(i), true);
+        }
+        assertEquals(OutboundQueue.WINDOW, written.size());
+
+        // Stalled
+        queue.send(PongProtocol.encodeScore(1, 0), false);
+        for (int tick = 10; tick < 100; tick++) {
+            queue.send(snapshotAt(tick), true);
+        }
+        queue.send(PongProtocol.encodeScore(2, 0), false);
+        queue.send(PongProtocol.encodePing(1), true);
+        assertEquals(OutboundQueue.WINDOW, written.size());
+        assertEquals(4, queue.getBacklog());
+        assertEquals(89, queue.getCoalescedCount());
+
+        // The connection wrote everything
+        connectionDepth.set(0);
+        queue.flush();
+        List<byte[]> sent = written.subList(OutboundQueue.WINDOW, written.size());
+        assertEquals(4, sent.size());
+        assertEquals(1, PongProtocol.score(sent.get(0), 1));
+        assertEquals(2, PongProtocol.score(sent.get(1), 1));
+        assertEquals(99, SnapshotCodec.tickOf(sent.get(2)));
+        assertEquals(PongProtocol.PING, PongProtocol.typeOf(sent.get(3)));
+        assertEquals(0, queue.getBacklog());
+        assertEquals(0, slowCount.get());
+    }
+
+    /**
+     * A peer behind for longer than the timeout is given up once.
+     * @throws InterruptedException
+     */
+    @Test
+    public void testSlowPeerTimeout() throws InterruptedException {
+        OutboundQueue queue = newQueue(50);
+        connectionDepth.set(OutboundQueue.WINDOW);
+        queue.send(snapshotAt(1), true);
+        queue.flush();
+        assertEquals(0, slowCount.get());
+
+        Thread.sleep(80);
+        queue.flush();
+        assertEquals(1, slowCount.get());
+        assertTrue(queue.isSlow());
+        assertEquals(0, queue.getBacklog());
+
+        queue.send(snapshotAt(2), true);
+        queue.flush();
+        assertEquals(1, slowCount.get());
+        assertTrue(written.isEmpty());
+    }
+
+    /**
+     * A peer letting too many reliable messages pile up is given up at
+     * once.
+     */
+    @Test
+    public void testBacklogBound() {
+        OutboundQueue queue = newQueue(60_000);
+        connectionDepth.set(OutboundQueue.WINDOW);
+        for (int i = 0; i <= OutboundQueue.MAX_BACKLOG; i++) {
+            queue.send(PongProtocol.encodeScore(i % 100, 0), false);
+        }
+        assertEquals(1, slowCount.get());
+        assertEquals(0, queue.getBacklog());
+    }
+}
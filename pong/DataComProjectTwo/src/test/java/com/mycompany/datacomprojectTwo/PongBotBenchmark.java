@@ -0,0 +1,65 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.simulation.PongBot;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures how many bots one core can drive at the tick rate: BOTS bots
+ * decide on balls with random positions and velocities (several wall
+ * bounces before the bat), one decision per bot and per tick.
+ * It is skipped by default, run it with:
+ * mvn test -Dtest=PongBotBenchmark -Dpong.benchmark=true
+ */
+@EnabledIfSystemProperty(named = "pong.benchmark", matches = "true")
+public class PongBotBenchmark {
+
+    // Bots driven, and ticks measured after as many warm up ticks
+    private static final int BOTS = 10_000;
+    private static final int TICKS = 1000;
+
+    private static final double DT = 1.0 / TICK_RATE;
+
+    /**
+     * Prints the decisions per second and the bots a core can drive.
+     */
+    @Test
+    public void testDecisionsPerSecond() {
+        Random random = new Random(1);
+        PongBot[] bots = new PongBot[BOTS];
+        double[] balls = new double[BOTS * 4];
+        for (int i = 0; i < BOTS; i++) {
+            bots[i] = new PongBot(i % 2 + 1, BOT_REACTION_DELAY, BOT_AIM_ERROR, i + 1);
+            balls[i * 4] = random.nextDouble() * WORLD_WIDTH;
+            balls[i * 4 + 1] = random.nextDouble() * WORLD_HEIGHT;
+            balls[i * 4 + 2] = (random.nextDouble() * 2 - 1) * LINEAR_VELOCITY;
+            balls[i * 4 + 3] = (random.nextDouble() * 2 - 1) * LINEAR_VELOCITY * 4;
+        }
+
+        long checksum = 0;
+        long start = 0;
+        for (int tick = 0; tick < 2 * TICKS; tick++) {
+            if (tick == TICKS) {
+                start = System.nanoTime();
+            }
+            for (int i = 0; i < BOTS; i++) {
+                // Reverse every ball from time to time, a new shot for the bot
+                if ((tick + i) % TICK_RATE == 0) {
+                    balls[i * 4 + 2] = -balls[i * 4 + 2];
+                }
+                checksum += bots[i].decide(balls[i * 4], balls[i * 4 + 1], balls[i * 4 + 2], balls[i * 4 + 3],
+                        WORLD_HEIGHT / 2.0, DT);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        double perSecond = (double) BOTS * TICKS * 1e9 / elapsed;
+        System.out.printf("%,.0f decisions/s, %,.0f bots per core at %d Hz (checksum %d)%n",
+                perSecond, perSecond / TICK_RATE, TICK_RATE, checksum);
+
+        assertTrue(perSecond / TICK_RATE > 1000);
+    }
+}
@@ -0,0 +1,106 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.simulation.BallPhysics;
+import com.mycompany.datacomprojectTwo.simulation.MatchListener;
+import com.mycompany.datacomprojectTwo.simulation.MatchSimulation;
+import com.mycompany.datacomprojectTwo.simulation.PongBot;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the computer player and its trajectory solver.
+ */
+public class PongBotTest {
+
+    private static final double DT = 1.0 / TICK_RATE;
+
+    /**
+     * The solved crossing point is where the physics puts the ball after
+     * bouncing on the top and bottom walls.
+     */
+    @Test
+    public void testInterceptMatchesPhysics() {
+        // Bats out of the world, only the walls are hit
+        BallPhysics physics = new BallPhysics(WORLD_WIDTH, WORLD_HEIGHT);
+        Random random = new Random(5);
+
+        for (int i = 0; i < 100; i++) {
+            double x = 100 + random.nextDouble() * 200;
+            double y = BALL_RADIUS + random.nextDouble() * (WORLD_HEIGHT - 2 * BALL_RADIUS);
+            double velocityX = 100 + random.nextDouble() * 400;
+            double velocityY = (random.nextDouble() * 2 - 1) * 1500;
+            double targetX = 700;
+
+            double expected = PongBot.interceptY(x, y, velocityX, velocityY, targetX,
+                    BALL_RADIUS, WORLD_HEIGHT - BALL_RADIUS);
+
+            double remaining = (targetX - x) / velocityX;
+            double ballX = x - BALL_RADIUS;
+            double ballY = y - BALL_RADIUS;
+            while (remaining > 0) {
+                double dt = Math.min(DT, remaining);
+                physics.move(ballX, ballY, velocityX, velocityY, -1000, 0, -1000, 0, dt);
+                ballX = physics.getBallX();
+                ballY = physics.getBallY();
+                velocityY = physics.getVelocityY();
+                remaining -= dt;
+            }
+
+            assertEquals(targetX, ballX + BALL_RADIUS, 1e-6);
+            assertEquals(expected, ballY + BALL_RADIUS, 1e-6, "Shot " + i);
+        }
+    }
+
+    /**
+     * Play a match between two bots for a minute.
+     * @return bat hits of player one and two, then points of player one and two
+     */
+    private static int[] play(PongBot left, PongBot right) {
+        int[] counts = new int[4];
+        MatchSimulation match = new MatchSimulation(new MatchListener() {
+            @Override
+            public void onBatHit(int player) {
+                counts[player - 1]++;
+            }
+
+            @Override
+            public void onScore(int player, int score) {
+                counts[player + 1]++;
+            }
+        });
+
+        for (int i = 0; i < TICK_RATE * 60 && !match.isGameOver(); i++) {
+            for (PongBot bot : new PongBot[]{left, right}) {
+                int player = bot.getPlayer();
+                match.setBatDirection(player, bot.decide(match.getBallX(), match.getBallY(),
+                        match.getBallVelocityX(), match.getBallVelocityY(), match.getBatY(player), DT));
+            }
+            match.step(DT);
+        }
+        return counts;
+    }
+
+    /**
+     * Two bots without delay nor aim error return the ball much more often
+     * than they miss it.
+     */
+    @Test
+    public void testPerfectBotsRally() {
+        int[] counts = play(new PongBot(1, 0, 0, 1), new PongBot(2, 0, 0, 2));
+
+        assertTrue(counts[0] + counts[1] > 10 * (counts[2] + counts[3] + 1),
+                "Hits " + counts[0] + "/" + counts[1] + ", points " + counts[2] + "/" + counts[3]);
+    }
+
+    /**
+     * A slow and imprecise bot loses against a perfect one.
+     */
+    @Test
+    public void testDifficulty() {
+        int[] counts = play(new PongBot(1, 0, 0, 1), new PongBot(2, 0.4, 60, 2));
+
+        assertTrue(counts[2] > counts[3], "Points " + counts[2] + "/" + counts[3]);
+    }
+}
@@ -26,7 +26,7 @@ public class PongDigitalSignatureTest {
     
     @BeforeAll
     public static void initStore()  throws Exception{
-        PongKeyStore pks = new PongKeyStore(TESTING_PASSWORD.toCharArray(),KEY_TOOL_CMD);
+        PongKeyStore pks = new PongKeyStore(TESTING_PASSWORD.toCharArray());
         pks.createAndStoreKeys();
     }
    
@@ -0,0 +1,132 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.crypto.PongDigitalSignature;
+import com.mycompany.datacomprojectTwo.crypto.PongKeyStore;
+import static com.mycompany.datacomprojectTwo.crypto.CryptoConfig.*;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import javax.crypto.KeyGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the time in ms of the keyStore operations done by the game
+ * (get the secret key to save or load, sign, verify) when the keyStore file
+ * is loaded each time, as before, and with the keys unlocked in memory;
+ * and the time to create the keyStore on the first run with the former
+ * keytool process and in-process. It is skipped by default, run it with:
+ * mvn test -Dtest=PongKeyStoreBenchmark -Dpong.benchmark=true
+ */
+@EnabledIfSystemProperty(named = "pong.benchmark", matches = "true")
+public class PongKeyStoreBenchmark {
+
+    // Runs of each operation
+    private static final int RUNS = 20;
+
+    // Keystores created by each path
+    private static final int CREATE_RUNS = 5;
+
+    /**
+     * An operation timed by the benchmark.
+     */
+    private interface KeyTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * Time an operation, once warmed up.
+     * @param locked true to lock the keys before each run
+     * @param runs runs timed
+     * @return ms per run
+     */
+    private static double millisPerRun(boolean locked, int runs, KeyTask task) throws Exception {
+        task.run();
+        long total = 0;
+        for (int i = 0; i < runs; i++) {
+            if (locked) {
+                PongKeyStore.lock();
+            }
+            long start = System.nanoTime();
+            task.run();
+            total += System.nanoTime() - start;
+        }
+        return total / 1e6 / runs;
+    }
+
+    /**
+     * Print the ms per operation with and without the unlocked keys.
+     * @throws Exception
+     */
+    @Test
+    public void testLoadedVersusUnlocked() throws Exception {
+        new PongKeyStore(TESTING_PASSWORD.toCharArray()).createAndStoreKeys();
+        PongDigitalSignature signature = new PongDigitalSignature();
+        byte[] signed = signature.generateSignature(ECDSA_ALGORITHM,
+                new PongKeyStore(TESTING_PASSWORD.toCharArray()).getPrivateKey(), FILE_TO_SIGN);
+
+        KeyTask[] tasks = {
+            () -> assertNotNull(new PongKeyStore(TESTING_PASSWORD.toCharArray()).getSecretKey()),
+            () -> signature.generateSignature(ECDSA_ALGORITHM,
+                    new PongKeyStore(TESTING_PASSWORD.toCharArray()).getPrivateKey(), FILE_TO_SIGN),
+            () -> assertTrue(signature.verifySignature(signed,
+                    new PongKeyStore(TESTING_PASSWORD.toCharArray()).getPublicKey(), ECDSA_ALGORITHM, FILE_TO_SIGN))
+        };
+        String[] names = {"secret key", "sign", "verify"};
+
+        System.out.printf("%-12s %12s %12s%n", "operation", "loaded ms", "unlocked ms");
+        for (int i = 0; i < tasks.length; i++) {
+            double loaded = millisPerRun(true, RUNS, tasks[i]);
+            double unlocked = millisPerRun(false, RUNS, tasks[i]);
+            System.out.printf("%-12s %12.2f %12.2f%n", names[i], loaded, unlocked);
+        }
+        PongKeyStore.lock();
+    }
+
+    /**
+     * The former createAndStoreKeys: keytool writes the keyPair, then the
+     * file is loaded, given the secret key and written again.
+     */
+    private static void createWithKeyTool(Path file) throws Exception {
+        char[] password = TESTING_PASSWORD.toCharArray();
+        file.toFile().delete();
+        Process keytool = new ProcessBuilder("keytool", "-genkeypair", "-alias", ALIAS_KEY_PAIR, "-keyalg", "EC",
+                "-dname", "CN=Pong", "-storetype", KEY_STORE_TYPE, "-keystore", file.toString(),
+                "-storepass", TESTING_PASSWORD).redirectErrorStream(true).start();
+        keytool.getInputStream().readAllBytes();
+        assertEquals(0, keytool.waitFor());
+
+        KeyStore ks = KeyStore.getInstance(KEY_STORE_TYPE);
+        try (FileInputStream fis = new FileInputStream(file.toFile())) {
+            ks.load(fis, password);
+        }
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(KEY_BITS);
+        ks.setEntry(ALIAS_SECRET_KEY, new KeyStore.SecretKeyEntry(generator.generateKey()),
+                new KeyStore.PasswordProtection(password));
+        try (FileOutputStream fos = new FileOutputStream(file.toFile())) {
+            ks.store(fos, password);
+        }
+    }
+
+    /**
+     * Print the ms to create the keyStore with keytool and in-process.
+     * @param folder temporary folder of the keytool keyStores
+     * @throws Exception
+     */
+    @Test
+    public void testKeyToolVersusInProcess(@TempDir Path folder) throws Exception {
+        Path file = folder.resolve("Keystore.p12");
+        double keytool = millisPerRun(false, CREATE_RUNS, () -> createWithKeyTool(file));
+        double inProcess = millisPerRun(false, CREATE_RUNS,
+                () -> new PongKeyStore(TESTING_PASSWORD.toCharArray()).createAndStoreKeys());
+        PongKeyStore.lock();
+
+        System.out.printf("%-12s %12s%n", "create", "ms");
+        System.out.printf("%-12s %12.1f%n", "keytool", keytool);
+        System.out.printf("%-12s %12.1f%n", "in-process", inProcess);
+    }
+}
@@ -4,12 +4,15 @@ package com.mycompany.datacomprojectTwo;
 import com.mycompany.datacomprojectTwo.crypto.PongKeyStore;
 import static com.mycompany.datacomprojectTwo.crypto.CryptoConfig.*;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.cert.X509Certificate;
 import javax.crypto.SecretKey;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
-import static com.mycompany.datacomprojectTwo.crypto.CryptoConfig.KEY_TOOL_CMD;
 
 /**
  * Class tests PongkeyStore methods.
@@ -25,7 +28,7 @@ public class PongKeyStoreTest {
      */
     @BeforeAll
     public static void initStore()  throws Exception{
-        PongKeyStore pks = new PongKeyStore(TESTING_PASSWORD.toCharArray(),KEY_TOOL_CMD);
+        PongKeyStore pks = new PongKeyStore(TESTING_PASSWORD.toCharArray());
         pks.createAndStoreKeys();
     }
     
@@ -83,5 +86,80 @@ public class PongKeyStoreTest {
         System.out.println("SecretKey Key : " +sk.toString());
     }
 
+    /**
+     * The keyStore file holds the EC keyPair with a valid self-signed
+     * certificate, and no temporary file is left next to it.
+     * @throws Exception
+     */
+    @Test
+    public void testSelfSignedCertificate() throws Exception {
+        KeyStore ks = KeyStore.getInstance(KEY_STORE_TYPE);
+        try (FileInputStream fis = new FileInputStream(KEY_STORE_FILE)) {
+            ks.load(fis, TESTING_PASSWORD.toCharArray());
+        }
+        X509Certificate certificate = (X509Certificate) ks.getCertificate(ALIAS_KEY_PAIR);
+        certificate.checkValidity();
+        certificate.verify(certificate.getPublicKey());
+        assertEquals(certificate.getSubjectX500Principal(), certificate.getIssuerX500Principal());
+        assertEquals("CN=" + CERTIFICATE_NAME, certificate.getSubjectX500Principal().getName());
+        assertEquals("EC", certificate.getPublicKey().getAlgorithm());
+
+        File[] left = new File(KEY_STORE_FILE).getAbsoluteFile().getParentFile().listFiles((dir, name) -> name.endsWith(".tmp"));
+        assertEquals(0, left.length);
+    }
+
+    /**
+     * The keys are loaded once and kept until lock(), the same keys as
+     * read from the file, and are given without the password until then.
+     * @throws Exception
+     */
+    @Test
+    public void testUnlockedKeys() throws Exception {
+        PongKeyStore.lock();
+        PongKeyStore pks1 = new PongKeyStore(TESTING_PASSWORD.toCharArray());
+        SecretKey loaded = pks1.getSecretKey();
+        assertTrue(PongKeyStore.isUnlocked());
+
+        PongKeyStore pks2 = new PongKeyStore(TESTING_PASSWORD.toCharArray());
+        assertArrayEquals(loaded.getEncoded(), pks2.getSecretKey().getEncoded());
+        assertArrayEquals(pks1.getPrivateKey().getEncoded(), pks2.getPrivateKey().getEncoded());
+        assertArrayEquals(loaded.getEncoded(), PongKeyStore.unlocked().getSecretKey().getEncoded());
+
+        PongKeyStore.lock();
+        assertFalse(PongKeyStore.isUnlocked());
+        assertNull(PongKeyStore.unlocked());
+        assertArrayEquals(loaded.getEncoded(), pks2.getSecretKey().getEncoded());
+    }
+
+    /**
+     * Unlocked keys are not given for another password.
+     * @throws Exception
+     */
+    @Test
+    public void testWrongPasswordWhileUnlocked() throws Exception {
+        new PongKeyStore(TESTING_PASSWORD.toCharArray()).getSecretKey();
+        PongKeyStore wrong = new PongKeyStore("4321pp".toCharArray());
+        assertThrows(IOException.class, () -> wrong.getSecretKey());
+        assertThrows(IOException.class, () -> wrong.getPrivateKey());
+    }
+
+    /**
+     * The keys are locked once not used for the idle timeout.
+     * @throws Exception
+     */
+    @Test
+    public void testIdleTimeout() throws Exception {
+        PongKeyStore.lock();
+        PongKeyStore.setIdleTimeout(100);
+        try {
+            new PongKeyStore(TESTING_PASSWORD.toCharArray()).getSecretKey();
+            assertTrue(PongKeyStore.isUnlocked());
+            Thread.sleep(400);
+            assertFalse(PongKeyStore.isUnlocked());
+        } finally {
+            PongKeyStore.setIdleTimeout(KEY_STORE_IDLE_TIMEOUT);
+        }
+    }
+
     
 }
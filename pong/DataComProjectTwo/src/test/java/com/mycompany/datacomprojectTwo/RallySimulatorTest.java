@@ -0,0 +1,60 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.tuning.RallyParams;
+import com.mycompany.datacomprojectTwo.tuning.RallySimulator;
+import com.mycompany.datacomprojectTwo.tuning.RallyStats;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the batch rally simulator.
+ */
+public class RallySimulatorTest {
+
+    private static final long RALLIES = 5001;
+
+    /**
+     * The rallies of the game constants end with a point, without the
+     * ball going through a bat or off the screen.
+     */
+    @Test
+    public void testDefaultsHaveNoFaults() {
+        RallyStats stats = new RallySimulator(RallyParams.defaults()).run(RALLIES, 7);
+
+        assertEquals(RALLIES, stats.getRallies());
+        assertEquals(0, stats.getTunnels());
+        assertEquals(0, stats.getOffscreenResets());
+        assertTrue(stats.getMeanLength() > 1, "Mean rally " + stats.getMeanLength());
+        assertTrue(stats.getPercentile(0.5) <= stats.getPercentile(0.9));
+        assertTrue(stats.getRalliesPerSecond() > 0);
+    }
+
+    /**
+     * A seed gives the same rallies, even split on several threads.
+     */
+    @Test
+    public void testSameSeedSameResults() {
+        RallySimulator simulator = new RallySimulator(RallyParams.defaults());
+        RallyStats first = simulator.run(RALLIES, 42);
+        RallyStats second = simulator.run(RALLIES, 42);
+
+        assertEquals(first.getSteps(), second.getSteps());
+        assertEquals(first.getMeanLength(), second.getMeanLength());
+        for (int length = 0; length <= RallyStats.MAX_LENGTH; length++) {
+            assertEquals(first.getCount(length), second.getCount(length));
+        }
+    }
+
+    /**
+     * Bigger bats miss less often, so the rallies get longer.
+     */
+    @Test
+    public void testBiggerBatsLongerRallies() {
+        RallyParams defaults = RallyParams.defaults();
+        RallyStats small = new RallySimulator(defaults.withBatHeight(40)).run(RALLIES, 3);
+        RallyStats big = new RallySimulator(defaults.withBatHeight(100)).run(RALLIES, 3);
+
+        assertTrue(big.getMeanLength() > small.getMeanLength(),
+                big.getMeanLength() + " against " + small.getMeanLength());
+    }
+}
@@ -0,0 +1,139 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.replay.ReplayFormat;
+import com.mycompany.datacomprojectTwo.replay.ReplayReader;
+import com.mycompany.datacomprojectTwo.replay.ReplayWriter;
+import com.mycompany.datacomprojectTwo.simulation.BallPhysics;
+import com.mycompany.datacomprojectTwo.simulation.MatchListener;
+import com.mycompany.datacomprojectTwo.simulation.MatchState;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the replay recording, playback and seeking.
+ */
+public class ReplayTest {
+
+    // Ticks recorded, and between two keyframes
+    private static final int TICKS = TICK_RATE * 20;
+    private static final int KEYFRAME_INTERVAL = TICK_RATE * 2;
+
+    private static final double DT = 1.0 / TICK_RATE;
+
+    @TempDir
+    Path folder;
+
+    /**
+     * Record a match where bat one follows keys and bat two commands.
+     * @return ball X of the recorded match after each tick
+     */
+    private double[] record(Path file) throws IOException {
+        MatchState state = new MatchState(1);
+        BallPhysics physics = new BallPhysics(WORLD_WIDTH, WORLD_HEIGHT);
+        ReplayWriter writer = new ReplayWriter(file, TICK_RATE, KEYFRAME_INTERVAL);
+
+        double[] ballX = new double[TICKS + 1];
+        ballX[0] = state.getBallX(0);
+        for (int tick = 0; tick < TICKS; tick++) {
+            state.setBatDirection(0, 1, (tick / 45) % 3 - 1);
+
+            int moved = 0;
+            if (tick % 3 == 0) {
+                state.moveBat(0, 2, (tick / 30) % 2 == 0 ? 1 : -1, DT * 2.5);
+                moved = ReplayFormat.MOVED_BAT_TWO;
+            }
+
+            writer.record(state, 0, moved);
+            state.step(0, DT, physics, new MatchListener() {});
+            ballX[tick + 1] = state.getBallX(0);
+        }
+        writer.close().join();
+
+        // Every tick was played and recorded
+        assertFalse(state.isGameOver(0));
+        return ballX;
+    }
+
+    /**
+     * Playing a recording gives the recorded match tick by tick, in about
+     * one byte per tick.
+     * @throws IOException
+     */
+    @Test
+    public void testPlaybackMatchesRecording() throws IOException {
+        Path file = folder.resolve("match.replay");
+        double[] ballX = record(file);
+
+        ReplayReader reader = new ReplayReader(file, new MatchListener() {});
+        assertEquals(TICKS / KEYFRAME_INTERVAL, reader.getKeyframeCount());
+        assertEquals(0, reader.getTick());
+
+        int ticks = 0;
+        while (reader.next()) {
+            ticks++;
+            assertEquals(ballX[ticks], reader.getState().getBallX(ReplayReader.MATCH), "Tick " + ticks);
+        }
+        assertEquals(TICKS, ticks);
+
+        // Tick records are 1 byte, 9 with a moved bat
+        assertTrue(Files.size(file) < TICKS * 4 + TICKS / KEYFRAME_INTERVAL * ReplayFormat.KEYFRAME_SIZE + 512);
+    }
+
+    /**
+     * Seeking forward and backward gives the same state as playing from
+     * the start.
+     * @throws IOException
+     */
+    @Test
+    public void testSeek() throws IOException {
+        Path file = folder.resolve("match.replay");
+        double[] ballX = record(file);
+
+        ReplayReader reader = new ReplayReader(file, new MatchListener() {});
+        for (long tick : new long[]{1000, 1, KEYFRAME_INTERVAL, KEYFRAME_INTERVAL * 3 + 7, TICKS - 1, 0}) {
+            reader.seek(tick);
+            assertEquals(tick, reader.getTick());
+            assertEquals(ballX[(int) tick], reader.getState().getBallX(ReplayReader.MATCH), "Tick " + tick);
+        }
+
+        reader.seek(TICKS + 100);
+        assertEquals(TICKS, reader.getTick());
+    }
+
+    /**
+     * A recording cut anywhere, without its index, is read up to its last
+     * complete record.
+     * @throws IOException
+     */
+    @Test
+    public void testUnfinishedRecording() throws IOException {
+        Path file = folder.resolve("match.replay");
+        double[] ballX = record(file);
+        long size = Files.size(file);
+
+        for (long cutSize : new long[]{size / 2 + 3, size - ReplayFormat.indexSize(TICKS / KEYFRAME_INTERVAL) - 5}) {
+            Path cut = folder.resolve("cut.replay");
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+                    FileChannel out = FileChannel.open(cut, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                in.transferTo(0, cutSize, out);
+            }
+
+            ReplayReader reader = new ReplayReader(cut, new MatchListener() {});
+            reader.seek(TICKS);
+            long last = reader.getTick();
+            assertTrue(last > 0 && last < TICKS, "Read up to " + last);
+            assertEquals(ballX[(int) last], reader.getState().getBallX(ReplayReader.MATCH));
+
+            reader.seek(last / 2);
+            assertEquals(ballX[(int) (last / 2)], reader.getState().getBallX(ReplayReader.MATCH));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.network.SnapshotCodec;
+import com.mycompany.datacomprojectTwo.server.RoomManager;
+import com.mycompany.datacomprojectTwo.server.RoomPlayer;
+import com.mycompany.datacomprojectTwo.simulation.Bat;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test measuring how many rooms one core can tick at TICK_RATE.
+ * The number of rooms is doubled until more than 1% of the room ticks
+ * come late. Each player frames the messages it receives like the FXGL
+ * TCP writer does, so the cost of the replication is included.
+ * It is skipped by default, run it with:
+ * mvn test -Dtest=RoomCapacityLoadTest -Dpong.loadtest=true
+ */
+@EnabledIfSystemProperty(named = "pong.loadtest", matches = "true")
+public class RoomCapacityLoadTest {
+
+    // Seconds each room count is played
+    private static final int SECONDS_PER_STEP = 3;
+
+    // Late room ticks allowed
+    private static final double MAX_LATE_RATIO = 0.01;
+
+    /**
+     * Player with random keys that writes every message, with its length,
+     * into a stream counting the bytes. It acknowledges every snapshot
+     * right away, so the rooms send deltas.
+     */
+    private static class FramingPlayer implements RoomPlayer {
+
+        private long bytes;
+        private volatile int ackedTick = PongProtocol.NO_ACK;
+        private final DataOutputStream output;
+
+        FramingPlayer() {
+            output = new DataOutputStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                    bytes++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    bytes += len;
+                }
+            });
+        }
+
+        @Override
+        public int getDirection() {
+            return ThreadLocalRandom.current().nextInt(Bat.UP, Bat.DOWN + 1);
+        }
+
+        @Override
+        public int getAckedTick() {
+            return ackedTick;
+        }
+
+        @Override
+        public void send(byte[] message) {
+            if (PongProtocol.typeOf(message) != PongProtocol.SPAWN) {
+                ackedTick = SnapshotCodec.tickOf(message);
+            }
+            try {
+                output.writeInt(message.length);
+                output.write(message);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    /**
+     * Doubles the number of rooms until the ticks come late and prints
+     * the capacity in rooms per core.
+     * @throws Exception
+     */
+    @Test
+    public void testRoomsPerCore() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int capacity = 0;
+
+        for (int rooms = 64; rooms <= 1 << 16; rooms *= 2) {
+            RoomManager manager = new RoomManager(cores);
+            for (int i = 0; i < rooms; i++) {
+                manager.openRoom(new FramingPlayer(), new FramingPlayer());
+            }
+
+            manager.start();
+            Thread.sleep(SECONDS_PER_STEP * 1000L);
+            manager.stop();
+
+            double lateRatio = manager.getLateRooms() / (double) (rooms * TICK_RATE * SECONDS_PER_STEP);
+            System.out.printf("%6d rooms: %.2f%% late room ticks%n", rooms, lateRatio * 100);
+
+            if (lateRatio > MAX_LATE_RATIO) {
+                break;
+            }
+            capacity = rooms;
+        }
+
+        System.out.printf("Capacity: %d rooms on %d cores, %d rooms per core at %d Hz%n",
+                capacity, cores, capacity / cores, TICK_RATE);
+        assertTrue(capacity > 0);
+    }
+}
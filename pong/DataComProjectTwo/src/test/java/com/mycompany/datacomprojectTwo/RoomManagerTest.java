@@ -0,0 +1,178 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.almasb.fxgl.net.Client;
+import com.almasb.fxgl.net.ClientConfig;
+import com.almasb.fxgl.net.Connection;
+import com.almasb.fxgl.net.NetService;
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.network.TcpTransport;
+import com.mycompany.datacomprojectTwo.server.ConnectionPlayer;
+import com.mycompany.datacomprojectTwo.server.Room;
+import com.mycompany.datacomprojectTwo.server.RoomManager;
+import com.mycompany.datacomprojectTwo.server.RoomPlayer;
+import com.mycompany.datacomprojectTwo.simulation.Bat;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the pairing of players into rooms and the isolation of the rooms
+ * ticked by the RoomManager.
+ */
+public class RoomManagerTest {
+
+    /**
+     * Player that counts the messages it receives. It can be made slow
+     * to simulate a room that takes too long to tick.
+     */
+    private static class CountingPlayer implements RoomPlayer {
+
+        private final AtomicInteger messages = new AtomicInteger();
+        private final long delayMillis;
+        private volatile boolean closed;
+
+        CountingPlayer(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public int getDirection() {
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return Bat.STOP;
+        }
+
+        @Override
+        public void send(byte[] message) {
+            messages.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * Players are seated two by two, each pair in its own room.
+     */
+    @Test
+    public void testPlayersArePaired() {
+        RoomManager manager = new RoomManager(1);
+
+        assertNull(manager.addPlayer(new CountingPlayer(0)));
+        Room first = manager.addPlayer(new CountingPlayer(0));
+        assertNotNull(first);
+
+        assertNull(manager.addPlayer(new CountingPlayer(0)));
+        Room second = manager.addPlayer(new CountingPlayer(0));
+        assertNotNull(second);
+
+        assertNotEquals(first.getId(), second.getId());
+        assertNotEquals(first.getMatchIndex(), second.getMatchIndex());
+        assertEquals(2, manager.getRoomCount());
+        manager.stop();
+    }
+
+    /**
+     * A room that is much slower than the tick rate does not slow down
+     * the other rooms sharing the same workers.
+     * @throws InterruptedException
+     */
+    @Test
+    public void testSlowRoomDoesNotStallOthers() throws InterruptedException {
+        RoomManager manager = new RoomManager(2);
+
+        Room slow = manager.openRoom(new CountingPlayer(100), new CountingPlayer(0));
+        Room fast = manager.openRoom(new CountingPlayer(0), new CountingPlayer(0));
+
+        manager.start();
+        Thread.sleep(1000);
+        manager.stop();
+
+        // About 60 steps expected for the fast room, less than 10 for the slow one
+        assertTrue(fast.getTick() > 40, "fast room ticks: " + fast.getTick());
+        assertTrue(slow.getTick() < fast.getTick() / 2);
+        assertTrue(slow.getDroppedSteps() > 0);
+    }
+
+    /**
+     * Finishing a room closes both of its players.
+     */
+    @Test
+    public void testFinishClosesPlayers() {
+        CountingPlayer one = new CountingPlayer(0);
+        CountingPlayer two = new CountingPlayer(0);
+        Room room = new RoomManager(1).openRoom(one, two);
+
+        // Spawn message was sent on creation
+        assertEquals(1, one.messages.get());
+
+        room.finish();
+        assertTrue(room.isFinished());
+        assertTrue(one.closed && two.closed);
+    }
+
+    /**
+     * Finishing a room lets the messages still queued for a TCP player,
+     * up to the final score, reach it before its connection closes.
+     * @throws Exception
+     */
+    @Test
+    public void testFinishDeliversLastMessages() throws Exception {
+        final int messages = 40;
+        final int size = 64 * 1024;
+        TcpTransport.install();
+        try (ServerSocket listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            listener.setReceiveBufferSize(size);
+            CompletableFuture<Connection<byte[]>> connected = new CompletableFuture<>();
+            Client<byte[]> client = new NetService().newTCPClient("localhost", listener.getLocalPort(),
+                    new ClientConfig<>(byte[].class));
+            client.setOnConnected(connected::complete);
+            Thread connector = new Thread(() -> client.connectTask().run(), "pong-test-connect");
+            connector.setDaemon(true);
+            connector.start();
+
+            try (Socket peer = listener.accept()) {
+                ConnectionPlayer player = new ConnectionPlayer(connected.get(10, TimeUnit.SECONDS));
+                Room room = new RoomManager(1).openRoom(player, new CountingPlayer(0));
+
+                // The peer does not read yet, so most of these wait in the queues
+                for (int i = 0; i < messages; i++) {
+                    byte[] message = new byte[size];
+                    message[0] = PongProtocol.SCORE;
+                    player.send(message);
+                }
+                player.send(PongProtocol.encodeScore(5, 3));
+                room.finish();
+
+                DataInputStream in = new DataInputStream(peer.getInputStream());
+                byte[] last = null;
+                int received = 0;
+                try {
+                    while (true) {
+                        last = new byte[in.readInt()];
+                        in.readFully(last);
+                        received++;
+                    }
+                } catch (EOFException closed) {
+                    // The player was closed once everything was written
+                }
+                assertEquals(messages + 2, received);
+                assertArrayEquals(PongProtocol.encodeScore(5, 3), last);
+            }
+        }
+    }
+}
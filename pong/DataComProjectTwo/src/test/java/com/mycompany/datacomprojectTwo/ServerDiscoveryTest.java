@@ -0,0 +1,98 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.network.ServerAnnouncer;
+import com.mycompany.datacomprojectTwo.network.ServerBrowser;
+import com.mycompany.datacomprojectTwo.network.ServerInfo;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the LAN announcements of the servers, sent to loopback.
+ */
+public class ServerDiscoveryTest {
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * The announcement keeps its fields, and long names are cut without
+     * cutting a character.
+     */
+    @Test
+    public void testAnnounceMessage() {
+        byte[] message = PongProtocol.encodeAnnounce("Salle B", 7777, 12, 35);
+        assertEquals(PongProtocol.ANNOUNCE, PongProtocol.typeOf(message));
+        assertEquals("Salle B", PongProtocol.announceName(message));
+        assertEquals(7777, PongProtocol.announcePort(message));
+        assertEquals(12, PongProtocol.announceFreeRooms(message));
+        assertEquals(35, PongProtocol.announceLoad(message));
+
+        PongProtocol.setAnnounceStatus(message, 0, 250);
+        assertEquals(0, PongProtocol.announceFreeRooms(message));
+        assertEquals(100, PongProtocol.announceLoad(message));
+
+        String name = PongProtocol.announceName(PongProtocol.encodeAnnounce("é".repeat(40), 65000, 1, 0));
+        assertEquals("é".repeat(PongProtocol.MAX_NAME_BYTES / 2), name);
+        assertEquals(65000, PongProtocol.announcePort(PongProtocol.encodeAnnounce("x", 65000, 1, 0)));
+    }
+
+    /**
+     * A browser lists an announcing server, sees its free rooms change
+     * and forgets it once it stops announcing.
+     * @throws Exception
+     */
+    @Test
+    public void testBrowseAnnouncedServer() throws Exception {
+        int discoveryPort;
+        try (DatagramSocket socket = new DatagramSocket(0)) {
+            discoveryPort = socket.getLocalPort();
+        }
+
+        ServerBrowser browser = new ServerBrowser(discoveryPort, 300);
+        AtomicInteger changes = new AtomicInteger();
+        browser.setOnChange(servers -> changes.incrementAndGet());
+        browser.start();
+
+        AtomicInteger freeRooms = new AtomicInteger(3);
+        ServerAnnouncer announcer = new ServerAnnouncer("test server", 7777, freeRooms::get, () -> 20);
+        try {
+            announcer.start(List.of(InetAddress.getLoopbackAddress()), discoveryPort, 50);
+
+            waitFor(() -> browser.getServers().size() == 1);
+            ServerInfo server = browser.getServers().get(0);
+            assertEquals("test server", server.getName());
+            assertEquals("127.0.0.1", server.getHost());
+            assertEquals(7777, server.getPort());
+            assertEquals(3, server.getFreeRooms());
+            assertEquals(20, server.getLoad());
+            assertTrue(server.isAccepting());
+
+            freeRooms.set(0);
+            waitFor(() -> !browser.getServers().get(0).isAccepting());
+            assertEquals(PongProtocol.STATUS_FULL, browser.getServers().get(0).getStatus());
+
+            // Announcements that change nothing do not change the list
+            int changesBefore = changes.get();
+            Thread.sleep(200);
+            assertEquals(changesBefore, changes.get());
+            assertTrue(announcer.getAnnounceCount() >= 5);
+
+            announcer.close();
+            waitFor(() -> browser.getServers().isEmpty());
+            assertTrue(browser.getServers().isEmpty());
+        } finally {
+            announcer.close();
+            browser.close();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.network.ServerInfo;
+import com.mycompany.datacomprojectTwo.network.ServerProbe;
+import com.mycompany.datacomprojectTwo.server.RoomManager;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the hello and welcome messages and probing a RoomManager with
+ * them.
+ */
+public class ServerProbeTest {
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Probe a server started in the background, once it listens.
+     */
+    private static ServerInfo probeWhenListening(int port) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (true) {
+            try {
+                return ServerProbe.probe("127.0.0.1", port, 2000).get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException ex) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw ex;
+                }
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    /**
+     * The welcome echoes the time of the hello and checks its version
+     * and tick rate.
+     */
+    @Test
+    public void testWelcome() {
+        byte[] hello = PongProtocol.encodeHello(true, 123456789L);
+        assertEquals(PongProtocol.HELLO_SIZE, hello.length);
+        assertTrue(PongProtocol.helloProbe(hello));
+
+        byte[] welcome = PongProtocol.encodeWelcome(hello, 3);
+        assertEquals(PongProtocol.WELCOME_SIZE, welcome.length);
+        assertEquals(PongProtocol.STATUS_OK, PongProtocol.welcomeStatus(welcome));
+        assertEquals(3, PongProtocol.welcomeFreeRooms(welcome));
+        assertEquals(123456789L, PongProtocol.welcomeTime(welcome));
+
+        assertEquals(PongProtocol.STATUS_FULL,
+                PongProtocol.welcomeStatus(PongProtocol.encodeWelcome(hello, 0)));
+
+        assertEquals(TICK_RATE, PongProtocol.helloTickRate(hello));
+        byte[] otherRate = hello.clone();
+        ByteBuffer.wrap(otherRate).putShort(20, (short) (TICK_RATE * 2));
+        assertFalse(PongProtocol.helloMatches(otherRate));
+        assertEquals(PongProtocol.STATUS_TICK_RATE_MISMATCH,
+                PongProtocol.welcomeStatus(PongProtocol.encodeWelcome(otherRate, 3)));
+
+        ByteBuffer.wrap(hello).putShort(1, (short) (PongProtocol.PROTOCOL_VERSION + 1));
+        assertEquals(PongProtocol.STATUS_VERSION_MISMATCH,
+                PongProtocol.welcomeStatus(PongProtocol.encodeWelcome(hello, 3)));
+    }
+
+    /**
+     * A server answers the probe without seating it, and a closed port
+     * fails at once; probing both gives the server.
+     * @throws Exception
+     */
+    @Test
+    public void testProbeRoomManager() throws Exception {
+        int port = freePort();
+        RoomManager manager = new RoomManager(1);
+        manager.listen(port);
+        try {
+            ServerInfo info = probeWhenListening(port);
+            assertTrue(info.isAccepting());
+            assertEquals(PongProtocol.PROTOCOL_VERSION, info.getVersion());
+            assertEquals(MAX_ROOMS, info.getFreeRooms());
+            assertTrue(info.getRttNanos() > 0);
+
+            // Two probes would make a room if they were seated
+            ServerProbe.probe("127.0.0.1", port, 2000).get(5, TimeUnit.SECONDS);
+            Thread.sleep(100);
+            assertEquals(0, manager.getRoomCount());
+
+            int closedPort = freePort();
+            ExecutionException ex = assertThrows(ExecutionException.class,
+                    () -> ServerProbe.probe("127.0.0.1", closedPort, 2000).get(5, TimeUnit.SECONDS));
+            assertNotNull(ex.getCause());
+
+            ServerInfo first = ServerProbe.probeFirst(List.of("127.0.0.1", "127.0.0.2"), port, 2000)
+                    .get(5, TimeUnit.SECONDS);
+            assertTrue(first.isAccepting());
+        } finally {
+            manager.stop();
+        }
+    }
+
+    /**
+     * Something else listening on the port is not taken for a server.
+     * @throws Exception
+     */
+    @Test
+    public void testProbeOtherProgram() throws Exception {
+        try (ServerSocket other = new ServerSocket(0)) {
+            Thread thread = new Thread(() -> {
+                try (var socket = other.accept()) {
+                    socket.getOutputStream().write("HTTP/1.1 400 Bad Request\r\n\r\n".getBytes());
+                    socket.getOutputStream().flush();
+                    Thread.sleep(200);
+                } catch (Exception ex) {
+                    // The probe gave up
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+
+            assertThrows(ExecutionException.class,
+                    () -> ServerProbe.probe("127.0.0.1", other.getLocalPort(), 1000).get(5, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.network.Snapshot;
+import com.mycompany.datacomprojectTwo.server.Room;
+import com.mycompany.datacomprojectTwo.server.RoomManager;
+import com.mycompany.datacomprojectTwo.server.RoomPlayer;
+import com.mycompany.datacomprojectTwo.simulation.Bat;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the session tokens: a player losing its connection is resynced
+ * when it comes back, and its match waits for it meanwhile.
+ */
+public class SessionResumeTest {
+
+    /**
+     * Player that keeps the messages it receives and can be made away.
+     */
+    private static class AwayPlayer implements RoomPlayer {
+
+        private final List<byte[]> messages = new CopyOnWriteArrayList<>();
+        private volatile boolean away;
+        private volatile boolean resync;
+
+        @Override
+        public int getDirection() {
+            return Bat.STOP;
+        }
+
+        @Override
+        public void send(byte[] message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isAway() {
+            return away;
+        }
+
+        @Override
+        public boolean takeResync() {
+            boolean take = resync;
+            resync = false;
+            return take;
+        }
+    }
+
+    /**
+     * Client speaking the FXGL framing (an int length then the bytes) on
+     * a plain socket.
+     */
+    private static class RawClient implements AutoCloseable {
+
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        RawClient(int port) throws Exception {
+            socket = connectWhenListening(port);
+            socket.setSoTimeout(5000);
+            in = new DataInputStream(socket.getInputStream());
+            out = new DataOutputStream(socket.getOutputStream());
+        }
+
+        void send(byte[] message) throws IOException {
+            out.writeInt(message.length);
+            out.write(message);
+            out.flush();
+        }
+
+        byte[] read() throws IOException {
+            byte[] message = new byte[in.readInt()];
+            in.readFully(message);
+            return message;
+        }
+
+        /**
+         * @return the next message of a type, skipping the others
+         */
+        byte[] read(byte type, List<Byte> skipped) throws IOException {
+            while (true) {
+                byte[] message = read();
+                if (PongProtocol.typeOf(message) == type) {
+                    return message;
+                }
+                skipped.add(PongProtocol.typeOf(message));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Connect to a server started in the background, once it listens.
+     */
+    private static Socket connectWhenListening(int port) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (true) {
+            try {
+                return new Socket("127.0.0.1", port);
+            } catch (IOException ex) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw ex;
+                }
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    /**
+     * The resync carries the bat of the receiver and the whole state:
+     * tick, scores and every entity.
+     */
+    @Test
+    public void testResyncMessage() {
+        Snapshot snapshot = new Snapshot();
+        snapshot.setTick(1234);
+        snapshot.setScores(7, 3);
+        snapshot.setEntity(Snapshot.BALL, 320, 240, 150, -75);
+        snapshot.setEntity(Snapshot.BAT_TWO, 600, 120, 0, 0);
+
+        byte[] message = PongProtocol.encodeResync(snapshot, Snapshot.BAT_TWO);
+        assertEquals(PongProtocol.RESYNC_SIZE, message.length);
+        assertEquals(Snapshot.BAT_TWO, PongProtocol.resyncLocalBat(message));
+
+        Snapshot decoded = new Snapshot();
+        PongProtocol.decodeResync(message, decoded);
+        assertEquals(1234, decoded.getTick());
+        assertEquals(7, decoded.getPlayerOneScore());
+        assertEquals(3, decoded.getPlayerTwoScore());
+        assertEquals(320, decoded.getX(Snapshot.BALL), 0.5);
+        assertEquals(-75, decoded.getVelocityY(Snapshot.BALL), 1);
+        assertEquals(120, decoded.getY(Snapshot.BAT_TWO), 0.5);
+    }
+
+    /**
+     * A room waits while a player is away and resyncs it when it is back.
+     * @throws InterruptedException
+     */
+    @Test
+    public void testRoomWaitsForAwayPlayer() throws InterruptedException {
+        AwayPlayer one = new AwayPlayer();
+        AwayPlayer two = new AwayPlayer();
+        one.away = true;
+        RoomManager manager = new RoomManager(1);
+        Room room = manager.openRoom(one, two);
+        manager.start();
+        try {
+            Thread.sleep(300);
+            assertEquals(0, room.getTick());
+
+            one.away = false;
+            one.resync = true;
+            Thread.sleep(300);
+            assertTrue(room.getTick() > 0);
+        } finally {
+            manager.stop();
+        }
+
+        byte[] resync = one.messages.stream()
+                .filter(message -> PongProtocol.typeOf(message) == PongProtocol.RESYNC)
+                .findFirst().orElseThrow();
+        assertEquals(Snapshot.BAT_ONE, PongProtocol.resyncLocalBat(resync));
+        assertTrue(two.messages.stream().noneMatch(message -> PongProtocol.typeOf(message) == PongProtocol.RESYNC));
+    }
+
+    /**
+     * A client coming back with its token gets its seat back and a
+     * resync instead of a spawn; an unknown token is refused.
+     * @throws Exception
+     */
+    @Test
+    public void testComebackOverTcp() throws Exception {
+        int port = freePort();
+        RoomManager manager = new RoomManager(1);
+        manager.listen(port);
+        // Not a resource: its connection is dropped in the middle of the test
+        RawClient one = new RawClient(port);
+        try (RawClient two = new RawClient(port)) {
+            one.send(PongProtocol.encodeHello(false, 1));
+            byte[] welcome = one.read(PongProtocol.WELCOME, new CopyOnWriteArrayList<>());
+            assertEquals(PongProtocol.STATUS_OK, PongProtocol.welcomeStatus(welcome));
+            long session = PongProtocol.welcomeSession(welcome);
+            assertNotEquals(PongProtocol.NO_SESSION, session);
+
+            two.send(PongProtocol.encodeHello(false, 2));
+            assertNotEquals(session, PongProtocol.welcomeSession(two.read(PongProtocol.WELCOME, new CopyOnWriteArrayList<>())));
+            one.read(PongProtocol.SPAWN, new CopyOnWriteArrayList<>());
+            two.read(PongProtocol.SPAWN, new CopyOnWriteArrayList<>());
+
+            one.close();
+            try (RawClient back = new RawClient(port)) {
+                back.send(PongProtocol.encodeHello(false, 3, session));
+                List<Byte> skipped = new CopyOnWriteArrayList<>();
+                byte[] again = back.read(PongProtocol.WELCOME, skipped);
+                assertEquals(PongProtocol.STATUS_OK, PongProtocol.welcomeStatus(again));
+                assertEquals(session, PongProtocol.welcomeSession(again));
+
+                byte[] resync = back.read(PongProtocol.RESYNC, skipped);
+                assertEquals(Snapshot.BAT_ONE, PongProtocol.resyncLocalBat(resync));
+                assertFalse(skipped.contains(PongProtocol.SPAWN));
+                assertEquals(1, manager.getRoomCount());
+            }
+
+            try (RawClient stranger = new RawClient(port)) {
+                stranger.send(PongProtocol.encodeHello(false, 4, PongProtocol.newSessionToken()));
+                byte[] refused = stranger.read(PongProtocol.WELCOME, new CopyOnWriteArrayList<>());
+                assertEquals(PongProtocol.STATUS_SESSION_EXPIRED, PongProtocol.welcomeStatus(refused));
+            }
+        } finally {
+            one.close();
+            manager.stop();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.almasb.fxgl.core.serialization.Bundle;
+import com.almasb.fxgl.multiplayer.EntityUpdateEvent;
+import com.almasb.fxgl.multiplayer.PropertyUpdateReplicationEvent;
+import com.almasb.fxgl.multiplayer.ReplicationEvent;
+import com.mycompany.datacomprojectTwo.network.Snapshot;
+import com.mycompany.datacomprojectTwo.network.SnapshotCodec;
+import static com.mycompany.datacomprojectTwo.entities.PongConfig.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the size and the speed of one tick of replication sent with
+ * the FXGL bundles (serialized like the FXGL TCP writer, with one
+ * ObjectOutputStream per connection) and with the binary SnapshotCodec.
+ * It is skipped by default, run it with:
+ * mvn test -Dtest=SnapshotCodecBenchmark -Dpong.benchmark=true
+ */
+@EnabledIfSystemProperty(named = "pong.benchmark", matches = "true")
+public class SnapshotCodecBenchmark {
+
+    // Ticks measured, after as many warm up ticks
+    private static final int TICKS = 100_000;
+
+    /**
+     * Build the bundle the MultiplayerService sent every tick: one update
+     * per entity and both scores.
+     */
+    private static Bundle newBundle(int tick) {
+        ArrayList<ReplicationEvent> events = new ArrayList<>();
+        events.add(new EntityUpdateEvent(1, 395 + tick % 100, 295, 0));
+        events.add(new EntityUpdateEvent(2, 200, 270, 0));
+        events.add(new EntityUpdateEvent(3, 580, 270, 0));
+        events.add(new PropertyUpdateReplicationEvent(PLAYER1_SCORE, 3));
+        events.add(new PropertyUpdateReplicationEvent(PLAYER2_SCORE, 5));
+
+        Bundle bundle = new Bundle("REPLICATION_EVENT");
+        bundle.put("events", events);
+        return bundle;
+    }
+
+    /**
+     * Serialize then deserialize TICKS bundles.
+     * @return {bytes per tick, encode ns, decode ns}
+     */
+    private static double[] measureBundles() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream output = new ObjectOutputStream(bytes);
+        for (int i = 0; i < TICKS; i++) {
+            output.writeObject(newBundle(i));
+        }
+        output.flush();
+        int warmUpSize = bytes.size();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < TICKS; i++) {
+            output.writeObject(newBundle(i));
+        }
+        output.flush();
+        long encode = System.nanoTime() - start;
+
+        ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (int i = 0; i < TICKS; i++) {
+            input.readObject();
+        }
+        int events = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < TICKS; i++) {
+            Bundle bundle = (Bundle) input.readObject();
+            ArrayList<ReplicationEvent> list = bundle.get("events");
+            events += list.size();
+        }
+        long decode = System.nanoTime() - start;
+        assertEquals(TICKS * 5, events);
+
+        return new double[]{(bytes.size() - warmUpSize) / (double) TICKS, encode / (double) TICKS, decode / (double) TICKS};
+    }
+
+    /**
+     * Encode then decode TICKS snapshots.
+     * @return {bytes per tick, encode ns, decode ns}
+     */
+    private static double[] measureSnapshots() {
+        Snapshot snapshot = new Snapshot();
+        snapshot.setScores(3, 5);
+        ByteBuffer buffer = ByteBuffer.allocate(SnapshotCodec.SNAPSHOT_SIZE * TICKS);
+
+        for (int round = 0; round < 2; round++) {
+            buffer.clear();
+            long start = System.nanoTime();
+            for (int i = 0; i < TICKS; i++) {
+                snapshot.setTick(i);
+                snapshot.setEntity(Snapshot.BALL, 395 + i % 100, 295, 300, -300);
+                SnapshotCodec.encode(snapshot, buffer);
+            }
+            long encode = System.nanoTime() - start;
+
+            buffer.flip();
+            Snapshot received = new Snapshot();
+            start = System.nanoTime();
+            for (int i = 0; i < TICKS; i++) {
+                SnapshotCodec.decode(buffer, received);
+            }
+            long decode = System.nanoTime() - start;
+            assertEquals(TICKS - 1, received.getTick());
+
+            if (round == 1) {
+                return new double[]{SnapshotCodec.SNAPSHOT_SIZE, encode / (double) TICKS, decode / (double) TICKS};
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Print the bytes per tick and the encode/decode time of both formats.
+     * @throws Exception
+     */
+    @Test
+    public void testBundleVersusSnapshot() throws Exception {
+        double[] bundle = measureBundles();
+        double[] binary = measureSnapshots();
+
+        System.out.printf("%-10s %10s %12s %12s%n", "format", "bytes/tick", "encode ns/op", "decode ns/op");
+        System.out.printf("%-10s %10.1f %12.1f %12.1f%n", "bundle", bundle[0], bundle[1], bundle[2]);
+        System.out.printf("%-10s %10.1f %12.1f %12.1f%n", "snapshot", binary[0], binary[1], binary[2]);
+
+        assertTrue(binary[0] < bundle[0]);
+    }
+}
@@ -0,0 +1,234 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.network.Snapshot;
+import com.mycompany.datacomprojectTwo.network.SnapshotCodec;
+import com.mycompany.datacomprojectTwo.network.SnapshotHistory;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the binary messages of the pong protocol, full snapshots and
+ * deltas.
+ */
+public class SnapshotCodecTest {
+
+    // Largest error of a quantized value
+    private static final double POSITION_ERROR = 0.5 / SnapshotCodec.POSITION_SCALE;
+    private static final double VELOCITY_ERROR = 0.5 / SnapshotCodec.VELOCITY_SCALE;
+
+    private static Snapshot newSnapshot() {
+        Snapshot snapshot = new Snapshot();
+        snapshot.setTick(123456);
+        snapshot.setScores(7, 11);
+        snapshot.setInputSequence(2, 4242);
+        snapshot.setEntity(Snapshot.BALL, 395.3, 12.71, 300, -312.44);
+        snapshot.setEntity(Snapshot.BAT_ONE, 200, 0.06, 0, -420);
+        snapshot.setEntity(Snapshot.BAT_TWO, 580, 539.99, 0, 420);
+        return snapshot;
+    }
+
+    /**
+     * A decoded snapshot equals the encoded one, within the quantization.
+     */
+    @Test
+    public void testRoundTrip() {
+        Snapshot sent = newSnapshot();
+        byte[] message = SnapshotCodec.encode(sent);
+
+        assertEquals(SnapshotCodec.SNAPSHOT_SIZE, message.length);
+        assertEquals(PongProtocol.SNAPSHOT, PongProtocol.typeOf(message));
+
+        Snapshot received = new Snapshot();
+        SnapshotCodec.decode(message, received);
+
+        assertEquals(sent.getTick(), received.getTick());
+        assertEquals(7, received.getPlayerOneScore());
+        assertEquals(11, received.getPlayerTwoScore());
+        assertEquals(PongProtocol.NO_INPUT, received.getInputSequence(1));
+        assertEquals(4242, received.getInputSequence(2));
+        for (int id = 0; id < Snapshot.ENTITY_COUNT; id++) {
+            assertEquals(sent.getX(id), received.getX(id), POSITION_ERROR);
+            assertEquals(sent.getY(id), received.getY(id), POSITION_ERROR);
+            assertEquals(sent.getVelocityX(id), received.getVelocityX(id), VELOCITY_ERROR);
+            assertEquals(sent.getVelocityY(id), received.getVelocityY(id), VELOCITY_ERROR);
+        }
+    }
+
+    /**
+     * Snapshots can be written one after another in the same buffer.
+     */
+    @Test
+    public void testEncodeInBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(SnapshotCodec.SNAPSHOT_SIZE * 2);
+        Snapshot sent = newSnapshot();
+        SnapshotCodec.encode(sent, buffer);
+        sent.setTick(sent.getTick() + 1);
+        SnapshotCodec.encode(sent, buffer);
+        assertFalse(buffer.hasRemaining());
+
+        buffer.flip();
+        Snapshot received = new Snapshot();
+        SnapshotCodec.decode(buffer, received);
+        SnapshotCodec.decode(buffer, received);
+        assertEquals(sent.getTick(), received.getTick());
+    }
+
+    /**
+     * Values out of range are clamped instead of wrapping around.
+     */
+    @Test
+    public void testOutOfRangeIsClamped() {
+        Snapshot sent = new Snapshot();
+        sent.setEntity(Snapshot.BALL, 0, 0, 1e6, -1e6);
+
+        Snapshot received = new Snapshot();
+        SnapshotCodec.decode(SnapshotCodec.encode(sent), received);
+
+        assertTrue(received.getVelocityX(Snapshot.BALL) > 4000);
+        assertTrue(received.getVelocityY(Snapshot.BALL) < -4000);
+    }
+
+    /**
+     * The spawn message carries the kind and position of each entity.
+     */
+    @Test
+    public void testSpawn() {
+        byte[] message = PongProtocol.encodeSpawn(newSnapshot(), Snapshot.BAT_TWO);
+        assertEquals(PongProtocol.SPAWN, PongProtocol.typeOf(message));
+        assertEquals(Snapshot.BAT_TWO, PongProtocol.spawnLocalBat(message));
+
+        Snapshot received = new Snapshot();
+        byte[] kinds = PongProtocol.decodeSpawn(message, received);
+
+        assertEquals(PongProtocol.KIND_BALL, kinds[Snapshot.BALL]);
+        assertEquals(PongProtocol.KIND_BAT, kinds[Snapshot.BAT_ONE]);
+        assertEquals(PongProtocol.KIND_BAT, kinds[Snapshot.BAT_TWO]);
+        assertEquals(580, received.getX(Snapshot.BAT_TWO), POSITION_ERROR);
+    }
+
+    /**
+     * Input messages carry the key code and the pressed flag.
+     */
+    @Test
+    public void testInput() {
+        byte[] message = PongProtocol.encodeInput(38, true);
+
+        assertEquals(PongProtocol.INPUT_SIZE, message.length);
+        assertEquals(PongProtocol.INPUT, PongProtocol.typeOf(message));
+        assertEquals(38, PongProtocol.inputKeyCode(message));
+        assertTrue(PongProtocol.inputPressed(message));
+        assertFalse(PongProtocol.inputPressed(PongProtocol.encodeInput(38, false)));
+    }
+
+    /**
+     * A delta with nothing changed is only its header.
+     */
+    @Test
+    public void testDeltaWithoutChange() {
+        Snapshot baseline = newSnapshot();
+        Snapshot current = newSnapshot();
+        current.setTick(baseline.getTick() + 3);
+
+        byte[] message = SnapshotCodec.encode(current, baseline);
+        assertEquals(PongProtocol.DELTA, PongProtocol.typeOf(message));
+        assertEquals(SnapshotCodec.DELTA_HEADER_SIZE, message.length);
+        assertEquals(current.getTick(), SnapshotCodec.tickOf(message));
+        assertEquals(baseline.getTick(), SnapshotCodec.baselineTickOf(message));
+
+        Snapshot received = new Snapshot();
+        SnapshotCodec.decodeDelta(message, baseline, received);
+        assertEquals(current.getTick(), received.getTick());
+        assertEquals(baseline.getX(Snapshot.BALL), received.getX(Snapshot.BALL));
+    }
+
+    /**
+     * Only the changed fields are sent, the others come from the baseline.
+     */
+    @Test
+    public void testDeltaRoundTrip() {
+        Snapshot baseline = newSnapshot();
+        Snapshot current = newSnapshot();
+        current.setTick(baseline.getTick() + 1);
+        current.setScores(8, 11);
+        current.setEntity(Snapshot.BALL, 400.5, 17.9, 300, -312.44);
+        current.setInputSequence(2, 4250);
+
+        byte[] message = SnapshotCodec.encode(current, baseline);
+        // One score, two positions and one input
+        assertEquals(SnapshotCodec.DELTA_HEADER_SIZE + 1 + 4 + 4, message.length);
+
+        Snapshot received = new Snapshot();
+        SnapshotCodec.decodeDelta(message, baseline, received);
+
+        assertEquals(8, received.getPlayerOneScore());
+        assertEquals(11, received.getPlayerTwoScore());
+        assertEquals(PongProtocol.NO_INPUT, received.getInputSequence(1));
+        assertEquals(4250, received.getInputSequence(2));
+        for (int id = 0; id < Snapshot.ENTITY_COUNT; id++) {
+            assertEquals(current.getX(id), received.getX(id), POSITION_ERROR);
+            assertEquals(current.getY(id), received.getY(id), POSITION_ERROR);
+            assertEquals(current.getVelocityX(id), received.getVelocityX(id), VELOCITY_ERROR);
+            assertEquals(current.getVelocityY(id), received.getVelocityY(id), VELOCITY_ERROR);
+        }
+    }
+
+    /**
+     * Without a baseline the full snapshot is sent.
+     */
+    @Test
+    public void testKeyframeWithoutBaseline() {
+        byte[] message = SnapshotCodec.encode(newSnapshot(), (Snapshot) null);
+        assertEquals(PongProtocol.SNAPSHOT, PongProtocol.typeOf(message));
+        assertEquals(SnapshotCodec.SNAPSHOT_SIZE, message.length);
+    }
+
+    /**
+     * The history only returns ticks it still keeps.
+     */
+    @Test
+    public void testHistory() {
+        SnapshotHistory history = new SnapshotHistory(4);
+        Snapshot snapshot = newSnapshot();
+        for (int tick = 0; tick < 6; tick++) {
+            snapshot.setTick(tick);
+            history.store(snapshot);
+        }
+
+        assertNull(history.get(PongProtocol.NO_ACK));
+        assertNull(history.get(1));
+        assertEquals(2, history.get(2).getTick());
+        assertEquals(5, history.get(5).getTick());
+        assertNull(history.get(6));
+
+        // The stored snapshot is a copy
+        snapshot.setScores(0, 0);
+        assertEquals(7, history.get(5).getPlayerOneScore());
+    }
+
+    /**
+     * Commands carry their sequence, direction and exact duration.
+     */
+    @Test
+    public void testCommand() {
+        float dt = 1 / 60f;
+        byte[] message = PongProtocol.encodeCommand(77, -1, dt);
+
+        assertEquals(PongProtocol.COMMAND_SIZE, message.length);
+        assertEquals(PongProtocol.COMMAND, PongProtocol.typeOf(message));
+        assertEquals(77, PongProtocol.commandSequence(message));
+        assertEquals(-1, PongProtocol.commandDirection(message));
+        assertEquals(dt, PongProtocol.commandDt(message));
+    }
+
+    /**
+     * Acks carry the tick of the applied snapshot.
+     */
+    @Test
+    public void testAck() {
+        byte[] message = PongProtocol.encodeAck(987654);
+        assertEquals(PongProtocol.ACK, PongProtocol.typeOf(message));
+        assertEquals(987654, PongProtocol.ackTick(message));
+    }
+}
@@ -0,0 +1,118 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.network.Snapshot;
+import com.mycompany.datacomprojectTwo.network.SnapshotInterpolator;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the client snapshot interpolation.
+ */
+public class SnapshotInterpolatorTest {
+
+    // Ball speed in the snapshots (pixels per second)
+    private static final double SPEED = 300;
+
+    // Snapshot and render rates of the tests
+    private static final double SNAPSHOT_DT = 1.0 / 20;
+    private static final double FRAME_DT = 1.0 / 144;
+
+    private static final double DELAY = 0.1;
+    private static final double MAX_EXTRAPOLATION = 0.05;
+
+    /**
+     * Snapshot of a ball moving right at SPEED.
+     */
+    private static Snapshot ballAt(double time) {
+        Snapshot snapshot = new Snapshot();
+        snapshot.setEntity(Snapshot.BALL, 100 + SPEED * time, 200, SPEED, 0);
+        return snapshot;
+    }
+
+    /**
+     * Rendered at 144 Hz from 20 Hz snapshots, the ball moves forward
+     * every frame by about one frame of motion, without stops or jumps.
+     */
+    @Test
+    public void testSmoothAtHighFrameRate() {
+        SnapshotInterpolator interpolator = new SnapshotInterpolator(DELAY, MAX_EXTRAPOLATION);
+
+        double time = 0;
+        double nextSnapshot = 0;
+        double previousX = Double.NaN;
+        for (int frame = 0; frame < 144 * 3; frame++) {
+            while (nextSnapshot <= time) {
+                interpolator.add(ballAt(nextSnapshot), nextSnapshot);
+                nextSnapshot += SNAPSHOT_DT;
+            }
+            interpolator.update(FRAME_DT);
+            time += FRAME_DT;
+
+            double x = interpolator.getX(Snapshot.BALL);
+            // The first DELAY holds the first snapshot
+            if (time > 2 * DELAY) {
+                double step = x - previousX;
+                assertTrue(step > 0.5 * SPEED * FRAME_DT && step < 1.5 * SPEED * FRAME_DT,
+                        "Frame " + frame + " moved " + step);
+            }
+            previousX = x;
+        }
+
+        // Shown about DELAY behind the newest snapshot
+        assertEquals(100 + SPEED * (time - DELAY), interpolator.getX(Snapshot.BALL), SPEED * SNAPSHOT_DT);
+    }
+
+    /**
+     * Between two snapshots the position is interpolated linearly.
+     */
+    @Test
+    public void testInterpolatesBetweenSnapshots() {
+        SnapshotInterpolator interpolator = new SnapshotInterpolator(0.05, MAX_EXTRAPOLATION);
+        interpolator.add(ballAt(0), 0);
+        interpolator.add(ballAt(0.1), 0.1);
+
+        // Rendered time starts at -0.05 and is pulled to 0.05
+        for (int i = 0; i < 1000; i++) {
+            interpolator.update(0.0001);
+        }
+        double renderTime = interpolator.getRenderTime();
+        assertTrue(renderTime > 0 && renderTime < 0.1, "Rendered at " + renderTime);
+        assertEquals(100 + SPEED * renderTime, interpolator.getX(Snapshot.BALL), 0.01);
+        assertEquals(200, interpolator.getY(Snapshot.BALL), 0.01);
+    }
+
+    /**
+     * When the snapshots stop, the ball is extrapolated with its
+     * velocity for MAX_EXTRAPOLATION at most, then holds.
+     */
+    @Test
+    public void testExtrapolationIsBounded() {
+        SnapshotInterpolator interpolator = new SnapshotInterpolator(DELAY, MAX_EXTRAPOLATION);
+        interpolator.add(ballAt(0), 0);
+        interpolator.add(ballAt(SNAPSHOT_DT), SNAPSHOT_DT);
+
+        // No snapshot for a second
+        for (int frame = 0; frame < 144; frame++) {
+            interpolator.update(FRAME_DT);
+        }
+
+        assertTrue(interpolator.getRenderTime() > SNAPSHOT_DT + MAX_EXTRAPOLATION);
+        assertEquals(100 + SPEED * (SNAPSHOT_DT + MAX_EXTRAPOLATION), interpolator.getX(Snapshot.BALL), 0.01);
+    }
+
+    /**
+     * Snapshots older than the newest one are ignored.
+     */
+    @Test
+    public void testIgnoresOldSnapshots() {
+        SnapshotInterpolator interpolator = new SnapshotInterpolator(0, 0);
+        assertFalse(interpolator.hasSnapshot());
+
+        interpolator.add(ballAt(1), 1);
+        interpolator.add(ballAt(0.5), 0.5);
+        interpolator.update(0);
+
+        assertTrue(interpolator.hasSnapshot());
+        assertEquals(100 + SPEED, interpolator.getX(Snapshot.BALL), 0.01);
+    }
+}
@@ -0,0 +1,131 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.crypto.ChunkedCrypto;
+import com.mycompany.datacomprojectTwo.crypto.SymmetricCrypto;
+import static com.mycompany.datacomprojectTwo.crypto.CryptoConfig.ALGORITHM;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Random;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the speed in MB/s of encrypting and decrypting files of several
+ * sizes with the former SymmetricCrypto loop (64-byte reads from a
+ * FileInputStream, one Cipher.update each), with the FileChannel
+ * chunks, and with the ChunkedCrypto container (chunks sealed in parallel,
+ * named "parallel"). Each case runs once to warm up, then is timed. It is skipped by
+ * default, run it with:
+ * mvn test -Dtest=SymmetricCryptoBenchmark -Dpong.benchmark=true
+ */
+@EnabledIfSystemProperty(named = "pong.benchmark", matches = "true")
+public class SymmetricCryptoBenchmark {
+
+    // File sizes measured, in MB
+    private static final int[] SIZES_MB = {1, 16, 64};
+
+    // Chunk sizes of the FileChannel path
+    private static final int[] CHUNK_SIZES = {64 * 1024, 1 << 20, 8 << 20};
+
+    /**
+     * The former encryptFile and decryptFile loop.
+     */
+    private static void streamIn64Bytes(Cipher cipher, Path input, Path output) throws Exception {
+        try (FileInputStream inputStream = new FileInputStream(input.toFile());
+                FileOutputStream outputStream = new FileOutputStream(output.toFile())) {
+            byte[] buffer = new byte[64];
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                byte[] result = cipher.update(buffer, 0, bytesRead);
+                if (result != null) {
+                    outputStream.write(result);
+                }
+            }
+            byte[] result = cipher.doFinal();
+            if (result != null) {
+                outputStream.write(result);
+            }
+        }
+    }
+
+    /**
+     * A file operation timed by the benchmark.
+     */
+    private interface FileTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * Run a task once to warm up, then time it.
+     * @return MB per second
+     */
+    private static double megabytesPerSecond(int megabytes, FileTask task) throws Exception {
+        task.run();
+        long start = System.nanoTime();
+        task.run();
+        return megabytes / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Print the encrypt and decrypt MB/s of every size and chunk size.
+     * @param folder temporary folder of the files
+     * @throws Exception
+     */
+    @Test
+    public void testStreamsVersusChannels(@TempDir Path folder) throws Exception {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        SecretKey key = generator.generateKey();
+        SecureRandom random = new SecureRandom();
+        byte[] iv = new byte[SymmetricCrypto.GCM_IV_LENGTH];
+
+        SymmetricCrypto crypto = new SymmetricCrypto(key);
+        crypto.readOrStoreGCMIV();
+
+        System.out.printf("%-8s %-10s %14s %14s%n", "size", "path", "encrypt MB/s", "decrypt MB/s");
+        for (int megabytes : SIZES_MB) {
+            byte[] data = new byte[megabytes << 20];
+            new Random(megabytes).nextBytes(data);
+            Path plain = Files.write(folder.resolve("plain"), data);
+            Path encrypted = folder.resolve("plain.enc");
+            Path decrypted = folder.resolve("plain.dec");
+
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            double encrypt = megabytesPerSecond(megabytes, () -> {
+                // A GCM cipher refuses to encrypt twice with the same IV
+                random.nextBytes(iv);
+                cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(SymmetricCrypto.GCM_TAG_LENGTH * 8, iv));
+                streamIn64Bytes(cipher, plain, encrypted);
+            });
+            double decrypt = megabytesPerSecond(megabytes, () -> {
+                cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(SymmetricCrypto.GCM_TAG_LENGTH * 8, iv));
+                streamIn64Bytes(cipher, encrypted, decrypted);
+            });
+            assertEquals(data.length, Files.size(decrypted));
+            System.out.printf("%-8s %-10s %14.1f %14.1f%n", megabytes + " MB", "64 B", encrypt, decrypt);
+
+            for (int chunkSize : CHUNK_SIZES) {
+                encrypt = megabytesPerSecond(megabytes, () -> crypto.encryptFile(plain, encrypted, chunkSize));
+                decrypt = megabytesPerSecond(megabytes, () -> crypto.decryptFile(encrypted, decrypted, chunkSize));
+                assertArrayEquals(data, Files.readAllBytes(decrypted));
+                System.out.printf("%-8s %-10s %14.1f %14.1f%n", megabytes + " MB", (chunkSize >> 10) + " KB",
+                        encrypt, decrypt);
+            }
+
+            ChunkedCrypto chunked = new ChunkedCrypto(key);
+            encrypt = megabytesPerSecond(megabytes, () -> chunked.encryptFile(plain, encrypted));
+            decrypt = megabytesPerSecond(megabytes, () -> chunked.decryptFile(encrypted, decrypted));
+            assertArrayEquals(data, Files.readAllBytes(decrypted));
+            System.out.printf("%-8s %-10s %14.1f %14.1f%n", megabytes + " MB", "parallel", encrypt, decrypt);
+        }
+    }
+}
@@ -13,7 +13,12 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import javax.crypto.AEADBadTagException;
 import javax.crypto.SecretKey;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * The SymmetricCryptoTest class tests the readOrStoreGCMIV, encryptFile and 
@@ -27,13 +32,13 @@ public class SymmetricCryptoTest {
     private SymmetricCrypto symmCrypto;
 
     /**
-     * Runs once before all tests. It performs the keytool command to generate and store a SecretKey.
+     * Runs once before all tests. It creates the keyStore to generate and store a SecretKey.
      * The method then retrieves the key which will be used for encryption and decryption.
      * @throws Exception
      */
     @BeforeAll
     public static void initEncryption() throws Exception {
-        PongKeyStore keyStore = new PongKeyStore(TESTING_PASSWORD.toCharArray(), KEY_TOOL_CMD);
+        PongKeyStore keyStore = new PongKeyStore(TESTING_PASSWORD.toCharArray());
         keyStore.createAndStoreKeys();
         key = keyStore.getSecretKey();
     }
@@ -144,5 +149,37 @@ public class SymmetricCryptoTest {
         // compares both strings (original file and decrypted file)
         assertEquals(fileContent, decFileContent);
     }
+
+    /**
+     * Encrypting in small chunks gives the same file as in one chunk, which
+     * decrypts back to the original; a changed byte fails the tag check.
+     * @param folder temporary folder of the files
+     * @throws Exception
+     */
+    @Test
+    public void testStreamInChunks(@TempDir Path folder) throws Exception {
+        symmCrypto = new SymmetricCrypto(key);
+        symmCrypto.readOrStoreGCMIV();
+
+        byte[] data = new byte[100_003];
+        new Random(7).nextBytes(data);
+        Path plain = Files.write(folder.resolve("replay"), data);
+        Path whole = folder.resolve("replay.whole.enc");
+        Path chunked = folder.resolve("replay.enc");
+        Path decrypted = folder.resolve("replay.dec");
+
+        symmCrypto.encryptFile(plain, whole, data.length + 1);
+        symmCrypto.encryptFile(plain, chunked, 4096);
+        assertArrayEquals(Files.readAllBytes(whole), Files.readAllBytes(chunked));
+        assertEquals(data.length + SymmetricCrypto.GCM_TAG_LENGTH, Files.size(chunked));
+
+        symmCrypto.decryptFile(chunked, decrypted, 777);
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+
+        byte[] changed = Files.readAllBytes(chunked);
+        changed[50_000] ^= 1;
+        Files.write(chunked, changed);
+        assertThrows(AEADBadTagException.class, () -> symmCrypto.decryptFile(chunked, decrypted, 4096));
+    }
    
 }
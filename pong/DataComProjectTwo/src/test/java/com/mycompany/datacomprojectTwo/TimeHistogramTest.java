@@ -0,0 +1,60 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.server.TimeHistogram;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the percentiles of the TimeHistogram.
+ */
+public class TimeHistogramTest {
+
+    /**
+     * Percentiles are never below the true value and at most about 3%
+     * above, from nanoseconds to seconds.
+     */
+    @Test
+    public void testPercentiles() {
+        TimeHistogram histogram = new TimeHistogram();
+        assertEquals(0, histogram.getPercentile(0.5));
+
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos * 10_000);
+        }
+        assertEquals(100_000, histogram.getCount());
+
+        for (double quantile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            long expected = (long) (quantile * 100_000) * 10_000;
+            long percentile = histogram.getPercentile(quantile);
+            assertTrue(percentile >= expected && percentile <= expected * 1.035,
+                    quantile + ": " + percentile + " for " + expected);
+        }
+        assertTrue(histogram.getMax() >= 1_000_000_000L);
+
+        // Small values are exact
+        TimeHistogram small = new TimeHistogram();
+        small.record(3);
+        small.record(-5);
+        assertEquals(0, small.getPercentile(0.5));
+        assertEquals(3, small.getMax());
+    }
+
+    /**
+     * Draining moves every count and empties the source.
+     */
+    @Test
+    public void testDrain() {
+        TimeHistogram source = new TimeHistogram();
+        TimeHistogram target = new TimeHistogram();
+        for (int i = 0; i < 1000; i++) {
+            source.record(i * 1000L);
+            target.record(5_000_000L);
+        }
+
+        source.drainTo(target);
+        assertEquals(0, source.getCount());
+        assertEquals(2000, target.getCount());
+        assertTrue(target.getPercentile(0.5) < 1_000_000L);
+        assertTrue(target.getPercentile(0.51) >= 5_000_000L);
+    }
+}
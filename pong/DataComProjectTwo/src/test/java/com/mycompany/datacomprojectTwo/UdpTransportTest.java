@@ -0,0 +1,108 @@
+package com.mycompany.datacomprojectTwo;
+
+import com.mycompany.datacomprojectTwo.network.LossyLink;
+import com.mycompany.datacomprojectTwo.network.PongProtocol;
+import com.mycompany.datacomprojectTwo.network.UdpTransport;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the UDP transport on loopback, with a LossyLink dropping and
+ * delaying the packets in both directions.
+ */
+public class UdpTransportTest {
+
+    // Messages sent on each channel
+    private static final int MESSAGES = 200;
+
+    // Packets dropped in each direction
+    private static final double LOSS_RATE = 0.3;
+
+    // One way delay
+    private static final long LATENCY_MILLIS = 20;
+
+    private UdpTransport server;
+    private UdpTransport client;
+    private LossyLink serverLink;
+    private LossyLink clientLink;
+
+    // Messages received by the server
+    private final List<byte[]> received = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = UdpTransport.listen(0);
+        server.setOnMessage(received::add);
+        client = UdpTransport.connect("127.0.0.1", server.getLocalPort());
+
+        // The server learns the client address from this first packet
+        client.sendUnreliable(PongProtocol.encodeJoin());
+        waitFor(() -> server.isConnected());
+        received.clear();
+
+        serverLink = new LossyLink(server.getSocketLink(), LOSS_RATE, LATENCY_MILLIS, 1);
+        clientLink = new LossyLink(client.getSocketLink(), LOSS_RATE, LATENCY_MILLIS, 2);
+        server.setLink(serverLink);
+        client.setLink(clientLink);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        serverLink.close();
+        clientLink.close();
+        server.close();
+        client.close();
+    }
+
+    private static byte[] numbered(int number) {
+        return ByteBuffer.allocate(4).putInt(number).array();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Every reliable message arrives once and in order despite the loss.
+     * @throws InterruptedException
+     */
+    @Test
+    public void testReliableMessagesArriveInOrder() throws InterruptedException {
+        for (int i = 0; i < MESSAGES; i++) {
+            client.sendReliable(numbered(i));
+        }
+
+        waitFor(() -> received.size() >= MESSAGES && client.getUnackedCount() == 0);
+
+        assertEquals(MESSAGES, received.size());
+        for (int i = 0; i < MESSAGES; i++) {
+            assertEquals(i, ByteBuffer.wrap(received.get(i)).getInt());
+        }
+        assertEquals(0, client.getUnackedCount());
+    }
+
+    /**
+     * Unreliable messages are not sent again: about LOSS_RATE of them are
+     * lost.
+     * @throws InterruptedException
+     */
+    @Test
+    public void testUnreliableMessagesAreLost() throws InterruptedException {
+        for (int i = 0; i < MESSAGES; i++) {
+            client.sendUnreliable(numbered(i));
+        }
+        Thread.sleep(LATENCY_MILLIS * 10);
+
+        assertTrue(received.size() < MESSAGES * 0.9, "received " + received.size());
+        assertTrue(received.size() > MESSAGES * 0.5, "received " + received.size());
+    }
+}